@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.outbound;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.integration.cassandra.config.IntegrationTestConfig;
+import org.springframework.integration.cassandra.test.domain.Book;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+
+/**
+ * Measures the per-message cost of binding the {@code query} variables of the
+ * {@link CassandraMessageHandler}: the {@code legacy} variant is the former name-based
+ * lookup into an {@code Object[]}, the {@code plan} variant is the
+ * {@link StatementBindingPlan}. The statement is prepared against an embedded Cassandra,
+ * but never executed. Run with {@code -prof gc} to compare the allocation rates.
+ *
+ * @since 0.5.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementBindingBenchmark {
+
+	private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+	@Param({ "legacy", "plan" })
+	private String binding;
+
+	private final Map<String, Expression> parameterExpressions = new HashMap<>();
+
+	private final EvaluationContext evaluationContext = new StandardEvaluationContext();
+
+	private Cluster cluster;
+
+	private PreparedStatement preparedStatement;
+
+	private StatementBindingPlan bindingPlan;
+
+	private Message<Book> message;
+
+	@Setup
+	public void setup() throws Exception {
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra("spring-cassandra.yaml", "build/embeddedCassandra");
+		this.cluster = Cluster.builder()
+				.addContactPoint(IntegrationTestConfig.HOST)
+				.withPort(IntegrationTestConfig.PORT)
+				.build();
+		Session session = this.cluster.connect();
+		session.execute("CREATE KEYSPACE IF NOT EXISTS binding WITH replication = " +
+				"{'class': 'SimpleStrategy', 'replication_factor': 1}");
+		session.execute("CREATE TABLE IF NOT EXISTS binding.book (isbn text PRIMARY KEY, title text, " +
+				"author text, pages int, saleDate timestamp, isInStock boolean)");
+		this.preparedStatement = session.prepare("INSERT INTO binding.book " +
+				"(isbn, title, author, pages, saleDate, isInStock) " +
+				"VALUES (:isbn, :title, :author, :pages, :saleDate, :isInStock)");
+
+		this.parameterExpressions.put("isbn", PARSER.parseExpression("payload.isbn"));
+		this.parameterExpressions.put("title", PARSER.parseExpression("payload.title"));
+		this.parameterExpressions.put("author", PARSER.parseExpression("headers.author"));
+		this.parameterExpressions.put("pages", PARSER.parseExpression("payload.pages"));
+		this.parameterExpressions.put("saleDate", PARSER.parseExpression("payload.saleDate"));
+		this.parameterExpressions.put("isInStock", PARSER.parseExpression("payload.inStock"));
+
+		this.bindingPlan = new StatementBindingPlan(this.preparedStatement, this.parameterExpressions);
+
+		Book book = new Book();
+		book.setIsbn("123456-1");
+		book.setTitle("Spring Integration Cassandra");
+		book.setPages(521);
+		book.setSaleDate(new Date());
+		book.setInStock(true);
+		this.message = MessageBuilder.withPayload(book)
+				.setHeader("author", "Cassandra Guru")
+				.build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.cluster.close();
+		EmbeddedCassandraServerHelper.cleanEmbeddedCassandra();
+	}
+
+	@Benchmark
+	public Statement bind() {
+		if ("plan".equals(this.binding)) {
+			return this.bindingPlan.bind(this.message, this.evaluationContext);
+		}
+		else {
+			return legacyBind(this.message);
+		}
+	}
+
+	private Statement legacyBind(Message<?> message) {
+		ColumnDefinitions variables = this.preparedStatement.getVariables();
+		List<Object> values = new ArrayList<>(variables.size());
+		Map<String, Object> valueMap = new HashMap<>(variables.size());
+		for (ColumnDefinitions.Definition definition : variables) {
+			String name = definition.getName();
+			Object value = valueMap.get(name);
+			if (value == null) {
+				Expression expression = this.parameterExpressions.get(name);
+				Assert.state(expression != null, "No expression for parameter: " + name);
+				value = expression.getValue(this.evaluationContext, message);
+				valueMap.put(name, value);
+			}
+			values.add(value);
+		}
+		return this.preparedStatement.bind(values.toArray());
+	}
+
+}
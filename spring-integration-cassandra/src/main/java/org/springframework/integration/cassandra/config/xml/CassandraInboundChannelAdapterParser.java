@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.config.xml;
+
+import org.w3c.dom.Element;
+
+import org.springframework.beans.BeanMetadataElement;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.xml.ParserContext;
+import org.springframework.integration.cassandra.inbound.CassandraMessageSource;
+import org.springframework.integration.config.xml.AbstractPollingInboundChannelAdapterParser;
+import org.springframework.util.StringUtils;
+
+/**
+ * The parser for the {@code <int-cassandra:inbound-channel-adapter/>}.
+ *
+ * @since 0.5.1
+ */
+public class CassandraInboundChannelAdapterParser extends AbstractPollingInboundChannelAdapterParser {
+
+	@Override
+	protected BeanMetadataElement parseSource(Element element, ParserContext parserContext) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(CassandraMessageSource.class);
+		CassandraParserUtils.processInboundAttributes(element, parserContext, builder);
+		String id = element.getAttribute(ID_ATTRIBUTE);
+		if (!element.hasAttribute("metadata-key") && StringUtils.hasText(id)) {
+			// the source is an inner bean, so default the key to the adapter id rather than a generated name
+			builder.addPropertyValue("metadataKey", "cassandra:inbound-channel-adapter." + id);
+		}
+		return builder.getBeanDefinition();
+	}
+
+}
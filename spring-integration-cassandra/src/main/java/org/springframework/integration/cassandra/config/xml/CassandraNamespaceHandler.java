@@ -28,6 +28,8 @@ public class CassandraNamespaceHandler extends AbstractIntegrationNamespaceHandl
 	public void init() {
 		registerBeanDefinitionParser("outbound-channel-adapter", new CassandraOutboundChannelAdapterParser());
 		registerBeanDefinitionParser("outbound-gateway", new CassandraOutboundGatewayParser());
+		registerBeanDefinitionParser("inbound-channel-adapter", new CassandraInboundChannelAdapterParser());
+		registerBeanDefinitionParser("message-driven-channel-adapter", new CassandraMessageDrivenChannelAdapterParser());
 	}
 
 }
@@ -66,7 +66,17 @@ public class CassandraParserUtils {
 
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "write-options");
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "ingest-query");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "ingest-delimiter");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "ingest-charset");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "ingest-progress-interval");
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "query");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "async-execution");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "max-in-flight");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "error-channel");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "callback-executor");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "batch-size");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "batch-linger");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "task-scheduler");
 
 		List<Element> parameterExpressions = DomUtils.getChildElementsByTagName(element, "parameter-expression");
 		if (!CollectionUtils.isEmpty(parameterExpressions)) {
@@ -85,6 +95,37 @@ public class CassandraParserUtils {
 
 	}
 
+	public static void processInboundAttributes(Element element, ParserContext parserContext,
+			BeanDefinitionBuilder builder) {
+
+		String cassandraTemplate = element.getAttribute("cassandra-template");
+		String query = element.getAttribute("query");
+		String statement = element.getAttribute("statement");
+
+		if (StringUtils.isEmpty(cassandraTemplate)) {
+			parserContext.getReaderContext().error("cassandra-template is required", element);
+		}
+
+		if (StringUtils.hasText(query) == StringUtils.hasText(statement)) {
+			parserContext.getReaderContext().error("exactly one of 'query' or 'statement' is required", element);
+		}
+
+		builder.addConstructorArgReference(cassandraTemplate);
+		if (StringUtils.hasText(query)) {
+			builder.addConstructorArgValue(query);
+		}
+		else {
+			builder.addConstructorArgReference(statement);
+		}
+
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "entity-class");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "fetch-size");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "batch-size");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "metadata-store");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "metadata-key");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "restart-on-completion");
+	}
+
 	public static boolean areMutuallyExclusive(String query, BeanDefinition statementExpressionDef,
 											   String ingestQuery) {
 		return StringUtils.isEmpty(query) && statementExpressionDef == null && StringUtils.isEmpty(ingestQuery)
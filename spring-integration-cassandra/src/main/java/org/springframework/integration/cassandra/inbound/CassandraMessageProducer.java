@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.inbound;
+
+import java.util.List;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.endpoint.MessageProducerSupport;
+import org.springframework.integration.metadata.MetadataStore;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+import org.springframework.util.Assert;
+
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+
+/**
+ * A {@link MessageProducerSupport} which streams the rows of a query to the output
+ * channel once started: each row, or each list of up to {@link #setBatchSize(int) batchSize}
+ * rows, is sent as a message. The rows are mapped to the {@link #setEntityClass(Class) entityClass}
+ * with the converter of the template, or sent as {@link com.datastax.driver.core.Row}s.
+ * <p>
+ * The query is read in pages of {@link #setFetchSize(int) fetchSize} rows; the next page
+ * is fetched asynchronously while the current one is sent, and the paging state is
+ * stored in the {@link MetadataStore} once a page has been fully sent, so a stopped (or
+ * restarted) scan is resumed when the producer is started again. The scan runs at most
+ * once per start: a start while the previous scan is still winding down lets that scan
+ * carry on rather than launching a second one. The completion is stored, so the next
+ * starts send nothing until the metadata key is removed, unless
+ * {@link #setRestartOnCompletion(boolean) restartOnCompletion} is set, in which case
+ * each start after a completed scan starts a new one.
+ *
+ * @param <T> the entity type.
+ *
+ * @since 0.5.1
+ */
+public class CassandraMessageProducer<T> extends MessageProducerSupport {
+
+	private final CassandraOperations cassandraTemplate;
+
+	private final Statement statement;
+
+	private Class<T> entityClass;
+
+	private int fetchSize = CassandraMessageSource.DEFAULT_FETCH_SIZE;
+
+	private int batchSize = 1;
+
+	private MetadataStore metadataStore;
+
+	private String metadataKey;
+
+	private TaskExecutor taskExecutor;
+
+	private boolean restartOnCompletion;
+
+	private PagedRowReader rowReader;
+
+	private final Object scanMonitor = new Object();
+
+	private volatile boolean active;
+
+	private boolean scanning;
+
+	public CassandraMessageProducer(CassandraOperations cassandraTemplate, String query) {
+		this(cassandraTemplate, new SimpleStatement(query));
+	}
+
+	public CassandraMessageProducer(CassandraOperations cassandraTemplate, Statement statement) {
+		Assert.notNull(cassandraTemplate, "'cassandraTemplate' must not be null.");
+		Assert.notNull(statement, "'statement' must not be null.");
+		this.cassandraTemplate = cassandraTemplate;
+		this.statement = statement;
+	}
+
+	/**
+	 * Set the class to map the rows to; the rows are sent as is by default.
+	 * @param entityClass the entity class.
+	 */
+	public void setEntityClass(Class<T> entityClass) {
+		this.entityClass = entityClass;
+	}
+
+	/**
+	 * Set the number of rows to fetch per page. Defaults to
+	 * {@link CassandraMessageSource#DEFAULT_FETCH_SIZE}.
+	 * @param fetchSize the fetch size.
+	 */
+	public void setFetchSize(int fetchSize) {
+		Assert.isTrue(fetchSize > 0, "'fetchSize' must be greater than 0");
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Set the maximum number of rows to send per message as a list. Defaults to 1, i.e.
+	 * each row is sent as its own message.
+	 * @param batchSize the batch size.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Set the {@link MetadataStore} to store the paging state in. Defaults to the
+	 * {@code metadataStore} bean, or an in-memory store if there is none.
+	 * @param metadataStore the metadata store.
+	 */
+	public void setMetadataStore(MetadataStore metadataStore) {
+		this.metadataStore = metadataStore;
+	}
+
+	/**
+	 * Set the key of the paging state in the {@link MetadataStore}. Defaults to
+	 * {@code <componentType>.<componentName>}.
+	 * @param metadataKey the metadata key.
+	 */
+	public void setMetadataKey(String metadataKey) {
+		this.metadataKey = metadataKey;
+	}
+
+	/**
+	 * Set the {@link TaskExecutor} to run the scan on. Defaults to a
+	 * {@link SimpleAsyncTaskExecutor}.
+	 * @param taskExecutor the task executor.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		Assert.notNull(taskExecutor, "'taskExecutor' must not be null.");
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Set to {@code true} to start a new scan on the start after a completed one.
+	 * Defaults to {@code false}: the completion is terminal.
+	 * @param restartOnCompletion the restart on completion flag.
+	 */
+	public void setRestartOnCompletion(boolean restartOnCompletion) {
+		this.restartOnCompletion = restartOnCompletion;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "cassandra:message-driven-channel-adapter";
+	}
+
+	@Override
+	protected void onInit() {
+		super.onInit();
+		if (this.metadataStore == null) {
+			this.metadataStore = IntegrationContextUtils.getMetadataStore(getBeanFactory());
+			if (this.metadataStore == null) {
+				this.metadataStore = new SimpleMetadataStore();
+			}
+		}
+		if (this.metadataKey == null) {
+			this.metadataKey = getComponentType() + "." + getComponentName();
+		}
+		if (this.taskExecutor == null) {
+			this.taskExecutor = new SimpleAsyncTaskExecutor(getComponentName() + "-");
+		}
+		this.rowReader = new PagedRowReader(this.cassandraTemplate, this.statement, this.fetchSize,
+				this.entityClass, this.metadataStore, this.metadataKey, this.restartOnCompletion);
+	}
+
+	@Override
+	protected void doStart() {
+		synchronized (this.scanMonitor) {
+			this.active = true;
+			if (this.scanning) {
+				// the previous scan hasn't exited yet: it carries on
+				return;
+			}
+			this.scanning = true;
+		}
+		try {
+			this.taskExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					scan();
+				}
+
+			});
+		}
+		catch (RuntimeException e) {
+			synchronized (this.scanMonitor) {
+				this.scanning = false;
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	protected void doStop() {
+		this.active = false;
+	}
+
+	private void scan() {
+		while (true) {
+			boolean completed = scanRows();
+			synchronized (this.scanMonitor) {
+				if (!completed && this.active) {
+					// restarted after the stop had been noticed
+					continue;
+				}
+				this.rowReader.close();
+				this.scanning = false;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Send the rows while the producer is active.
+	 * @return true if the scan is completed or failed, false if it was stopped.
+	 */
+	private boolean scanRows() {
+		boolean completed = false;
+		try {
+			while (this.active && !completed) {
+				Object payload;
+				if (this.batchSize == 1) {
+					payload = this.rowReader.next();
+					completed = payload == null;
+				}
+				else {
+					List<Object> rows = this.rowReader.next(this.batchSize);
+					completed = rows.size() < this.batchSize;
+					payload = rows.isEmpty() ? null : rows;
+				}
+				if (payload != null) {
+					sendMessage(getMessageBuilderFactory().withPayload(payload).build());
+				}
+			}
+		}
+		catch (Exception e) {
+			logger.error("The scan of '" + this.metadataKey + "' failed; it is resumed on the next start", e);
+			completed = true;
+		}
+		return completed;
+	}
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.inbound;
+
+import java.util.List;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.endpoint.AbstractMessageSource;
+import org.springframework.integration.metadata.MetadataStore;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+import org.springframework.util.Assert;
+
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+
+/**
+ * A polling {@link org.springframework.integration.core.MessageSource} which streams the
+ * rows of a query: each poll returns the next row, or a list of up to
+ * {@link #setBatchSize(int) batchSize} rows. The rows are mapped to the
+ * {@link #setEntityClass(Class) entityClass} with the converter of the template, or
+ * returned as {@link com.datastax.driver.core.Row}s.
+ * <p>
+ * The query is read in pages of {@link #setFetchSize(int) fetchSize} rows; the next page
+ * is fetched asynchronously while the current one is polled, and the paging state is
+ * stored in the {@link MetadataStore} once a page has been fully returned, so the scan is
+ * resumed after a restart. Once the scan is completed, i.e. a poll returns {@code null}
+ * or a list shorter than the {@code batchSize}, the completion is stored and the next
+ * polls return {@code null}, also after a restart, until the metadata key is removed.
+ * With {@link #setRestartOnCompletion(boolean) restartOnCompletion}, the next poll starts a
+ * new scan instead.
+ *
+ * @param <T> the entity type.
+ *
+ * @since 0.5.1
+ */
+public class CassandraMessageSource<T> extends AbstractMessageSource<Object> implements DisposableBean {
+
+	public static final int DEFAULT_FETCH_SIZE = 1000;
+
+	private final CassandraOperations cassandraTemplate;
+
+	private final Statement statement;
+
+	private Class<T> entityClass;
+
+	private int fetchSize = DEFAULT_FETCH_SIZE;
+
+	private int batchSize = 1;
+
+	private MetadataStore metadataStore;
+
+	private String metadataKey;
+
+	private boolean restartOnCompletion;
+
+	private PagedRowReader rowReader;
+
+	public CassandraMessageSource(CassandraOperations cassandraTemplate, String query) {
+		this(cassandraTemplate, new SimpleStatement(query));
+	}
+
+	public CassandraMessageSource(CassandraOperations cassandraTemplate, Statement statement) {
+		Assert.notNull(cassandraTemplate, "'cassandraTemplate' must not be null.");
+		Assert.notNull(statement, "'statement' must not be null.");
+		this.cassandraTemplate = cassandraTemplate;
+		this.statement = statement;
+	}
+
+	/**
+	 * Set the class to map the rows to; the rows are returned as is by default.
+	 * @param entityClass the entity class.
+	 */
+	public void setEntityClass(Class<T> entityClass) {
+		this.entityClass = entityClass;
+	}
+
+	/**
+	 * Set the number of rows to fetch per page. Defaults to {@link #DEFAULT_FETCH_SIZE}.
+	 * @param fetchSize the fetch size.
+	 */
+	public void setFetchSize(int fetchSize) {
+		Assert.isTrue(fetchSize > 0, "'fetchSize' must be greater than 0");
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Set the maximum number of rows to return per poll as a list. Defaults to 1, i.e.
+	 * each poll returns a single row.
+	 * @param batchSize the batch size.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Set the {@link MetadataStore} to store the paging state in. Defaults to the
+	 * {@code metadataStore} bean, or an in-memory store if there is none.
+	 * @param metadataStore the metadata store.
+	 */
+	public void setMetadataStore(MetadataStore metadataStore) {
+		this.metadataStore = metadataStore;
+	}
+
+	/**
+	 * Set the key of the paging state in the {@link MetadataStore}. Defaults to
+	 * {@code <componentType>.<componentName>}.
+	 * @param metadataKey the metadata key.
+	 */
+	public void setMetadataKey(String metadataKey) {
+		this.metadataKey = metadataKey;
+	}
+
+	/**
+	 * Set to {@code true} to start a new scan on the poll after a completed one.
+	 * Defaults to {@code false}: the completion is terminal.
+	 * @param restartOnCompletion the restart on completion flag.
+	 */
+	public void setRestartOnCompletion(boolean restartOnCompletion) {
+		this.restartOnCompletion = restartOnCompletion;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "cassandra:inbound-channel-adapter";
+	}
+
+	@Override
+	protected void onInit() throws Exception {
+		super.onInit();
+		if (this.metadataStore == null) {
+			this.metadataStore = IntegrationContextUtils.getMetadataStore(getBeanFactory());
+			if (this.metadataStore == null) {
+				this.metadataStore = new SimpleMetadataStore();
+			}
+		}
+		if (this.metadataKey == null) {
+			this.metadataKey = getComponentType() + "." + getComponentName();
+		}
+		this.rowReader = new PagedRowReader(this.cassandraTemplate, this.statement, this.fetchSize,
+				this.entityClass, this.metadataStore, this.metadataKey, this.restartOnCompletion);
+	}
+
+	@Override
+	protected Object doReceive() {
+		if (this.batchSize == 1) {
+			return this.rowReader.next();
+		}
+		List<Object> rows = this.rowReader.next(this.batchSize);
+		return rows.isEmpty() ? null : rows;
+	}
+
+	@Override
+	public void destroy() {
+		if (this.rowReader != null) {
+			this.rowReader.close();
+		}
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.inbound;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.data.cassandra.convert.CassandraConverter;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.integration.metadata.MetadataStore;
+
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.PagingStateException;
+
+/**
+ * Reads the rows of a {@link Statement} page by page, mapped to the entity class with the
+ * {@link CassandraConverter} of the template, if any.
+ * <p>
+ * The next page is requested asynchronously with the paging state of the current one as
+ * soon as the current page is received, so it is fetched while the rows of the current
+ * page are processed. Only the rows of the current page are ever read, and the paging
+ * state of the next page is stored in the {@link MetadataStore} once the current page is
+ * exhausted, so a restarted scan resumes with the first page which has not been fully
+ * read. When the scan is completed, the stored state is replaced with the
+ * {@link #SCAN_COMPLETED} marker, so the completion is terminal, even across restarts,
+ * until the key is removed from the {@link MetadataStore}; with {@code restartOnCompletion}
+ * the stored state is removed instead and the next call starts a new scan.
+ *
+ * @since 0.5.1
+ */
+class PagedRowReader {
+
+	/**
+	 * The value stored in the {@link MetadataStore} for a completed scan.
+	 */
+	static final String SCAN_COMPLETED = "completed";
+
+	private static final Log logger = LogFactory.getLog(PagedRowReader.class);
+
+	private final CassandraOperations cassandraTemplate;
+
+	private final Statement statement;
+
+	private final Class<?> entityClass;
+
+	private final MetadataStore metadataStore;
+
+	private final String metadataKey;
+
+	private final boolean restartOnCompletion;
+
+	private ResultSet page;
+
+	private ResultSetFuture nextPage;
+
+	private PagingState nextPagingState;
+
+	PagedRowReader(CassandraOperations cassandraTemplate, Statement statement, int fetchSize, Class<?> entityClass,
+			MetadataStore metadataStore, String metadataKey, boolean restartOnCompletion) {
+		this.cassandraTemplate = cassandraTemplate;
+		this.statement = statement;
+		this.statement.setFetchSize(fetchSize);
+		this.entityClass = entityClass;
+		this.metadataStore = metadataStore;
+		this.metadataKey = metadataKey;
+		this.restartOnCompletion = restartOnCompletion;
+	}
+
+	/**
+	 * Return the next (mapped) row of the scan, or {@code null} when the scan is completed; the
+	 * scan is started (or resumed) by the first call, and after a completed one only with
+	 * {@code restartOnCompletion}. The scan is abandoned on failure, so the next call resumes
+	 * it from the stored paging state.
+	 * @return the next row or {@code null}.
+	 */
+	synchronized Object next() {
+		try {
+			if (this.page == null && !start()) {
+				return null;
+			}
+			while (this.page.getAvailableWithoutFetching() == 0) {
+				if (!nextPage()) {
+					return null;
+				}
+			}
+			Row row = this.page.one();
+			return this.entityClass != null ? this.cassandraTemplate.getConverter().read(this.entityClass, row) : row;
+		}
+		catch (RuntimeException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Return up to {@code maxRows} (mapped) rows of the scan; the list is shorter only when
+	 * the scan is completed, and empty if no rows were left.
+	 * @param maxRows the maximum number of rows.
+	 * @return the rows.
+	 */
+	synchronized List<Object> next(int maxRows) {
+		List<Object> rows = new ArrayList<>(maxRows);
+		Object row;
+		while (rows.size() < maxRows && (row = next()) != null) {
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	/**
+	 * Abandon the current scan; the next call to {@link #next()} resumes it with the
+	 * first page which has not been fully read.
+	 */
+	synchronized void close() {
+		if (this.nextPage != null) {
+			this.nextPage.cancel(true);
+			this.nextPage = null;
+		}
+		this.page = null;
+	}
+
+	private boolean start() {
+		PagingState pagingState = null;
+		String storedState = this.metadataStore.get(this.metadataKey);
+		if (SCAN_COMPLETED.equals(storedState)) {
+			if (!this.restartOnCompletion) {
+				return false;
+			}
+			storedState = null;
+		}
+		if (storedState != null) {
+			try {
+				pagingState = PagingState.fromString(storedState);
+				this.statement.setPagingState(pagingState);
+			}
+			catch (PagingStateException e) {
+				logger.warn("The stored paging state for '" + this.metadataKey + "' doesn't match the statement; " +
+						"starting a new scan", e);
+				pagingState = null;
+			}
+		}
+		if (pagingState == null) {
+			this.statement.setPagingState(null);
+		}
+		this.page = this.cassandraTemplate.executeAsynchronously(this.statement).getUninterruptibly();
+		prefetch();
+		return true;
+	}
+
+	private void prefetch() {
+		this.nextPagingState = this.page.getExecutionInfo().getPagingState();
+		if (this.nextPagingState != null) {
+			this.statement.setPagingState(this.nextPagingState);
+			this.nextPage = this.cassandraTemplate.executeAsynchronously(this.statement);
+		}
+		else {
+			this.nextPage = null;
+		}
+	}
+
+	private boolean nextPage() {
+		if (this.nextPage == null) {
+			if (this.restartOnCompletion) {
+				this.metadataStore.remove(this.metadataKey);
+			}
+			else {
+				this.metadataStore.put(this.metadataKey, SCAN_COMPLETED);
+			}
+			this.page = null;
+			return false;
+		}
+		this.page = this.nextPage.getUninterruptibly();
+		this.metadataStore.put(this.metadataKey, this.nextPagingState.toString());
+		prefetch();
+		return true;
+	}
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Provides classes supporting Cassandra inbound endpoints.
+ */
+package org.springframework.integration.cassandra.inbound;
@@ -16,15 +16,38 @@
 
 package org.springframework.integration.cassandra.outbound;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cassandra.core.CachedPreparedStatementCreator;
+import org.springframework.cassandra.core.ConsistencyLevelResolver;
 import org.springframework.cassandra.core.PreparedStatementCreator;
+import org.springframework.cassandra.core.RetryPolicyResolver;
 import org.springframework.cassandra.core.WriteOptions;
+import org.springframework.context.Lifecycle;
 import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.data.cassandra.core.DeletionListener;
+import org.springframework.data.cassandra.core.WriteListener;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.TypeLocator;
@@ -34,20 +57,74 @@ import org.springframework.integration.expression.ExpressionUtils;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
 import org.springframework.integration.handler.ExpressionEvaluatingMessageProcessor;
 import org.springframework.integration.handler.MessageProcessor;
+import org.springframework.integration.support.management.ExponentialMovingAverage;
+import org.springframework.integration.support.management.Statistics;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
 
-import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 /**
+ * A {@link AbstractReplyProducingMessageHandler} to perform Cassandra operations.
+ * <p>
+ * With {@link #setAsyncExecution(boolean) asyncExecution}, the handler returns as soon as the operation is
+ * submitted to the driver: the reply (if any) is sent to the output channel from the driver
+ * callback, and failures are sent to the {@link #setErrorChannel(MessageChannel) errorChannel}
+ * (or the request {@code errorChannel} header), or logged if there is none.
+ * No more than {@link #setMaxInFlight(int) maxInFlight} operations are pending at a time;
+ * the sending thread blocks until a permit is available.
+ * The {@code ingest} operation is always performed synchronously.
+ * <p>
+ * The {@link #setIngestQuery(String) ingest} payload can be an {@link Iterable} or an
+ * {@link java.util.Iterator} of rows, or a {@link java.io.File}, {@link java.io.InputStream}
+ * or {@link java.io.Reader} of {@link #setIngestDelimiter(String) delimited} lines. The rows
+ * are bound lazily to the prepared ingest statement and written with no more than
+ * {@code maxInFlight} concurrent asynchronous writes; the handler returns once all of them
+ * are completed, also when the ingest fails (e.g. on a malformed line), and logs the
+ * progress every {@link #setIngestProgressInterval(int)} rows.
+ * <p>
+ * With a {@link #setBatchSize(int) batchSize} greater than 1, the statements which carry a
+ * routing key (e.g. statements bound by the {@link #setQuery(String) query}) are
+ * accumulated per partition and written as {@code UNLOGGED} {@link BatchStatement}s when
+ * the batch is full, when it is older than the {@link #setBatchLinger(long) batchLinger},
+ * or when the handler is flushed or stopped; after the {@link #stop()}, each statement is
+ * written right away. The lingering batches are written on the {@link TaskScheduler}
+ * only while in-flight permits are available, so the shared scheduler threads never wait
+ * for Cassandra. Batches never span partitions, so each one is
+ * applied by the replicas of a single partition. Batches are always written
+ * asynchronously within the {@code maxInFlight} window; statements without a routing key
+ * are executed individually. See {@link #getBatchSizeStatistics()},
+ * {@link #getBatchLatencyStatistics()} and {@link #getFlushCount(BatchFlushReason)}.
+ * <p>
+ * The completions of the asynchronous operations and batches (the replies, the error
+ * messages and the permit releases) run on the {@link #setCallbackExecutor(Executor)
+ * callbackExecutor}, never on the driver I/O threads, so a slow downstream flow doesn't
+ * stall the other requests of the connection. The {@code ingest} completions only count
+ * the written rows and release the permits, so they run on the driver threads.
+ *
  * @author Soby Chacko
  * @author Artem Bilan
  * @author Filippo Balicchia
  */
 @SuppressWarnings("unchecked")
-public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHandler {
+public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHandler
+		implements Lifecycle, DisposableBean {
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 100;
+
+	public static final int DEFAULT_INGEST_PROGRESS_INTERVAL = 100000;
 
 	private final Map<String, Expression> parameterExpressions = new HashMap<>();
 
@@ -62,6 +139,18 @@ public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHan
 	 */
 	private String ingestQuery;
 
+	private PreparedStatementCreator ingestStatementCreator;
+
+	private String ingestDelimiter = ",";
+
+	private Charset ingestCharset = Charset.forName("UTF-8");
+
+	private int ingestProgressInterval = DEFAULT_INGEST_PROGRESS_INTERVAL;
+
+	private final AtomicLong ingestedRowCount = new AtomicLong();
+
+	private volatile double lastIngestRate;
+
 	/**
 	 * Various options that can be used for Cassandra writes.
 	 */
@@ -71,6 +160,50 @@ public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHan
 
 	private EvaluationContext evaluationContext;
 
+	private boolean asyncExecution;
+
+	private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+	private Semaphore inFlight;
+
+	private MessageChannel errorChannel;
+
+	private Executor callbackExecutor;
+
+	private ExecutorService defaultCallbackExecutor;
+
+	private final Executor callbackDispatcher = new Executor() {
+
+		@Override
+		public void execute(Runnable command) {
+			try {
+				CassandraMessageHandler.this.callbackExecutor.execute(command);
+			}
+			catch (RejectedExecutionException e) {
+				// e.g. after destroy(): complete on the calling thread not to leak the permit
+				command.run();
+			}
+		}
+
+	};
+
+	private final ConcurrentMap<List<Object>, Batch> batches = new ConcurrentHashMap<>();
+
+	private final ExponentialMovingAverage batchSizes = new ExponentialMovingAverage(10);
+
+	private final ExponentialMovingAverage batchLatencies = new ExponentialMovingAverage(10);
+
+	private final Map<BatchFlushReason, AtomicLong> flushCounts =
+			new EnumMap<BatchFlushReason, AtomicLong>(BatchFlushReason.class);
+
+	private int batchSize = 1;
+
+	private long batchLinger;
+
+	private volatile ScheduledFuture<?> lingerTask;
+
+	private volatile boolean running;
+
 	public CassandraMessageHandler(CassandraOperations cassandraTemplate) {
 		this(cassandraTemplate, Type.INSERT);
 	}
@@ -80,14 +213,63 @@ public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHan
 		Assert.notNull(queryType, "'queryType' must not be null.");
 		this.cassandraTemplate = cassandraTemplate;
 		this.mode = queryType;
+		for (BatchFlushReason reason : BatchFlushReason.values()) {
+			this.flushCounts.put(reason, new AtomicLong());
+		}
 	}
 
 	public void setIngestQuery(String ingestQuery) {
 		Assert.hasText(ingestQuery, "'ingestQuery' must not be empty");
 		this.ingestQuery = ingestQuery;
+		this.ingestStatementCreator = new CachedPreparedStatementCreator(ingestQuery);
 		this.mode = Type.INSERT;
 	}
 
+	/**
+	 * Set the delimiter of the values in the ingested lines. Defaults to {@code ,}.
+	 * @param ingestDelimiter the delimiter.
+	 */
+	public void setIngestDelimiter(String ingestDelimiter) {
+		Assert.hasLength(ingestDelimiter, "'ingestDelimiter' must not be empty");
+		this.ingestDelimiter = ingestDelimiter;
+	}
+
+	/**
+	 * Set the charset of the ingested {@code File} and {@code InputStream} payloads.
+	 * Defaults to {@code UTF-8}.
+	 * @param ingestCharset the charset name.
+	 */
+	public void setIngestCharset(String ingestCharset) {
+		Assert.hasText(ingestCharset, "'ingestCharset' must not be empty");
+		this.ingestCharset = Charset.forName(ingestCharset);
+	}
+
+	/**
+	 * Set the number of ingested rows after which the progress is logged. Defaults to
+	 * {@link #DEFAULT_INGEST_PROGRESS_INTERVAL}.
+	 * @param ingestProgressInterval the number of rows.
+	 */
+	public void setIngestProgressInterval(int ingestProgressInterval) {
+		Assert.isTrue(ingestProgressInterval > 0, "'ingestProgressInterval' must be greater than 0");
+		this.ingestProgressInterval = ingestProgressInterval;
+	}
+
+	/**
+	 * Return the total number of rows written by the {@code ingest} operations.
+	 * @return the number of rows.
+	 */
+	public long getIngestedRowCount() {
+		return this.ingestedRowCount.get();
+	}
+
+	/**
+	 * Return the rate, in rows per second, of the last completed {@code ingest} operation.
+	 * @return the rate.
+	 */
+	public double getLastIngestRate() {
+		return this.lastIngestRate;
+	}
+
 	public void setWriteOptions(WriteOptions writeOptions) {
 		this.writeOptions = writeOptions;
 	}
@@ -96,6 +278,101 @@ public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHan
 		this.producesReply = producesReply;
 	}
 
+	/**
+	 * Set to {@code true} to return from the handler as soon as the operation is submitted
+	 * and complete it from the driver callback. Not to be confused with the
+	 * {@code async} property of the superclass, which is about {@code ListenableFuture}
+	 * replies.
+	 * @param asyncExecution the async execution flag.
+	 */
+	public void setAsyncExecution(boolean asyncExecution) {
+		this.asyncExecution = asyncExecution;
+	}
+
+	/**
+	 * Set the maximum number of pending asynchronous operations. Defaults to
+	 * {@link #DEFAULT_MAX_IN_FLIGHT}.
+	 * @param maxInFlight the maximum number of pending operations.
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		Assert.isTrue(maxInFlight > 0, "'maxInFlight' must be greater than 0");
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Set the channel to send the failures of asynchronous operations to.
+	 * @param errorChannel the error channel.
+	 */
+	public void setErrorChannel(MessageChannel errorChannel) {
+		this.errorChannel = errorChannel;
+	}
+
+	/**
+	 * Set the {@link Executor} to run the completions of the asynchronous operations and
+	 * batches on: sending the replies and the error messages and releasing the in-flight
+	 * permits. Defaults to a cached thread pool owned by the handler and shut down on
+	 * {@link #destroy()}. The completion runs on the calling thread if the executor rejects
+	 * it. The executor is expected to accept up to {@link #setMaxInFlight(int) maxInFlight}
+	 * tasks at a time.
+	 * @param callbackExecutor the callback executor.
+	 */
+	public void setCallbackExecutor(Executor callbackExecutor) {
+		Assert.notNull(callbackExecutor, "'callbackExecutor' must not be null");
+		this.callbackExecutor = callbackExecutor;
+	}
+
+	/**
+	 * Set the number of statements to accumulate per partition before writing them as a
+	 * single {@code UNLOGGED} batch. Defaults to 1, i.e. no batching. Not supported when
+	 * the handler produces replies.
+	 * @param batchSize the batch size.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Set the time in milliseconds after which a batch is written even if it is not
+	 * full. Requires a {@link TaskScheduler}. Defaults to 0, i.e. batches are only
+	 * written when full or when the handler is flushed or stopped.
+	 * @param batchLinger the linger time.
+	 */
+	public void setBatchLinger(long batchLinger) {
+		Assert.isTrue(batchLinger >= 0, "'batchLinger' must not be negative");
+		this.batchLinger = batchLinger;
+	}
+
+	@Override
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		super.setTaskScheduler(taskScheduler);
+	}
+
+	/**
+	 * Return the statistics of the number of statements in the written batches.
+	 * @return the batch size statistics.
+	 */
+	public Statistics getBatchSizeStatistics() {
+		return this.batchSizes.getStatistics();
+	}
+
+	/**
+	 * Return the statistics of the batch write latency in milliseconds.
+	 * @return the batch latency statistics.
+	 */
+	public Statistics getBatchLatencyStatistics() {
+		return this.batchLatencies.getStatistics();
+	}
+
+	/**
+	 * Return the number of batches written for the provided reason.
+	 * @param reason the flush reason.
+	 * @return the number of batches.
+	 */
+	public long getFlushCount(BatchFlushReason reason) {
+		return this.flushCounts.get(reason).get();
+	}
+
 	public void setStatementExpression(Expression statementExpression) {
 		setStatementProcessor(new ExpressionEvaluatingMessageProcessor<Statement>(statementExpression,
 				Statement.class) {
@@ -115,25 +392,18 @@ public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHan
 
 		setStatementProcessor(new MessageProcessor<Statement>() {
 
+			private volatile StatementBindingPlan bindingPlan;
+
 			@Override
 			public Statement processMessage(Message<?> message) {
 				PreparedStatement preparedStatement =
 						statementCreator.createPreparedStatement(cassandraTemplate.getSession());
-				ColumnDefinitions variables = preparedStatement.getVariables();
-				List<Object> values = new ArrayList<>(variables.size());
-				Map<String, Object> valueMap = new HashMap<>(variables.size());
-				for (ColumnDefinitions.Definition definition : variables) {
-					String name = definition.getName();
-					Object value = valueMap.get(name);
-					if (value == null) {
-						Expression expression = parameterExpressions.get(name);
-						Assert.state(expression != null, "No expression for parameter: " + name);
-						value = expression.getValue(evaluationContext, message);
-						valueMap.put(name, value);
-					}
-					values.add(value);
+				StatementBindingPlan bindingPlan = this.bindingPlan;
+				if (bindingPlan == null || bindingPlan.getPreparedStatement() != preparedStatement) {
+					bindingPlan = new StatementBindingPlan(preparedStatement, parameterExpressions);
+					this.bindingPlan = bindingPlan;
 				}
-				return preparedStatement.bind(values.toArray());
+				return bindingPlan.bind(message, evaluationContext);
 			}
 
 		});
@@ -168,6 +438,96 @@ public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHan
 			 */
 			((StandardTypeLocator) typeLocator).registerImport("com.datastax.driver.core.querybuilder");
 		}
+
+		Assert.isTrue(this.batchSize == 1 || !this.producesReply, "'batchSize' is not supported for replies");
+		Assert.isTrue(this.batchLinger == 0 || getTaskScheduler() != null,
+				"A 'taskScheduler' is required for the 'batchLinger'");
+		this.inFlight = new Semaphore(this.maxInFlight);
+		if (this.callbackExecutor == null && (this.asyncExecution || this.batchSize > 1)) {
+			this.defaultCallbackExecutor =
+					Executors.newCachedThreadPool(new CustomizableThreadFactory(getComponentName() + "-callback-"));
+			this.callbackExecutor = this.defaultCallbackExecutor;
+		}
+		start();
+	}
+
+	@Override
+	public synchronized void start() {
+		if (!this.running) {
+			if (this.batchLinger > 0) {
+				this.lingerTask = getTaskScheduler().scheduleWithFixedDelay(new Runnable() {
+
+					@Override
+					public void run() {
+						flush(BatchFlushReason.LINGER);
+					}
+
+				}, Math.max(1, this.batchLinger / 2));
+			}
+			this.running = true;
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (this.running) {
+			this.running = false;
+			if (this.lingerTask != null) {
+				this.lingerTask.cancel(false);
+				this.lingerTask = null;
+			}
+			flush();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	@Override
+	public void destroy() {
+		stop();
+		if (this.defaultCallbackExecutor != null) {
+			this.defaultCallbackExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Write all pending batches.
+	 */
+	public void flush() {
+		flush(BatchFlushReason.FLUSH);
+	}
+
+	private void flush(BatchFlushReason reason) {
+		if (reason == BatchFlushReason.LINGER) {
+			flushLingering();
+		}
+		else {
+			for (Batch batch : this.batches.values()) {
+				batch.flush(reason, false);
+			}
+		}
+	}
+
+	/**
+	 * Write the batches older than the {@code batchLinger} while in-flight permits are
+	 * available. Runs on the shared {@link TaskScheduler}, so it never waits for a permit:
+	 * the remaining batches are written on the next run, or when they are full.
+	 */
+	private void flushLingering() {
+		long expiry = System.currentTimeMillis() - this.batchLinger;
+		for (Batch batch : this.batches.values()) {
+			if (batch.firstAdded <= expiry) {
+				if (!this.inFlight.tryAcquire()) {
+					return;
+				}
+				if (!batch.flush(BatchFlushReason.LINGER, true)) {
+					this.inFlight.release();
+				}
+			}
+		}
 	}
 
 	@Override
@@ -185,18 +545,29 @@ public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHan
 			mode = Type.STATEMENT;
 		}
 
+		if (this.batchSize > 1 && mode == Type.STATEMENT) {
+			if (statement == null) {
+				statement = this.statementProcessor.processMessage(requestMessage);
+			}
+			ByteBuffer routingKey = statement.getRoutingKey();
+			if (routingKey != null) {
+				addToBatch(requestMessage, statement, routingKey);
+				return null;
+			}
+		}
+
+		if (this.asyncExecution && (mode != Type.INSERT || this.ingestQuery == null)) {
+			if (mode == Type.STATEMENT && statement == null) {
+				statement = this.statementProcessor.processMessage(requestMessage);
+			}
+			executeAsynchronously(requestMessage, mode, statement);
+			return null;
+		}
+
 		switch (mode) {
 			case INSERT:
 				if (this.ingestQuery != null) {
-					Assert.isInstanceOf(List.class, payload,
-							"to perform 'ingest' the 'payload' must be of 'List<List<?>>' type.");
-					List<?> list = (List<?>) payload;
-					for (Object o : list) {
-						Assert.isInstanceOf(List.class, o,
-								"to perform 'ingest' the 'payload' must be of 'List<List<?>>' type.");
-					}
-					List<List<?>> rows = (List<List<?>>) payload;
-					this.cassandraTemplate.ingest(this.ingestQuery, rows, this.writeOptions);
+					ingest(requestMessage);
 				}
 				else {
 					if (payload instanceof List) {
@@ -235,6 +606,294 @@ public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHan
 		return this.producesReply ? result : null;
 	}
 
+	private void executeAsynchronously(Message<?> requestMessage, Type mode, Statement statement) {
+		acquirePermit(requestMessage);
+		try {
+			Object payload = requestMessage.getPayload();
+			switch (mode) {
+				case INSERT:
+					if (payload instanceof List) {
+						this.cassandraTemplate.insertAsynchronously((List<T>) payload,
+								new CompletingWriteListener(requestMessage), this.writeOptions);
+					}
+					else {
+						this.cassandraTemplate.insertAsynchronously((T) payload,
+								new CompletingWriteListener(requestMessage), this.writeOptions);
+					}
+					break;
+				case UPDATE:
+					if (payload instanceof List) {
+						this.cassandraTemplate.updateAsynchronously((List<T>) payload,
+								new CompletingWriteListener(requestMessage), this.writeOptions);
+					}
+					else {
+						this.cassandraTemplate.updateAsynchronously((T) payload,
+								new CompletingWriteListener(requestMessage), this.writeOptions);
+					}
+					break;
+				case DELETE:
+					if (payload instanceof List) {
+						this.cassandraTemplate.deleteAsynchronously((List<T>) payload,
+								new CompletingDeletionListener(requestMessage), this.writeOptions);
+					}
+					else {
+						this.cassandraTemplate.deleteAsynchronously((T) payload,
+								new CompletingDeletionListener(requestMessage), this.writeOptions);
+					}
+					break;
+				case STATEMENT:
+					ResultSetFuture future = this.cassandraTemplate.executeAsynchronously(statement);
+					Futures.addCallback(future, new CompletingFutureCallback(requestMessage), this.callbackDispatcher);
+					break;
+			}
+		}
+		catch (RuntimeException e) {
+			this.inFlight.release();
+			throw e;
+		}
+	}
+
+	private void ingest(Message<?> requestMessage) {
+		PreparedStatement preparedStatement =
+				this.ingestStatementCreator.createPreparedStatement(this.cassandraTemplate.getSession());
+		if (this.writeOptions != null) {
+			if (this.writeOptions.getConsistencyLevel() != null) {
+				preparedStatement.setConsistencyLevel(
+						ConsistencyLevelResolver.resolve(this.writeOptions.getConsistencyLevel()));
+			}
+			if (this.writeOptions.getRetryPolicy() != null) {
+				preparedStatement.setRetryPolicy(RetryPolicyResolver.resolve(this.writeOptions.getRetryPolicy()));
+			}
+		}
+
+		final Semaphore permits = new Semaphore(this.maxInFlight);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final AtomicLong written = new AtomicLong();
+		FutureCallback<ResultSet> callback = new FutureCallback<ResultSet>() {
+
+			@Override
+			public void onSuccess(ResultSet result) {
+				written.incrementAndGet();
+				permits.release();
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				failure.compareAndSet(null, t);
+				permits.release();
+			}
+
+		};
+
+		long start = System.nanoTime();
+		long submitted = 0;
+		IngestRowIterator rows = new IngestRowIterator(requestMessage.getPayload(), preparedStatement.getVariables(),
+				this.ingestDelimiter, this.ingestCharset);
+		try {
+			while (failure.get() == null && rows.hasNext()) {
+				Object[] values = rows.next();
+				permits.acquire();
+				try {
+					Futures.addCallback(this.cassandraTemplate.executeAsynchronously(preparedStatement.bind(values)),
+							callback);
+				}
+				catch (RuntimeException e) {
+					permits.release();
+					throw e;
+				}
+				if (++submitted % this.ingestProgressInterval == 0 && logger.isInfoEnabled()) {
+					logger.info(String.format("Ingest into '%s': %d rows written, %.0f rows/sec", this.ingestQuery,
+							written.get(), rate(written.get(), start)));
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageHandlingException(requestMessage, "Interrupted during the ingest after "
+					+ written.get() + " rows", e);
+		}
+		finally {
+			// wait for the pending writes, also when reading the payload or submitting a write has failed,
+			// so the written rows are counted and no write outlives the ingest
+			permits.acquireUninterruptibly(this.maxInFlight);
+			this.ingestedRowCount.addAndGet(written.get());
+			try {
+				rows.close();
+			}
+			catch (IOException e) {
+				logger.warn("Failed to close the ingest payload", e);
+			}
+		}
+
+		if (failure.get() != null) {
+			throw new MessageHandlingException(requestMessage, "The ingest failed after " + written.get() + " rows",
+					failure.get());
+		}
+
+		this.lastIngestRate = rate(written.get(), start);
+		if (logger.isInfoEnabled()) {
+			logger.info(String.format("Ingest into '%s' completed: %d rows written, %.0f rows/sec", this.ingestQuery,
+					written.get(), this.lastIngestRate));
+		}
+	}
+
+	private static double rate(long rows, long start) {
+		long elapsed = System.nanoTime() - start;
+		return elapsed > 0 ? rows * 1e9 / elapsed : 0;
+	}
+
+	private void acquirePermit(Message<?> requestMessage) {
+		try {
+			this.inFlight.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageHandlingException(requestMessage, "Interrupted while waiting for an in-flight permit", e);
+		}
+	}
+
+	private void addToBatch(Message<?> requestMessage, Statement statement, ByteBuffer routingKey) {
+		List<Object> partition = Arrays.<Object>asList(statement.getKeyspace(), routingKey.duplicate());
+		while (true) {
+			Batch batch = this.batches.get(partition);
+			if (batch == null) {
+				Batch newBatch = new Batch(partition);
+				batch = this.batches.putIfAbsent(partition, newBatch);
+				if (batch == null) {
+					batch = newBatch;
+				}
+			}
+			if (batch.add(requestMessage, statement)) {
+				if (!this.running) {
+					// stop() has flushed or is flushing the batches: don't leave this one behind
+					batch.flush(BatchFlushReason.FLUSH, false);
+				}
+				return;
+			}
+		}
+	}
+
+	private void writeBatch(final List<Statement> statements, final List<Message<?>> messages,
+			BatchFlushReason reason, boolean permitHeld) {
+		BatchStatement batchStatement = new BatchStatement(BatchStatement.Type.UNLOGGED);
+		batchStatement.addAll(statements);
+		if (statements.get(0).getConsistencyLevel() != null) {
+			batchStatement.setConsistencyLevel(statements.get(0).getConsistencyLevel());
+		}
+		if (!permitHeld) {
+			try {
+				acquirePermit(messages.get(0));
+			}
+			catch (MessagingException e) {
+				for (Message<?> message : messages) {
+					sendErrorMessage(message, e.getCause());
+				}
+				return;
+			}
+		}
+		this.flushCounts.get(reason).incrementAndGet();
+		final long start = System.nanoTime();
+		try {
+			ResultSetFuture future = this.cassandraTemplate.executeAsynchronously(batchStatement);
+			Futures.addCallback(future, new FutureCallback<ResultSet>() {
+
+				@Override
+				public void onSuccess(ResultSet result) {
+					CassandraMessageHandler.this.batchLatencies.append(
+							TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / 1000.0);
+					CassandraMessageHandler.this.batchSizes.append(statements.size());
+					CassandraMessageHandler.this.inFlight.release();
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					try {
+						for (Message<?> message : messages) {
+							sendErrorMessage(message, t);
+						}
+					}
+					finally {
+						CassandraMessageHandler.this.inFlight.release();
+					}
+				}
+
+			}, this.callbackDispatcher);
+		}
+		catch (RuntimeException e) {
+			this.inFlight.release();
+			for (Message<?> message : messages) {
+				sendErrorMessage(message, e);
+			}
+		}
+	}
+
+	private void complete(Message<?> requestMessage, Object result) {
+		try {
+			if (this.producesReply) {
+				sendOutputs(result, requestMessage);
+			}
+		}
+		catch (Exception e) {
+			sendErrorMessage(requestMessage, e);
+		}
+		finally {
+			this.inFlight.release();
+		}
+	}
+
+	private void fail(Message<?> requestMessage, Throwable cause) {
+		try {
+			sendErrorMessage(requestMessage, cause);
+		}
+		finally {
+			this.inFlight.release();
+		}
+	}
+
+	private void completeOnCallbackExecutor(final Message<?> requestMessage, final Object result) {
+		this.callbackDispatcher.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				complete(requestMessage, result);
+			}
+
+		});
+	}
+
+	private void failOnCallbackExecutor(final Message<?> requestMessage, final Throwable cause) {
+		this.callbackDispatcher.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				fail(requestMessage, cause);
+			}
+
+		});
+	}
+
+	private void sendErrorMessage(Message<?> requestMessage, Throwable cause) {
+		MessagingException exception = cause instanceof MessagingException
+				? (MessagingException) cause
+				: new MessageHandlingException(requestMessage, "Failed to execute Cassandra operation", cause);
+		MessageChannel errorChannel = this.errorChannel;
+		if (errorChannel == null) {
+			Object errorChannelHeader = requestMessage.getHeaders().getErrorChannel();
+			if (errorChannelHeader instanceof MessageChannel) {
+				errorChannel = (MessageChannel) errorChannelHeader;
+			}
+			else if (errorChannelHeader instanceof String) {
+				errorChannel = getChannelResolver().resolveDestination((String) errorChannelHeader);
+			}
+		}
+		if (errorChannel != null) {
+			this.messagingTemplate.send(errorChannel, new ErrorMessage(exception));
+		}
+		else {
+			logger.error("Asynchronous Cassandra operation failed", exception);
+		}
+	}
+
 	/**
 	 * Always return {@code false} to prevent a {@link com.datastax.driver.core.ResultSet}
 	 * draining on iteration.
@@ -248,10 +907,155 @@ public class CassandraMessageHandler<T> extends AbstractReplyProducingMessageHan
 	}
 
 
+	/**
+	 * The pending statements for a single partition, guarded by the batch monitor until
+	 * the batch is retired. A flushed batch is retired and removed, so idle partitions
+	 * don't accumulate.
+	 */
+	private final class Batch {
+
+		private final List<Object> partition;
+
+		private final List<Statement> statements = new ArrayList<>();
+
+		private final List<Message<?>> messages = new ArrayList<>();
+
+		private volatile long firstAdded = Long.MAX_VALUE;
+
+		private boolean retired;
+
+		Batch(List<Object> partition) {
+			this.partition = partition;
+		}
+
+		boolean add(Message<?> message, Statement statement) {
+			synchronized (this) {
+				if (this.retired) {
+					return false;
+				}
+				if (this.statements.isEmpty()) {
+					this.firstAdded = System.currentTimeMillis();
+				}
+				this.statements.add(statement);
+				this.messages.add(message);
+				if (this.statements.size() < CassandraMessageHandler.this.batchSize) {
+					return true;
+				}
+			}
+			flush(BatchFlushReason.SIZE, false);
+			return true;
+		}
+
+		/**
+		 * Retire the batch and write its statements outside of the monitor, so waiting for
+		 * an in-flight permit doesn't block the producers of the partition.
+		 * @param reason the flush reason.
+		 * @param permitHeld whether the caller has already acquired the in-flight permit.
+		 * @return true if the batch has been written by this call and so the permit used.
+		 */
+		boolean flush(BatchFlushReason reason, boolean permitHeld) {
+			synchronized (this) {
+				if (this.retired) {
+					return false;
+				}
+				this.retired = true;
+				CassandraMessageHandler.this.batches.remove(this.partition, this);
+			}
+			if (this.statements.isEmpty()) {
+				return false;
+			}
+			writeBatch(this.statements, this.messages, reason, permitHeld);
+			return true;
+		}
+
+	}
+
+	private final class CompletingFutureCallback implements FutureCallback<ResultSet> {
+
+		private final Message<?> requestMessage;
+
+		CompletingFutureCallback(Message<?> requestMessage) {
+			this.requestMessage = requestMessage;
+		}
+
+		@Override
+		public void onSuccess(ResultSet result) {
+			complete(this.requestMessage, result);
+		}
+
+		@Override
+		public void onFailure(Throwable t) {
+			fail(this.requestMessage, t);
+		}
+
+	}
+
+	private final class CompletingWriteListener implements WriteListener<T> {
+
+		private final Message<?> requestMessage;
+
+		CompletingWriteListener(Message<?> requestMessage) {
+			this.requestMessage = requestMessage;
+		}
+
+		@Override
+		public void onWriteComplete(Collection<T> entities) {
+			completeOnCallbackExecutor(this.requestMessage, this.requestMessage.getPayload());
+		}
+
+		@Override
+		public void onException(Exception x) {
+			failOnCallbackExecutor(this.requestMessage, x);
+		}
+
+	}
+
+	private final class CompletingDeletionListener implements DeletionListener<T> {
+
+		private final Message<?> requestMessage;
+
+		CompletingDeletionListener(Message<?> requestMessage) {
+			this.requestMessage = requestMessage;
+		}
+
+		@Override
+		public void onDeletionComplete(Collection<T> entities) {
+			completeOnCallbackExecutor(this.requestMessage, this.requestMessage.getPayload());
+		}
+
+		@Override
+		public void onException(Exception x) {
+			failOnCallbackExecutor(this.requestMessage, x);
+		}
+
+	}
+
 	public enum Type {
 
 		INSERT, UPDATE, DELETE, STATEMENT;
 
 	}
 
+	/**
+	 * The reasons for writing a batch.
+	 */
+	public enum BatchFlushReason {
+
+		/**
+		 * The batch reached the {@code batchSize}.
+		 */
+		SIZE,
+
+		/**
+		 * The batch was older than the {@code batchLinger}.
+		 */
+		LINGER,
+
+		/**
+		 * The handler was flushed or stopped.
+		 */
+		FLUSH
+
+	}
+
 }
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.outbound;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.springframework.util.StringUtils;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.utils.Bytes;
+
+/**
+ * Lazily converts an ingest payload to the values to bind to the ingest statement, one
+ * row at a time.
+ * <p>
+ * The payload can be an {@link Iterable} (e.g. the {@code List<List<?>>} of the former
+ * ingest), an {@link Iterator}, or a {@link File}, {@link InputStream} or {@link Reader}
+ * of delimited lines. The rows of an {@code Iterable} or {@code Iterator} can be
+ * {@link List}s, {@code Object[]}s or delimited lines; the values of delimited lines are
+ * parsed according to the CQL type of the statement variables, empty values being bound
+ * as {@code null} for non-text types. Readers opened for the payload are closed with the
+ * iterator.
+ *
+ * @since 0.5.1
+ */
+class IngestRowIterator implements Iterator<Object[]>, Closeable {
+
+	private final Iterator<?> rows;
+
+	private final Closeable closeable;
+
+	private final DataType.Name[] types;
+
+	private final Pattern delimiter;
+
+	IngestRowIterator(Object payload, ColumnDefinitions variables, String delimiter, Charset charset) {
+		this.types = new DataType.Name[variables.size()];
+		for (int i = 0; i < this.types.length; i++) {
+			this.types[i] = variables.getType(i).getName();
+		}
+		this.delimiter = Pattern.compile(Pattern.quote(delimiter));
+		try {
+			if (payload instanceof Iterable) {
+				this.rows = ((Iterable<?>) payload).iterator();
+			}
+			else if (payload instanceof Iterator) {
+				this.rows = (Iterator<?>) payload;
+			}
+			else if (payload instanceof File) {
+				this.rows = new LineIterator(new InputStreamReader(new FileInputStream((File) payload), charset));
+			}
+			else if (payload instanceof InputStream) {
+				this.rows = new LineIterator(new InputStreamReader((InputStream) payload, charset));
+			}
+			else if (payload instanceof Reader) {
+				this.rows = new LineIterator((Reader) payload);
+			}
+			else {
+				throw new IllegalArgumentException("to perform 'ingest' the 'payload' must be an 'Iterable', " +
+						"an 'Iterator', a 'File', an 'InputStream' or a 'Reader', not: " + payload);
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to open the ingest payload: " + payload, e);
+		}
+		this.closeable = this.rows instanceof Closeable ? (Closeable) this.rows : null;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return this.rows.hasNext();
+	}
+
+	@Override
+	public Object[] next() {
+		Object row = this.rows.next();
+		if (row instanceof List) {
+			return ((List<?>) row).toArray();
+		}
+		else if (row instanceof Object[]) {
+			return (Object[]) row;
+		}
+		else if (row instanceof String) {
+			return parse((String) row);
+		}
+		else {
+			throw new IllegalArgumentException("The ingest rows must be 'List's, 'Object[]'s or delimited " +
+					"'String's, not: " + row);
+		}
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closeable != null) {
+			this.closeable.close();
+		}
+	}
+
+	private Object[] parse(String line) {
+		String[] tokens = this.delimiter.split(line, -1);
+		if (tokens.length != this.types.length) {
+			throw new IllegalArgumentException("Expected " + this.types.length + " values, but got "
+					+ tokens.length + " in the line: " + line);
+		}
+		Object[] values = new Object[tokens.length];
+		for (int i = 0; i < tokens.length; i++) {
+			values[i] = parse(this.types[i], tokens[i]);
+		}
+		return values;
+	}
+
+	private static Object parse(DataType.Name type, String value) {
+		if (type == DataType.Name.ASCII || type == DataType.Name.TEXT || type == DataType.Name.VARCHAR) {
+			return value;
+		}
+		if (!StringUtils.hasText(value)) {
+			return null;
+		}
+		String trimmed = value.trim();
+		switch (type) {
+			case BIGINT:
+			case COUNTER:
+				return Long.valueOf(trimmed);
+			case INT:
+				return Integer.valueOf(trimmed);
+			case BOOLEAN:
+				return Boolean.valueOf(trimmed);
+			case DOUBLE:
+				return Double.valueOf(trimmed);
+			case FLOAT:
+				return Float.valueOf(trimmed);
+			case DECIMAL:
+				return new BigDecimal(trimmed);
+			case VARINT:
+				return new BigInteger(trimmed);
+			case UUID:
+			case TIMEUUID:
+				return UUID.fromString(trimmed);
+			case TIMESTAMP:
+				if (trimmed.matches("-?\\d+")) {
+					return new Date(Long.parseLong(trimmed));
+				}
+				return DatatypeConverter.parseDateTime(trimmed).getTime();
+			case INET:
+				try {
+					return InetAddress.getByName(trimmed);
+				}
+				catch (IOException e) {
+					throw new IllegalArgumentException("Invalid 'inet' value: " + trimmed, e);
+				}
+			case BLOB:
+				return Bytes.fromHexString(trimmed);
+			default:
+				throw new IllegalArgumentException("Delimited values are not supported for the '" + type + "' type");
+		}
+	}
+
+	/**
+	 * Reads the lines of a {@link Reader} lazily, skipping blank lines.
+	 */
+	private static final class LineIterator implements Iterator<String>, Closeable {
+
+		private final BufferedReader reader;
+
+		private String nextLine;
+
+		LineIterator(Reader reader) {
+			this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (this.nextLine == null) {
+				try {
+					String line = this.reader.readLine();
+					if (line == null) {
+						return false;
+					}
+					if (StringUtils.hasText(line)) {
+						this.nextLine = line;
+					}
+				}
+				catch (IOException e) {
+					throw new IllegalStateException("Failed to read the ingest payload", e);
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			String line = this.nextLine;
+			this.nextLine = null;
+			return line;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.reader.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.outbound;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.TupleValue;
+import com.datastax.driver.core.UDTValue;
+
+/**
+ * An index-ordered plan to bind the variables of a {@link PreparedStatement} from a
+ * {@link Message}, built once per prepared statement.
+ * <p>
+ * Each variable position is mapped directly to a value accessor: {@code payload} and
+ * {@code headers.name} (or {@code headers['name']}) expressions read the message
+ * directly, other SpEL expressions are reparsed in the {@link SpelCompilerMode#MIXED}
+ * mode, so they are compiled once they have been interpreted often enough, where their
+ * structure allows it. Values are set by index with the typed {@link BoundStatement}
+ * setters; a variable repeated in the query is evaluated once and its serialized value
+ * copied to the other positions.
+ *
+ * @since 0.5.1
+ */
+class StatementBindingPlan {
+
+	private static final Pattern HEADER_PATTERN =
+			Pattern.compile("^\\s*headers\\s*(?:\\.\\s*(\\w+)|\\[\\s*['\"]([^'\"]+)['\"]\\s*\\])\\s*$");
+
+	private static final Pattern PAYLOAD_PATTERN = Pattern.compile("^\\s*payload\\s*$");
+
+	private static final SpelExpressionParser COMPILING_PARSER =
+			new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED,
+					StatementBindingPlan.class.getClassLoader()));
+
+	private final PreparedStatement preparedStatement;
+
+	private final ValueAccessor[] accessors;
+
+	private final DataType.Name[] types;
+
+	/**
+	 * The position of the first occurrence of the same variable, or -1 for the first one.
+	 */
+	private final int[] sources;
+
+	StatementBindingPlan(PreparedStatement preparedStatement, Map<String, Expression> parameterExpressions) {
+		this.preparedStatement = preparedStatement;
+		ColumnDefinitions variables = preparedStatement.getVariables();
+		int size = variables.size();
+		this.accessors = new ValueAccessor[size];
+		this.types = new DataType.Name[size];
+		this.sources = new int[size];
+		Map<String, Integer> positions = new HashMap<>(size);
+		for (int i = 0; i < size; i++) {
+			String name = variables.getName(i);
+			this.types[i] = variables.getType(i).getName();
+			Integer first = positions.get(name);
+			if (first != null) {
+				this.sources[i] = first;
+			}
+			else {
+				positions.put(name, i);
+				this.sources[i] = -1;
+				Expression expression = parameterExpressions.get(name);
+				Assert.state(expression != null, "No expression for parameter: " + name);
+				this.accessors[i] = accessorFor(expression);
+			}
+		}
+	}
+
+	PreparedStatement getPreparedStatement() {
+		return this.preparedStatement;
+	}
+
+	BoundStatement bind(Message<?> message, EvaluationContext evaluationContext) {
+		BoundStatement boundStatement = this.preparedStatement.bind();
+		for (int i = 0; i < this.accessors.length; i++) {
+			int source = this.sources[i];
+			if (source >= 0) {
+				boundStatement.setBytesUnsafe(i, boundStatement.getBytesUnsafe(source));
+			}
+			else {
+				setValue(boundStatement, i, this.types[i], this.accessors[i].getValue(message, evaluationContext));
+			}
+		}
+		return boundStatement;
+	}
+
+	private static void setValue(BoundStatement boundStatement, int i, DataType.Name type, Object value) {
+		if (value == null) {
+			boundStatement.setBytesUnsafe(i, null);
+			return;
+		}
+		switch (type) {
+			case ASCII:
+			case TEXT:
+			case VARCHAR:
+				boundStatement.setString(i, (String) value);
+				break;
+			case BIGINT:
+			case COUNTER:
+				boundStatement.setLong(i, (Long) value);
+				break;
+			case INT:
+				boundStatement.setInt(i, (Integer) value);
+				break;
+			case BOOLEAN:
+				boundStatement.setBool(i, (Boolean) value);
+				break;
+			case DOUBLE:
+				boundStatement.setDouble(i, (Double) value);
+				break;
+			case FLOAT:
+				boundStatement.setFloat(i, (Float) value);
+				break;
+			case DECIMAL:
+				boundStatement.setDecimal(i, (BigDecimal) value);
+				break;
+			case VARINT:
+				boundStatement.setVarint(i, (BigInteger) value);
+				break;
+			case TIMESTAMP:
+				boundStatement.setDate(i, (Date) value);
+				break;
+			case UUID:
+			case TIMEUUID:
+				boundStatement.setUUID(i, (UUID) value);
+				break;
+			case INET:
+				boundStatement.setInet(i, (InetAddress) value);
+				break;
+			case BLOB:
+				boundStatement.setBytes(i, (ByteBuffer) value);
+				break;
+			case LIST:
+				boundStatement.setList(i, (List<?>) value);
+				break;
+			case SET:
+				boundStatement.setSet(i, (Set<?>) value);
+				break;
+			case MAP:
+				boundStatement.setMap(i, (Map<?, ?>) value);
+				break;
+			case UDT:
+				boundStatement.setUDTValue(i, (UDTValue) value);
+				break;
+			case TUPLE:
+				boundStatement.setTupleValue(i, (TupleValue) value);
+				break;
+			default:
+				Assert.isInstanceOf(ByteBuffer.class, value,
+						"Only serialized 'ByteBuffer' values are supported for the '" + type + "' type");
+				boundStatement.setBytesUnsafe(i, (ByteBuffer) value);
+		}
+	}
+
+	private static ValueAccessor accessorFor(final Expression expression) {
+		String expressionString = expression.getExpressionString();
+		if (expression instanceof SpelExpression) {
+			if (PAYLOAD_PATTERN.matcher(expressionString).matches()) {
+				return new ValueAccessor() {
+
+					@Override
+					public Object getValue(Message<?> message, EvaluationContext evaluationContext) {
+						return message.getPayload();
+					}
+
+				};
+			}
+			Matcher matcher = HEADER_PATTERN.matcher(expressionString);
+			if (matcher.matches()) {
+				final String header = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+				return new ValueAccessor() {
+
+					@Override
+					public Object getValue(Message<?> message, EvaluationContext evaluationContext) {
+						return message.getHeaders().get(header);
+					}
+
+				};
+			}
+			final Expression compilable = COMPILING_PARSER.parseExpression(expressionString);
+			return new ValueAccessor() {
+
+				@Override
+				public Object getValue(Message<?> message, EvaluationContext evaluationContext) {
+					return compilable.getValue(evaluationContext, message);
+				}
+
+			};
+		}
+		return new ValueAccessor() {
+
+			@Override
+			public Object getValue(Message<?> message, EvaluationContext evaluationContext) {
+				return expression.getValue(evaluationContext, message);
+			}
+
+		};
+	}
+
+	private interface ValueAccessor {
+
+		Object getValue(Message<?> message, EvaluationContext evaluationContext);
+
+	}
+
+}
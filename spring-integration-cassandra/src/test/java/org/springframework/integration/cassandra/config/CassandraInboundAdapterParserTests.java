@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.integration.cassandra.inbound.CassandraMessageProducer;
+import org.springframework.integration.cassandra.inbound.CassandraMessageSource;
+import org.springframework.integration.cassandra.test.domain.Book;
+import org.springframework.integration.endpoint.SourcePollingChannelAdapter;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * @since 0.5.1
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+public class CassandraInboundAdapterParserTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Test
+	public void pollingConfig() {
+		SourcePollingChannelAdapter adapter = this.context.getBean("pollingBooks", SourcePollingChannelAdapter.class);
+		assertFalse(adapter.isRunning());
+		assertSame(this.context.getBean("books"), TestUtils.getPropertyValue(adapter, "outputChannel"));
+
+		CassandraMessageSource<?> source = TestUtils.getPropertyValue(adapter, "source", CassandraMessageSource.class);
+		assertSame(this.context.getBean("cassandraTemplate"), TestUtils.getPropertyValue(source, "cassandraTemplate"));
+		assertEquals("SELECT * FROM book", TestUtils.getPropertyValue(source, "statement").toString());
+		assertEquals(Book.class, TestUtils.getPropertyValue(source, "entityClass"));
+		assertEquals(50, TestUtils.getPropertyValue(source, "fetchSize"));
+		assertEquals(10, TestUtils.getPropertyValue(source, "batchSize"));
+		assertSame(this.context.getBean("metadataStore"), TestUtils.getPropertyValue(source, "metadataStore"));
+		assertEquals("cassandra:inbound-channel-adapter.pollingBooks", TestUtils.getPropertyValue(source, "metadataKey"));
+		assertTrue(TestUtils.getPropertyValue(source, "restartOnCompletion", Boolean.class));
+	}
+
+	@Test
+	public void messageDrivenConfig() {
+		CassandraMessageProducer<?> producer = this.context.getBean("streamingBooks", CassandraMessageProducer.class);
+		assertFalse(producer.isRunning());
+		assertSame(this.context.getBean("books"), TestUtils.getPropertyValue(producer, "outputChannel"));
+		assertSame(this.context.getBean("selectBooks"), TestUtils.getPropertyValue(producer, "statement"));
+		assertEquals(CassandraMessageSource.DEFAULT_FETCH_SIZE, TestUtils.getPropertyValue(producer, "fetchSize"));
+		assertEquals(1, TestUtils.getPropertyValue(producer, "batchSize"));
+		assertSame(this.context.getBean("metadataStore"), TestUtils.getPropertyValue(producer, "metadataStore"));
+		assertEquals("bookExport", TestUtils.getPropertyValue(producer, "metadataKey"));
+		assertSame(this.context.getBean("taskExecutor"), TestUtils.getPropertyValue(producer, "taskExecutor"));
+		assertFalse(TestUtils.getPropertyValue(producer, "restartOnCompletion", Boolean.class));
+	}
+
+}
@@ -17,6 +17,11 @@
 package org.springframework.integration.cassandra.config;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Semaphore;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -59,6 +64,8 @@ public class CassandraOutboundAdapterParserTests {
 		assertEquals("insert into book (isbn, title, author, pages, saleDate, isInStock) values (?, ?, ?, ?, ?, ?)",
 				TestUtils.getPropertyValue(handler, "ingestQuery"));
 		assertEquals(Boolean.FALSE, TestUtils.getPropertyValue(handler, "producesReply"));
+		assertEquals("|", TestUtils.getPropertyValue(handler, "ingestDelimiter"));
+		assertEquals(1000, TestUtils.getPropertyValue(handler, "ingestProgressInterval"));
 	}
 
 	@Test
@@ -83,4 +90,26 @@ public class CassandraOutboundAdapterParserTests {
 
 	}
 
+	@Test
+	public void asyncConfig() {
+		CassandraMessageHandler<?> handler = TestUtils.getPropertyValue(context.getBean("outbound5.adapter"), "handler",
+				CassandraMessageHandler.class);
+		assertEquals(Boolean.TRUE, TestUtils.getPropertyValue(handler, "asyncExecution"));
+		assertEquals(10, TestUtils.getPropertyValue(handler, "maxInFlight"));
+		assertEquals(10, TestUtils.getPropertyValue(handler, "inFlight", Semaphore.class).availablePermits());
+		assertEquals(context.getBean("errorChannel"), TestUtils.getPropertyValue(handler, "errorChannel"));
+		assertEquals(context.getBean("callbackExecutor"), TestUtils.getPropertyValue(handler, "callbackExecutor"));
+		assertNull(TestUtils.getPropertyValue(handler, "defaultCallbackExecutor"));
+	}
+
+	@Test
+	public void batchConfig() {
+		CassandraMessageHandler<?> handler = TestUtils.getPropertyValue(context.getBean("outbound6.adapter"), "handler",
+				CassandraMessageHandler.class);
+		assertEquals(50, TestUtils.getPropertyValue(handler, "batchSize"));
+		assertEquals(20L, TestUtils.getPropertyValue(handler, "batchLinger"));
+		assertTrue(handler.isRunning());
+		assertNotNull(TestUtils.getPropertyValue(handler, "lingerTask"));
+	}
+
 }
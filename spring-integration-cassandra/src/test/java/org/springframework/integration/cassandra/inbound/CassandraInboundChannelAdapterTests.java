@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.inbound;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.thrift.transport.TTransportException;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.integration.cassandra.config.IntegrationTestConfig;
+import org.springframework.integration.cassandra.test.domain.Book;
+import org.springframework.integration.cassandra.test.domain.BookSampler;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.config.EnableIntegration;
+import org.springframework.integration.metadata.MetadataStore;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.messaging.Message;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+
+/**
+ * @since 0.5.1
+ */
+@ContextConfiguration
+@RunWith(SpringJUnit4ClassRunner.class)
+@DirtiesContext
+public class CassandraInboundChannelAdapterTests {
+
+	@Configuration
+	@EnableIntegration
+	public static class Config extends IntegrationTestConfig {
+
+		@Override
+		public String[] getEntityBasePackages() {
+			return new String[] { Book.class.getPackage().getName() };
+		}
+
+	}
+
+	@Autowired
+	private CassandraOperations template;
+
+	@Autowired
+	private BeanFactory beanFactory;
+
+	private final MetadataStore metadataStore = new SimpleMetadataStore();
+
+	@BeforeClass
+	public static void startCassandra()
+			throws TTransportException, IOException, InterruptedException, ConfigurationException {
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra("spring-cassandra.yaml", "build/embeddedCassandra");
+	}
+
+	@Before
+	public void insertBooks() {
+		this.template.insert(BookSampler.getBookList(25));
+	}
+
+	@After
+	public void truncateBooks() {
+		this.template.deleteAll(Book.class);
+	}
+
+	@Test
+	public void testPollingResume() throws Exception {
+		CassandraMessageSource<Book> source = createSource();
+
+		Set<String> isbns = new HashSet<>();
+		for (int i = 0; i < 15; i++) {
+			Message<?> message = source.receive();
+			assertNotNull(message);
+			assertThat(message.getPayload(), instanceOf(Book.class));
+			isbns.add(((Book) message.getPayload()).getIsbn());
+		}
+		assertNotNull(this.metadataStore.get("books"));
+		source.destroy();
+
+		// the first page is fully read, so the second one is read again after the restart
+		source = createSource();
+		int resumed = 0;
+		Message<?> message;
+		while ((message = source.receive()) != null) {
+			isbns.add(((Book) message.getPayload()).getIsbn());
+			resumed++;
+		}
+		assertEquals(15, resumed);
+		assertEquals(25, isbns.size());
+		assertEquals("completed", this.metadataStore.get("books"));
+
+		// the completion is terminal, also after a restart
+		assertNull(source.receive());
+		source.destroy();
+		source = createSource();
+		assertNull(source.receive());
+		source.destroy();
+
+		// a new scan after the completed one
+		source = createSource(true);
+		assertNotNull(source.receive());
+		source.destroy();
+	}
+
+	@Test
+	public void testMessageDrivenBatches() throws Exception {
+		QueueChannel outputChannel = new QueueChannel();
+		CassandraMessageProducer<Book> producer = new CassandraMessageProducer<>(this.template,
+				QueryBuilder.select().all().from("book"));
+		producer.setEntityClass(Book.class);
+		producer.setFetchSize(10);
+		producer.setBatchSize(8);
+		producer.setMetadataStore(this.metadataStore);
+		producer.setOutputChannel(outputChannel);
+		producer.setBeanName("bookProducer");
+		producer.setBeanFactory(this.beanFactory);
+		producer.afterPropertiesSet();
+		producer.start();
+
+		int total = 0;
+		for (int expected : new int[] { 8, 8, 8, 1 }) {
+			Message<?> message = outputChannel.receive(10000);
+			assertNotNull(message);
+			assertThat(message.getPayload(), instanceOf(List.class));
+			List<?> books = (List<?>) message.getPayload();
+			assertEquals(expected, books.size());
+			assertThat(books.get(0), instanceOf(Book.class));
+			total += books.size();
+		}
+		assertEquals(25, total);
+		assertNull(outputChannel.receive(100));
+		assertEquals("completed", this.metadataStore.get("cassandra:message-driven-channel-adapter.bookProducer"));
+
+		producer.stop();
+	}
+
+	@Test
+	public void testMessageDrivenQuickRestart() throws Exception {
+		QueueChannel outputChannel = new QueueChannel();
+		CassandraMessageProducer<Book> producer = new CassandraMessageProducer<>(this.template,
+				QueryBuilder.select().all().from("book"));
+		producer.setEntityClass(Book.class);
+		producer.setFetchSize(5);
+		producer.setMetadataStore(this.metadataStore);
+		producer.setOutputChannel(outputChannel);
+		producer.setBeanName("restartedProducer");
+		producer.setBeanFactory(this.beanFactory);
+		producer.afterPropertiesSet();
+		producer.start();
+		producer.stop();
+		producer.start();
+
+		Set<String> isbns = new HashSet<>();
+		Message<?> message;
+		while (isbns.size() < 25 && (message = outputChannel.receive(10000)) != null) {
+			isbns.add(((Book) message.getPayload()).getIsbn());
+		}
+		assertEquals(25, isbns.size());
+		int n = 0;
+		while (n++ < 100 && TestUtils.getPropertyValue(producer, "scanning", Boolean.class)) {
+			Thread.sleep(100);
+		}
+		assertFalse(TestUtils.getPropertyValue(producer, "scanning", Boolean.class));
+		assertEquals("completed", this.metadataStore.get("cassandra:message-driven-channel-adapter.restartedProducer"));
+
+		producer.stop();
+	}
+
+	private CassandraMessageSource<Book> createSource() throws Exception {
+		return createSource(false);
+	}
+
+	private CassandraMessageSource<Book> createSource(boolean restartOnCompletion) throws Exception {
+		CassandraMessageSource<Book> source = new CassandraMessageSource<>(this.template, "SELECT * FROM book");
+		source.setRestartOnCompletion(restartOnCompletion);
+		source.setEntityClass(Book.class);
+		source.setFetchSize(10);
+		source.setMetadataStore(this.metadataStore);
+		source.setMetadataKey("books");
+		source.setBeanFactory(this.beanFactory);
+		source.afterPropertiesSet();
+		return source;
+	}
+
+}
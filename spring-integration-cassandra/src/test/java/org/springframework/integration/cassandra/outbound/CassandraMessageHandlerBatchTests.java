@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.outbound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import org.springframework.data.cassandra.core.CassandraOperations;
+import org.springframework.integration.cassandra.outbound.CassandraMessageHandler.BatchFlushReason;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * @since 0.5.1
+ */
+public class CassandraMessageHandlerBatchTests {
+
+	@Test
+	public void testLingerFlushDoesNotWaitForPermit() throws Exception {
+		CassandraOperations template = mock(CassandraOperations.class);
+		SettableResultSetFuture future = new SettableResultSetFuture();
+		when(template.executeAsynchronously(any(Statement.class))).thenReturn(future);
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+
+		CassandraMessageHandler<Object> handler = new CassandraMessageHandler<>(template);
+		handler.setBatchSize(10);
+		handler.setBatchLinger(10);
+		handler.setMaxInFlight(1);
+		handler.setTaskScheduler(scheduler);
+		handler.afterPropertiesSet();
+		try {
+			handler.handleMessage(new GenericMessage<>(statement(1)));
+			handler.handleMessage(new GenericMessage<>(statement(2)));
+
+			// the first lingering batch takes the only permit; the second one must not block the scheduler
+			int n = 0;
+			while (n++ < 100 && handler.getFlushCount(BatchFlushReason.LINGER) < 1) {
+				Thread.sleep(20);
+			}
+			Thread.sleep(100);
+			final CountDownLatch schedulerAvailable = new CountDownLatch(1);
+			scheduler.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					schedulerAvailable.countDown();
+				}
+
+			});
+			assertTrue(schedulerAvailable.await(10, TimeUnit.SECONDS));
+			assertEquals(1, handler.getFlushCount(BatchFlushReason.LINGER));
+
+			future.complete();
+			n = 0;
+			while (n++ < 100 && handler.getFlushCount(BatchFlushReason.LINGER) < 2) {
+				Thread.sleep(20);
+			}
+			assertEquals(2, handler.getFlushCount(BatchFlushReason.LINGER));
+			verify(template, times(2)).executeAsynchronously(any(Statement.class));
+		}
+		finally {
+			future.complete();
+			handler.destroy();
+			scheduler.destroy();
+		}
+	}
+
+	@Test
+	public void testBatchedStatementIsWrittenWhileStopped() throws Exception {
+		CassandraOperations template = mock(CassandraOperations.class);
+		SettableResultSetFuture future = new SettableResultSetFuture();
+		future.complete();
+		when(template.executeAsynchronously(any(Statement.class))).thenReturn(future);
+
+		CassandraMessageHandler<Object> handler = new CassandraMessageHandler<>(template);
+		handler.setBatchSize(10);
+		handler.afterPropertiesSet();
+		handler.stop();
+		try {
+			handler.handleMessage(new GenericMessage<>(statement(1)));
+
+			assertEquals(1, handler.getFlushCount(BatchFlushReason.FLUSH));
+			verify(template).executeAsynchronously(any(Statement.class));
+		}
+		finally {
+			handler.destroy();
+		}
+	}
+
+	private static Statement statement(int key) {
+		SimpleStatement statement = new SimpleStatement("INSERT INTO book (isbn) VALUES ('" + key + "')");
+		statement.setRoutingKey(ByteBuffer.wrap(new byte[] { (byte) key }));
+		return statement;
+	}
+
+
+	private static final class SettableResultSetFuture extends AbstractFuture<ResultSet> implements ResultSetFuture {
+
+		void complete() {
+			set(null);
+		}
+
+		@Override
+		public ResultSet getUninterruptibly() {
+			try {
+				return Uninterruptibles.getUninterruptibly(this);
+			}
+			catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+
+		@Override
+		public ResultSet getUninterruptibly(long timeout, TimeUnit unit) throws TimeoutException {
+			try {
+				return Uninterruptibles.getUninterruptibly(this, timeout, unit);
+			}
+			catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,11 @@ package org.springframework.integration.cassandra.outbound;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -53,8 +56,12 @@ import org.springframework.integration.config.EnableIntegration;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.PollableChannel;
+import org.springframework.messaging.support.ErrorMessage;
 import org.springframework.messaging.support.GenericMessage;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -149,6 +156,51 @@ public class CassandraMessageHandlerTests {
 			return cassandraMessageHandler;
 		}
 
+		@Bean
+		public PollableChannel asyncResultChannel() {
+			return new QueueChannel();
+		}
+
+		@Bean
+		public PollableChannel asyncErrorChannel() {
+			return new QueueChannel();
+		}
+
+		@Bean
+		public ThreadPoolTaskExecutor callbackExecutor() {
+			ThreadPoolTaskExecutor callbackExecutor = new ThreadPoolTaskExecutor();
+			callbackExecutor.setThreadNamePrefix("cassandraCallback-");
+			return callbackExecutor;
+		}
+
+		@Bean
+		public MessageHandler cassandraMessageHandler5() {
+			CassandraMessageHandler<Book> cassandraMessageHandler = new CassandraMessageHandler<>(this.template);
+			cassandraMessageHandler.setAsyncExecution(true);
+			cassandraMessageHandler.setCallbackExecutor(callbackExecutor());
+			cassandraMessageHandler.setMaxInFlight(2);
+			cassandraMessageHandler.setProducesReply(true);
+			cassandraMessageHandler.setOutputChannel(asyncResultChannel());
+			cassandraMessageHandler.setErrorChannel(asyncErrorChannel());
+			return cassandraMessageHandler;
+		}
+
+		@Bean
+		public CassandraMessageHandler<Book> cassandraMessageHandler6() {
+			CassandraMessageHandler<Book> cassandraMessageHandler = new CassandraMessageHandler<>(this.template);
+			cassandraMessageHandler.setQuery("INSERT INTO book (isbn, title, author) VALUES (:isbn, :title, :author)");
+
+			Map<String, Expression> params = new HashMap<>();
+			params.put("isbn", PARSER.parseExpression("payload.isbn"));
+			params.put("title", PARSER.parseExpression("payload.title"));
+			params.put("author", PARSER.parseExpression("payload.author"));
+			cassandraMessageHandler.setParameterExpressions(params);
+
+			cassandraMessageHandler.setBatchSize(3);
+			cassandraMessageHandler.setErrorChannel(asyncErrorChannel());
+			return cassandraMessageHandler;
+		}
+
 	}
 
 	@Autowired
@@ -163,12 +215,27 @@ public class CassandraMessageHandlerTests {
 	@Autowired
 	public MessageHandler cassandraMessageHandler4;
 
+	@Autowired
+	public MessageHandler cassandraMessageHandler5;
+
+	@Autowired
+	public CassandraMessageHandler<Book> cassandraMessageHandler6;
+
 	@Autowired
 	public CassandraOperations template;
 
+	@Autowired
+	public ThreadPoolTaskExecutor callbackExecutor;
+
 	@Autowired
 	public PollableChannel resultChannel;
 
+	@Autowired
+	public PollableChannel asyncResultChannel;
+
+	@Autowired
+	public PollableChannel asyncErrorChannel;
+
 	protected static final String CASSANDRA_CONFIG = "spring-cassandra.yaml";
 
 	/**
@@ -261,4 +328,135 @@ public class CassandraMessageHandlerTests {
 
 		this.template.delete(books);
 	}
+
+	@Test
+	public void testCassandraStreamingIngest() throws Exception {
+		StringBuilder lines = new StringBuilder();
+		for (int i = 0; i < 250; i++) {
+			lines.append("isbn-").append(i).append(",Title ").append(i).append(",Cassandra Guru,")
+					.append(100 + i).append(",2016-01-01T00:00:00Z,").append(i % 2 == 0).append("\n");
+		}
+
+		this.cassandraMessageHandler3.handleMessage(
+				new GenericMessage<>(new ByteArrayInputStream(lines.toString().getBytes("UTF-8"))));
+
+		Select select = QueryBuilder.select().all().from("book");
+		List<Book> books = this.template.select(select, Book.class);
+		assertEquals(250, books.size());
+
+		List<Object[]> rows = new ArrayList<>();
+		rows.add(new Object[] { "isbn-1000", "Streamed", "Cassandra Guru", 42, new Date(), true });
+		this.cassandraMessageHandler3.handleMessage(new GenericMessage<>(rows.iterator()));
+
+		books = this.template.select(select, Book.class);
+		assertEquals(251, books.size());
+
+		this.cassandraMessageHandler1.handleMessage(new GenericMessage<>(QueryBuilder.truncate("book")));
+	}
+
+	@Test
+	public void testCassandraStreamingIngestWithMalformedLine() throws Exception {
+		StringBuilder lines = new StringBuilder();
+		for (int i = 0; i < 250; i++) {
+			if (i == 150) {
+				lines.append("isbn-").append(i).append(",Malformed\n");
+			}
+			else {
+				lines.append("isbn-").append(i).append(",Title ").append(i).append(",Cassandra Guru,")
+						.append(100 + i).append(",2016-01-01T00:00:00Z,").append(i % 2 == 0).append("\n");
+			}
+		}
+
+		CassandraMessageHandler<?> handler = (CassandraMessageHandler<?>) this.cassandraMessageHandler3;
+		long ingested = handler.getIngestedRowCount();
+		try {
+			handler.handleMessage(new GenericMessage<>(new ByteArrayInputStream(lines.toString().getBytes("UTF-8"))));
+			fail("MessagingException expected");
+		}
+		catch (MessagingException e) {
+			assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+		}
+
+		// the writes submitted before the malformed line are completed and counted before the handler returns
+		assertEquals(150, handler.getIngestedRowCount() - ingested);
+		Select select = QueryBuilder.select().all().from("book");
+		assertEquals(150, this.template.select(select, Book.class).size());
+
+		this.cassandraMessageHandler1.handleMessage(new GenericMessage<>(QueryBuilder.truncate("book")));
+	}
+
+	@Test
+	public void testAsyncInsertAndStatement() throws Exception {
+		List<Book> books = BookSampler.getBookList(5);
+		for (Book book : books) {
+			this.cassandraMessageHandler5.handleMessage(new GenericMessage<>(book));
+		}
+
+		for (int i = 0; i < books.size(); i++) {
+			Message<?> receive = this.asyncResultChannel.receive(10000);
+			assertNotNull(receive);
+			assertThat(receive.getPayload(), instanceOf(Book.class));
+		}
+
+		this.cassandraMessageHandler5.handleMessage(new GenericMessage<>(QueryBuilder.select().all().from("book")));
+
+		Message<?> receive = this.asyncResultChannel.receive(10000);
+		assertNotNull(receive);
+		assertThat(receive.getPayload(), instanceOf(ResultSet.class));
+		assertEquals(5, ((ResultSet) receive.getPayload()).all().size());
+
+		this.cassandraMessageHandler5.handleMessage(new GenericMessage<>(QueryBuilder.select().all().from("no_table")));
+
+		receive = this.asyncErrorChannel.receive(10000);
+		assertNotNull(receive);
+		assertThat(receive, instanceOf(ErrorMessage.class));
+		assertThat(((ErrorMessage) receive).getPayload(), instanceOf(MessageHandlingException.class));
+
+		this.cassandraMessageHandler5.handleMessage(new GenericMessage<>(QueryBuilder.truncate("book")));
+		assertNotNull(this.asyncResultChannel.receive(10000));
+
+		// the replies and the errors are sent from the callback executor, not from the driver threads
+		int n = 0;
+		while (n++ < 100 && this.callbackExecutor.getThreadPoolExecutor().getCompletedTaskCount() < 8) {
+			Thread.sleep(100);
+		}
+		assertEquals(8, this.callbackExecutor.getThreadPoolExecutor().getCompletedTaskCount());
+	}
+
+	@Test
+	public void testPartitionBatching() throws Exception {
+		List<Book> books = BookSampler.getBookList(2);
+		Book first = books.get(0);
+		for (int i = 0; i < 3; i++) {
+			first.setTitle("Edition " + i);
+			this.cassandraMessageHandler6.handleMessage(new GenericMessage<>(first));
+		}
+		this.cassandraMessageHandler6.handleMessage(new GenericMessage<>(books.get(1)));
+
+		assertEquals(1, this.cassandraMessageHandler6.getFlushCount(CassandraMessageHandler.BatchFlushReason.SIZE));
+		assertEquals(0, this.cassandraMessageHandler6.getFlushCount(CassandraMessageHandler.BatchFlushReason.FLUSH));
+
+		this.cassandraMessageHandler6.flush();
+
+		assertEquals(1, this.cassandraMessageHandler6.getFlushCount(CassandraMessageHandler.BatchFlushReason.FLUSH));
+
+		Select select = QueryBuilder.select().all().from("book");
+		int n = 0;
+		while (n++ < 100 && this.template.select(select, Book.class).size() < 2) {
+			Thread.sleep(100);
+		}
+		books = this.template.select(select, Book.class);
+		assertEquals(2, books.size());
+		assertNull(this.asyncErrorChannel.receive(0));
+
+		n = 0;
+		while (n++ < 100 && this.cassandraMessageHandler6.getBatchSizeStatistics().getCount() < 2) {
+			Thread.sleep(100);
+		}
+		assertEquals(2, this.cassandraMessageHandler6.getBatchSizeStatistics().getCount());
+		assertEquals(3, this.cassandraMessageHandler6.getBatchSizeStatistics().getMax(), 0);
+
+		this.cassandraMessageHandler1.handleMessage(new GenericMessage<>(QueryBuilder.truncate("book")));
+	}
+
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.cassandra.outbound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.integration.cassandra.test.domain.Book;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.PreparedStatement;
+
+/**
+ * @since 0.5.1
+ */
+public class StatementBindingPlanTests {
+
+	private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+	@Test
+	public void testBindByIndex() {
+		ColumnDefinitions variables = mock(ColumnDefinitions.class);
+		when(variables.size()).thenReturn(4);
+		when(variables.getName(0)).thenReturn("isbn");
+		when(variables.getType(0)).thenReturn(DataType.text());
+		when(variables.getName(1)).thenReturn("title");
+		when(variables.getType(1)).thenReturn(DataType.text());
+		when(variables.getName(2)).thenReturn("pages");
+		when(variables.getType(2)).thenReturn(DataType.cint());
+		when(variables.getName(3)).thenReturn("isbn");
+		when(variables.getType(3)).thenReturn(DataType.text());
+
+		BoundStatement boundStatement = mock(BoundStatement.class);
+		ByteBuffer isbnBytes = ByteBuffer.wrap("123".getBytes());
+		when(boundStatement.getBytesUnsafe(0)).thenReturn(isbnBytes);
+
+		PreparedStatement preparedStatement = mock(PreparedStatement.class);
+		when(preparedStatement.getVariables()).thenReturn(variables);
+		when(preparedStatement.bind()).thenReturn(boundStatement);
+
+		Map<String, Expression> parameterExpressions = new HashMap<>();
+		parameterExpressions.put("isbn", PARSER.parseExpression("headers['isbn']"));
+		parameterExpressions.put("title", PARSER.parseExpression("payload.title.toUpperCase()"));
+		parameterExpressions.put("pages", PARSER.parseExpression("headers.pages"));
+
+		StatementBindingPlan bindingPlan = new StatementBindingPlan(preparedStatement, parameterExpressions);
+
+		Book book = new Book();
+		book.setTitle("Spring Integration Cassandra");
+		Message<Book> message = MessageBuilder.withPayload(book)
+				.setHeader("isbn", "123")
+				.setHeader("pages", 521)
+				.build();
+
+		assertSame(boundStatement, bindingPlan.bind(message, new StandardEvaluationContext()));
+
+		verify(boundStatement).setString(0, "123");
+		verify(boundStatement).setString(1, "SPRING INTEGRATION CASSANDRA");
+		verify(boundStatement).setInt(2, 521);
+		verify(boundStatement).setBytesUnsafe(3, isbnBytes);
+		verify(boundStatement, never()).setString(3, "123");
+
+		message = MessageBuilder.withPayload(book).setHeader("isbn", "123").build();
+		bindingPlan.bind(message, new StandardEvaluationContext());
+		verify(boundStatement).setBytesUnsafe(2, null);
+	}
+
+	@Test
+	public void testMissingParameterExpression() {
+		ColumnDefinitions variables = mock(ColumnDefinitions.class);
+		when(variables.size()).thenReturn(1);
+		when(variables.getName(0)).thenReturn("isbn");
+		when(variables.getType(0)).thenReturn(DataType.text());
+
+		PreparedStatement preparedStatement = mock(PreparedStatement.class);
+		when(preparedStatement.getVariables()).thenReturn(variables);
+
+		try {
+			new StatementBindingPlan(preparedStatement, new HashMap<String, Expression>());
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException e) {
+			assertEquals("No expression for parameter: isbn", e.getMessage());
+		}
+	}
+
+}
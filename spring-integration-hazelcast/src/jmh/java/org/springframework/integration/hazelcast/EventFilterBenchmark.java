@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.MultiMap;
+
+/**
+ * Measures the per-event cost of the {@link CacheListeningPolicyType#SINGLE} event filter,
+ * for events of a local and of a remote member. The {@code uncached*} benchmarks
+ * perform the lookups the filter used to perform for every event, as a baseline.
+ *
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventFilterBenchmark {
+
+	private HazelcastInstance hazelcastInstance;
+
+	private SocketAddress localSocketAddress;
+
+	private SocketAddress remoteSocketAddress;
+
+	@Setup
+	public void setup() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		this.hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+		this.localSocketAddress = this.hazelcastInstance.getLocalEndpoint().getSocketAddress();
+		this.remoteSocketAddress = new InetSocketAddress("192.0.2.1", 5701);
+		this.hazelcastInstance.<SocketAddress, SocketAddress>getMultiMap(
+				HazelcastLocalInstanceRegistrar.SPRING_INTEGRATION_INTERNAL_CLUSTER_MULTIMAP)
+				.put(this.localSocketAddress, this.localSocketAddress);
+		HazelcastLocalInstanceSnapshot.invalidate();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.hazelcastInstance.shutdown();
+	}
+
+	@Benchmark
+	public boolean cachedLocalEvent() {
+		return HazelcastLocalInstanceSnapshot.get().isEventAcceptable(this.localSocketAddress);
+	}
+
+	@Benchmark
+	public boolean cachedRemoteEvent() {
+		return HazelcastLocalInstanceSnapshot.get().isEventAcceptable(this.remoteSocketAddress);
+	}
+
+	@Benchmark
+	public boolean uncachedLocalEvent() {
+		return uncached(this.localSocketAddress);
+	}
+
+	@Benchmark
+	public boolean uncachedRemoteEvent() {
+		return uncached(this.remoteSocketAddress);
+	}
+
+	private static boolean uncached(SocketAddress socketAddress) {
+		Set<HazelcastInstance> hazelcastInstanceSet = Hazelcast.getAllHazelcastInstances();
+		Set<SocketAddress> localSocketAddressesSet = new HashSet<>();
+		for (HazelcastInstance hazelcastInstance : hazelcastInstanceSet) {
+			localSocketAddressesSet.add(hazelcastInstance.getLocalEndpoint().getSocketAddress());
+		}
+		if (localSocketAddressesSet.isEmpty()) {
+			return false;
+		}
+		if (localSocketAddressesSet.contains(socketAddress)) {
+			return true;
+		}
+		MultiMap<SocketAddress, SocketAddress> configMultiMap = hazelcastInstanceSet.iterator().next()
+				.getMultiMap(HazelcastLocalInstanceRegistrar.SPRING_INTEGRATION_INTERNAL_CLUSTER_MULTIMAP);
+		return configMultiMap.size() > 0
+				&& !configMultiMap.values().contains(socketAddress)
+				&& localSocketAddressesSet.contains(configMultiMap.keySet().iterator().next());
+	}
+
+}
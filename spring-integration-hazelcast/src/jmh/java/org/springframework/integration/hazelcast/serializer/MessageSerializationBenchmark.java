@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.serializer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.hazelcast.HazelcastHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+
+/**
+ * Compares the Java serialization of a message with typical integration headers with
+ * the {@link IntegrationSerializers}. The serialized bytes are counted by the
+ * {@link SerializedBytes} auxiliary counter; in the average time mode JMH reports that
+ * counter as the time per byte, so the size of a serialized message is the
+ * {@code serialize} score divided by the {@code serialize:bytes} score. The
+ * {@code EntryEventMessagePayload} is not measured since it is not
+ * {@code Serializable}, i.e. it cannot be written without the serializers.
+ *
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageSerializationBenchmark {
+
+	@Param({ "java", "compact" })
+	private String serialization;
+
+	private SerializationService serializationService;
+
+	private Message<?> message;
+
+	private Data data;
+
+	@Setup
+	public void setup() {
+		SerializationConfig serializationConfig = new SerializationConfig();
+		if ("compact".equals(this.serialization)) {
+			IntegrationSerializers.registerSerializers(serializationConfig);
+		}
+		this.serializationService = new DefaultSerializationServiceBuilder()
+				.setConfig(serializationConfig)
+				.build();
+		this.message = MessageBuilder.withPayload("some value")
+				.setHeader(HazelcastHeaders.EVENT_TYPE, "UPDATED")
+				.setHeader(HazelcastHeaders.CACHE_NAME, "distributedMap")
+				.setCorrelationId("order-42")
+				.setHeader("tenant", "acme")
+				.build();
+		this.data = this.serializationService.toData(this.message);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.serializationService.destroy();
+	}
+
+	@Benchmark
+	public Data serialize(SerializedBytes serializedBytes) {
+		Data data = this.serializationService.toData(this.message);
+		serializedBytes.bytes += data.totalSize();
+		return data;
+	}
+
+	@Benchmark
+	public Object deserialize() {
+		return this.serializationService.toObject(this.data);
+	}
+
+	/**
+	 * Counts the serialized bytes; JMH reports them as the {@code serialize:bytes}
+	 * secondary result.
+	 */
+	@AuxCounters
+	@State(Scope.Thread)
+	public static class SerializedBytes {
+
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.bytes = 0;
+		}
+
+	}
+
+}
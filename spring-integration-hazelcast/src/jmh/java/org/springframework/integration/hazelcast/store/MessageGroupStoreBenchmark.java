@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.store;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.jdbc.JdbcMessageStore;
+import org.springframework.integration.store.MessageGroupStore;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+
+/**
+ * Compares the {@link HazelcastMessageStore} with the {@link JdbcMessageStore} on an
+ * embedded H2 database for a group pre-filled with {@code groupSize} messages:
+ * {@code addAndRemove} adds a message to the group and removes it again, as an
+ * aggregator does for each message of a group, and {@code releaseCheck} performs the
+ * reads of a sequence size release strategy.
+ *
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageGroupStoreBenchmark {
+
+	private static final String GROUP_ID = "benchmark";
+
+	private static final int PREFILL_CHUNK = 1000;
+
+	@Param({ "hazelcast", "jdbc" })
+	public String storeType;
+
+	@Param({ "1000", "10000", "100000" })
+	public int groupSize;
+
+	private HazelcastInstance hazelcastInstance;
+
+	private EmbeddedDatabase dataSource;
+
+	private MessageGroupStore store;
+
+	@Setup
+	public void setup() throws Exception {
+		if ("hazelcast".equals(this.storeType)) {
+			Config config = new Config();
+			config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+			config.getMapConfig(HazelcastMessageStore.DEFAULT_GROUPS_MAP_NAME)
+					.setInMemoryFormat(InMemoryFormat.OBJECT);
+			this.hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+			this.store = new HazelcastMessageStore(this.hazelcastInstance);
+		}
+		else {
+			this.dataSource = new EmbeddedDatabaseBuilder()
+					.setType(EmbeddedDatabaseType.H2)
+					.addScript("classpath:/org/springframework/integration/jdbc/schema-h2.sql")
+					.build();
+			JdbcMessageStore jdbcMessageStore = new JdbcMessageStore(this.dataSource);
+			jdbcMessageStore.afterPropertiesSet();
+			this.store = jdbcMessageStore;
+		}
+
+		for (int i = 0; i < this.groupSize; i += PREFILL_CHUNK) {
+			Message<?>[] messages = new Message<?>[Math.min(PREFILL_CHUNK, this.groupSize - i)];
+			for (int j = 0; j < messages.length; j++) {
+				messages[j] = new GenericMessage<>(i + j);
+			}
+			this.store.addMessagesToGroup(GROUP_ID, messages);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (this.hazelcastInstance != null) {
+			this.hazelcastInstance.shutdown();
+		}
+		if (this.dataSource != null) {
+			this.dataSource.shutdown();
+		}
+	}
+
+	@Benchmark
+	public int addAndRemove() {
+		Message<?> message = new GenericMessage<>("benchmark");
+		int size = this.store.addMessageToGroup(GROUP_ID, message).size();
+		this.store.removeMessagesFromGroup(GROUP_ID, Collections.<Message<?>>singletonList(message));
+		return size;
+	}
+
+	@Benchmark
+	public int releaseCheck() {
+		return this.store.getMessageGroup(GROUP_ID).size();
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast;
+
+/**
+ * Enumeration of the policies applied when the dispatch queue of an event-driven
+ * adapter is full.
+ *
+ * @since 1.0.0
+ * @see org.springframework.integration.hazelcast.inbound.AbstractHazelcastMessageProducer
+ */
+public enum DispatchOverflowPolicy {
+
+	/**
+	 * Block the Hazelcast event thread until there is room in the queue.
+	 */
+	BLOCK,
+
+	/**
+	 * Drop the oldest queued event to make room for the new one.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Send the queued messages of the worker on the Hazelcast event thread until there
+	 * is room for the new one; the order of the same key is preserved.
+	 */
+	CALLER_RUNS
+
+}
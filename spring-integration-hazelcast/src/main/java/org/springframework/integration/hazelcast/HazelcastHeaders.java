@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,4 +34,9 @@ public abstract class HazelcastHeaders {
 
 	public static final String PUBLISHING_TIME = PREFIX + "publishingTime";
 
+	/**
+	 * The number of entry events merged into the message by the conflating adapter.
+	 */
+	public static final String CONFLATED_EVENTS = PREFIX + "conflatedEvents";
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -73,6 +73,7 @@ public class HazelcastLocalInstanceRegistrar implements SmartInitializingSinglet
 		finally {
 			lock.unlock();
 		}
+		HazelcastLocalInstanceSnapshot.invalidate();
 	}
 
 }
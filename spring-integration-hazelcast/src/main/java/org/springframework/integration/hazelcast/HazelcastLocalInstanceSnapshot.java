@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast;
+
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hazelcast.core.EntryAdapter;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.LifecycleEvent;
+import com.hazelcast.core.LifecycleListener;
+import com.hazelcast.core.MapEvent;
+import com.hazelcast.core.MembershipAdapter;
+import com.hazelcast.core.MembershipEvent;
+import com.hazelcast.core.MultiMap;
+
+/**
+ * An immutable snapshot of the socket addresses of the local Hazelcast instances and of
+ * the {@link HazelcastLocalInstanceRegistrar#SPRING_INTEGRATION_INTERNAL_CLUSTER_MULTIMAP}
+ * content, used to filter the events for {@link CacheListeningPolicyType#SINGLE}.
+ * <p>
+ * The snapshot is built on first use and shared by all inbound channel adapters in the
+ * JVM, so that filtering an event is a plain set lookup instead of several remote calls.
+ * It is invalidated, and rebuilt on next use, on cluster membership changes, changes of
+ * the internal {@link MultiMap} and lifecycle changes of the local instances.
+ *
+ * @since 1.0.0
+ */
+public final class HazelcastLocalInstanceSnapshot {
+
+	private static final HazelcastLocalInstanceSnapshot EMPTY =
+			new HazelcastLocalInstanceSnapshot(Collections.<SocketAddress>emptySet(),
+					Collections.<SocketAddress>emptySet(), null);
+
+	private static final AtomicLong generation = new AtomicLong();
+
+	private static final ConcurrentMap<HazelcastInstance, Boolean> observedInstances = new ConcurrentHashMap<>();
+
+	private static volatile HazelcastLocalInstanceSnapshot current;
+
+	private final Set<SocketAddress> localSocketAddresses;
+
+	private final Set<SocketAddress> registeredSocketAddresses;
+
+	private final SocketAddress adminSocketAddress;
+
+	private HazelcastLocalInstanceSnapshot(Set<SocketAddress> localSocketAddresses,
+			Set<SocketAddress> registeredSocketAddresses, SocketAddress adminSocketAddress) {
+		this.localSocketAddresses = localSocketAddresses;
+		this.registeredSocketAddresses = registeredSocketAddresses;
+		this.adminSocketAddress = adminSocketAddress;
+	}
+
+	/**
+	 * Return the current snapshot, building it if necessary.
+	 * @return the snapshot.
+	 */
+	public static HazelcastLocalInstanceSnapshot get() {
+		HazelcastLocalInstanceSnapshot snapshot = current;
+		if (snapshot == null) {
+			snapshot = build();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Discard the current snapshot, e.g. after local instances have been started.
+	 */
+	public static void invalidate() {
+		generation.incrementAndGet();
+		current = null;
+	}
+
+	private static synchronized HazelcastLocalInstanceSnapshot build() {
+		HazelcastLocalInstanceSnapshot snapshot = current;
+		if (snapshot != null) {
+			return snapshot;
+		}
+		long buildGeneration = generation.get();
+		Set<HazelcastInstance> hazelcastInstances = Hazelcast.getAllHazelcastInstances();
+		if (hazelcastInstances.isEmpty()) {
+			return EMPTY;
+		}
+		Set<SocketAddress> localSocketAddresses = new HashSet<>();
+		for (HazelcastInstance hazelcastInstance : hazelcastInstances) {
+			observe(hazelcastInstance);
+			localSocketAddresses.add(hazelcastInstance.getLocalEndpoint().getSocketAddress());
+		}
+		MultiMap<SocketAddress, SocketAddress> configMultiMap = hazelcastInstances.iterator().next()
+				.getMultiMap(HazelcastLocalInstanceRegistrar.SPRING_INTEGRATION_INTERNAL_CLUSTER_MULTIMAP);
+		Set<SocketAddress> registeredSocketAddresses = new HashSet<>(configMultiMap.values());
+		Set<SocketAddress> adminSocketAddresses = configMultiMap.keySet();
+		snapshot = new HazelcastLocalInstanceSnapshot(Collections.unmodifiableSet(localSocketAddresses),
+				Collections.unmodifiableSet(registeredSocketAddresses),
+				adminSocketAddresses.isEmpty() ? null : adminSocketAddresses.iterator().next());
+		if (generation.get() == buildGeneration) {
+			current = snapshot;
+		}
+		return snapshot;
+	}
+
+	private static void observe(final HazelcastInstance hazelcastInstance) {
+		if (observedInstances.putIfAbsent(hazelcastInstance, Boolean.TRUE) == null) {
+			hazelcastInstance.getLifecycleService().addLifecycleListener(new LifecycleListener() {
+
+				@Override
+				public void stateChanged(LifecycleEvent event) {
+					if (event.getState() == LifecycleEvent.LifecycleState.SHUTTING_DOWN) {
+						observedInstances.remove(hazelcastInstance);
+					}
+					invalidate();
+				}
+
+			});
+			hazelcastInstance.getCluster().addMembershipListener(new MembershipAdapter() {
+
+				@Override
+				public void memberAdded(MembershipEvent membershipEvent) {
+					invalidate();
+				}
+
+				@Override
+				public void memberRemoved(MembershipEvent membershipEvent) {
+					invalidate();
+				}
+
+			});
+			hazelcastInstance.<SocketAddress, SocketAddress>getMultiMap(
+					HazelcastLocalInstanceRegistrar.SPRING_INTEGRATION_INTERNAL_CLUSTER_MULTIMAP)
+					.addEntryListener(new EntryAdapter<SocketAddress, SocketAddress>() {
+
+						@Override
+						public void onEntryEvent(EntryEvent<SocketAddress, SocketAddress> event) {
+							invalidate();
+						}
+
+						@Override
+						public void onMapEvent(MapEvent event) {
+							invalidate();
+						}
+
+					}, false);
+		}
+	}
+
+	/**
+	 * Determine whether an event published by the member with the provided address has
+	 * to be processed by a {@link CacheListeningPolicyType#SINGLE} listener in this JVM.
+	 * @param socketAddress the socket address of the member.
+	 * @return true if the event is to be processed.
+	 */
+	public boolean isEventAcceptable(SocketAddress socketAddress) {
+		return !this.localSocketAddresses.isEmpty()
+				&& (this.localSocketAddresses.contains(socketAddress) ||
+				isEventComingFromNonRegisteredHazelcastInstance(socketAddress));
+	}
+
+	private boolean isEventComingFromNonRegisteredHazelcastInstance(SocketAddress socketAddressOfEvent) {
+		return !this.registeredSocketAddresses.isEmpty()
+				&& !this.registeredSocketAddresses.contains(socketAddressOfEvent)
+				&& this.localSocketAddresses.contains(this.adminSocketAddress);
+	}
+
+	public Set<SocketAddress> getLocalSocketAddresses() {
+		return this.localSocketAddresses;
+	}
+
+}
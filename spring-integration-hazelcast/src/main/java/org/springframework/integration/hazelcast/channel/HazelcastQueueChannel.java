@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.channel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.core.MessageSelector;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import com.hazelcast.core.IQueue;
+
+/**
+ * The {@link QueueChannel} backed by a Hazelcast {@link IQueue}, so the messages sent on
+ * any member are distributed among the consumers polling this channel on all members.
+ * <p>
+ * When the local buffer is empty, a receive pulls up to {@link #setBatchSize(int) batchSize}
+ * messages from the {@link IQueue} with a single {@link IQueue#drainTo(java.util.Collection, int)}
+ * round trip; the next receives are served from the buffer. Only when the {@link IQueue}
+ * is empty does the receive wait for a message with the provided timeout.
+ * <p>
+ * The buffered messages are already removed from the {@link IQueue}: up to
+ * {@code batchSize - 1} messages per member are not available for the consumers on other
+ * members until they are received locally, and they are lost if the member goes down
+ * before that. Keep the {@code batchSize} small for the fair distribution among the
+ * members; a {@code batchSize} of 1 disables the buffering altogether, so no message is
+ * held outside of the {@link IQueue}.
+ *
+ * @since 1.0.0
+ */
+public class HazelcastQueueChannel extends QueueChannel {
+
+	/**
+	 * The default number of messages pulled per round trip.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 10;
+
+	private final IQueue<Message<?>> queue;
+
+	private final Queue<Message<?>> buffer = new ConcurrentLinkedQueue<>();
+
+	private volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+	public HazelcastQueueChannel(IQueue<Message<?>> queue) {
+		super(queue);
+		this.queue = queue;
+	}
+
+	/**
+	 * Set the maximum number of messages to pull from the {@link IQueue} per round trip.
+	 * Up to {@code batchSize - 1} of them are held in the local buffer: invisible to the
+	 * other members and lost on the member crash. Set to 1 to receive straight from the
+	 * {@link IQueue}. Defaults to {@value #DEFAULT_BATCH_SIZE}.
+	 * @param batchSize the batch size.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "hazelcast:queue-channel";
+	}
+
+	@Override
+	protected Message<?> doReceive(long timeout) {
+		Message<?> message = this.buffer.poll();
+		if (message != null) {
+			return message;
+		}
+		List<Message<?>> batch = new ArrayList<>(this.batchSize);
+		if (this.queue.drainTo(batch, this.batchSize) > 0) {
+			this.buffer.addAll(batch.subList(1, batch.size()));
+			return batch.get(0);
+		}
+		return super.doReceive(timeout);
+	}
+
+	@Override
+	public List<Message<?>> clear() {
+		List<Message<?>> clearedMessages = new ArrayList<>();
+		drainBuffer(clearedMessages);
+		clearedMessages.addAll(super.clear());
+		return clearedMessages;
+	}
+
+	@Override
+	public List<Message<?>> purge(MessageSelector selector) {
+		if (selector == null) {
+			return clear();
+		}
+		List<Message<?>> purgedMessages = new ArrayList<>();
+		for (Message<?> message : this.buffer) {
+			if (!selector.accept(message) && this.buffer.remove(message)) {
+				purgedMessages.add(message);
+			}
+		}
+		purgedMessages.addAll(super.purge(selector));
+		return purgedMessages;
+	}
+
+	@Override
+	public int getQueueSize() {
+		return this.buffer.size() + super.getQueueSize();
+	}
+
+	private void drainBuffer(List<Message<?>> messages) {
+		Message<?> message;
+		while ((message = this.buffer.poll()) != null) {
+			messages.add(message);
+		}
+	}
+
+}
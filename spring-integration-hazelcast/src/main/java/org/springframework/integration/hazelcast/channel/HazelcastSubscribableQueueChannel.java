@@ -0,0 +1,387 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.channel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.integration.channel.AbstractSubscribableChannel;
+import org.springframework.integration.channel.MessagePublishingErrorHandler;
+import org.springframework.integration.dispatcher.RoundRobinLoadBalancingStrategy;
+import org.springframework.integration.dispatcher.UnicastingDispatcher;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+import com.hazelcast.core.HazelcastInstanceNotActiveException;
+import com.hazelcast.core.IQueue;
+
+/**
+ * The {@link org.springframework.messaging.SubscribableChannel} backed by a Hazelcast
+ * {@link IQueue}: the sent messages are offered to the {@link IQueue} and the
+ * {@link #setConcurrency(int) concurrency} consumer tasks on each member take them from
+ * there and dispatch them to the local subscribers, so the messages are load-balanced
+ * among all the members.
+ * <p>
+ * A consumer pulls up to {@link #setBatchSize(int) batchSize} messages per round trip
+ * with {@link IQueue#drainTo(java.util.Collection, int)}. When the {@link IQueue} is
+ * empty, it waits for a message with a timeout which starts from
+ * {@link #setMinPollTimeout(long) minPollTimeout} and is doubled after each empty poll up
+ * to the {@link #setMaxPollTimeout(long) maxPollTimeout}; the latter also bounds the
+ * time to stop the consumers. The {@link #stop(Runnable)} callback is only run once all
+ * the consumers have exited, i.e. dispatched the batches they had already pulled.
+ * <p>
+ * The messages pulled by a consumer are removed from the {@link IQueue}: the dispatching
+ * errors are handled by the {@link #setErrorHandler(ErrorHandler) errorHandler} and the
+ * messages of a batch not dispatched yet are lost if the member goes down.
+ *
+ * @since 1.0.0
+ */
+public class HazelcastSubscribableQueueChannel extends AbstractSubscribableChannel implements SmartLifecycle {
+
+	/**
+	 * The default number of messages pulled per round trip.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 10;
+
+	/**
+	 * The default minimum poll timeout in milliseconds.
+	 */
+	public static final long DEFAULT_MIN_POLL_TIMEOUT = 10;
+
+	/**
+	 * The default maximum poll timeout in milliseconds.
+	 */
+	public static final long DEFAULT_MAX_POLL_TIMEOUT = 1000;
+
+	private final IQueue<Message<?>> queue;
+
+	private final UnicastingDispatcher dispatcher = new UnicastingDispatcher();
+
+	private final Object lifecycleMonitor = new Object();
+
+	private Executor taskExecutor;
+
+	private ErrorHandler errorHandler;
+
+	private int concurrency = 1;
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	private long minPollTimeout = DEFAULT_MIN_POLL_TIMEOUT;
+
+	private long maxPollTimeout = DEFAULT_MAX_POLL_TIMEOUT;
+
+	private boolean autoStartup = true;
+
+	private int phase = Integer.MAX_VALUE / 2;
+
+	private volatile boolean running;
+
+	private volatile int activeConsumers;
+
+	private final List<Runnable> stopCallbacks = new ArrayList<>();
+
+	public HazelcastSubscribableQueueChannel(IQueue<Message<?>> queue) {
+		Assert.notNull(queue, "'queue' must not be null");
+		this.queue = queue;
+		this.dispatcher.setLoadBalancingStrategy(new RoundRobinLoadBalancingStrategy());
+	}
+
+	/**
+	 * Set the {@link Executor} to run the consumer tasks. Defaults to a
+	 * {@link SimpleAsyncTaskExecutor}.
+	 * @param taskExecutor the task executor.
+	 */
+	public void setTaskExecutor(Executor taskExecutor) {
+		Assert.notNull(taskExecutor, "'taskExecutor' must not be null");
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Set the {@link ErrorHandler} for the dispatching errors. Defaults to a
+	 * {@link MessagePublishingErrorHandler}.
+	 * @param errorHandler the error handler.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		Assert.notNull(errorHandler, "'errorHandler' must not be null");
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Set the number of consumer tasks on this member. Defaults to 1.
+	 * @param concurrency the concurrency.
+	 */
+	public void setConcurrency(int concurrency) {
+		Assert.isTrue(concurrency > 0, "'concurrency' must be greater than 0");
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Set the maximum number of messages to pull from the {@link IQueue} per round trip.
+	 * Defaults to {@value #DEFAULT_BATCH_SIZE}.
+	 * @param batchSize the batch size.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Set the timeout in milliseconds of the first poll on the empty {@link IQueue}.
+	 * Defaults to {@value #DEFAULT_MIN_POLL_TIMEOUT}.
+	 * @param minPollTimeout the minimum poll timeout.
+	 */
+	public void setMinPollTimeout(long minPollTimeout) {
+		Assert.isTrue(minPollTimeout > 0, "'minPollTimeout' must be greater than 0");
+		this.minPollTimeout = minPollTimeout;
+	}
+
+	/**
+	 * Set the timeout in milliseconds the poll on the empty {@link IQueue} grows up to.
+	 * Defaults to {@value #DEFAULT_MAX_POLL_TIMEOUT}.
+	 * @param maxPollTimeout the maximum poll timeout.
+	 */
+	public void setMaxPollTimeout(long maxPollTimeout) {
+		Assert.isTrue(maxPollTimeout > 0, "'maxPollTimeout' must be greater than 0");
+		this.maxPollTimeout = maxPollTimeout;
+	}
+
+	public void setAutoStartup(boolean autoStartup) {
+		this.autoStartup = autoStartup;
+	}
+
+	public void setPhase(int phase) {
+		this.phase = phase;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "hazelcast:subscribable-queue-channel";
+	}
+
+	@Override
+	protected UnicastingDispatcher getDispatcher() {
+		return this.dispatcher;
+	}
+
+	@Override
+	protected void onInit() throws Exception {
+		super.onInit();
+		Assert.isTrue(this.minPollTimeout <= this.maxPollTimeout,
+				"'minPollTimeout' must not be greater than 'maxPollTimeout'");
+		if (this.taskExecutor == null) {
+			this.taskExecutor = new SimpleAsyncTaskExecutor(getComponentName() + "-");
+		}
+		if (this.errorHandler == null) {
+			MessagePublishingErrorHandler errorHandler = new MessagePublishingErrorHandler();
+			if (getBeanFactory() != null) {
+				errorHandler.setBeanFactory(getBeanFactory());
+			}
+			this.errorHandler = errorHandler;
+		}
+	}
+
+	@Override
+	protected boolean doSend(Message<?> message, long timeout) {
+		try {
+			if (timeout < 0) {
+				this.queue.put(message);
+				return true;
+			}
+			else {
+				return this.queue.offer(message, timeout, TimeUnit.MILLISECONDS);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Override
+	public boolean isAutoStartup() {
+		return this.autoStartup;
+	}
+
+	@Override
+	public int getPhase() {
+		return this.phase;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/**
+	 * Start the consumer tasks. If the channel has just been stopped, wait for the
+	 * previous consumers to exit first, so there are never more than
+	 * {@link #setConcurrency(int) concurrency} consumers on this member.
+	 */
+	@Override
+	public void start() {
+		synchronized (this.lifecycleMonitor) {
+			while (!this.running && this.activeConsumers > 0) {
+				try {
+					this.lifecycleMonitor.wait();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for the previous consumers of ["
+							+ getComponentName() + "] to exit", e);
+				}
+			}
+			if (!this.running) {
+				this.running = true;
+				for (int i = 0; i < this.concurrency; i++) {
+					this.activeConsumers++;
+					try {
+						this.taskExecutor.execute(new Consumer());
+					}
+					catch (RuntimeException e) {
+						this.activeConsumers--;
+						throw e;
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public void stop() {
+		synchronized (this.lifecycleMonitor) {
+			this.running = false;
+		}
+	}
+
+	/**
+	 * Stop the consumer tasks and run the callback once they have all exited.
+	 * @param callback the callback.
+	 */
+	@Override
+	public void stop(Runnable callback) {
+		synchronized (this.lifecycleMonitor) {
+			this.running = false;
+			if (this.activeConsumers > 0) {
+				this.stopCallbacks.add(callback);
+				return;
+			}
+		}
+		callback.run();
+	}
+
+	/**
+	 * @return the number of consumer tasks submitted and not exited yet.
+	 */
+	public int getActiveConsumerCount() {
+		return this.activeConsumers;
+	}
+
+
+	private final class Consumer implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				consume();
+			}
+			finally {
+				List<Runnable> callbacks = null;
+				synchronized (HazelcastSubscribableQueueChannel.this.lifecycleMonitor) {
+					if (--HazelcastSubscribableQueueChannel.this.activeConsumers == 0
+							&& !HazelcastSubscribableQueueChannel.this.stopCallbacks.isEmpty()) {
+						callbacks = new ArrayList<>(HazelcastSubscribableQueueChannel.this.stopCallbacks);
+						HazelcastSubscribableQueueChannel.this.stopCallbacks.clear();
+					}
+					HazelcastSubscribableQueueChannel.this.lifecycleMonitor.notifyAll();
+				}
+				if (callbacks != null) {
+					for (Runnable callback : callbacks) {
+						callback.run();
+					}
+				}
+			}
+		}
+
+		private void consume() {
+			IQueue<Message<?>> queue = HazelcastSubscribableQueueChannel.this.queue;
+			int batchSize = HazelcastSubscribableQueueChannel.this.batchSize;
+			long minPollTimeout = HazelcastSubscribableQueueChannel.this.minPollTimeout;
+			long maxPollTimeout = HazelcastSubscribableQueueChannel.this.maxPollTimeout;
+
+			List<Message<?>> batch = new ArrayList<>(batchSize);
+			long pollTimeout = minPollTimeout;
+			while (isRunning()) {
+				try {
+					if (queue.drainTo(batch, batchSize) == 0) {
+						Message<?> message = queue.poll(pollTimeout, TimeUnit.MILLISECONDS);
+						if (message == null) {
+							pollTimeout = Math.min(pollTimeout * 2, maxPollTimeout);
+							continue;
+						}
+						batch.add(message);
+						queue.drainTo(batch, batchSize - 1);
+					}
+					pollTimeout = minPollTimeout;
+					for (Message<?> message : batch) {
+						dispatch(message);
+					}
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				catch (HazelcastInstanceNotActiveException e) {
+					if (isRunning()) {
+						logger.error("The Hazelcast instance is not active; the consumer is stopped", e);
+					}
+					return;
+				}
+				catch (Exception e) {
+					HazelcastSubscribableQueueChannel.this.errorHandler.handleError(e);
+					try {
+						// don't spin on a persistent failure
+						Thread.sleep(maxPollTimeout);
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+				finally {
+					batch.clear();
+				}
+			}
+		}
+
+		private void dispatch(Message<?> message) {
+			try {
+				getDispatcher().dispatch(message);
+			}
+			catch (Exception e) {
+				HazelcastSubscribableQueueChannel.this.errorHandler.handleError(e);
+			}
+		}
+
+	}
+
+}
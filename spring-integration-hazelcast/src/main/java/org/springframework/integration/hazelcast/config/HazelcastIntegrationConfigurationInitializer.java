@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,6 +34,9 @@ public class HazelcastIntegrationConfigurationInitializer implements Integration
 	private static final String HAZELCAST_LOCAL_INSTANCE_REGISTRAR_BEAN_NAME =
 			HazelcastLocalInstanceRegistrar.class.getName();
 
+	private static final String HAZELCAST_SERIALIZATION_CONFIGURER_BEAN_NAME =
+			HazelcastSerializationConfigurer.class.getName();
+
 	@Override
 	public void initialize(ConfigurableListableBeanFactory beanFactory) throws BeansException {
 		BeanDefinitionRegistry beanDefinitionRegistry = (BeanDefinitionRegistry) beanFactory;
@@ -41,6 +44,10 @@ public class HazelcastIntegrationConfigurationInitializer implements Integration
 			beanDefinitionRegistry.registerBeanDefinition(HAZELCAST_LOCAL_INSTANCE_REGISTRAR_BEAN_NAME,
 					new RootBeanDefinition(HazelcastLocalInstanceRegistrar.class));
 		}
+		if (!beanDefinitionRegistry.containsBeanDefinition(HAZELCAST_SERIALIZATION_CONFIGURER_BEAN_NAME)) {
+			beanDefinitionRegistry.registerBeanDefinition(HAZELCAST_SERIALIZATION_CONFIGURER_BEAN_NAME,
+					new RootBeanDefinition(HazelcastSerializationConfigurer.class));
+		}
 	}
 
 }
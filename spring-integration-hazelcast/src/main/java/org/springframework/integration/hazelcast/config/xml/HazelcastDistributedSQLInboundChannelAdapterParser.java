@@ -41,6 +41,18 @@ public class HazelcastDistributedSQLInboundChannelAdapterParser extends Abstract
 
 	private static final String ITERATION_TYPE_ATTRIBUTE = "iteration-type";
 
+	private static final String PAGE_SIZE_ATTRIBUTE = "page-size";
+
+	private static final String COMPARATOR_ATTRIBUTE = "comparator";
+
+	private static final String MESSAGE_PER_ENTRY_ATTRIBUTE = "message-per-entry";
+
+	private static final String WATERMARK_ATTRIBUTE_ATTRIBUTE = "watermark-attribute";
+
+	private static final String METADATA_STORE_ATTRIBUTE = "metadata-store";
+
+	private static final String METADATA_KEY_ATTRIBUTE = "metadata-key";
+
 	@Override
 	protected BeanMetadataElement parseSource(Element element, ParserContext parserContext) {
 		if (!StringUtils.hasText(element.getAttribute(CACHE_ATTRIBUTE))) {
@@ -62,6 +74,12 @@ public class HazelcastDistributedSQLInboundChannelAdapterParser extends Abstract
 		builder.addConstructorArgValue(element.getAttribute(DISTRIBUTED_SQL_ATTRIBUTE));
 
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, ITERATION_TYPE_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, PAGE_SIZE_ATTRIBUTE);
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, COMPARATOR_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, MESSAGE_PER_ENTRY_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, WATERMARK_ATTRIBUTE_ATTRIBUTE);
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, METADATA_STORE_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, METADATA_KEY_ATTRIBUTE);
 
 		return builder.getBeanDefinition();
 	}
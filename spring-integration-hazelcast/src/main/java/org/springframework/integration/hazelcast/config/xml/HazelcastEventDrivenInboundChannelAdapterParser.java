@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -45,6 +45,14 @@ public class HazelcastEventDrivenInboundChannelAdapterParser extends AbstractSin
 
 	private static final String CACHE_LISTENING_POLICY_ATTRIBUTE = "cache-listening-policy";
 
+	private static final String DISPATCH_WORKERS_ATTRIBUTE = "dispatch-workers";
+
+	private static final String DISPATCH_QUEUE_CAPACITY_ATTRIBUTE = "dispatch-queue-capacity";
+
+	private static final String DISPATCH_OVERFLOW_POLICY_ATTRIBUTE = "dispatch-overflow-policy";
+
+	private static final String CONFLATION_WINDOW_ATTRIBUTE = "conflation-window";
+
 	private static final String OUTPUT_CHANNEL = "outputChannel";
 
 	private static final String CACHE_EVENT_TYPES = "cacheEventTypes";
@@ -92,6 +100,10 @@ public class HazelcastEventDrivenInboundChannelAdapterParser extends AbstractSin
 		builder.addConstructorArgReference(element.getAttribute(CACHE_ATTRIBUTE));
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, CACHE_EVENTS_ATTRIBUTE, CACHE_EVENT_TYPES);
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, CACHE_LISTENING_POLICY_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, DISPATCH_WORKERS_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, DISPATCH_QUEUE_CAPACITY_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, DISPATCH_OVERFLOW_POLICY_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, CONFLATION_WINDOW_ATTRIBUTE);
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, IntegrationNamespaceUtils.AUTO_STARTUP);
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, IntegrationNamespaceUtils.PHASE);
 	}
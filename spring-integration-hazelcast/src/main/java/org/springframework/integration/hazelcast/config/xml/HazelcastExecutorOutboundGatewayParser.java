@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.config.xml;
+
+import org.w3c.dom.Element;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.xml.ParserContext;
+import org.springframework.integration.config.xml.AbstractConsumerEndpointParser;
+import org.springframework.integration.config.xml.IntegrationNamespaceUtils;
+import org.springframework.integration.hazelcast.outbound.HazelcastExecutorOutboundGateway;
+
+/**
+ * Hazelcast Executor Outbound Gateway Parser for
+ * {@code <int-hazelcast:outbound-gateway />}.
+ *
+ * @since 1.0.0
+ */
+public class HazelcastExecutorOutboundGatewayParser extends AbstractConsumerEndpointParser {
+
+	private static final String EXECUTOR_SERVICE_ATTRIBUTE = "executor-service";
+
+	private static final String KEY_EXPRESSION_ATTRIBUTE = "key-expression";
+
+	private static final String CALLABLE_EXPRESSION_ATTRIBUTE = "callable-expression";
+
+	private static final String ASYNC_ATTRIBUTE = "async";
+
+	private static final String MAX_IN_FLIGHT_ATTRIBUTE = "max-in-flight";
+
+	private static final String REPLY_CHANNEL_ATTRIBUTE = "reply-channel";
+
+	private static final String REPLY_TIMEOUT_ATTRIBUTE = "reply-timeout";
+
+	private static final String REQUIRES_REPLY_ATTRIBUTE = "requires-reply";
+
+	@Override
+	protected String getInputChannelAttributeName() {
+		return "request-channel";
+	}
+
+	@Override
+	protected BeanDefinitionBuilder parseHandler(Element element, ParserContext parserContext) {
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder
+				.genericBeanDefinition(HazelcastExecutorOutboundGateway.class);
+
+		builder.addConstructorArgReference(element.getAttribute(EXECUTOR_SERVICE_ATTRIBUTE));
+
+		BeanDefinition keyExpressionDef =
+				IntegrationNamespaceUtils.createExpressionDefIfAttributeDefined(KEY_EXPRESSION_ATTRIBUTE, element);
+		if (keyExpressionDef != null) {
+			builder.addPropertyValue("keyExpression", keyExpressionDef);
+		}
+		else {
+			parserContext.getReaderContext().error("'" + KEY_EXPRESSION_ATTRIBUTE + "' attribute is required.",
+					element);
+		}
+
+		BeanDefinition callableExpressionDef =
+				IntegrationNamespaceUtils.createExpressionDefIfAttributeDefined(CALLABLE_EXPRESSION_ATTRIBUTE, element);
+		if (callableExpressionDef != null) {
+			builder.addPropertyValue("callableExpression", callableExpressionDef);
+		}
+
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, ASYNC_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, MAX_IN_FLIGHT_ATTRIBUTE);
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, REPLY_CHANNEL_ATTRIBUTE,
+				"outputChannel");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, REPLY_TIMEOUT_ATTRIBUTE,
+				"sendTimeout");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, REQUIRES_REPLY_ATTRIBUTE);
+
+		return builder;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -43,6 +43,24 @@ public class HazelcastOutboundChannelAdapterParser extends AbstractOutboundChann
 
 	private static final String EXTRACT_PAYLOAD_ATTRIBUTE = "extract-payload";
 
+	private static final String ENTRY_PROCESSOR_ATTRIBUTE = "entry-processor";
+
+	private static final String ENTRY_PROCESSOR_EXPRESSION_ATTRIBUTE = "entry-processor-expression";
+
+	private static final String BATCH_SIZE_ATTRIBUTE = "batch-size";
+
+	private static final String BATCH_LINGER_ATTRIBUTE = "batch-linger";
+
+	private static final String ASYNC_ATTRIBUTE = "async";
+
+	private static final String MAX_IN_FLIGHT_ATTRIBUTE = "max-in-flight";
+
+	private static final String ERROR_CHANNEL_ATTRIBUTE = "error-channel";
+
+	private static final String TASK_SCHEDULER_ATTRIBUTE = "task-scheduler";
+
+	private static final String FLUSH_EXECUTOR_ATTRIBUTE = "flush-executor";
+
 	private static final String DISTRIBUTED_OBJECT = "distributedObject";
 
 	@Override
@@ -65,6 +83,27 @@ public class HazelcastOutboundChannelAdapterParser extends AbstractOutboundChann
 
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, EXTRACT_PAYLOAD_ATTRIBUTE);
 
+		boolean hasEntryProcessor = element.hasAttribute(ENTRY_PROCESSOR_ATTRIBUTE);
+		boolean hasEntryProcessorExpression = element.hasAttribute(ENTRY_PROCESSOR_EXPRESSION_ATTRIBUTE);
+		if (hasEntryProcessor && hasEntryProcessorExpression) {
+			parserContext.getReaderContext().error("'" + ENTRY_PROCESSOR_ATTRIBUTE + "' and '"
+					+ ENTRY_PROCESSOR_EXPRESSION_ATTRIBUTE + "' attributes are mutually exclusive.", element);
+		}
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, ENTRY_PROCESSOR_ATTRIBUTE);
+		BeanDefinition entryProcessorExpressionDef = IntegrationNamespaceUtils
+				.createExpressionDefIfAttributeDefined(ENTRY_PROCESSOR_EXPRESSION_ATTRIBUTE, element);
+		if (entryProcessorExpressionDef != null) {
+			builder.addPropertyValue("entryProcessorExpression", entryProcessorExpressionDef);
+		}
+
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, BATCH_SIZE_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, BATCH_LINGER_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, ASYNC_ATTRIBUTE);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, MAX_IN_FLIGHT_ATTRIBUTE);
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, ERROR_CHANNEL_ATTRIBUTE);
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, TASK_SCHEDULER_ATTRIBUTE);
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, FLUSH_EXECUTOR_ATTRIBUTE);
+
 		return builder.getBeanDefinition();
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,34 +17,59 @@
 package org.springframework.integration.hazelcast.inbound;
 
 import java.net.InetSocketAddress;
-import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
 
 import org.springframework.integration.endpoint.MessageProducerSupport;
 import org.springframework.integration.hazelcast.CacheEventType;
 import org.springframework.integration.hazelcast.CacheListeningPolicyType;
+import org.springframework.integration.hazelcast.DispatchOverflowPolicy;
 import org.springframework.integration.hazelcast.HazelcastHeaders;
 import org.springframework.integration.hazelcast.HazelcastIntegrationDefinitionValidator;
-import org.springframework.integration.hazelcast.HazelcastLocalInstanceRegistrar;
+import org.springframework.integration.hazelcast.HazelcastLocalInstanceSnapshot;
 import org.springframework.integration.hazelcast.message.EntryEventMessagePayload;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
 
 import com.hazelcast.core.AbstractIMapEvent;
 import com.hazelcast.core.DistributedObject;
 import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.EntryListener;
-import com.hazelcast.core.Hazelcast;
-import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.MapEvent;
-import com.hazelcast.core.MultiMap;
 
 /**
  * Hazelcast Base Event-Driven Message Producer.
+ * <p>
+ * By default the messages are sent on the Hazelcast event threads, so a slow downstream
+ * flow delays the other events of the member. With {@link #setDispatchWorkers(int)
+ * dispatchWorkers}, the messages are handed over to a pool of worker threads instead:
+ * each worker has a bounded queue of {@link #setDispatchQueueCapacity(int)
+ * dispatchQueueCapacity} messages and the entry events are assigned to the workers by
+ * their key, so the events of the same key are sent in order. The other events are
+ * assigned by the name of the distributed object. The
+ * {@link #setDispatchOverflowPolicy(DispatchOverflowPolicy) dispatchOverflowPolicy}
+ * determines what happens when a queue is full. The order of the same key is kept with
+ * all the policies: with {@link DispatchOverflowPolicy#CALLER_RUNS} and for the events
+ * received after the {@link #stop()}, the event thread sends the queued messages of the
+ * worker before its own one.
+ * <p>
+ * With a {@link #setConflationWindow(long) conflationWindow}, the entry events are
+ * conflated: the events of the same key within a window are merged into one message
+ * with the last value and the first old value, which is sent when the window closes.
+ * The {@link HazelcastHeaders#CONFLATED_EVENTS} header carries the number of merged
+ * events. The map-wide events are sent after the pending conflated messages. The
+ * flushes on the scheduler, on the event threads and on stop are serialized, so the
+ * conflated messages of the same key are sent in order; the entry events are still
+ * conflated during a flush.
  *
  * @author Eren Avsarogullari
  * @author Artem Bilan
@@ -52,6 +77,11 @@ import com.hazelcast.core.MultiMap;
  */
 public abstract class AbstractHazelcastMessageProducer extends MessageProducerSupport {
 
+	/**
+	 * The default capacity of the dispatch queue of each worker.
+	 */
+	public static final int DEFAULT_DISPATCH_QUEUE_CAPACITY = 1024;
+
 	protected final DistributedObject distributedObject;
 
 	private volatile CacheListeningPolicyType cacheListeningPolicy = CacheListeningPolicyType.SINGLE;
@@ -60,6 +90,26 @@ public abstract class AbstractHazelcastMessageProducer extends MessageProducerSu
 
 	private Set<String> cacheEvents = Collections.singleton(CacheEventType.ADDED.name());
 
+	private int dispatchWorkers;
+
+	private int dispatchQueueCapacity = DEFAULT_DISPATCH_QUEUE_CAPACITY;
+
+	private DispatchOverflowPolicy dispatchOverflowPolicy = DispatchOverflowPolicy.BLOCK;
+
+	private volatile StripedEventDispatcher dispatcher;
+
+	private long conflationWindow;
+
+	private final Map<Object, ConflatedEntryEvent> conflatedEvents = new LinkedHashMap<>();
+
+	/**
+	 * Held while taking and sending the conflated events, so the flushes on the
+	 * scheduler and on the event threads don't interleave.
+	 */
+	private final Object flushMonitor = new Object();
+
+	private volatile ScheduledFuture<?> conflationTask;
+
 	public AbstractHazelcastMessageProducer(DistributedObject distributedObject) {
 		Assert.notNull(distributedObject, "'distributedObject' must not be null");
 		this.distributedObject = distributedObject;
@@ -87,6 +137,179 @@ public abstract class AbstractHazelcastMessageProducer extends MessageProducerSu
 		this.cacheListeningPolicy = cacheListeningPolicy;
 	}
 
+	/**
+	 * Set the number of worker threads to send the messages on. Defaults to 0, i.e. the
+	 * messages are sent on the Hazelcast event threads.
+	 * @param dispatchWorkers the number of dispatch workers.
+	 */
+	public void setDispatchWorkers(int dispatchWorkers) {
+		Assert.isTrue(dispatchWorkers >= 0, "'dispatchWorkers' must not be negative");
+		this.dispatchWorkers = dispatchWorkers;
+	}
+
+	/**
+	 * Set the capacity of the dispatch queue of each worker.
+	 * Defaults to {@value #DEFAULT_DISPATCH_QUEUE_CAPACITY}.
+	 * @param dispatchQueueCapacity the dispatch queue capacity.
+	 */
+	public void setDispatchQueueCapacity(int dispatchQueueCapacity) {
+		Assert.isTrue(dispatchQueueCapacity > 0, "'dispatchQueueCapacity' must be greater than 0");
+		this.dispatchQueueCapacity = dispatchQueueCapacity;
+	}
+
+	/**
+	 * Set the policy to apply when the dispatch queue of a worker is full.
+	 * Defaults to {@link DispatchOverflowPolicy#BLOCK}.
+	 * @param dispatchOverflowPolicy the dispatch overflow policy.
+	 */
+	public void setDispatchOverflowPolicy(DispatchOverflowPolicy dispatchOverflowPolicy) {
+		Assert.notNull(dispatchOverflowPolicy, "'dispatchOverflowPolicy' must not be null");
+		this.dispatchOverflowPolicy = dispatchOverflowPolicy;
+	}
+
+	/**
+	 * Set the conflation window in milliseconds. Defaults to 0, i.e. each entry event
+	 * is sent as a message.
+	 * @param conflationWindow the conflation window.
+	 */
+	public void setConflationWindow(long conflationWindow) {
+		Assert.isTrue(conflationWindow >= 0, "'conflationWindow' must not be negative");
+		this.conflationWindow = conflationWindow;
+	}
+
+	/**
+	 * @return the number of messages waiting in the dispatch queues.
+	 */
+	public int getDispatchQueueDepth() {
+		StripedEventDispatcher dispatcher = this.dispatcher;
+		return dispatcher != null ? dispatcher.getQueueDepth() : 0;
+	}
+
+	/**
+	 * @return the number of messages sent by the dispatch workers.
+	 */
+	public long getDispatchedCount() {
+		StripedEventDispatcher dispatcher = this.dispatcher;
+		return dispatcher != null ? dispatcher.getDispatchedCount() : 0;
+	}
+
+	/**
+	 * @return the number of messages dropped because of the full dispatch queue.
+	 */
+	public long getDispatchDroppedCount() {
+		StripedEventDispatcher dispatcher = this.dispatcher;
+		return dispatcher != null ? dispatcher.getDroppedCount() : 0;
+	}
+
+	/**
+	 * @return the recent mean time in milliseconds from the event to the completed send.
+	 */
+	public double getMeanDispatchLatency() {
+		StripedEventDispatcher dispatcher = this.dispatcher;
+		return dispatcher != null ? dispatcher.getMeanLatency() : 0;
+	}
+
+	/**
+	 * @return the maximum time in milliseconds from the event to the completed send.
+	 */
+	public double getMaxDispatchLatency() {
+		StripedEventDispatcher dispatcher = this.dispatcher;
+		return dispatcher != null ? dispatcher.getMaxLatency() : 0;
+	}
+
+	@Override
+	protected void doStart() {
+		StripedEventDispatcher previousDispatcher = this.dispatcher;
+		if (previousDispatcher != null) {
+			// the workers of the previous run must not send concurrently with the new ones
+			try {
+				previousDispatcher.awaitTermination();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the dispatch workers of ["
+						+ getComponentName() + "] to stop", e);
+			}
+			this.dispatcher = null;
+		}
+		if (this.dispatchWorkers > 0) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(getComponentName() + "-dispatch-");
+			threadFactory.setDaemon(true);
+			this.dispatcher = new StripedEventDispatcher(new MessageHandler() {
+
+				@Override
+				public void handleMessage(Message<?> message) throws MessagingException {
+					sendMessage(message);
+				}
+
+			}, this.dispatchWorkers, this.dispatchQueueCapacity, this.dispatchOverflowPolicy, threadFactory);
+		}
+		if (this.conflationWindow > 0) {
+			Assert.state(getTaskScheduler() != null, "A 'taskScheduler' is required for the conflation");
+			this.conflationTask = getTaskScheduler().scheduleAtFixedRate(new Runnable() {
+
+				@Override
+				public void run() {
+					flushConflatedEvents();
+				}
+
+			}, this.conflationWindow);
+		}
+	}
+
+	@Override
+	protected void doStop() {
+		ScheduledFuture<?> conflationTask = this.conflationTask;
+		if (conflationTask != null) {
+			conflationTask.cancel(false);
+			this.conflationTask = null;
+			flushConflatedEvents();
+		}
+		StripedEventDispatcher dispatcher = this.dispatcher;
+		if (dispatcher != null) {
+			// keep the stopped dispatcher: the late events are sent after the queued ones
+			dispatcher.stop();
+		}
+	}
+
+	private void conflateEntryEvent(EntryEvent<?, ?> event) {
+		synchronized (this.conflatedEvents) {
+			ConflatedEntryEvent conflatedEvent = this.conflatedEvents.get(event.getKey());
+			if (conflatedEvent == null) {
+				this.conflatedEvents.put(event.getKey(), new ConflatedEntryEvent(event));
+			}
+			else {
+				conflatedEvent.merge(event);
+			}
+		}
+	}
+
+	private void flushConflatedEvents() {
+		synchronized (this.flushMonitor) {
+			List<ConflatedEntryEvent> events;
+			synchronized (this.conflatedEvents) {
+				if (this.conflatedEvents.isEmpty()) {
+					return;
+				}
+				events = new ArrayList<>(this.conflatedEvents.values());
+				this.conflatedEvents.clear();
+			}
+			for (ConflatedEntryEvent event : events) {
+				dispatch(event.lastEvent.getKey(), event.toMessage());
+			}
+		}
+	}
+
+	private void dispatch(Object key, Message<?> message) {
+		StripedEventDispatcher dispatcher = this.dispatcher;
+		if (dispatcher != null) {
+			dispatcher.dispatch(key, message);
+		}
+		else {
+			sendMessage(message);
+		}
+	}
+
 	protected String getHazelcastRegisteredEventListenerId() {
 		return hazelcastRegisteredEventListenerId;
 	}
@@ -104,39 +327,45 @@ public abstract class AbstractHazelcastMessageProducer extends MessageProducerSu
 		protected void sendMessage(E event, InetSocketAddress socketAddress,
 								   CacheListeningPolicyType cacheListeningPolicyType) {
 			if (CacheListeningPolicyType.ALL == cacheListeningPolicyType || isEventAcceptable(socketAddress)) {
-				AbstractHazelcastMessageProducer.this.sendMessage(toMessage(event));
+				if (AbstractHazelcastMessageProducer.this.conflationTask != null) {
+					if (conflate(event)) {
+						if (AbstractHazelcastMessageProducer.this.conflationTask == null) {
+							// stopped after the check above: the final flush may have missed the event
+							flushConflatedEvents();
+						}
+						return;
+					}
+					synchronized (AbstractHazelcastMessageProducer.this.flushMonitor) {
+						flushConflatedEvents();
+						dispatch(getDispatchKey(event), toMessage(event));
+					}
+					return;
+				}
+				dispatch(getDispatchKey(event), toMessage(event));
 			}
 		}
 
-		private boolean isEventAcceptable(final InetSocketAddress socketAddress) {
-			final Set<HazelcastInstance> hazelcastInstanceSet = Hazelcast.getAllHazelcastInstances();
-			final Set<SocketAddress> localSocketAddressesSet = getLocalSocketAddresses(hazelcastInstanceSet);
-			return (!localSocketAddressesSet.isEmpty())
-					&& (localSocketAddressesSet.contains(socketAddress) ||
-					isEventComingFromNonRegisteredHazelcastInstance(hazelcastInstanceSet.iterator().next(),
-							localSocketAddressesSet, socketAddress));
-
+		/**
+		 * Conflate the event if supported.
+		 * @param event the event.
+		 * @return true if the event is conflated and must not be sent as is.
+		 */
+		protected boolean conflate(E event) {
+			return false;
 		}
 
-		private Set<SocketAddress> getLocalSocketAddresses(final Set<HazelcastInstance> hazelcastInstanceSet) {
-			final Set<SocketAddress> localSocketAddressesSet = new HashSet<>();
-			for (HazelcastInstance hazelcastInstance : hazelcastInstanceSet) {
-				localSocketAddressesSet.add(hazelcastInstance.getLocalEndpoint().getSocketAddress());
-			}
-
-			return localSocketAddressesSet;
+		/**
+		 * The key to assign the event to a dispatch worker by; the events with the same
+		 * key are sent in order.
+		 * @param event the event.
+		 * @return the dispatch key.
+		 */
+		protected Object getDispatchKey(E event) {
+			return AbstractHazelcastMessageProducer.this.distributedObject.getName();
 		}
 
-		private boolean isEventComingFromNonRegisteredHazelcastInstance(
-				final HazelcastInstance hazelcastInstance,
-				final Set<SocketAddress> localSocketAddressesSet,
-				final InetSocketAddress socketAddressOfEvent) {
-			final MultiMap<SocketAddress, SocketAddress> configMultiMap = hazelcastInstance
-					.getMultiMap(HazelcastLocalInstanceRegistrar.SPRING_INTEGRATION_INTERNAL_CLUSTER_MULTIMAP);
-			return configMultiMap.size() > 0
-					&& !configMultiMap.values().contains(socketAddressOfEvent)
-					&& localSocketAddressesSet.contains(configMultiMap.keySet().iterator().next());
-
+		private boolean isEventAcceptable(final InetSocketAddress socketAddress) {
+			return HazelcastLocalInstanceSnapshot.get().isEventAcceptable(socketAddress);
 		}
 
 	}
@@ -184,6 +413,23 @@ public abstract class AbstractHazelcastMessageProducer extends MessageProducerSu
 			}
 		}
 
+		@Override
+		protected boolean conflate(AbstractIMapEvent event) {
+			if (event instanceof EntryEvent) {
+				conflateEntryEvent((EntryEvent<?, ?>) event);
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		protected Object getDispatchKey(AbstractIMapEvent event) {
+			if (event instanceof EntryEvent) {
+				return ((EntryEvent<?, ?>) event).getKey();
+			}
+			return super.getDispatchKey(event);
+		}
+
 		@Override
 		@SuppressWarnings("unchecked")
 		protected Message<?> toMessage(AbstractIMapEvent event) {
@@ -209,4 +455,37 @@ public abstract class AbstractHazelcastMessageProducer extends MessageProducerSu
 
 	}
 
+
+	private final class ConflatedEntryEvent {
+
+		private final Object firstOldValue;
+
+		private EntryEvent<?, ?> lastEvent;
+
+		private int count = 1;
+
+		ConflatedEntryEvent(EntryEvent<?, ?> event) {
+			this.firstOldValue = event.getOldValue();
+			this.lastEvent = event;
+		}
+
+		void merge(EntryEvent<?, ?> event) {
+			this.lastEvent = event;
+			this.count++;
+		}
+
+		Message<?> toMessage() {
+			EntryEventMessagePayload<Object, Object> payload = new EntryEventMessagePayload<Object, Object>(
+					this.lastEvent.getKey(), this.lastEvent.getValue(), this.firstOldValue);
+			return getMessageBuilderFactory()
+					.withPayload(payload)
+					.setHeader(HazelcastHeaders.EVENT_TYPE, this.lastEvent.getEventType().name())
+					.setHeader(HazelcastHeaders.MEMBER, this.lastEvent.getMember().getSocketAddress())
+					.setHeader(HazelcastHeaders.CACHE_NAME, this.lastEvent.getName())
+					.setHeader(HazelcastHeaders.CONFLATED_EVENTS, this.count)
+					.build();
+		}
+
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -51,6 +51,7 @@ public class HazelcastContinuousQueryMessageProducer extends AbstractHazelcastMe
 	@SuppressWarnings({"rawtypes", "unchecked"})
 	@Override
 	protected void doStart() {
+		super.doStart();
 		setHazelcastRegisteredEventListenerId(((IMap<?, ?>) this.distributedObject)
 				.addEntryListener((MapListener) new HazelcastEntryListener(), new SqlPredicate(this.predicate),
 						this.includeValue));
@@ -59,6 +60,7 @@ public class HazelcastContinuousQueryMessageProducer extends AbstractHazelcastMe
 	@Override
 	protected void doStop() {
 		((IMap<?, ?>) this.distributedObject).removeEntryListener(getHazelcastRegisteredEventListenerId());
+		super.doStop();
 	}
 
 	@Override
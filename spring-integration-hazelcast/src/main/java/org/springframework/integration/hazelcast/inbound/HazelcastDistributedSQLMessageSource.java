@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,18 +18,43 @@ package org.springframework.integration.hazelcast.inbound;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
 
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.endpoint.AbstractMessageSource;
 import org.springframework.integration.hazelcast.DistributedSQLIterationType;
+import org.springframework.integration.metadata.MetadataStore;
+import org.springframework.integration.metadata.SimpleMetadataStore;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
 import com.hazelcast.core.IMap;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
 import com.hazelcast.query.SqlPredicate;
 
 /**
  * Hazelcast Distributed SQL Message Source is a message source which runs defined
  * distributed query in the cluster and returns results in the light of iteration type.
+ * <p>
+ * By default each poll runs the whole query and returns all results as one collection.
+ * With a {@link #setPageSize(int) pageSize}, the query is run with a
+ * {@link PagingPredicate} instead: each poll returns the next page, and the poll after
+ * the last page starts a new scan from the first page. With
+ * {@link #setMessagePerEntry(boolean) messagePerEntry}, each poll returns a single
+ * result, and the query or the next page is only run once the previous results have
+ * all been returned.
+ * <p>
+ * With a {@link #setWatermarkAttribute(String) watermarkAttribute}, only the entries
+ * whose attribute is greater than the highest value seen so far are returned, e.g. a
+ * version or a last-update timestamp maintained by the writers. The watermark is stored
+ * in a {@link MetadataStore}, so a persistent store avoids replaying all the entries
+ * after a restart.
  *
  * @author Eren Avsarogullari
  * @since 1.0.0
@@ -41,13 +66,40 @@ public class HazelcastDistributedSQLMessageSource extends AbstractMessageSource
 
 	private final String distributedSql;
 
+	private final SqlPredicate predicate;
+
 	private DistributedSQLIterationType iterationType = DistributedSQLIterationType.VALUE;
 
+	private int pageSize;
+
+	private Comparator<Map.Entry> comparator;
+
+	private boolean messagePerEntry;
+
+	private PagingPredicate pagingPredicate;
+
+	private Iterator<?> pendingResults;
+
+	private String watermarkAttribute;
+
+	private MetadataStore metadataStore;
+
+	private String metadataKey;
+
+	private boolean watermarkLoaded;
+
+	private Comparable<?> watermark;
+
+	private Comparable<Object> pendingWatermark;
+
+	private boolean scanCompleted;
+
 	public HazelcastDistributedSQLMessageSource(IMap distributedMap, String distributedSql) {
 		Assert.notNull(distributedMap, "'distributedMap' must not be null");
 		Assert.hasText(distributedSql, "'distributedSql' must not be empty");
 		this.distributedMap = distributedMap;
 		this.distributedSql = distributedSql;
+		this.predicate = new SqlPredicate(distributedSql);
 	}
 
 	public void setIterationType(DistributedSQLIterationType iterationType) {
@@ -55,29 +107,232 @@ public class HazelcastDistributedSQLMessageSource extends AbstractMessageSource
 		this.iterationType = iterationType;
 	}
 
+	/**
+	 * Set the number of results to fetch per poll. Defaults to 0, i.e. all results are
+	 * fetched at once. Not supported for {@link DistributedSQLIterationType#LOCAL_KEY}.
+	 * @param pageSize the page size.
+	 */
+	public void setPageSize(int pageSize) {
+		Assert.isTrue(pageSize >= 0, "'pageSize' must not be negative");
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Set the comparator determining the order of the pages. By default the results
+	 * are ordered by the {@link PagingPredicate} rules.
+	 * @param comparator the comparator.
+	 */
+	public void setComparator(Comparator<Map.Entry> comparator) {
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Set to {@code true} to return a single result per poll instead of a collection.
+	 * @param messagePerEntry the message per entry flag.
+	 */
+	public void setMessagePerEntry(boolean messagePerEntry) {
+		this.messagePerEntry = messagePerEntry;
+	}
+
+	/**
+	 * Set the name of the value attribute which grows with each change of an entry, e.g.
+	 * a version or a last-update timestamp. When set, only the entries changed since the
+	 * previous poll are returned. Supported for the
+	 * {@link DistributedSQLIterationType#ENTRY} and {@link DistributedSQLIterationType#VALUE}
+	 * iteration types only. An entry changed to a value equal to the current watermark is
+	 * not returned, hence the attribute should be unique per change.
+	 * <p>
+	 * The watermark is stored in the {@link #setMetadataStore(MetadataStore) metadataStore}
+	 * once all results of a scan have been returned; with {@link #setMessagePerEntry(boolean)
+	 * messagePerEntry}, only when the poll after the last result starts, so that the
+	 * results still pending in memory are delivered again after a restart. {@link Date}
+	 * attributes are stored as epoch milliseconds.
+	 * @param watermarkAttribute the watermark attribute.
+	 */
+	public void setWatermarkAttribute(String watermarkAttribute) {
+		this.watermarkAttribute = watermarkAttribute;
+	}
+
+	/**
+	 * Set the {@link MetadataStore} to keep the watermark in. Defaults to the
+	 * {@code metadataStore} bean if present, or to a {@link SimpleMetadataStore}.
+	 * @param metadataStore the metadata store.
+	 */
+	public void setMetadataStore(MetadataStore metadataStore) {
+		this.metadataStore = metadataStore;
+	}
+
+	/**
+	 * Set the key to store the watermark under. Defaults to the map name followed by the
+	 * distributed SQL.
+	 * @param metadataKey the metadata key.
+	 */
+	public void setMetadataKey(String metadataKey) {
+		this.metadataKey = metadataKey;
+	}
+
 	@Override
 	public String getComponentType() {
 		return "hazelcast:ds-inbound-channel-adapter";
 	}
 
 	@Override
-	protected Collection<?> doReceive() {
+	protected synchronized Object doReceive() {
+		if (this.messagePerEntry) {
+			if (this.pendingResults == null || !this.pendingResults.hasNext()) {
+				// all results of the previous query have been returned by now
+				commitWatermark();
+				Collection<?> results = query();
+				if (results == null) {
+					this.pendingResults = null;
+					commitWatermark();
+					return null;
+				}
+				this.pendingResults = results.iterator();
+			}
+			return this.pendingResults.next();
+		}
+		else {
+			return query();
+		}
+	}
+
+	private Collection<?> query() {
+		if (this.watermarkAttribute != null) {
+			Assert.state(DistributedSQLIterationType.ENTRY == this.iterationType
+							|| DistributedSQLIterationType.VALUE == this.iterationType,
+					"The 'watermarkAttribute' is supported only for the 'ENTRY' and 'VALUE' iteration types");
+			if (!this.watermarkLoaded) {
+				loadWatermark();
+			}
+		}
+
+		Predicate predicate = this.predicate;
+		if (this.watermark != null) {
+			predicate = Predicates.and(this.predicate, Predicates.greaterThan(this.watermarkAttribute, this.watermark));
+		}
+
+		if (this.pageSize > 0) {
+			Assert.state(DistributedSQLIterationType.LOCAL_KEY != this.iterationType,
+					"Paging is not supported for the 'LOCAL_KEY' iteration type");
+			if (this.pagingPredicate == null) {
+				this.pagingPredicate = new PagingPredicate(predicate, this.comparator, this.pageSize);
+			}
+			predicate = this.pagingPredicate;
+		}
+
+		Collection<?> results;
 		switch (this.iterationType) {
 			case ENTRY:
-				return getDistributedSQLResultSet(Collections
-						.unmodifiableCollection(this.distributedMap.entrySet(new SqlPredicate(this.distributedSql))));
+				results = Collections.unmodifiableCollection(this.distributedMap.entrySet(predicate));
+				break;
 
 			case KEY:
-				return getDistributedSQLResultSet(Collections
-						.unmodifiableCollection(this.distributedMap.keySet(new SqlPredicate(this.distributedSql))));
+				results = Collections.unmodifiableCollection(this.distributedMap.keySet(predicate));
+				break;
 
 			case LOCAL_KEY:
-				return getDistributedSQLResultSet(Collections
-						.unmodifiableCollection(this.distributedMap.localKeySet(new SqlPredicate(this.distributedSql))));
+				results = Collections.unmodifiableCollection(this.distributedMap.localKeySet(predicate));
+				break;
 
 			default:
-				return getDistributedSQLResultSet(this.distributedMap.values(new SqlPredicate(this.distributedSql)));
+				results = this.distributedMap.values(predicate);
+		}
+
+		if (this.watermarkAttribute != null) {
+			trackWatermark(results);
+		}
+
+		if (this.pagingPredicate != null) {
+			if (results.size() < this.pageSize) {
+				// the last page; start over with the next poll
+				if (this.watermarkAttribute != null) {
+					// the next scan is based on the advanced watermark
+					this.pagingPredicate = null;
+				}
+				else {
+					this.pagingPredicate.reset();
+				}
+			}
+			else {
+				this.pagingPredicate.nextPage();
+			}
+		}
+
+		if (this.watermarkAttribute != null && this.pagingPredicate == null) {
+			this.scanCompleted = true;
+			if (!this.messagePerEntry) {
+				commitWatermark();
+			}
+		}
+
+		return getDistributedSQLResultSet(results);
+	}
+
+	private void loadWatermark() {
+		if (this.metadataStore == null) {
+			if (getBeanFactory() != null) {
+				this.metadataStore = IntegrationContextUtils.getMetadataStore(getBeanFactory());
+			}
+			if (this.metadataStore == null) {
+				this.metadataStore = new SimpleMetadataStore();
+			}
+		}
+		if (this.metadataKey == null) {
+			this.metadataKey = this.distributedMap.getName() + ":" + this.distributedSql;
+		}
+		// Hazelcast converts the String, or the Long for epoch millis, to the attribute type for comparison
+		this.watermark = fromMetadataValue(this.metadataStore.get(this.metadataKey));
+		this.watermarkLoaded = true;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void trackWatermark(Collection<?> results) {
+		for (Object result : results) {
+			Object value = DistributedSQLIterationType.ENTRY == this.iterationType
+					? ((Map.Entry<?, ?>) result).getValue()
+					: result;
+			Object attribute = PropertyAccessorFactory.forBeanPropertyAccess(value)
+					.getPropertyValue(this.watermarkAttribute);
+			Assert.state(attribute instanceof Comparable,
+					"The '" + this.watermarkAttribute + "' attribute must be Comparable, but was: " + attribute);
+			if (this.pendingWatermark == null || this.pendingWatermark.compareTo(attribute) < 0) {
+				this.pendingWatermark = (Comparable<Object>) attribute;
+			}
+		}
+	}
+
+	private void commitWatermark() {
+		if (this.scanCompleted) {
+			this.scanCompleted = false;
+			if (this.pendingWatermark != null) {
+				this.watermark = this.pendingWatermark;
+				this.metadataStore.put(this.metadataKey, toMetadataValue(this.pendingWatermark));
+				this.pendingWatermark = null;
+			}
+		}
+	}
+
+	private static String toMetadataValue(Object watermark) {
+		if (watermark instanceof Date) {
+			return Long.toString(((Date) watermark).getTime());
+		}
+		return watermark.toString();
+	}
+
+	private static Comparable<?> fromMetadataValue(String value) {
+		if (value != null) {
+			try {
+				Long millis = Long.valueOf(value);
+				if (millis.toString().equals(value)) {
+					return millis;
+				}
+			}
+			catch (NumberFormatException e) {
+				// not a number
+			}
 		}
+		return value;
 	}
 
 	private Collection<?> getDistributedSQLResultSet(Collection<?> collection) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -63,6 +63,7 @@ public class HazelcastEventDrivenMessageProducer extends AbstractHazelcastMessag
 	@Override
 	@SuppressWarnings({"rawtypes", "unchecked"})
 	protected void doStart() {
+		super.doStart();
 		if (this.distributedObject instanceof IMap) {
 			setHazelcastRegisteredEventListenerId(((IMap<?, ?>) this.distributedObject)
 					.addEntryListener((MapListener) new HazelcastEntryListener(), true));
@@ -116,6 +117,7 @@ public class HazelcastEventDrivenMessageProducer extends AbstractHazelcastMessag
 		else if (this.distributedObject instanceof ITopic) {
 			((ITopic<?>) this.distributedObject).removeMessageListener(getHazelcastRegisteredEventListenerId());
 		}
+		super.doStop();
 	}
 
 	@Override
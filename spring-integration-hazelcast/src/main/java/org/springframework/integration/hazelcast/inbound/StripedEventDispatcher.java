@@ -0,0 +1,298 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.inbound;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.integration.hazelcast.DispatchOverflowPolicy;
+import org.springframework.integration.support.management.ExponentialMovingAverage;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+
+/**
+ * Hands the messages over from the Hazelcast event threads to a pool of worker threads.
+ * Each worker owns a bounded queue and the messages are assigned to the workers by the
+ * hash of their key, so the messages with the same key are sent in order.
+ * <p>
+ * The order is also kept when the caller has to send on its own thread (the
+ * {@link DispatchOverflowPolicy#CALLER_RUNS} policy and after the {@link #stop()}):
+ * the caller sends the messages queued before its own one first, holding the same
+ * per-worker lock the worker sends with. The lock is fair and the worker only holds it
+ * while sending, never while waiting for new messages, so a caller waits for at most
+ * the message being sent.
+ *
+ * @since 1.0.0
+ */
+final class StripedEventDispatcher {
+
+	private static final Log logger = LogFactory.getLog(StripedEventDispatcher.class);
+
+	private static final long POLL_TIMEOUT = 100;
+
+	private final MessageHandler sink;
+
+	private final DispatchOverflowPolicy overflowPolicy;
+
+	private final Stripe[] stripes;
+
+	private final ExponentialMovingAverage latency = new ExponentialMovingAverage(1000);
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private volatile boolean running = true;
+
+	StripedEventDispatcher(MessageHandler sink, int workers, int queueCapacity,
+			DispatchOverflowPolicy overflowPolicy, ThreadFactory threadFactory) {
+		this.sink = sink;
+		this.overflowPolicy = overflowPolicy;
+		this.stripes = new Stripe[workers];
+		for (int i = 0; i < workers; i++) {
+			this.stripes[i] = new Stripe(queueCapacity, threadFactory);
+		}
+		for (Stripe stripe : this.stripes) {
+			stripe.thread.start();
+		}
+	}
+
+	void dispatch(Object key, Message<?> message) {
+		int hash = key != null ? key.hashCode() : 0;
+		hash ^= (hash >>> 16);
+		Stripe stripe = this.stripes[(hash & Integer.MAX_VALUE) % this.stripes.length];
+		Event event = new Event(message);
+		if (!this.running) {
+			stripe.sendInOrder(event);
+			return;
+		}
+		if (!stripe.queue.offer(event)) {
+			switch (this.overflowPolicy) {
+				case BLOCK:
+					try {
+						while (!stripe.queue.offer(event, POLL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+							if (!this.running) {
+								stripe.sendInOrder(event);
+								return;
+							}
+						}
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						drop(message);
+						return;
+					}
+					break;
+
+				case DROP_OLDEST:
+					while (!stripe.queue.offer(event)) {
+						Event oldest = stripe.queue.poll();
+						if (oldest != null) {
+							drop(oldest.message);
+						}
+					}
+					break;
+
+				default:
+					stripe.sendInOrder(event);
+			}
+		}
+		stripe.signal();
+		if (!this.running) {
+			// the worker may have exited before the event was queued
+			stripe.sendQueuedIfTerminated();
+		}
+	}
+
+	/**
+	 * Stop the workers once they have sent the queued messages. The messages dispatched
+	 * after that are sent on the caller thread, after the messages queued before them.
+	 */
+	void stop() {
+		this.running = false;
+		for (Stripe stripe : this.stripes) {
+			stripe.signal();
+		}
+	}
+
+	/**
+	 * Wait for the workers to exit after the {@link #stop()}.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	void awaitTermination() throws InterruptedException {
+		for (Stripe stripe : this.stripes) {
+			stripe.thread.join();
+		}
+	}
+
+	int getQueueDepth() {
+		int depth = 0;
+		for (Stripe stripe : this.stripes) {
+			depth += stripe.queue.size();
+		}
+		return depth;
+	}
+
+	long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	long getDispatchedCount() {
+		return this.latency.getCountLong();
+	}
+
+	double getMeanLatency() {
+		return this.latency.getMean();
+	}
+
+	double getMaxLatency() {
+		return this.latency.getMax();
+	}
+
+	private void send(Event event) {
+		try {
+			this.sink.handleMessage(event.message);
+		}
+		catch (Exception e) {
+			logger.error("Failed to send the message: " + event.message, e);
+		}
+		finally {
+			this.latency.append((System.nanoTime() - event.timestamp) / 1000000.0);
+		}
+	}
+
+	private void drop(Message<?> message) {
+		this.droppedCount.incrementAndGet();
+		if (logger.isDebugEnabled()) {
+			logger.debug("The dispatch queue is full; dropped the message: " + message);
+		}
+	}
+
+
+	private static final class Event {
+
+		private final Message<?> message;
+
+		private final long timestamp = System.nanoTime();
+
+		Event(Message<?> message) {
+			this.message = message;
+		}
+
+	}
+
+
+	private final class Stripe implements Runnable {
+
+		private final BlockingQueue<Event> queue;
+
+		private final Thread thread;
+
+		/**
+		 * Held while polling and sending, so only one thread sends the messages of
+		 * this stripe at a time.
+		 */
+		private final ReentrantLock sendLock = new ReentrantLock(true);
+
+		private boolean terminated;
+
+		Stripe(int capacity, ThreadFactory threadFactory) {
+			this.queue = new ArrayBlockingQueue<>(capacity);
+			this.thread = threadFactory.newThread(this);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				boolean idle = false;
+				this.sendLock.lock();
+				try {
+					Event event = this.queue.poll();
+					if (event != null) {
+						send(event);
+					}
+					else if (!StripedEventDispatcher.this.running || Thread.currentThread().isInterrupted()) {
+						this.terminated = true;
+						return;
+					}
+					else {
+						idle = true;
+					}
+				}
+				finally {
+					this.sendLock.unlock();
+				}
+				if (idle && this.queue.isEmpty()) {
+					// woken up by signal() when an event is queued
+					LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(POLL_TIMEOUT));
+				}
+			}
+		}
+
+		void signal() {
+			LockSupport.unpark(this.thread);
+		}
+
+		/**
+		 * Send the queued messages on the caller thread until there is room for the
+		 * event; once the worker has exited, send the event as well.
+		 * @param event the event.
+		 */
+		void sendInOrder(Event event) {
+			this.sendLock.lock();
+			try {
+				while (this.terminated || !this.queue.offer(event)) {
+					Event queued = this.queue.poll();
+					if (queued != null) {
+						send(queued);
+					}
+					else if (this.terminated) {
+						send(event);
+						return;
+					}
+				}
+			}
+			finally {
+				this.sendLock.unlock();
+			}
+			signal();
+		}
+
+		void sendQueuedIfTerminated() {
+			this.sendLock.lock();
+			try {
+				if (this.terminated) {
+					Event queued;
+					while ((queued = this.queue.poll()) != null) {
+						send(queued);
+					}
+				}
+			}
+			finally {
+				this.sendLock.unlock();
+			}
+		}
+
+	}
+
+}
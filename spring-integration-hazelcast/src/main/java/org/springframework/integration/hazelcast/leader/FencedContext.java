@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.leader;
+
+import org.springframework.integration.leader.Context;
+
+/**
+ * A {@link Context} which provides the fencing token of the leadership: the token
+ * increases with each leadership acquisition of the role cluster-wide, so the resources
+ * guarded by the leader can reject the requests with a token lower than the highest one
+ * they have seen, i.e. the requests of a former leader which has not noticed its loss
+ * of leadership yet.
+ *
+ * @since 1.0.0
+ */
+public interface FencedContext extends Context {
+
+	/**
+	 * @return the fencing token of the current leadership, or 0 if not the leader or if
+	 * the fencing tokens are not supported by the election mode.
+	 */
+	long getFencingToken();
+
+}
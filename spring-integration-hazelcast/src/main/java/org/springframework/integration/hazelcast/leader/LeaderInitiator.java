@@ -1,5 +1,5 @@
 /*
- * Copyright 2014-2015 the original author or authors.
+ * Copyright 2014-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.support.management.ExponentialMovingAverage;
 import org.springframework.integration.leader.Candidate;
 import org.springframework.integration.leader.Context;
 import org.springframework.integration.leader.DefaultCandidate;
@@ -36,11 +37,27 @@ import org.springframework.util.Assert;
 
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.ILock;
+import com.hazelcast.core.IMap;
 
 /**
  * Bootstrap leadership {@link org.springframework.integration.leader.Candidate candidates}
  * with Hazelcast. Upon construction, {@link #start} must be invoked to
  * register the candidate for leadership election.
+ * <p>
+ * By default the leadership is the ownership of a Hazelcast {@link ILock} named after
+ * the role: it moves to another candidate only when the leader yields, stops or leaves
+ * the cluster, so a leader which hangs without leaving the cluster keeps it.
+ * <p>
+ * With a {@link #setLeaseTime(long) leaseTime}, the leadership is a lease instead,
+ * stored in the {@value #LEADER_LEASES_MAP} {@code IMap}: the leader renews it each
+ * {@link #setRenewalInterval(long) renewalInterval} and the other candidates acquire it
+ * once it has not been renewed for the lease time, so a failover takes at most the
+ * lease time plus the renewal interval. A leader which cannot renew its lease in time
+ * reports {@link Context#isLeader()} {@code false} and is revoked. The context is a
+ * {@link FencedContext} with the fencing token of the lease, and the leaderless time
+ * before the acquisitions of this candidate is measured; see
+ * {@link #getMeanTransitionLatency()}. The candidates must use distinct ids and the
+ * lease classes must be on the classpath of all the members.
  *
  * @author Patrick Peralta
  * @author Gary Russell
@@ -51,6 +68,11 @@ public class LeaderInitiator implements SmartLifecycle, DisposableBean, Applicat
 
 	private static int threadNameCount = 0;
 
+	/**
+	 * The name of the {@code IMap} with the leases in the lease mode.
+	 */
+	public static final String LEADER_LEASES_MAP = "SPRING_INTEGRATION_LEADER_LEASES";
+
 	private static final Context NULL_CONTEXT = new NullContext();
 
 	/**
@@ -113,6 +135,14 @@ public class LeaderInitiator implements SmartLifecycle, DisposableBean, Applicat
 	 */
 	private volatile boolean running;
 
+	private long leaseTime;
+
+	private long renewalInterval;
+
+	private volatile IMap<String, LeaderLease> leases;
+
+	private final ExponentialMovingAverage transitionLatency = new ExponentialMovingAverage(10);
+
 	/**
 	 * Construct a {@link LeaderInitiator} with a default candidate.
 	 *
@@ -145,6 +175,51 @@ public class LeaderInitiator implements SmartLifecycle, DisposableBean, Applicat
 		this.customPublisher = true;
 	}
 
+	/**
+	 * Set the lease time in milliseconds to elect the leader with leases instead of a
+	 * lock. Defaults to 0, i.e. the lock mode.
+	 * @param leaseTime the lease time.
+	 */
+	public void setLeaseTime(long leaseTime) {
+		Assert.isTrue(leaseTime >= 0, "'leaseTime' must not be negative");
+		this.leaseTime = leaseTime;
+	}
+
+	/**
+	 * Set the interval in milliseconds to renew the lease by the leader, and to try to
+	 * acquire it by the other candidates. Defaults to a third of the lease time.
+	 * @param renewalInterval the renewal interval.
+	 */
+	public void setRenewalInterval(long renewalInterval) {
+		Assert.isTrue(renewalInterval > 0, "'renewalInterval' must be greater than 0");
+		this.renewalInterval = renewalInterval;
+	}
+
+	/**
+	 * @return the number of leadership acquisitions of this candidate after another
+	 * leadership in the lease mode.
+	 */
+	public long getTransitionCount() {
+		return this.transitionLatency.getCountLong();
+	}
+
+	/**
+	 * @return the mean time in milliseconds the role has been leaderless before the
+	 * acquisitions of this candidate in the lease mode, i.e. since the former lease
+	 * expired or was released.
+	 */
+	public double getMeanTransitionLatency() {
+		return this.transitionLatency.getMean();
+	}
+
+	/**
+	 * @return the maximum leaderless time in milliseconds before the acquisitions of this
+	 * candidate in the lease mode.
+	 */
+	public double getMaxTransitionLatency() {
+		return this.transitionLatency.getMax();
+	}
+
 	/**
 	 * @return the context (or null if not running)
 	 */
@@ -186,7 +261,16 @@ public class LeaderInitiator implements SmartLifecycle, DisposableBean, Applicat
 	@Override
 	public synchronized void start() {
 		if (!this.running) {
-			this.lock = this.client.getLock(this.candidate.getRole());
+			if (this.leaseTime > 0) {
+				if (this.renewalInterval == 0) {
+					this.renewalInterval = Math.max(1, this.leaseTime / 3);
+				}
+				Assert.state(this.renewalInterval < this.leaseTime, "'renewalInterval' must be less than 'leaseTime'");
+				this.leases = this.client.getMap(LEADER_LEASES_MAP);
+			}
+			else {
+				this.lock = this.client.getLock(this.candidate.getRole());
+			}
 			this.running = true;
 			this.leaderSelector = new LeaderSelector();
 			this.future = this.executorService.submit(this.leaderSelector);
@@ -239,8 +323,19 @@ public class LeaderInitiator implements SmartLifecycle, DisposableBean, Applicat
 
 		private volatile boolean locked = false;
 
+		private final Object monitor = new Object();
+
+		private volatile long fencingToken;
+
+		private volatile long leaseValidUntil;
+
+		private volatile boolean yieldRequested;
+
 		@Override
 		public Void call() throws Exception {
+			if (LeaderInitiator.this.leases != null) {
+				return callWithLease();
+			}
 			try {
 				while (LeaderInitiator.this.running) {
 					try {
@@ -284,21 +379,134 @@ public class LeaderInitiator implements SmartLifecycle, DisposableBean, Applicat
 			return null;
 		}
 
+		private Void callWithLease() {
+			String holder = LeaderInitiator.this.candidate.getId();
+			long leaseTime = LeaderInitiator.this.leaseTime;
+			long renewalInterval = LeaderInitiator.this.renewalInterval;
+			long acquireAfter = 0;
+			try {
+				while (LeaderInitiator.this.running) {
+					long start = System.nanoTime();
+					try {
+						long now = LeaderInitiator.this.client.getCluster().getClusterTime();
+						if (this.locked && this.yieldRequested) {
+							LeaderInitiator.this.leases.executeOnKey(this.role,
+									new LeaderLease.Release(holder, this.fencingToken, now));
+							this.yieldRequested = false;
+							revoke();
+							acquireAfter = now + leaseTime;
+						}
+						else if (this.locked) {
+							Boolean renewed = (Boolean) LeaderInitiator.this.leases.executeOnKey(this.role,
+									new LeaderLease.Renew(holder, this.fencingToken, now, leaseTime));
+							if (renewed) {
+								this.leaseValidUntil = start + TimeUnit.MILLISECONDS.toNanos(leaseTime);
+							}
+							else {
+								revoke();
+							}
+						}
+						else if (now >= acquireAfter) {
+							this.yieldRequested = false;
+							LeaderLease lease = (LeaderLease) LeaderInitiator.this.leases.executeOnKey(this.role,
+									new LeaderLease.Acquire(holder, now, leaseTime));
+							if (lease != null) {
+								if (lease.vacantSince >= 0) {
+									LeaderInitiator.this.transitionLatency.append(Math.max(0, now - lease.vacantSince));
+								}
+								this.fencingToken = lease.token;
+								this.leaseValidUntil = start + TimeUnit.MILLISECONDS.toNanos(leaseTime);
+								this.locked = true;
+								LeaderInitiator.this.leaderEventPublisher.publishOnGranted(LeaderInitiator.this,
+										this.context, this.role);
+								LeaderInitiator.this.candidate.onGranted(this.context);
+							}
+						}
+					}
+					catch (RuntimeException e) {
+						if (!LeaderInitiator.this.running) {
+							break;
+						}
+						if (this.locked && System.nanoTime() - this.leaseValidUntil >= 0) {
+							revoke();
+						}
+					}
+					synchronized (this.monitor) {
+						if (!this.locked || !this.yieldRequested) {
+							this.monitor.wait(renewalInterval);
+						}
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				// Stopping
+			}
+			finally {
+				if (this.locked) {
+					boolean interrupted = Thread.interrupted();
+					try {
+						LeaderInitiator.this.leases.executeOnKey(this.role, new LeaderLease.Release(holder,
+								this.fencingToken, LeaderInitiator.this.client.getCluster().getClusterTime()));
+					}
+					catch (RuntimeException e) {
+						// The lease expires anyway
+					}
+					finally {
+						// We are stopping, therefore not leading any more
+						revoke();
+						if (interrupted) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				}
+			}
+			return null;
+		}
+
+		private void revoke() {
+			this.locked = false;
+			this.fencingToken = 0;
+			LeaderInitiator.this.candidate.onRevoked(this.context);
+			LeaderInitiator.this.leaderEventPublisher.publishOnRevoked(LeaderInitiator.this, this.context, this.role);
+		}
+
+		private void requestYield() {
+			synchronized (this.monitor) {
+				this.yieldRequested = true;
+				this.monitor.notifyAll();
+			}
+		}
+
+		private boolean isLeader() {
+			if (LeaderInitiator.this.leases != null) {
+				return this.locked && System.nanoTime() - this.leaseValidUntil < 0;
+			}
+			return this.locked;
+		}
+
 	}
 
 	/**
 	 * Implementation of leadership context backed by Hazelcast.
 	 */
-	protected class HazelcastContext implements Context {
+	protected class HazelcastContext implements FencedContext {
 
 		@Override
 		public boolean isLeader() {
-			return LeaderInitiator.this.leaderSelector.locked;
+			return LeaderInitiator.this.leaderSelector.isLeader();
+		}
+
+		@Override
+		public long getFencingToken() {
+			return isLeader() ? LeaderInitiator.this.leaderSelector.fencingToken : 0;
 		}
 
 		@Override
 		public void yield() {
-			if (LeaderInitiator.this.future != null) {
+			if (LeaderInitiator.this.leases != null) {
+				LeaderInitiator.this.leaderSelector.requestYield();
+			}
+			else if (LeaderInitiator.this.future != null) {
 				LeaderInitiator.this.future.cancel(true);
 				LeaderInitiator.this.future =
 						LeaderInitiator.this.executorService.submit(LeaderInitiator.this.leaderSelector);
@@ -309,7 +517,8 @@ public class LeaderInitiator implements SmartLifecycle, DisposableBean, Applicat
 		public String toString() {
 			return "HazelcastContext{role=" + LeaderInitiator.this.candidate.getRole() +
 					", id=" + LeaderInitiator.this.candidate.getId() +
-					", isLeader=" + isLeader() + "}";
+					", isLeader=" + isLeader() +
+					", fencingToken=" + getFencingToken() + "}";
 		}
 
 	}
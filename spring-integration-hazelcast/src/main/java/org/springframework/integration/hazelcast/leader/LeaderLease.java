@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.leader;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import com.hazelcast.map.AbstractEntryProcessor;
+
+/**
+ * The leadership lease of a role, stored in an {@code IMap} under the role and modified
+ * only by the entry processors, i.e. atomically on the partition owner. The entry is
+ * never removed, so the fencing token keeps increasing with each acquisition.
+ * <p>
+ * All times are cluster times provided by the callers.
+ *
+ * @since 1.0.0
+ */
+final class LeaderLease implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	final String holder;
+
+	final long token;
+
+	final long expiresAt;
+
+	/**
+	 * The time the role has been vacant since, when this lease was acquired; or -1 for
+	 * the first lease of the role.
+	 */
+	final long vacantSince;
+
+	LeaderLease(String holder, long token, long expiresAt, long vacantSince) {
+		this.holder = holder;
+		this.token = token;
+		this.expiresAt = expiresAt;
+		this.vacantSince = vacantSince;
+	}
+
+	/**
+	 * Acquire the lease if it is vacant or expired; returns the new lease, or null if it
+	 * is held by another candidate.
+	 */
+	static final class Acquire extends AbstractEntryProcessor<String, LeaderLease> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String holder;
+
+		private final long now;
+
+		private final long leaseTime;
+
+		Acquire(String holder, long now, long leaseTime) {
+			this.holder = holder;
+			this.now = now;
+			this.leaseTime = leaseTime;
+		}
+
+		@Override
+		public Object process(Map.Entry<String, LeaderLease> entry) {
+			LeaderLease current = entry.getValue();
+			if (current == null) {
+				LeaderLease lease = new LeaderLease(this.holder, 1, this.now + this.leaseTime, -1);
+				entry.setValue(lease);
+				return lease;
+			}
+			else if (current.expiresAt <= this.now || current.holder.equals(this.holder)) {
+				LeaderLease lease = new LeaderLease(this.holder, current.token + 1, this.now + this.leaseTime,
+						Math.min(current.expiresAt, this.now));
+				entry.setValue(lease);
+				return lease;
+			}
+			else {
+				return null;
+			}
+		}
+
+	}
+
+	/**
+	 * Extend the lease if it is still held with the token; returns whether it is extended.
+	 */
+	static final class Renew extends AbstractEntryProcessor<String, LeaderLease> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String holder;
+
+		private final long token;
+
+		private final long now;
+
+		private final long leaseTime;
+
+		Renew(String holder, long token, long now, long leaseTime) {
+			this.holder = holder;
+			this.token = token;
+			this.now = now;
+			this.leaseTime = leaseTime;
+		}
+
+		@Override
+		public Object process(Map.Entry<String, LeaderLease> entry) {
+			LeaderLease current = entry.getValue();
+			if (current != null && current.token == this.token && current.holder.equals(this.holder)
+					&& current.expiresAt > this.now) {
+				entry.setValue(new LeaderLease(this.holder, this.token, this.now + this.leaseTime,
+						current.vacantSince));
+				return true;
+			}
+			return false;
+		}
+
+	}
+
+	/**
+	 * Expire the lease now if it is still held with the token.
+	 */
+	static final class Release extends AbstractEntryProcessor<String, LeaderLease> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String holder;
+
+		private final long token;
+
+		private final long now;
+
+		Release(String holder, long token, long now) {
+			this.holder = holder;
+			this.token = token;
+			this.now = now;
+		}
+
+		@Override
+		public Object process(Map.Entry<String, LeaderLease> entry) {
+			LeaderLease current = entry.getValue();
+			if (current != null && current.token == this.token && current.holder.equals(this.holder)
+					&& current.expiresAt > this.now) {
+				entry.setValue(new LeaderLease(this.holder, this.token, this.now, current.vacantSince));
+				return true;
+			}
+			return false;
+		}
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2015 the original author or authors.
+ * Copyright 2015-2016 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,30 +16,95 @@
 
 package org.springframework.integration.hazelcast.outbound;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.Lifecycle;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.integration.expression.ExpressionUtils;
 import org.springframework.integration.handler.AbstractMessageHandler;
 import org.springframework.integration.hazelcast.HazelcastHeaders;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
 
 import com.hazelcast.core.DistributedObject;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.core.IMap;
 import com.hazelcast.core.ITopic;
 import com.hazelcast.core.MultiMap;
+import com.hazelcast.map.EntryProcessor;
 
 /**
  * MessageHandler implementation that writes {@link Message} or payload to defined
  * Hazelcast distributed cache object.
+ * <p>
+ * By default each message is written with a synchronous call, i.e. one network
+ * round-trip per message. Two modes reduce the number of round-trips:
+ * <ul>
+ * <li>With a {@link #setBatchSize(int) batchSize} greater than 1, the entries for
+ * {@code IMap}, {@code ReplicatedMap}, {@code IList}, {@code ISet} and {@code IQueue}
+ * targets are accumulated per target and written with a single {@code putAll()} or
+ * {@code addAll()} once the batch is full, or once the oldest entry has waited for
+ * the {@link #setBatchLinger(long) batchLinger}. Pending entries are also written when
+ * the handler is stopped or destroyed, and messages received while the handler is
+ * stopped are written right away. The lingering batches are written on the
+ * {@link #setFlushExecutor(Executor) flushExecutor}, so the remote calls never block
+ * the {@link TaskScheduler}. Producers only wait for a write when they fill a batch
+ * while the previous one for the same target is still being written.
+ * <li>With {@link #setAsync(boolean) async}, entries for {@code IMap} targets are written
+ * with {@code putAsync()}; no more than {@link #setMaxInFlight(int) maxInFlight} writes
+ * are pending at any time, further messages block until a write completes.
+ * </ul>
+ * Failures which are not reported to the sending thread, i.e. those of asynchronous
+ * writes and of batches written by the linger task, are sent to the
+ * {@link #setErrorChannel(MessageChannel) errorChannel}, or logged if there is none.
+ * When a batch fails, every message in it is reported individually: the message that
+ * filled the batch gets the exception on its sending thread, and all the others are
+ * sent to the error channel.
+ * {@code MultiMap} and {@code ITopic} targets are always written synchronously.
+ * <p>
+ * With an {@link #setEntryProcessor(EntryProcessor) entryProcessor} or an
+ * {@link #setEntryProcessorExpression(Expression) entryProcessorExpression}, the
+ * {@code IMap} entries are updated in place instead: the processor is executed on the
+ * partition owner of the key derived by the {@link #setKeyExpression(Expression)
+ * keyExpression}, so neither the old nor the new value is transferred. If the key
+ * expression evaluates to a {@link Collection}, the processor is executed on all these
+ * keys with a single {@code executeOnKeys()} call. With {@code async}, a single key is
+ * processed with {@code submitToKey()} under the same {@code maxInFlight} limit.
  *
  * @author Eren Avsarogullari
  * @author Artem Bilan
  * @since 1.0.0
  */
-public class HazelcastCacheWritingMessageHandler extends AbstractMessageHandler {
+public class HazelcastCacheWritingMessageHandler extends AbstractMessageHandler
+		implements Lifecycle, DisposableBean {
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 100;
+
+	private final ConcurrentMap<DistributedObject, Batch> batches = new ConcurrentHashMap<>();
 
 	private DistributedObject distributedObject;
 
@@ -49,8 +114,32 @@ public class HazelcastCacheWritingMessageHandler extends AbstractMessageHandler
 
 	private boolean extractPayload = true;
 
+	private EntryProcessor<?, ?> entryProcessor;
+
+	private Expression entryProcessorExpression;
+
 	private EvaluationContext evaluationContext;
 
+	private int batchSize = 1;
+
+	private long batchLinger;
+
+	private boolean async;
+
+	private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+	private Semaphore inFlight;
+
+	private MessageChannel errorChannel;
+
+	private Executor flushExecutor;
+
+	private ExecutorService defaultFlushExecutor;
+
+	private volatile ScheduledFuture<?> lingerTask;
+
+	private volatile boolean running;
+
 	public void setDistributedObject(DistributedObject distributedObject) {
 		Assert.notNull(distributedObject, "'distributedObject' must not be null");
 		this.distributedObject = distributedObject;
@@ -70,14 +159,163 @@ public class HazelcastCacheWritingMessageHandler extends AbstractMessageHandler
 		this.extractPayload = extractPayload;
 	}
 
+	/**
+	 * Set the {@link EntryProcessor} to execute on the {@code IMap} entries instead of
+	 * writing the payload. Mutually exclusive with the
+	 * {@link #setEntryProcessorExpression(Expression) entryProcessorExpression}.
+	 * @param entryProcessor the entry processor.
+	 */
+	public void setEntryProcessor(EntryProcessor<?, ?> entryProcessor) {
+		Assert.notNull(entryProcessor, "'entryProcessor' must not be null");
+		this.entryProcessor = entryProcessor;
+	}
+
+	/**
+	 * Set the expression to evaluate an {@link EntryProcessor} against the message, e.g.
+	 * to build a processor from the payload; the processor is executed on the
+	 * {@code IMap} entries instead of writing the payload.
+	 * @param entryProcessorExpression the entry processor expression.
+	 */
+	public void setEntryProcessorExpression(Expression entryProcessorExpression) {
+		Assert.notNull(entryProcessorExpression, "'entryProcessorExpression' must not be null");
+		this.entryProcessorExpression = entryProcessorExpression;
+	}
+
+	/**
+	 * Set the number of entries to accumulate per target before writing them with a
+	 * single call. Defaults to 1, i.e. no batching.
+	 * @param batchSize the batch size.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Set the time in milliseconds after which a batch is written even if it is not
+	 * full. Requires a {@link TaskScheduler}. Defaults to 0, i.e. batches are only
+	 * written when full or when the handler is stopped.
+	 * @param batchLinger the linger time.
+	 */
+	public void setBatchLinger(long batchLinger) {
+		Assert.isTrue(batchLinger >= 0, "'batchLinger' must not be negative");
+		this.batchLinger = batchLinger;
+	}
+
+	/**
+	 * Set to {@code true} to write the entries for {@code IMap} targets asynchronously.
+	 * Cannot be combined with batching.
+	 * @param async the async flag.
+	 */
+	public void setAsync(boolean async) {
+		this.async = async;
+	}
+
+	/**
+	 * Set the maximum number of pending asynchronous writes. Defaults to
+	 * {@value #DEFAULT_MAX_IN_FLIGHT}.
+	 * @param maxInFlight the maximum number of pending writes.
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		Assert.isTrue(maxInFlight > 0, "'maxInFlight' must be greater than 0");
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Set the channel to send the failures of asynchronous and lingering writes to.
+	 * @param errorChannel the error channel.
+	 */
+	public void setErrorChannel(MessageChannel errorChannel) {
+		this.errorChannel = errorChannel;
+	}
+
+	/**
+	 * Set the {@link Executor} to write the lingering batches on. Defaults to a cached
+	 * thread pool, which is shut down when the handler is destroyed.
+	 * @param flushExecutor the flush executor.
+	 */
+	public void setFlushExecutor(Executor flushExecutor) {
+		Assert.notNull(flushExecutor, "'flushExecutor' must not be null");
+		this.flushExecutor = flushExecutor;
+	}
+
+	@Override
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		super.setTaskScheduler(taskScheduler);
+	}
+
 	@Override
 	protected void onInit() throws Exception {
 		super.onInit();
+		Assert.isTrue(!this.async || this.batchSize == 1, "'async' and 'batchSize' are mutually exclusive");
+		Assert.isTrue(this.entryProcessor == null || this.entryProcessorExpression == null,
+				"'entryProcessor' and 'entryProcessorExpression' are mutually exclusive");
+		Assert.isTrue(!isEntryProcessing() || this.batchSize == 1,
+				"'batchSize' is not supported with an 'entryProcessor'; use a collection of keys instead");
+		Assert.isTrue(this.batchLinger == 0 || getTaskScheduler() != null,
+				"A 'taskScheduler' is required for the 'batchLinger'");
 		this.evaluationContext = ExpressionUtils.createStandardEvaluationContext(getBeanFactory());
+		this.inFlight = new Semaphore(this.maxInFlight);
+		if (this.flushExecutor == null && this.batchLinger > 0) {
+			this.defaultFlushExecutor =
+					Executors.newCachedThreadPool(new CustomizableThreadFactory(getComponentName() + "-flush-"));
+			this.flushExecutor = this.defaultFlushExecutor;
+		}
+		start();
+	}
+
+	@Override
+	public synchronized void start() {
+		if (!this.running) {
+			if (this.batchLinger > 0) {
+				this.lingerTask = getTaskScheduler().scheduleWithFixedDelay(new Runnable() {
+
+					@Override
+					public void run() {
+						flushLingering();
+					}
+
+				}, Math.max(1, this.batchLinger / 2));
+			}
+			this.running = true;
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (this.running) {
+			this.running = false;
+			if (this.lingerTask != null) {
+				this.lingerTask.cancel(false);
+				this.lingerTask = null;
+			}
+			flush();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	@Override
+	public void destroy() {
+		stop();
+		if (this.defaultFlushExecutor != null) {
+			this.defaultFlushExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Write all pending batches.
+	 */
+	public void flush() {
+		for (Batch batch : this.batches.values()) {
+			batch.flush(null);
+		}
 	}
 
 	@Override
-	@SuppressWarnings({"unchecked", "rawtypes"})
 	protected void handleMessageInternal(final Message<?> message) throws Exception {
 		Object objectToStore = message;
 		if (this.extractPayload) {
@@ -86,6 +324,34 @@ public class HazelcastCacheWritingMessageHandler extends AbstractMessageHandler
 
 		DistributedObject distributedObject = getDistributedObject(message);
 
+		if (isEntryProcessing()) {
+			executeOnEntries(distributedObject, message);
+		}
+		else if (this.batchSize > 1 && (distributedObject instanceof Map || distributedObject instanceof Collection)) {
+			Batch batch = this.batches.get(distributedObject);
+			if (batch == null) {
+				batch = new Batch(distributedObject);
+				Batch existing = this.batches.putIfAbsent(distributedObject, batch);
+				if (existing != null) {
+					batch = existing;
+				}
+			}
+			batch.add(message, objectToStore);
+			if (!this.running) {
+				// stop() has flushed or is flushing the batches: don't leave this one behind
+				batch.flush(message);
+			}
+		}
+		else if (this.async && distributedObject instanceof IMap) {
+			putAsync((IMap<?, ?>) distributedObject, message, objectToStore);
+		}
+		else {
+			write(distributedObject, message, objectToStore);
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void write(DistributedObject distributedObject, Message<?> message, Object objectToStore) {
 		if (distributedObject instanceof Map) {
 			Map map = (Map) distributedObject;
 			if (objectToStore instanceof Map) {
@@ -133,6 +399,155 @@ public class HazelcastCacheWritingMessageHandler extends AbstractMessageHandler
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private void putAsync(final IMap<?, ?> map, final Message<?> message, Object objectToStore)
+			throws InterruptedException {
+		for (Map.Entry<Object, Object> entry : toEntries(message, objectToStore).entrySet()) {
+			this.inFlight.acquire();
+			Future<?> future;
+			try {
+				future = ((IMap<Object, Object>) map).putAsync(entry.getKey(), entry.getValue());
+			}
+			catch (RuntimeException e) {
+				this.inFlight.release();
+				throw e;
+			}
+			whenComplete(future, map, message);
+		}
+	}
+
+	private boolean isEntryProcessing() {
+		return this.entryProcessor != null || this.entryProcessorExpression != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void executeOnEntries(DistributedObject distributedObject, Message<?> message)
+			throws InterruptedException {
+		if (!(distributedObject instanceof IMap)) {
+			throw new IllegalStateException("The 'distributedObject' for the 'entryProcessor' " +
+					"must be of 'IMap' type, but gotten: [" + distributedObject + "].");
+		}
+		IMap<Object, Object> map = (IMap<Object, Object>) distributedObject;
+		EntryProcessor<Object, Object> entryProcessor = (EntryProcessor<Object, Object>) this.entryProcessor;
+		if (this.entryProcessorExpression != null) {
+			entryProcessor = this.entryProcessorExpression.getValue(this.evaluationContext, message,
+					EntryProcessor.class);
+			Assert.state(entryProcessor != null, "The 'entryProcessorExpression' evaluated to null");
+		}
+		Object key = getKey(message);
+		if (key instanceof Collection) {
+			map.executeOnKeys(new LinkedHashSet<Object>((Collection<?>) key), entryProcessor);
+		}
+		else if (this.async) {
+			this.inFlight.acquire();
+			Future<?> future;
+			try {
+				future = map.submitToKey(key, entryProcessor);
+			}
+			catch (RuntimeException e) {
+				this.inFlight.release();
+				throw e;
+			}
+			whenComplete(future, map, message);
+		}
+		else {
+			map.executeOnKey(key, entryProcessor);
+		}
+	}
+
+	/**
+	 * Release the in-flight permit once the asynchronous write is completed and report
+	 * its failure, if any.
+	 */
+	@SuppressWarnings("unchecked")
+	private void whenComplete(Future<?> future, final IMap<?, ?> map, final Message<?> message) {
+		if (future instanceof ICompletableFuture) {
+			((ICompletableFuture<Object>) future).andThen(new ExecutionCallback<Object>() {
+
+				@Override
+				public void onResponse(Object response) {
+					HazelcastCacheWritingMessageHandler.this.inFlight.release();
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					HazelcastCacheWritingMessageHandler.this.inFlight.release();
+					handleFailure(new MessageHandlingException(message,
+							"Failed to write the entry to the '" + map.getName() + "'", t));
+				}
+
+			});
+		}
+		else {
+			try {
+				future.get();
+			}
+			catch (Exception e) {
+				throw new MessageHandlingException(message,
+						"Failed to write the entry to the '" + map.getName() + "'", e);
+			}
+			finally {
+				this.inFlight.release();
+			}
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Map<Object, Object> toEntries(Message<?> message, Object objectToStore) {
+		if (objectToStore instanceof Map) {
+			return (Map) objectToStore;
+		}
+		else if (objectToStore instanceof Map.Entry) {
+			Map.Entry entry = (Map.Entry) objectToStore;
+			return Collections.singletonMap(entry.getKey(), entry.getValue());
+		}
+		else {
+			return Collections.singletonMap(getKey(message), objectToStore);
+		}
+	}
+
+	/**
+	 * Hand the batches older than the {@code batchLinger} over to the
+	 * {@code flushExecutor}. Runs on the shared {@link TaskScheduler}, so it never writes
+	 * itself; a batch which is still being handed over or written is skipped until the
+	 * next run.
+	 */
+	private void flushLingering() {
+		long expiry = System.currentTimeMillis() - this.batchLinger;
+		for (final Batch batch : this.batches.values()) {
+			if (batch.firstAdded <= expiry && batch.startLingerFlush()) {
+				Runnable lingerFlush = new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							batch.flush(null);
+						}
+						finally {
+							batch.endLingerFlush();
+						}
+					}
+
+				};
+				try {
+					this.flushExecutor.execute(lingerFlush);
+				}
+				catch (RejectedExecutionException e) {
+					lingerFlush.run();
+				}
+			}
+		}
+	}
+
+	private void handleFailure(MessagingException exception) {
+		if (this.errorChannel != null) {
+			this.errorChannel.send(new ErrorMessage(exception));
+		}
+		else {
+			logger.error("Failed to write to Hazelcast", exception);
+		}
+	}
+
 
 	private DistributedObject getDistributedObject(final Message<?> message) {
 		if (this.distributedObject != null) {
@@ -163,4 +578,128 @@ public class HazelcastCacheWritingMessageHandler extends AbstractMessageHandler
 		}
 	}
 
+	/**
+	 * The pending entries for a single target; all state is guarded by the batch monitor.
+	 * The writes are serialized by the {@code writeMonitor}, which is acquired before the
+	 * entries are taken, so the batches for a target are written in order. The batch
+	 * monitor is never held during a write.
+	 */
+	private final class Batch {
+
+		private final DistributedObject target;
+
+		private final Object writeMonitor = new Object();
+
+		private final Map<Object, Object> entries = new LinkedHashMap<>();
+
+		private final List<Object> items = new ArrayList<>();
+
+		private final List<Message<?>> messages = new ArrayList<>();
+
+		private volatile long firstAdded = Long.MAX_VALUE;
+
+		private boolean lingerFlushPending;
+
+		Batch(DistributedObject target) {
+			this.target = target;
+		}
+
+		void add(Message<?> message, Object objectToStore) {
+			boolean full;
+			synchronized (this) {
+				if (size() == 0) {
+					this.firstAdded = System.currentTimeMillis();
+				}
+				if (this.target instanceof Map) {
+					this.entries.putAll(toEntries(message, objectToStore));
+				}
+				else if (objectToStore instanceof Collection) {
+					this.items.addAll((Collection<?>) objectToStore);
+				}
+				else {
+					this.items.add(objectToStore);
+				}
+				this.messages.add(message);
+				full = size() >= HazelcastCacheWritingMessageHandler.this.batchSize;
+			}
+			if (full) {
+				flush(message);
+			}
+		}
+
+		synchronized boolean startLingerFlush() {
+			if (this.lingerFlushPending) {
+				return false;
+			}
+			this.lingerFlushPending = true;
+			return true;
+		}
+
+		synchronized void endLingerFlush() {
+			this.lingerFlushPending = false;
+		}
+
+		/**
+		 * Take the pending entries and write them outside the batch monitor. If the write
+		 * fails, every batched message is reported individually: the {@code current} one,
+		 * if it was part of the batch, is thrown to its sender, all others are sent to the
+		 * error channel.
+		 */
+		@SuppressWarnings("unchecked")
+		void flush(Message<?> current) {
+			List<Message<?>> failedMessages;
+			RuntimeException failure;
+			synchronized (this.writeMonitor) {
+				Map<Object, Object> entries;
+				List<Object> items;
+				List<Message<?>> messages;
+				synchronized (this) {
+					if (size() == 0) {
+						return;
+					}
+					entries = new LinkedHashMap<>(this.entries);
+					items = new ArrayList<>(this.items);
+					messages = new ArrayList<>(this.messages);
+					this.entries.clear();
+					this.items.clear();
+					this.messages.clear();
+					this.firstAdded = Long.MAX_VALUE;
+				}
+				try {
+					if (this.target instanceof Map) {
+						((Map<Object, Object>) this.target).putAll(entries);
+					}
+					else {
+						((Collection<Object>) this.target).addAll(items);
+					}
+					return;
+				}
+				catch (RuntimeException e) {
+					failedMessages = messages;
+					failure = e;
+				}
+			}
+			String description = "Failed to write the batch of " + failedMessages.size() + " messages to '"
+					+ this.target.getName() + "'";
+			boolean currentFailed = false;
+			for (Message<?> message : failedMessages) {
+				if (message == current) {
+					currentFailed = true;
+				}
+				else {
+					handleFailure(new MessageHandlingException(message, description, failure));
+				}
+			}
+			if (currentFailed) {
+				throw new MessageHandlingException(current, description, failure);
+			}
+		}
+
+		private int size() {
+			return this.entries.size() + this.items.size();
+		}
+
+	}
+
+
 }
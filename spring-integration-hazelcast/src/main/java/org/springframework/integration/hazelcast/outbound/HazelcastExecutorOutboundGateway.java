@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.outbound;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.integration.expression.ExpressionUtils;
+import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.IExecutorService;
+
+/**
+ * An outbound gateway that executes a {@link Callable} on the Hazelcast member which
+ * owns the key of the message, via {@link IExecutorService#submitToKeyOwner}, and
+ * replies with its result.
+ * <p>
+ * The key is evaluated by the {@link #setKeyExpression(Expression) keyExpression}.
+ * The {@link Callable} is evaluated by the {@link #setCallableExpression(Expression)
+ * callableExpression}, e.g. to build a task from the payload, or else it is the payload
+ * itself. It must be serializable; implement {@code HazelcastInstanceAware} to access
+ * the local partition data of the owner, so only the result travels back to the caller.
+ * <p>
+ * No more than {@link #setMaxInFlight(int) maxInFlight} tasks are pending at any time,
+ * further messages block until a task completes. With {@link #setAsync(boolean) async},
+ * the reply is sent when the task completes instead of blocking the sending thread.
+ *
+ * @since 1.0.0
+ */
+public class HazelcastExecutorOutboundGateway extends AbstractReplyProducingMessageHandler {
+
+	public static final int DEFAULT_MAX_IN_FLIGHT = 100;
+
+	private final IExecutorService executorService;
+
+	private Expression keyExpression;
+
+	private Expression callableExpression;
+
+	private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+	private EvaluationContext evaluationContext;
+
+	private Semaphore inFlight;
+
+	public HazelcastExecutorOutboundGateway(IExecutorService executorService) {
+		Assert.notNull(executorService, "'executorService' must not be null");
+		this.executorService = executorService;
+	}
+
+	public void setKeyExpression(Expression keyExpression) {
+		Assert.notNull(keyExpression, "'keyExpression' must not be null");
+		this.keyExpression = keyExpression;
+	}
+
+	/**
+	 * Set the expression to evaluate the {@link Callable} to execute against the
+	 * message. Defaults to the payload.
+	 * @param callableExpression the callable expression.
+	 */
+	public void setCallableExpression(Expression callableExpression) {
+		Assert.notNull(callableExpression, "'callableExpression' must not be null");
+		this.callableExpression = callableExpression;
+	}
+
+	/**
+	 * Set the maximum number of pending tasks. Defaults to {@value #DEFAULT_MAX_IN_FLIGHT}.
+	 * @param maxInFlight the maximum number of pending tasks.
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		Assert.isTrue(maxInFlight > 0, "'maxInFlight' must be greater than 0");
+		this.maxInFlight = maxInFlight;
+	}
+
+	@Override
+	public String getComponentType() {
+		return "hazelcast:outbound-gateway";
+	}
+
+	@Override
+	protected void doInit() {
+		Assert.notNull(this.keyExpression, "'keyExpression' must not be null");
+		this.evaluationContext = ExpressionUtils.createStandardEvaluationContext(getBeanFactory());
+		this.inFlight = new Semaphore(this.maxInFlight);
+	}
+
+	@Override
+	protected Object handleRequestMessage(Message<?> requestMessage) {
+		Object key = this.keyExpression.getValue(this.evaluationContext, requestMessage);
+		Assert.state(key != null, "The 'keyExpression' evaluated to null");
+		Callable<Object> callable = getCallable(requestMessage);
+
+		SettableListenableFuture<Object> future = new SettableListenableFuture<>();
+		try {
+			this.inFlight.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageHandlingException(requestMessage, "Interrupted while waiting for a pending task", e);
+		}
+		try {
+			this.executorService.submitToKeyOwner(callable, key, new ReleasingCallback(future));
+		}
+		catch (RuntimeException e) {
+			this.inFlight.release();
+			throw e;
+		}
+
+		if (isAsync()) {
+			return future;
+		}
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageHandlingException(requestMessage, "Interrupted while waiting for the task result", e);
+		}
+		catch (ExecutionException e) {
+			throw new MessageHandlingException(requestMessage,
+					"Failed to execute the task on the owner of the key [" + key + "]", e.getCause());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Callable<Object> getCallable(Message<?> requestMessage) {
+		Object callable = requestMessage.getPayload();
+		if (this.callableExpression != null) {
+			callable = this.callableExpression.getValue(this.evaluationContext, requestMessage);
+		}
+		if (!(callable instanceof Callable)) {
+			throw new MessageHandlingException(requestMessage, "Expected a 'java.util.concurrent.Callable' to "
+					+ "execute, but gotten: [" + callable + "].");
+		}
+		return (Callable<Object>) callable;
+	}
+
+	private final class ReleasingCallback implements ExecutionCallback<Object> {
+
+		private final SettableListenableFuture<Object> future;
+
+		ReleasingCallback(SettableListenableFuture<Object> future) {
+			this.future = future;
+		}
+
+		@Override
+		public void onResponse(Object response) {
+			HazelcastExecutorOutboundGateway.this.inFlight.release();
+			this.future.set(response);
+		}
+
+		@Override
+		public void onFailure(Throwable t) {
+			HazelcastExecutorOutboundGateway.this.inFlight.release();
+			this.future.setException(t);
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.serializer;
+
+import java.io.IOException;
+
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.SerializationUtils;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+/**
+ * A {@link StreamSerializer} for {@link GenericMessage} and {@link ErrorMessage}.
+ * <p>
+ * The headers are written as by the {@link MessageHeadersStreamSerializer} and the
+ * payload with the Hazelcast serialization. Since Hazelcast also selects this serializer
+ * for the other {@link GenericMessage} subclasses, these are written with the Java
+ * serialization to preserve their type.
+ *
+ * @since 1.0.0
+ */
+@SuppressWarnings("rawtypes")
+public class GenericMessageStreamSerializer implements StreamSerializer<GenericMessage> {
+
+	private static final byte GENERIC_MESSAGE = 0;
+
+	private static final byte ERROR_MESSAGE = 1;
+
+	private static final byte SERIALIZED_MESSAGE = 2;
+
+	@Override
+	public int getTypeId() {
+		return IntegrationSerializers.GENERIC_MESSAGE_TYPE_ID;
+	}
+
+	@Override
+	public void write(ObjectDataOutput out, GenericMessage message) throws IOException {
+		Class<?> messageClass = message.getClass();
+		if (GenericMessage.class.equals(messageClass) || ErrorMessage.class.equals(messageClass)) {
+			out.writeByte(ErrorMessage.class.equals(messageClass) ? ERROR_MESSAGE : GENERIC_MESSAGE);
+			MessageHeadersStreamSerializer.writeHeaders(out, message.getHeaders());
+			out.writeObject(message.getPayload());
+		}
+		else {
+			out.writeByte(SERIALIZED_MESSAGE);
+			out.writeByteArray(SerializationUtils.serialize(message));
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public GenericMessage read(ObjectDataInput in) throws IOException {
+		byte type = in.readByte();
+		if (type == SERIALIZED_MESSAGE) {
+			return (GenericMessage) SerializationUtils.deserialize(in.readByteArray());
+		}
+		MessageHeaders headers = MessageHeadersStreamSerializer.readHeaders(in);
+		Object payload = in.readObject();
+		if (type == ERROR_MESSAGE) {
+			return new ErrorMessage((Throwable) payload, headers);
+		}
+		return new GenericMessage<Object>(payload, headers);
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+}
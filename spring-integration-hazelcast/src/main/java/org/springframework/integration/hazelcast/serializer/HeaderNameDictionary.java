@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.serializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.hazelcast.HazelcastHeaders;
+import org.springframework.messaging.MessageHeaders;
+
+/**
+ * The well-known header names which are written as a single byte instead of a string.
+ * The codes are part of the wire format: new names may only be appended.
+ *
+ * @since 1.0.0
+ */
+final class HeaderNameDictionary {
+
+	/**
+	 * The code of a header name which is written as a string.
+	 */
+	static final byte LITERAL = 0;
+
+	private static final String[] NAMES = {
+			MessageHeaders.CONTENT_TYPE,
+			MessageHeaders.REPLY_CHANNEL,
+			MessageHeaders.ERROR_CHANNEL,
+			IntegrationMessageHeaderAccessor.CORRELATION_ID,
+			IntegrationMessageHeaderAccessor.EXPIRATION_DATE,
+			IntegrationMessageHeaderAccessor.PRIORITY,
+			IntegrationMessageHeaderAccessor.SEQUENCE_NUMBER,
+			IntegrationMessageHeaderAccessor.SEQUENCE_SIZE,
+			IntegrationMessageHeaderAccessor.SEQUENCE_DETAILS,
+			IntegrationMessageHeaderAccessor.ROUTING_SLIP,
+			IntegrationMessageHeaderAccessor.DUPLICATE_MESSAGE,
+			HazelcastHeaders.EVENT_TYPE,
+			HazelcastHeaders.MEMBER,
+			HazelcastHeaders.CACHE_NAME,
+			HazelcastHeaders.PUBLISHING_TIME,
+			HazelcastHeaders.CONFLATED_EVENTS
+	};
+
+	private static final Map<String, Byte> CODES = new HashMap<>();
+
+	static {
+		for (int i = 0; i < NAMES.length; i++) {
+			CODES.put(NAMES[i], (byte) (i + 1));
+		}
+	}
+
+	private HeaderNameDictionary() {
+		super();
+	}
+
+	static byte codeOf(String name) {
+		Byte code = CODES.get(name);
+		return code != null ? code : LITERAL;
+	}
+
+	static String nameOf(byte code) {
+		if (code < 1 || code > NAMES.length) {
+			throw new IllegalStateException("Unknown header name code: " + code);
+		}
+		return NAMES[code - 1];
+	}
+
+}
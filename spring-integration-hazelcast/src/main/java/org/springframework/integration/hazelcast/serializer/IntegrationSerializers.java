@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.serializer;
+
+import org.springframework.integration.hazelcast.message.EntryEventMessagePayload;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.GenericMessage;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
+import com.hazelcast.nio.serialization.Serializer;
+
+/**
+ * The registration of the Spring Integration serializers in a Hazelcast
+ * {@link SerializationConfig}.
+ * <p>
+ * The serializers are registered automatically for the {@code com.hazelcast.config.Config}
+ * beans of an integration application context. Register them explicitly for the
+ * configurations built outside the application context and for the clients; all members
+ * and clients of a cluster must register them.
+ *
+ * @since 1.0.0
+ */
+public final class IntegrationSerializers {
+
+	public static final int MESSAGE_HEADERS_TYPE_ID = 5101;
+
+	public static final int GENERIC_MESSAGE_TYPE_ID = 5102;
+
+	public static final int ENTRY_EVENT_MESSAGE_PAYLOAD_TYPE_ID = 5103;
+
+	private IntegrationSerializers() {
+		super();
+	}
+
+	/**
+	 * Register the serializers for {@link GenericMessage}, {@link MessageHeaders} and
+	 * {@link EntryEventMessagePayload}, unless a serializer is already configured for
+	 * the type.
+	 * @param serializationConfig the serialization config.
+	 */
+	public static void registerSerializers(SerializationConfig serializationConfig) {
+		register(serializationConfig, MessageHeaders.class, new MessageHeadersStreamSerializer());
+		register(serializationConfig, GenericMessage.class, new GenericMessageStreamSerializer());
+		register(serializationConfig, EntryEventMessagePayload.class, new EntryEventMessagePayloadStreamSerializer());
+	}
+
+	private static void register(SerializationConfig serializationConfig, Class<?> type, Serializer serializer) {
+		for (SerializerConfig serializerConfig : serializationConfig.getSerializerConfigs()) {
+			if (type.equals(serializerConfig.getTypeClass())
+					|| type.getName().equals(serializerConfig.getTypeClassName())) {
+				return;
+			}
+		}
+		serializationConfig.addSerializerConfig(new SerializerConfig()
+				.setTypeClass(type)
+				.setImplementation(serializer));
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.serializer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.messaging.MessageHeaders;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+/**
+ * A {@link StreamSerializer} for {@link MessageHeaders}.
+ * <p>
+ * The {@code id} and {@code timestamp} are written as raw longs and the well-known
+ * header names as single byte codes; the header values are written with the Hazelcast
+ * serialization, which is compact for the primitive wrappers and strings.
+ *
+ * @since 1.0.0
+ */
+public class MessageHeadersStreamSerializer implements StreamSerializer<MessageHeaders> {
+
+	private static final byte HAS_ID = 1;
+
+	private static final byte HAS_TIMESTAMP = 2;
+
+	@Override
+	public int getTypeId() {
+		return IntegrationSerializers.MESSAGE_HEADERS_TYPE_ID;
+	}
+
+	@Override
+	public void write(ObjectDataOutput out, MessageHeaders headers) throws IOException {
+		writeHeaders(out, headers);
+	}
+
+	@Override
+	public MessageHeaders read(ObjectDataInput in) throws IOException {
+		return readHeaders(in);
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+	static void writeHeaders(ObjectDataOutput out, MessageHeaders headers) throws IOException {
+		UUID id = headers.getId();
+		Long timestamp = headers.getTimestamp();
+		byte flags = 0;
+		if (id != null) {
+			flags |= HAS_ID;
+		}
+		if (timestamp != null) {
+			flags |= HAS_TIMESTAMP;
+		}
+		out.writeByte(flags);
+		if (id != null) {
+			out.writeLong(id.getMostSignificantBits());
+			out.writeLong(id.getLeastSignificantBits());
+		}
+		if (timestamp != null) {
+			out.writeLong(timestamp);
+		}
+		int size = headers.size() - (id != null ? 1 : 0) - (timestamp != null ? 1 : 0);
+		out.writeInt(size);
+		for (Map.Entry<String, Object> header : headers.entrySet()) {
+			String name = header.getKey();
+			if (MessageHeaders.ID.equals(name) || MessageHeaders.TIMESTAMP.equals(name)) {
+				continue;
+			}
+			byte code = HeaderNameDictionary.codeOf(name);
+			out.writeByte(code);
+			if (code == HeaderNameDictionary.LITERAL) {
+				out.writeUTF(name);
+			}
+			out.writeObject(header.getValue());
+		}
+	}
+
+	static MessageHeaders readHeaders(ObjectDataInput in) throws IOException {
+		byte flags = in.readByte();
+		UUID id = MessageHeaders.ID_VALUE_NONE;
+		if ((flags & HAS_ID) != 0) {
+			id = new UUID(in.readLong(), in.readLong());
+		}
+		Long timestamp = -1L;
+		if ((flags & HAS_TIMESTAMP) != 0) {
+			timestamp = in.readLong();
+		}
+		int size = in.readInt();
+		Map<String, Object> headers = new HashMap<>(size * 2);
+		for (int i = 0; i < size; i++) {
+			byte code = in.readByte();
+			String name = code == HeaderNameDictionary.LITERAL ? in.readUTF() : HeaderNameDictionary.nameOf(code);
+			headers.put(name, in.readObject());
+		}
+		return new DeserializedMessageHeaders(headers, id, timestamp);
+	}
+
+	/**
+	 * The {@link MessageHeaders} with the {@code id} and {@code timestamp} of the
+	 * serialized headers, instead of the generated ones.
+	 */
+	private static final class DeserializedMessageHeaders extends MessageHeaders {
+
+		private static final long serialVersionUID = 1L;
+
+		DeserializedMessageHeaders(Map<String, Object> headers, UUID id, Long timestamp) {
+			super(headers, id, timestamp);
+		}
+
+	}
+
+}
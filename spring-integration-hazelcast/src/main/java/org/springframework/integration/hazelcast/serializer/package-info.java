@@ -0,0 +1,4 @@
+/**
+ * Provides compact Hazelcast serializers for messages and their payloads.
+ */
+package org.springframework.integration.hazelcast.serializer;
@@ -0,0 +1,519 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.store;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.integration.store.AbstractMessageGroupStore;
+import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageStore;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.AbstractEntryProcessor;
+
+/**
+ * The {@link org.springframework.integration.store.MessageGroupStore} and
+ * {@link MessageStore} implementation based on two Hazelcast {@link IMap}s: the message
+ * bodies are stored under their ids in the {@code messages} map and the groups keep only
+ * the ids of their messages in the {@code groups} map.
+ * <p>
+ * All the group modifications are performed with {@link com.hazelcast.map.EntryProcessor}s
+ * on the partition owner, so a group is never shipped over the wire to add or remove a
+ * message. The group state needed for release checks (size, completeness, timestamps)
+ * is read with an {@link com.hazelcast.map.EntryProcessor} as well, so it is never stale.
+ * The message bodies never change once stored: configure a
+ * {@link com.hazelcast.config.NearCacheConfig} for the {@code messages} map to serve the
+ * release strategies reading the messages of a group from the local near cache.
+ * With the default {@link com.hazelcast.config.InMemoryFormat#BINARY} format the owner
+ * deserializes a group for each modification; configure
+ * {@link com.hazelcast.config.InMemoryFormat#OBJECT} for the {@code groups} map to avoid
+ * that for large groups.
+ * <p>
+ * The {@link Message}s must be {@link Serializable} and the classes of this store must be
+ * on the classpath of all the cluster members.
+ *
+ * @since 1.0.0
+ */
+public class HazelcastMessageStore extends AbstractMessageGroupStore implements MessageStore {
+
+	/**
+	 * The default name of the groups map.
+	 */
+	public static final String DEFAULT_GROUPS_MAP_NAME = "SPRING_INTEGRATION_MESSAGE_GROUPS";
+
+	/**
+	 * The default name of the messages map.
+	 */
+	public static final String DEFAULT_MESSAGES_MAP_NAME = "SPRING_INTEGRATION_MESSAGES";
+
+	private final IMap<Object, GroupMetadata> groups;
+
+	private final IMap<UUID, Message<?>> messages;
+
+	public HazelcastMessageStore(HazelcastInstance hazelcastInstance) {
+		this(hazelcastInstance, DEFAULT_GROUPS_MAP_NAME, DEFAULT_MESSAGES_MAP_NAME);
+	}
+
+	public HazelcastMessageStore(HazelcastInstance hazelcastInstance, String groupsMapName,
+			String messagesMapName) {
+		Assert.notNull(hazelcastInstance, "'hazelcastInstance' must not be null");
+		Assert.hasText(groupsMapName, "'groupsMapName' must not be empty");
+		Assert.hasText(messagesMapName, "'messagesMapName' must not be empty");
+		this.groups = hazelcastInstance.getMap(groupsMapName);
+		this.messages = hazelcastInstance.getMap(messagesMapName);
+	}
+
+	@Override
+	public Message<?> getMessage(UUID id) {
+		Assert.notNull(id, "'id' must not be null");
+		return this.messages.get(id);
+	}
+
+	@Override
+	public <T> Message<T> addMessage(Message<T> message) {
+		Assert.notNull(message, "'message' must not be null");
+		this.messages.set(message.getHeaders().getId(), message);
+		return message;
+	}
+
+	@Override
+	public Message<?> removeMessage(UUID id) {
+		Assert.notNull(id, "'id' must not be null");
+		return this.messages.remove(id);
+	}
+
+	@Override
+	public long getMessageCount() {
+		return this.messages.size();
+	}
+
+	@Override
+	public MessageGroup addMessageToGroup(Object groupId, Message<?> message) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Assert.notNull(message, "'message' must not be null");
+		return createMessageGroup(groupId, doAddMessagesToGroup(groupId, message));
+	}
+
+	@Override
+	public void addMessagesToGroup(Object groupId, Message<?>... messages) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Assert.notNull(messages, "'messages' must not be null");
+		doAddMessagesToGroup(groupId, messages);
+	}
+
+	private GroupMetadata doAddMessagesToGroup(Object groupId, Message<?>... messages) {
+		UUID[] ids = new UUID[messages.length];
+		for (int i = 0; i < messages.length; i++) {
+			ids[i] = addMessage(messages[i]).getHeaders().getId();
+		}
+		return (GroupMetadata) this.groups.executeOnKey(groupId,
+				new AddMessagesProcessor(ids, System.currentTimeMillis()));
+	}
+
+	@Override
+	public MessageGroup getMessageGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		return createMessageGroup(groupId, readMetadata(groupId));
+	}
+
+	private MessageGroup createMessageGroup(Object groupId, GroupMetadata metadata) {
+		if (metadata == null) {
+			return getMessageGroupFactory().create(groupId);
+		}
+		MessageGroup messageGroup =
+				getMessageGroupFactory().create(this, groupId, metadata.timestamp, metadata.complete);
+		messageGroup.setLastModified(metadata.lastModified);
+		messageGroup.setLastReleasedMessageSequenceNumber(metadata.lastReleasedMessageSequenceNumber);
+		return messageGroup;
+	}
+
+	@Override
+	public int messageGroupSize(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		GroupMetadata metadata = readMetadata(groupId);
+		return metadata != null ? metadata.size() : 0;
+	}
+
+	@Override
+	public Message<?> getOneMessageFromGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		UUID id = (UUID) this.groups.executeOnKey(groupId, FirstIdProcessor.INSTANCE);
+		return id != null ? this.messages.get(id) : null;
+	}
+
+	@Override
+	public Collection<Message<?>> getMessagesForGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		GroupMetadata metadata = this.groups.get(groupId);
+		if (metadata == null || metadata.messageIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Map<UUID, Message<?>> messages = this.messages.getAll(metadata.messageIds);
+		List<Message<?>> result = new ArrayList<>(messages.size());
+		for (UUID id : metadata.messageIds) {
+			Message<?> message = messages.get(id);
+			if (message != null) {
+				result.add(message);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Message<?> pollMessageFromGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		UUID id = (UUID) this.groups.executeOnKey(groupId, new PollProcessor(System.currentTimeMillis()));
+		return id != null ? this.messages.remove(id) : null;
+	}
+
+	/**
+	 * Remove the message from the group and return the group.
+	 * @deprecated since Spring Integration 4.3, in favor of {@link #removeMessagesFromGroup(Object, Collection)}.
+	 */
+	@Override
+	@Deprecated
+	public MessageGroup removeMessageFromGroup(Object groupId, Message<?> messageToRemove) {
+		removeMessagesFromGroup(groupId, Collections.<Message<?>>singletonList(messageToRemove));
+		return getMessageGroup(groupId);
+	}
+
+	@Override
+	public void removeMessagesFromGroup(Object groupId, Collection<Message<?>> messages) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		Assert.notNull(messages, "'messages' must not be null");
+		List<UUID> ids = new ArrayList<>(messages.size());
+		for (Message<?> message : messages) {
+			ids.add(message.getHeaders().getId());
+		}
+		this.groups.executeOnKey(groupId, new RemoveMessagesProcessor(ids, System.currentTimeMillis()));
+		for (UUID id : ids) {
+			this.messages.delete(id);
+		}
+	}
+
+	@Override
+	public void removeMessageGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		GroupMetadata metadata = this.groups.remove(groupId);
+		if (metadata != null) {
+			for (UUID id : metadata.messageIds) {
+				this.messages.delete(id);
+			}
+		}
+	}
+
+	@Override
+	public void completeGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		this.groups.executeOnKey(groupId, new CompleteProcessor(System.currentTimeMillis()));
+	}
+
+	@Override
+	public void setLastReleasedSequenceNumberForGroup(Object groupId, int sequenceNumber) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		this.groups.executeOnKey(groupId,
+				new LastReleasedSequenceNumberProcessor(sequenceNumber, System.currentTimeMillis()));
+	}
+
+	@Override
+	public int getMessageGroupCount() {
+		return this.groups.size();
+	}
+
+	@Override
+	public Iterator<MessageGroup> iterator() {
+		final Iterator<Object> groupIds = new ArrayList<>(this.groups.keySet()).iterator();
+		return new Iterator<MessageGroup>() {
+
+			@Override
+			public boolean hasNext() {
+				return groupIds.hasNext();
+			}
+
+			@Override
+			public MessageGroup next() {
+				return getMessageGroup(groupIds.next());
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+
+		};
+	}
+
+	private GroupMetadata readMetadata(Object groupId) {
+		return (GroupMetadata) this.groups.executeOnKey(groupId, SummaryProcessor.INSTANCE);
+	}
+
+
+	/**
+	 * The state of a message group in the {@code groups} map.
+	 */
+	static final class GroupMetadata implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final LinkedHashSet<UUID> messageIds;
+
+		private final int size;
+
+		private final long timestamp;
+
+		private long lastModified;
+
+		private boolean complete;
+
+		private int lastReleasedMessageSequenceNumber;
+
+		GroupMetadata(long timestamp) {
+			this.messageIds = new LinkedHashSet<>();
+			this.size = -1;
+			this.timestamp = timestamp;
+			this.lastModified = timestamp;
+		}
+
+		private GroupMetadata(GroupMetadata metadata) {
+			this.messageIds = new LinkedHashSet<>();
+			this.size = metadata.messageIds.size();
+			this.timestamp = metadata.timestamp;
+			this.lastModified = metadata.lastModified;
+			this.complete = metadata.complete;
+			this.lastReleasedMessageSequenceNumber = metadata.lastReleasedMessageSequenceNumber;
+		}
+
+		int size() {
+			return this.size < 0 ? this.messageIds.size() : this.size;
+		}
+
+		/**
+		 * The copy of this metadata without the message ids, but with their number.
+		 */
+		GroupMetadata summary() {
+			return new GroupMetadata(this);
+		}
+
+	}
+
+
+	private abstract static class GroupProcessor extends AbstractEntryProcessor<Object, GroupMetadata> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long timestamp;
+
+		GroupProcessor(long timestamp) {
+			this.timestamp = timestamp;
+		}
+
+		@Override
+		public Object process(Map.Entry<Object, GroupMetadata> entry) {
+			GroupMetadata metadata = entry.getValue();
+			if (metadata == null) {
+				if (!createIfAbsent()) {
+					return null;
+				}
+				metadata = new GroupMetadata(this.timestamp);
+			}
+			metadata.lastModified = this.timestamp;
+			Object result = apply(metadata);
+			entry.setValue(metadata);
+			return result;
+		}
+
+		boolean createIfAbsent() {
+			return false;
+		}
+
+		abstract Object apply(GroupMetadata metadata);
+
+	}
+
+
+	private static final class AddMessagesProcessor extends GroupProcessor {
+
+		private static final long serialVersionUID = 1L;
+
+		private final UUID[] ids;
+
+		AddMessagesProcessor(UUID[] ids, long timestamp) {
+			super(timestamp);
+			this.ids = ids;
+		}
+
+		@Override
+		boolean createIfAbsent() {
+			return true;
+		}
+
+		@Override
+		Object apply(GroupMetadata metadata) {
+			Collections.addAll(metadata.messageIds, this.ids);
+			return metadata.summary();
+		}
+
+	}
+
+
+	private static final class RemoveMessagesProcessor extends GroupProcessor {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Collection<UUID> ids;
+
+		RemoveMessagesProcessor(Collection<UUID> ids, long timestamp) {
+			super(timestamp);
+			this.ids = ids;
+		}
+
+		@Override
+		Object apply(GroupMetadata metadata) {
+			metadata.messageIds.removeAll(this.ids);
+			return null;
+		}
+
+	}
+
+
+	private static final class PollProcessor extends GroupProcessor {
+
+		private static final long serialVersionUID = 1L;
+
+		PollProcessor(long timestamp) {
+			super(timestamp);
+		}
+
+		@Override
+		Object apply(GroupMetadata metadata) {
+			Iterator<UUID> iterator = metadata.messageIds.iterator();
+			if (iterator.hasNext()) {
+				UUID id = iterator.next();
+				iterator.remove();
+				return id;
+			}
+			return null;
+		}
+
+	}
+
+
+	private static final class CompleteProcessor extends GroupProcessor {
+
+		private static final long serialVersionUID = 1L;
+
+		CompleteProcessor(long timestamp) {
+			super(timestamp);
+		}
+
+		@Override
+		boolean createIfAbsent() {
+			return true;
+		}
+
+		@Override
+		Object apply(GroupMetadata metadata) {
+			metadata.complete = true;
+			return null;
+		}
+
+	}
+
+
+	private static final class LastReleasedSequenceNumberProcessor extends GroupProcessor {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int sequenceNumber;
+
+		LastReleasedSequenceNumberProcessor(int sequenceNumber, long timestamp) {
+			super(timestamp);
+			this.sequenceNumber = sequenceNumber;
+		}
+
+		@Override
+		boolean createIfAbsent() {
+			return true;
+		}
+
+		@Override
+		Object apply(GroupMetadata metadata) {
+			metadata.lastReleasedMessageSequenceNumber = this.sequenceNumber;
+			return null;
+		}
+
+	}
+
+
+	/**
+	 * The read-only processor returning the group state without the message ids.
+	 */
+	private static final class SummaryProcessor extends AbstractEntryProcessor<Object, GroupMetadata> {
+
+		private static final long serialVersionUID = 1L;
+
+		static final SummaryProcessor INSTANCE = new SummaryProcessor();
+
+		SummaryProcessor() {
+			super(false);
+		}
+
+		@Override
+		public Object process(Map.Entry<Object, GroupMetadata> entry) {
+			GroupMetadata metadata = entry.getValue();
+			return metadata != null ? metadata.summary() : null;
+		}
+
+	}
+
+
+	/**
+	 * The read-only processor returning the id of the first message in the group.
+	 */
+	private static final class FirstIdProcessor extends AbstractEntryProcessor<Object, GroupMetadata> {
+
+		private static final long serialVersionUID = 1L;
+
+		static final FirstIdProcessor INSTANCE = new FirstIdProcessor();
+
+		FirstIdProcessor() {
+			super(false);
+		}
+
+		@Override
+		public Object process(Map.Entry<Object, GroupMetadata> entry) {
+			GroupMetadata metadata = entry.getValue();
+			if (metadata == null || metadata.messageIds.isEmpty()) {
+				return null;
+			}
+			return metadata.messageIds.iterator().next();
+		}
+
+	}
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Provides classes supporting message stores.
+ */
+package org.springframework.integration.hazelcast.store;
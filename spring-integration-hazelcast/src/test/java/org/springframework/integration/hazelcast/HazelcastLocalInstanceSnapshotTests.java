@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.MultiMap;
+
+/**
+ * @since 1.0.0
+ */
+public class HazelcastLocalInstanceSnapshotTests {
+
+	private static HazelcastInstance hazelcastInstance;
+
+	@BeforeClass
+	public static void init() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+	}
+
+	@AfterClass
+	public static void destroy() {
+		hazelcastInstance.shutdown();
+		HazelcastLocalInstanceSnapshot.invalidate();
+	}
+
+	@Test
+	public void testSnapshotIsCachedUntilTheRegistryChanges() throws InterruptedException {
+		SocketAddress localSocketAddress = hazelcastInstance.getLocalEndpoint().getSocketAddress();
+		SocketAddress remoteSocketAddress = new InetSocketAddress("192.0.2.1", 5701);
+
+		HazelcastLocalInstanceSnapshot.invalidate();
+		HazelcastLocalInstanceSnapshot snapshot = HazelcastLocalInstanceSnapshot.get();
+		assertThat(snapshot.getLocalSocketAddresses().contains(localSocketAddress), is(true));
+		assertThat(snapshot.isEventAcceptable(localSocketAddress), is(true));
+		assertThat(snapshot.isEventAcceptable(remoteSocketAddress), is(false));
+		assertThat(HazelcastLocalInstanceSnapshot.get(), sameInstance(snapshot));
+
+		MultiMap<SocketAddress, SocketAddress> configMultiMap = hazelcastInstance
+				.getMultiMap(HazelcastLocalInstanceRegistrar.SPRING_INTEGRATION_INTERNAL_CLUSTER_MULTIMAP);
+		configMultiMap.put(localSocketAddress, localSocketAddress);
+		try {
+			int n = 0;
+			while (HazelcastLocalInstanceSnapshot.get() == snapshot && n++ < 100) {
+				Thread.sleep(50);
+			}
+			HazelcastLocalInstanceSnapshot refreshed = HazelcastLocalInstanceSnapshot.get();
+			assertThat(refreshed, not(sameInstance(snapshot)));
+			assertThat(refreshed.isEventAcceptable(remoteSocketAddress), is(true));
+		}
+		finally {
+			configMultiMap.clear();
+		}
+	}
+
+}
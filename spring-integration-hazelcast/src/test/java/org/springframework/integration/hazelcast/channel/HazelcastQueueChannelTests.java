@@ -0,0 +1,285 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.channel;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.util.ErrorHandler;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IQueue;
+
+/**
+ * @since 1.0.0
+ */
+public class HazelcastQueueChannelTests {
+
+	private static HazelcastInstance hazelcastInstance;
+
+	@BeforeClass
+	public static void init() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+	}
+
+	@AfterClass
+	public static void destroy() {
+		hazelcastInstance.shutdown();
+	}
+
+	@Test
+	public void testPollableChannelDrainsBatches() {
+		IQueue<Message<?>> queue = hazelcastInstance.getQueue("pollableQueue");
+		HazelcastQueueChannel channel = new HazelcastQueueChannel(queue);
+		channel.setBatchSize(3);
+		channel.setBeanName("pollableChannel");
+
+		for (int i = 0; i < 5; i++) {
+			assertTrue(channel.send(new GenericMessage<>(i)));
+		}
+		assertThat(queue.size(), is(5));
+
+		assertThat(channel.receive(0).getPayload(), is((Object) 0));
+		assertThat(queue.size(), is(2));
+		assertThat(channel.getQueueSize(), is(4));
+		assertThat(channel.receive(0).getPayload(), is((Object) 1));
+		assertThat(channel.receive(0).getPayload(), is((Object) 2));
+		assertThat(channel.receive(0).getPayload(), is((Object) 3));
+		assertThat(queue.size(), is(0));
+
+		assertThat(channel.clear().size(), is(1));
+		assertThat(channel.receive(0), nullValue());
+		assertThat(channel.receive(10), nullValue());
+	}
+
+	@Test
+	public void testPollableChannelWaitsForMessage() throws InterruptedException {
+		final IQueue<Message<?>> queue = hazelcastInstance.getQueue("waitingQueue");
+		HazelcastQueueChannel channel = new HazelcastQueueChannel(queue);
+		new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				queue.offer(new GenericMessage<>("foo"));
+			}
+
+		}).start();
+		Message<?> message = channel.receive(10000);
+		assertThat(message, notNullValue());
+		assertThat(message.getPayload(), is((Object) "foo"));
+	}
+
+	@Test
+	public void testSubscribableChannelDistributesMessages() throws Exception {
+		IQueue<Message<?>> queue = hazelcastInstance.getQueue("subscribableQueue");
+		HazelcastSubscribableQueueChannel channel1 = subscribableChannel(queue, "channel1");
+		HazelcastSubscribableQueueChannel channel2 = subscribableChannel(queue, "channel2");
+
+		final List<Object> received1 = Collections.synchronizedList(new ArrayList<>());
+		final List<Object> received2 = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch latch = new CountDownLatch(20);
+		channel1.subscribe(collectingHandler(received1, latch));
+		channel2.subscribe(collectingHandler(received2, latch));
+		channel1.start();
+		channel2.start();
+
+		for (int i = 0; i < 20; i++) {
+			channel1.send(new GenericMessage<>(i));
+		}
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		List<Object> received = new ArrayList<>(received1);
+		received.addAll(received2);
+		List<Object> expected = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			expected.add(i);
+		}
+		assertThat(received, containsInAnyOrder(expected.toArray()));
+		assertThat(queue.size(), is(0));
+
+		channel1.stop();
+		channel2.stop();
+		int n = 0;
+		while ((channel1.getActiveConsumerCount() > 0 || channel2.getActiveConsumerCount() > 0) && n++ < 100) {
+			Thread.sleep(50);
+		}
+		assertThat(channel1.getActiveConsumerCount(), is(0));
+		assertThat(channel2.getActiveConsumerCount(), is(0));
+	}
+
+	@Test
+	public void testSubscribableChannelHandlesErrors() throws Exception {
+		IQueue<Message<?>> queue = hazelcastInstance.getQueue("failingQueue");
+		HazelcastSubscribableQueueChannel channel = subscribableChannel(queue, "failingChannel");
+		final QueueChannel errors = new QueueChannel();
+		channel.setErrorHandler(new ErrorHandler() {
+
+			@Override
+			public void handleError(Throwable t) {
+				errors.send(new GenericMessage<>(t));
+			}
+
+		});
+		channel.subscribe(new MessageHandler() {
+
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				throw new MessagingException(message, "intentional");
+			}
+
+		});
+		channel.start();
+		try {
+			channel.send(new GenericMessage<>("foo"));
+			Message<?> error = errors.receive(10000);
+			assertThat(error, notNullValue());
+			MessagingException exception = (MessagingException) error.getPayload();
+			assertThat(exception.getFailedMessage().getPayload(), is((Object) "foo"));
+		}
+		finally {
+			channel.stop();
+		}
+	}
+
+	@Test
+	public void testSubscribableChannelRestartWaitsForPreviousConsumers() throws Exception {
+		IQueue<Message<?>> queue = hazelcastInstance.getQueue("restartQueue");
+		HazelcastSubscribableQueueChannel channel = subscribableChannel(queue, "restartChannel");
+		channel.setConcurrency(2);
+		final List<Object> received = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch latch = new CountDownLatch(2);
+		channel.subscribe(collectingHandler(received, latch));
+		channel.start();
+		try {
+			for (int i = 0; i < 5; i++) {
+				channel.stop();
+				channel.start();
+				assertThat(channel.getActiveConsumerCount(), is(2));
+			}
+			channel.send(new GenericMessage<>("foo"));
+			channel.send(new GenericMessage<>("bar"));
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+			assertThat(received, containsInAnyOrder((Object) "foo", "bar"));
+		}
+		finally {
+			channel.stop();
+		}
+	}
+
+	@Test
+	public void testSubscribableChannelStopCallbackWaitsForDispatchedBatch() throws Exception {
+		IQueue<Message<?>> queue = hazelcastInstance.getQueue("stopCallbackQueue");
+		HazelcastSubscribableQueueChannel channel = subscribableChannel(queue, "stopCallbackChannel");
+		final CountDownLatch busy = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<Object> received = Collections.synchronizedList(new ArrayList<>());
+		channel.subscribe(new MessageHandler() {
+
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				busy.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				received.add(message.getPayload());
+			}
+
+		});
+		// both messages are pulled in the same batch
+		channel.send(new GenericMessage<>("foo"));
+		channel.send(new GenericMessage<>("bar"));
+		channel.start();
+		final CountDownLatch stopped = new CountDownLatch(1);
+		try {
+			assertTrue(busy.await(10, TimeUnit.SECONDS));
+			channel.stop(new Runnable() {
+
+				@Override
+				public void run() {
+					stopped.countDown();
+				}
+
+			});
+			assertFalse(stopped.await(200, TimeUnit.MILLISECONDS));
+
+			release.countDown();
+			assertTrue(stopped.await(10, TimeUnit.SECONDS));
+			assertThat(received, containsInAnyOrder((Object) "foo", "bar"));
+			assertThat(channel.getActiveConsumerCount(), is(0));
+		}
+		finally {
+			release.countDown();
+			channel.stop();
+		}
+	}
+
+	private static HazelcastSubscribableQueueChannel subscribableChannel(IQueue<Message<?>> queue, String name)
+			throws Exception {
+		HazelcastSubscribableQueueChannel channel = new HazelcastSubscribableQueueChannel(queue);
+		channel.setBatchSize(5);
+		channel.setMaxPollTimeout(100);
+		channel.setBeanName(name);
+		channel.afterPropertiesSet();
+		return channel;
+	}
+
+	private static MessageHandler collectingHandler(final List<Object> received, final CountDownLatch latch) {
+		return new MessageHandler() {
+
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				received.add(message.getPayload());
+				latch.countDown();
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.inbound;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+import javax.annotation.Resource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.integration.hazelcast.HazelcastIntegrationTestUser;
+import org.springframework.integration.hazelcast.inbound.util.HazelcastInboundChannelAdapterTestUtils;
+import org.springframework.integration.hazelcast.message.EntryEventMessagePayload;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.PollableChannel;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.hazelcast.core.IMap;
+
+/**
+ * The Continuous Query Inbound Channel Adapter with the striped dispatch.
+ *
+ * @since 1.0.0
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+@DirtiesContext
+public class HazelcastCQDispatchInboundChannelAdapterTests {
+
+	@Autowired
+	private PollableChannel cqDispatchChannel;
+
+	@Autowired
+	private HazelcastContinuousQueryMessageProducer cqDispatchAdapter;
+
+	@Resource
+	private IMap<Integer, HazelcastIntegrationTestUser> cqDispatchMap;
+
+	@Test
+	public void testCallerRunsAndRestartKeepTheOrderOfTheKey() {
+		putAndVerifyOrder(0, 50);
+		this.cqDispatchAdapter.stop();
+		this.cqDispatchAdapter.start();
+		putAndVerifyOrder(50, 100);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void putAndVerifyOrder(int from, int to) {
+		for (int i = from; i < to; i++) {
+			this.cqDispatchMap.put(1, new HazelcastIntegrationTestUser(i, "TestName1", "TestSurname1"));
+		}
+		for (int i = from; i < to; i++) {
+			Message<?> message = this.cqDispatchChannel.receive(HazelcastInboundChannelAdapterTestUtils.TIMEOUT);
+			assertThat(message, notNullValue());
+			EntryEventMessagePayload<Integer, HazelcastIntegrationTestUser> payload =
+					(EntryEventMessagePayload<Integer, HazelcastIntegrationTestUser>) message.getPayload();
+			assertThat(payload.value.getId(), is(i));
+		}
+	}
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.inbound;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.integration.hazelcast.DistributedSQLIterationType;
+import org.springframework.integration.hazelcast.HazelcastIntegrationTestUser;
+import org.springframework.integration.metadata.MetadataStore;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+import org.springframework.messaging.Message;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+
+/**
+ * @since 1.0.0
+ */
+public class HazelcastDistributedSQLMessageSourceTests {
+
+	private static HazelcastInstance hazelcastInstance;
+
+	private static IMap<Integer, HazelcastIntegrationTestUser> map;
+
+	@BeforeClass
+	public static void init() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+		map = hazelcastInstance.getMap("dsPagingMap");
+		for (int i = 1; i <= 5; i++) {
+			map.put(i, new HazelcastIntegrationTestUser(i, "TestName" + i, "TestSurname" + i, 40));
+		}
+		map.put(6, new HazelcastIntegrationTestUser(6, "TestName6", "TestSurname6", 20));
+	}
+
+	@AfterClass
+	public static void destroy() {
+		hazelcastInstance.shutdown();
+	}
+
+	@Test
+	public void testPagesAcrossPolls() {
+		HazelcastDistributedSQLMessageSource source = new HazelcastDistributedSQLMessageSource(map, "age = 40");
+		source.setIterationType(DistributedSQLIterationType.KEY);
+		source.setPageSize(2);
+
+		assertThat(receiveKeys(source), contains(1, 2));
+		assertThat(receiveKeys(source), contains(3, 4));
+		assertThat(receiveKeys(source), contains(5));
+		assertThat(receiveKeys(source), contains(1, 2));
+	}
+
+	@Test
+	public void testNoResultsAfterTheLastFullPage() {
+		HazelcastDistributedSQLMessageSource source = new HazelcastDistributedSQLMessageSource(map, "age = 40");
+		source.setIterationType(DistributedSQLIterationType.KEY);
+		source.setPageSize(5);
+
+		assertThat(receiveKeys(source), contains(1, 2, 3, 4, 5));
+		assertThat(source.receive(), nullValue());
+		assertThat(receiveKeys(source), contains(1, 2, 3, 4, 5));
+	}
+
+	@Test
+	public void testMessagePerEntry() {
+		HazelcastDistributedSQLMessageSource source = new HazelcastDistributedSQLMessageSource(map, "age = 40");
+		source.setIterationType(DistributedSQLIterationType.VALUE);
+		source.setPageSize(2);
+		source.setMessagePerEntry(true);
+
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Message<?> message = source.receive();
+			assertThat(message.getPayload(), instanceOf(HazelcastIntegrationTestUser.class));
+			ids.add(((HazelcastIntegrationTestUser) message.getPayload()).getId());
+		}
+		assertThat(ids, contains(1, 2, 3, 4, 5));
+
+		Message<?> message = source.receive();
+		assertThat(((HazelcastIntegrationTestUser) message.getPayload()).getId(), is(1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testPagingIsNotSupportedForLocalKeys() {
+		HazelcastDistributedSQLMessageSource source = new HazelcastDistributedSQLMessageSource(map, "age = 40");
+		source.setIterationType(DistributedSQLIterationType.LOCAL_KEY);
+		source.setPageSize(2);
+		source.receive();
+	}
+
+	@Test
+	public void testDeltaPolling() {
+		IMap<Integer, HazelcastIntegrationTestUser> deltaMap = hazelcastInstance.getMap("dsDeltaMap");
+		for (int i = 1; i <= 3; i++) {
+			deltaMap.put(i, new HazelcastIntegrationTestUser(i, "TestName" + i, "TestSurname" + i, 40));
+		}
+		MetadataStore metadataStore = new SimpleMetadataStore();
+
+		HazelcastDistributedSQLMessageSource source = new HazelcastDistributedSQLMessageSource(deltaMap, "age = 40");
+		source.setIterationType(DistributedSQLIterationType.ENTRY);
+		source.setWatermarkAttribute("id");
+		source.setMetadataStore(metadataStore);
+
+		assertThat(source.receive().getPayload(), instanceOf(Collection.class));
+		assertThat(metadataStore.get("dsDeltaMap:age = 40"), is("3"));
+		assertThat(source.receive(), nullValue());
+
+		deltaMap.put(4, new HazelcastIntegrationTestUser(4, "TestName4", "TestSurname4", 40));
+		Collection<?> delta = (Collection<?>) source.receive().getPayload();
+		assertThat(delta.size(), is(1));
+		assertThat(((Map.Entry<?, ?>) delta.iterator().next()).getKey(), is((Object) 4));
+		assertThat(source.receive(), nullValue());
+
+		HazelcastDistributedSQLMessageSource restarted =
+				new HazelcastDistributedSQLMessageSource(deltaMap, "age = 40");
+		restarted.setIterationType(DistributedSQLIterationType.VALUE);
+		restarted.setWatermarkAttribute("id");
+		restarted.setMetadataStore(metadataStore);
+		restarted.setPageSize(2);
+		restarted.setMessagePerEntry(true);
+
+		assertThat(restarted.receive(), nullValue());
+
+		for (int i = 5; i <= 7; i++) {
+			deltaMap.put(i, new HazelcastIntegrationTestUser(i, "TestName" + i, "TestSurname" + i, 40));
+		}
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			ids.add(((HazelcastIntegrationTestUser) restarted.receive().getPayload()).getId());
+		}
+		assertThat(ids, contains(5, 6, 7));
+		// the last result may still be in process; the watermark is committed with the next poll
+		assertThat(metadataStore.get("dsDeltaMap:age = 40"), is("4"));
+		assertThat(restarted.receive(), nullValue());
+		assertThat(metadataStore.get("dsDeltaMap:age = 40"), is("7"));
+	}
+
+	@Test
+	public void testDateWatermarkIsStoredAsEpochMillis() {
+		IMap<Integer, Event> eventMap = hazelcastInstance.getMap("dsEventMap");
+		for (int i = 1; i <= 3; i++) {
+			eventMap.put(i, new Event(i, new Date(i * 1000L)));
+		}
+		MetadataStore metadataStore = new SimpleMetadataStore();
+
+		HazelcastDistributedSQLMessageSource source = createEventSource(eventMap, metadataStore);
+		for (int i = 1; i <= 3; i++) {
+			assertThat(((Event) source.receive().getPayload()).getId(), is(i));
+			assertThat(metadataStore.get("events"), nullValue());
+		}
+		assertThat(source.receive(), nullValue());
+		assertThat(metadataStore.get("events"), is("3000"));
+
+		HazelcastDistributedSQLMessageSource restarted = createEventSource(eventMap, metadataStore);
+		assertThat(restarted.receive(), nullValue());
+		eventMap.put(4, new Event(4, new Date(4000L)));
+		assertThat(((Event) restarted.receive().getPayload()).getId(), is(4));
+		assertThat(restarted.receive(), nullValue());
+		assertThat(metadataStore.get("events"), is("4000"));
+	}
+
+	private static HazelcastDistributedSQLMessageSource createEventSource(IMap<Integer, Event> eventMap,
+			MetadataStore metadataStore) {
+		HazelcastDistributedSQLMessageSource source = new HazelcastDistributedSQLMessageSource(eventMap, "id > 0");
+		source.setIterationType(DistributedSQLIterationType.VALUE);
+		source.setWatermarkAttribute("updated");
+		source.setMetadataStore(metadataStore);
+		source.setMetadataKey("events");
+		source.setPageSize(2);
+		source.setComparator(new EventComparator());
+		source.setMessagePerEntry(true);
+		return source;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Integer> receiveKeys(HazelcastDistributedSQLMessageSource source) {
+		Message<?> message = source.receive();
+		return new ArrayList<>((Collection<Integer>) message.getPayload());
+	}
+
+	@SuppressWarnings("serial")
+	public static class Event implements Serializable {
+
+		private final int id;
+
+		private final Date updated;
+
+		public Event(int id, Date updated) {
+			this.id = id;
+			this.updated = updated;
+		}
+
+		public int getId() {
+			return this.id;
+		}
+
+		public Date getUpdated() {
+			return this.updated;
+		}
+
+	}
+
+	@SuppressWarnings({ "serial", "rawtypes" })
+	public static class EventComparator implements Comparator<Map.Entry>, Serializable {
+
+		@Override
+		public int compare(Map.Entry o1, Map.Entry o2) {
+			return ((Event) o1.getValue()).getUpdated().compareTo(((Event) o2.getValue()).getUpdated());
+		}
+
+	}
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.inbound;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.hazelcast.CacheListeningPolicyType;
+import org.springframework.integration.hazelcast.HazelcastHeaders;
+import org.springframework.integration.hazelcast.message.EntryEventMessagePayload;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+
+/**
+ * @since 1.0.0
+ */
+public class HazelcastEventConflationTests {
+
+	private static HazelcastInstance hazelcastInstance;
+
+	private static ThreadPoolTaskScheduler taskScheduler;
+
+	@BeforeClass
+	public static void init() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+		taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.afterPropertiesSet();
+	}
+
+	@AfterClass
+	public static void destroy() {
+		taskScheduler.destroy();
+		hazelcastInstance.shutdown();
+	}
+
+	@Test
+	public void testEventsOfTheSameKeyAreConflated() throws Exception {
+		IMap<Integer, Integer> map = hazelcastInstance.getMap("conflationMap");
+		QueueChannel channel = new QueueChannel();
+		HazelcastEventDrivenMessageProducer producer = new HazelcastEventDrivenMessageProducer(map);
+		producer.setOutputChannel(channel);
+		producer.setCacheEventTypes("ADDED,UPDATED");
+		producer.setCacheListeningPolicy(CacheListeningPolicyType.ALL);
+		producer.setConflationWindow(1000);
+		producer.setTaskScheduler(taskScheduler);
+		producer.setBeanName("conflationProducer");
+		producer.afterPropertiesSet();
+		producer.start();
+		try {
+			for (int i = 0; i < 100; i++) {
+				map.put(1, i);
+				if (i % 10 == 0) {
+					map.put(2, i);
+				}
+			}
+			List<Message<?>> key1Messages = new ArrayList<>();
+			List<Message<?>> key2Messages = new ArrayList<>();
+			int key1Events = 0;
+			int key2Events = 0;
+			while (key1Events < 100 || key2Events < 10) {
+				Message<?> message = channel.receive(10000);
+				assertThat(message == null, is(false));
+				EntryEventMessagePayload<?, ?> payload = (EntryEventMessagePayload<?, ?>) message.getPayload();
+				int count = message.getHeaders().get(HazelcastHeaders.CONFLATED_EVENTS, Integer.class);
+				if (payload.key.equals(1)) {
+					key1Messages.add(message);
+					key1Events += count;
+				}
+				else {
+					key2Messages.add(message);
+					key2Events += count;
+				}
+			}
+			assertThat(key1Events, is(100));
+			assertThat(key2Events, is(10));
+			assertThat(key1Messages.size(), lessThan(10));
+
+			EntryEventMessagePayload<?, ?> first = (EntryEventMessagePayload<?, ?>) key1Messages.get(0).getPayload();
+			assertThat(first.oldValue, nullValue());
+			assertThat(key1Messages.get(0).getHeaders().get(HazelcastHeaders.CACHE_NAME), is((Object) "conflationMap"));
+			EntryEventMessagePayload<?, ?> last =
+					(EntryEventMessagePayload<?, ?>) key1Messages.get(key1Messages.size() - 1).getPayload();
+			assertThat(last.value, is((Object) 99));
+			assertThat(last.oldValue == null || (Integer) last.oldValue < 99, is(true));
+			assertThat(((EntryEventMessagePayload<?, ?>) key2Messages.get(key2Messages.size() - 1).getPayload()).value,
+					is((Object) 90));
+			assertThat(channel.receive(0), nullValue());
+		}
+		finally {
+			producer.stop();
+		}
+	}
+
+	@Test
+	public void testConcurrentFlushesDoNotInterleave() throws Exception {
+		IMap<Integer, Integer> map = hazelcastInstance.getMap("concurrentFlushMap");
+		DirectChannel channel = new DirectChannel();
+		final AtomicInteger sending = new AtomicInteger();
+		final AtomicBoolean interleaved = new AtomicBoolean();
+		final AtomicBoolean outOfOrder = new AtomicBoolean();
+		final AtomicInteger lastValue = new AtomicInteger(-1);
+		channel.subscribe(new MessageHandler() {
+
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				if (sending.incrementAndGet() > 1) {
+					interleaved.set(true);
+				}
+				try {
+					if (message.getPayload() instanceof EntryEventMessagePayload) {
+						int value = (Integer) ((EntryEventMessagePayload<?, ?>) message.getPayload()).value;
+						if (value <= lastValue.getAndSet(value)) {
+							outOfOrder.set(true);
+						}
+					}
+					Thread.sleep(1);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				finally {
+					sending.decrementAndGet();
+				}
+			}
+
+		});
+		HazelcastEventDrivenMessageProducer producer = new HazelcastEventDrivenMessageProducer(map);
+		producer.setOutputChannel(channel);
+		producer.setCacheEventTypes("ADDED,UPDATED,CLEAR_ALL");
+		producer.setCacheListeningPolicy(CacheListeningPolicyType.ALL);
+		producer.setConflationWindow(1);
+		producer.setTaskScheduler(taskScheduler);
+		producer.setBeanName("concurrentFlushProducer");
+		producer.afterPropertiesSet();
+		producer.start();
+		try {
+			for (int i = 0; i < 500; i++) {
+				map.put(1, i);
+				if (i % 20 == 19) {
+					map.clear();
+				}
+			}
+			int n = 0;
+			while (lastValue.get() < 499 && n++ < 200) {
+				Thread.sleep(50);
+			}
+			assertThat(lastValue.get(), is(499));
+			assertThat(interleaved.get(), is(false));
+			assertThat(outOfOrder.get(), is(false));
+		}
+		finally {
+			producer.stop();
+		}
+	}
+
+}
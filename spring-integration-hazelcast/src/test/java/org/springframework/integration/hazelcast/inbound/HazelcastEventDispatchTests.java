@@ -0,0 +1,205 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.inbound;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.hazelcast.CacheListeningPolicyType;
+import org.springframework.integration.hazelcast.DispatchOverflowPolicy;
+import org.springframework.integration.hazelcast.message.EntryEventMessagePayload;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+
+/**
+ * @since 1.0.0
+ */
+public class HazelcastEventDispatchTests {
+
+	private static HazelcastInstance hazelcastInstance;
+
+	@BeforeClass
+	public static void init() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+	}
+
+	@AfterClass
+	public static void destroy() {
+		hazelcastInstance.shutdown();
+	}
+
+	@Test
+	public void testEventsOfTheSameKeyAreSentInOrder() throws Exception {
+		IMap<Integer, Integer> map = hazelcastInstance.getMap("dispatchOrderMap");
+		DirectChannel channel = new DirectChannel();
+		final Map<Object, List<Object>> received = new HashMap<>();
+		final CountDownLatch latch = new CountDownLatch(200);
+		channel.subscribe(new MessageHandler() {
+
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				EntryEventMessagePayload<?, ?> payload = (EntryEventMessagePayload<?, ?>) message.getPayload();
+				synchronized (received) {
+					List<Object> values = received.get(payload.key);
+					if (values == null) {
+						values = new ArrayList<>();
+						received.put(payload.key, values);
+					}
+					values.add(payload.value);
+				}
+				latch.countDown();
+			}
+
+		});
+
+		HazelcastEventDrivenMessageProducer producer = producer(map, channel, "ADDED,UPDATED");
+		producer.setDispatchWorkers(4);
+		producer.afterPropertiesSet();
+		producer.start();
+		try {
+			for (int i = 0; i < 20; i++) {
+				for (int key = 0; key < 10; key++) {
+					map.put(key, i);
+				}
+			}
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+			for (int key = 0; key < 10; key++) {
+				List<Object> values = received.get(key);
+				assertThat(values.size(), is(20));
+				for (int i = 0; i < 20; i++) {
+					assertThat(values.get(i), is((Object) i));
+				}
+			}
+			assertThat(producer.getDispatchedCount(), is(200L));
+			assertThat(producer.getDispatchQueueDepth(), is(0));
+			assertThat(producer.getMaxDispatchLatency(), greaterThan(0.0));
+		}
+		finally {
+			producer.stop();
+		}
+	}
+
+	@Test
+	public void testDropOldestOverflowPolicy() throws Exception {
+		IMap<Integer, Integer> map = hazelcastInstance.getMap("dispatchDropMap");
+		DirectChannel channel = new DirectChannel();
+		final CountDownLatch busy = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		channel.subscribe(new MessageHandler() {
+
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				busy.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+		});
+
+		HazelcastEventDrivenMessageProducer producer = producer(map, channel, "ADDED");
+		producer.setDispatchWorkers(1);
+		producer.setDispatchQueueCapacity(2);
+		producer.setDispatchOverflowPolicy(DispatchOverflowPolicy.DROP_OLDEST);
+		producer.afterPropertiesSet();
+		producer.start();
+		try {
+			map.put(0, 0);
+			assertTrue(busy.await(10, TimeUnit.SECONDS));
+			for (int i = 1; i < 10; i++) {
+				map.put(i, i);
+			}
+			int n = 0;
+			while (producer.getDispatchDroppedCount() < 7 && n++ < 100) {
+				Thread.sleep(50);
+			}
+			assertThat(producer.getDispatchDroppedCount(), is(7L));
+			assertThat(producer.getDispatchQueueDepth(), is(2));
+		}
+		finally {
+			release.countDown();
+			producer.stop();
+		}
+	}
+
+	@Test
+	public void testIdleWorkersDoNotDelayCallerRuns() throws Exception {
+		final List<Object> sent = new CopyOnWriteArrayList<>();
+		MessageHandler sink = new MessageHandler() {
+
+			@Override
+			public void handleMessage(Message<?> message) throws MessagingException {
+				sent.add(message.getPayload());
+			}
+
+		};
+		long elapsed = 0;
+		for (int i = 0; i < 10; i++) {
+			StripedEventDispatcher dispatcher = new StripedEventDispatcher(sink, 1, 1,
+					DispatchOverflowPolicy.CALLER_RUNS, new CustomizableThreadFactory("idleDispatch-"));
+			Thread.sleep(10);
+			dispatcher.stop();
+			long start = System.nanoTime();
+			// the idle worker must not hold the caller up
+			dispatcher.dispatch("key", new GenericMessage<>(i));
+			elapsed += System.nanoTime() - start;
+			dispatcher.awaitTermination();
+			assertThat(sent.size(), is(i + 1));
+		}
+		assertThat(TimeUnit.NANOSECONDS.toMillis(elapsed), lessThan(200L));
+	}
+
+	private static HazelcastEventDrivenMessageProducer producer(IMap<?, ?> map, DirectChannel channel,
+			String cacheEventTypes) {
+		HazelcastEventDrivenMessageProducer producer = new HazelcastEventDrivenMessageProducer(map);
+		producer.setOutputChannel(channel);
+		producer.setCacheEventTypes(cacheEventTypes);
+		producer.setCacheListeningPolicy(CacheListeningPolicyType.ALL);
+		producer.setBeanName("dispatchProducer");
+		return producer;
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.leader;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.integration.leader.Context;
+import org.springframework.integration.leader.DefaultCandidate;
+import org.springframework.integration.leader.event.LeaderEventPublisher;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+
+/**
+ * @since 1.0.0
+ */
+public class LeaderInitiatorLeaseTests {
+
+	private static HazelcastInstance hazelcastInstance;
+
+	@BeforeClass
+	public static void init() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+	}
+
+	@AfterClass
+	public static void destroy() {
+		hazelcastInstance.shutdown();
+	}
+
+	@Test
+	public void testHungLeaderLosesLease() throws Exception {
+		final CountDownLatch hang = new CountDownLatch(1);
+		final CountDownLatch revoked1 = new CountDownLatch(1);
+		LeaderInitiator initiator1 = leaseInitiator(new DefaultCandidate("node1", "hungRole") {
+
+			@Override
+			public void onGranted(Context ctx) {
+				try {
+					hang.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			@Override
+			public void onRevoked(Context ctx) {
+				revoked1.countDown();
+			}
+
+		});
+		initiator1.start();
+		waitForLeadership(initiator1);
+		long token1 = ((FencedContext) initiator1.getContext()).getFencingToken();
+		assertThat(token1, greaterThan(0L));
+
+		LeaderInitiator initiator2 = leaseInitiator(new DefaultCandidate("node2", "hungRole"));
+		initiator2.start();
+		try {
+			long start = System.currentTimeMillis();
+			waitForLeadership(initiator2);
+			assertThat(System.currentTimeMillis() - start, lessThan(5000L));
+			assertThat(initiator1.getContext().isLeader(), is(false));
+			assertThat(initiator2.getContext(), instanceOf(FencedContext.class));
+			assertThat(((FencedContext) initiator2.getContext()).getFencingToken(), greaterThan(token1));
+			assertThat(initiator2.getTransitionCount(), is(1L));
+			assertThat(initiator2.getMaxTransitionLatency(), lessThan(5000.0));
+
+			hang.countDown();
+			assertThat(revoked1.await(10, TimeUnit.SECONDS), is(true));
+			assertThat(initiator2.getContext().isLeader(), is(true));
+		}
+		finally {
+			hang.countDown();
+			initiator1.destroy();
+			initiator2.destroy();
+		}
+	}
+
+	@Test
+	public void testYieldAndStopHandOverLease() throws Exception {
+		final CountDownLatch granted = new CountDownLatch(3);
+		LeaderEventPublisher publisher = new LeaderEventPublisher() {
+
+			@Override
+			public void publishOnGranted(Object source, Context context, String role) {
+				granted.countDown();
+			}
+
+			@Override
+			public void publishOnRevoked(Object source, Context context, String role) {
+			}
+
+		};
+		LeaderInitiator initiator1 = leaseInitiator(new DefaultCandidate("node1", "yieldRole"));
+		initiator1.setLeaderEventPublisher(publisher);
+		initiator1.start();
+		waitForLeadership(initiator1);
+
+		LeaderInitiator initiator2 = leaseInitiator(new DefaultCandidate("node2", "yieldRole"));
+		initiator2.setLeaderEventPublisher(publisher);
+		initiator2.start();
+		try {
+			initiator1.getContext().yield();
+			waitForLeadership(initiator2);
+			assertThat(initiator1.getContext().isLeader(), is(false));
+
+			initiator2.stop();
+			waitForLeadership(initiator1);
+			assertThat(granted.await(10, TimeUnit.SECONDS), is(true));
+			assertThat(initiator2.getContext().isLeader(), is(false));
+			assertThat(initiator1.getMaxTransitionLatency(), lessThan(1000.0));
+		}
+		finally {
+			initiator1.destroy();
+			initiator2.destroy();
+		}
+	}
+
+	private static LeaderInitiator leaseInitiator(DefaultCandidate candidate) {
+		LeaderInitiator initiator = new LeaderInitiator(hazelcastInstance, candidate);
+		initiator.setLeaseTime(1000);
+		initiator.setRenewalInterval(100);
+		return initiator;
+	}
+
+	private static void waitForLeadership(LeaderInitiator initiator) throws InterruptedException {
+		int n = 0;
+		while (!initiator.getContext().isLeader() && n++ < 200) {
+			Thread.sleep(50);
+		}
+		assertThat(initiator.getContext().isLeader(), is(true));
+	}
+
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.outbound;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapStoreConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IList;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.MapStoreAdapter;
+import com.hazelcast.map.AbstractEntryProcessor;
+
+/**
+ * @since 1.0.0
+ */
+public class HazelcastCacheWritingMessageHandlerTests {
+
+	private static HazelcastInstance hazelcastInstance;
+
+	private static volatile CountDownLatch storeLatch = new CountDownLatch(0);
+
+	private static volatile CountDownLatch storeStarted = new CountDownLatch(0);
+
+	private IMap<Object, Object> map;
+
+	private IList<Object> list;
+
+	@BeforeClass
+	public static void init() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		config.getMapConfig("failingMap").setMapStoreConfig(new MapStoreConfig()
+				.setImplementation(new MapStoreAdapter<Object, Object>() {
+
+					@Override
+					public void store(Object key, Object value) {
+						throw new IllegalStateException("intentional");
+					}
+
+				}));
+		config.getMapConfig("slowMap").setMapStoreConfig(new MapStoreConfig()
+				.setImplementation(new MapStoreAdapter<Object, Object>() {
+
+					@Override
+					public void store(Object key, Object value) {
+						storeStarted.countDown();
+						try {
+							storeLatch.await(10, TimeUnit.SECONDS);
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+
+				}));
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+	}
+
+	@AfterClass
+	public static void destroy() {
+		hazelcastInstance.shutdown();
+	}
+
+	@Before
+	public void setup() {
+		this.map = hazelcastInstance.getMap("batchedMap");
+		this.map.clear();
+		this.list = hazelcastInstance.getList("batchedList");
+		this.list.clear();
+	}
+
+	@Test
+	public void testBatchedWritesAreFlushedWhenFull() {
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(this.map);
+		handler.setBatchSize(3);
+		handler.afterPropertiesSet();
+
+		handler.handleMessage(new GenericMessage<>("foo"));
+		handler.handleMessage(new GenericMessage<>(new AbstractMap.SimpleEntry<>("bar", "BAR")));
+		assertThat(this.map.size(), is(0));
+
+		handler.handleMessage(new GenericMessage<>("baz"));
+		assertThat(this.map.size(), is(3));
+		assertThat(this.map.get("FOO"), is((Object) "foo"));
+		assertThat(this.map.get("bar"), is((Object) "BAR"));
+
+		handler.handleMessage(new GenericMessage<>("qux"));
+		assertThat(this.map.size(), is(3));
+		handler.stop();
+		assertThat(this.map.size(), is(4));
+	}
+
+	@Test
+	public void testBatchedWritesAreWrittenRightAwayWhenStopped() {
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(this.map);
+		handler.setBatchSize(3);
+		handler.afterPropertiesSet();
+		handler.stop();
+
+		handler.handleMessage(new GenericMessage<>("foo"));
+		assertThat(this.map.size(), is(1));
+		assertThat(this.map.get("FOO"), is((Object) "foo"));
+	}
+
+	@Test
+	public void testLingerFlushDoesNotBlockSchedulerOrProducers() throws InterruptedException {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.afterPropertiesSet();
+		IMap<Object, Object> slowMap = hazelcastInstance.getMap("slowMap");
+		slowMap.clear();
+		storeLatch = new CountDownLatch(1);
+		storeStarted = new CountDownLatch(1);
+
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(slowMap);
+		handler.setBatchSize(100);
+		handler.setBatchLinger(10);
+		handler.setTaskScheduler(taskScheduler);
+		handler.afterPropertiesSet();
+
+		try {
+			handler.handleMessage(new GenericMessage<>("foo"));
+			// the write of 'foo' is blocked in the MapStore; the map is not queried meanwhile
+			// since its partition thread is blocked as well
+			assertTrue(storeStarted.await(10, TimeUnit.SECONDS));
+			final CountDownLatch schedulerAvailable = new CountDownLatch(1);
+			taskScheduler.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					schedulerAvailable.countDown();
+				}
+
+			});
+			assertTrue(schedulerAvailable.await(5, TimeUnit.SECONDS));
+			long start = System.currentTimeMillis();
+			handler.handleMessage(new GenericMessage<>("bar"));
+			assertTrue(System.currentTimeMillis() - start < 1000);
+
+			storeLatch.countDown();
+			int n = 0;
+			while (slowMap.size() < 2 && n++ < 100) {
+				Thread.sleep(50);
+			}
+			assertThat(slowMap.get("FOO"), is((Object) "foo"));
+			assertThat(slowMap.get("BAR"), is((Object) "bar"));
+		}
+		finally {
+			storeLatch.countDown();
+			handler.destroy();
+			taskScheduler.destroy();
+		}
+	}
+
+	@Test
+	public void testBatchedWritesAreFlushedAfterLinger() throws InterruptedException {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.afterPropertiesSet();
+
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(this.list);
+		handler.setBatchSize(100);
+		handler.setBatchLinger(50);
+		handler.setTaskScheduler(taskScheduler);
+		handler.afterPropertiesSet();
+
+		try {
+			handler.handleMessage(new GenericMessage<>("foo"));
+			handler.handleMessage(new GenericMessage<>(Arrays.asList("bar", "baz")));
+
+			int n = 0;
+			while (this.list.size() < 3 && n++ < 100) {
+				Thread.sleep(50);
+			}
+			assertThat(new ArrayList<>(this.list), is(Arrays.asList((Object) "foo", "bar", "baz")));
+		}
+		finally {
+			handler.destroy();
+			taskScheduler.destroy();
+		}
+	}
+
+	@Test
+	public void testAsyncWrites() throws InterruptedException {
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(this.map);
+		handler.setAsync(true);
+		handler.setMaxInFlight(2);
+		handler.afterPropertiesSet();
+
+		for (int i = 0; i < 10; i++) {
+			handler.handleMessage(new GenericMessage<>("foo" + i));
+		}
+
+		int n = 0;
+		while (this.map.size() < 10 && n++ < 100) {
+			Thread.sleep(50);
+		}
+		assertThat(this.map.size(), is(10));
+		assertThat(this.map.get("FOO9"), is((Object) "foo9"));
+	}
+
+	@Test
+	public void testAsyncWriteFailuresAreSentToErrorChannel() {
+		QueueChannel errorChannel = new QueueChannel();
+
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(hazelcastInstance.getMap("failingMap"));
+		handler.setAsync(true);
+		handler.setErrorChannel(errorChannel);
+		handler.afterPropertiesSet();
+
+		handler.handleMessage(new GenericMessage<>("foo"));
+
+		Message<?> errorMessage = errorChannel.receive(TimeUnit.SECONDS.toMillis(10));
+		assertNotNull(errorMessage);
+		assertThat(errorMessage.getPayload(), instanceOf(MessageHandlingException.class));
+		assertThat(((MessageHandlingException) errorMessage.getPayload()).getFailedMessage().getPayload(),
+				is((Object) "foo"));
+	}
+
+	@Test
+	public void testBatchFailureReportsEveryMessage() {
+		QueueChannel errorChannel = new QueueChannel();
+
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(hazelcastInstance.getMap("failingMap"));
+		handler.setBatchSize(3);
+		handler.setErrorChannel(errorChannel);
+		handler.afterPropertiesSet();
+
+		handler.handleMessage(new GenericMessage<>("foo"));
+		handler.handleMessage(new GenericMessage<>("bar"));
+		try {
+			handler.handleMessage(new GenericMessage<>("baz"));
+			fail("MessageHandlingException expected");
+		}
+		catch (MessageHandlingException e) {
+			assertThat(e.getFailedMessage().getPayload(), is((Object) "baz"));
+		}
+
+		for (String payload : new String[] { "foo", "bar" }) {
+			Message<?> errorMessage = errorChannel.receive(0);
+			assertNotNull(errorMessage);
+			assertThat(((MessageHandlingException) errorMessage.getPayload()).getFailedMessage().getPayload(),
+					is((Object) payload));
+		}
+		assertNull(errorChannel.receive(0));
+
+		handler.handleMessage(new GenericMessage<>("qux"));
+		handler.flush();
+		Message<?> errorMessage = errorChannel.receive(0);
+		assertNotNull(errorMessage);
+		assertThat(((MessageHandlingException) errorMessage.getPayload()).getFailedMessage().getPayload(),
+				is((Object) "qux"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAsyncAndBatchSizeAreMutuallyExclusive() {
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(this.map);
+		handler.setAsync(true);
+		handler.setBatchSize(10);
+		handler.afterPropertiesSet();
+	}
+
+	@Test
+	public void testEntryProcessorUpdatesEntryInPlace() {
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(this.map);
+		handler.setKeyExpression(new SpelExpressionParser().parseExpression("payload"));
+		handler.setEntryProcessor(new IncrementingEntryProcessor(1));
+		handler.afterPropertiesSet();
+
+		for (int i = 0; i < 3; i++) {
+			handler.handleMessage(new GenericMessage<>("foo"));
+		}
+		assertThat(this.map.get("foo"), is((Object) 3));
+	}
+
+	@Test
+	public void testEntryProcessorExpressionIsExecutedOnKeys() {
+		this.map.put("foo", 10);
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(this.map);
+		handler.setKeyExpression(new SpelExpressionParser().parseExpression("headers.keys"));
+		handler.setEntryProcessorExpression(new SpelExpressionParser().parseExpression(
+				"new " + IncrementingEntryProcessor.class.getName() + "(payload)"));
+		handler.afterPropertiesSet();
+
+		handler.handleMessage(MessageBuilder.withPayload(5)
+				.setHeader("keys", Arrays.asList("foo", "bar", "foo"))
+				.build());
+		assertThat(this.map.get("foo"), is((Object) 15));
+		assertThat(this.map.get("bar"), is((Object) 5));
+		assertThat(this.map.size(), is(2));
+	}
+
+	@Test
+	public void testAsyncEntryProcessor() throws InterruptedException {
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(this.map);
+		handler.setKeyExpression(new SpelExpressionParser().parseExpression("payload"));
+		handler.setEntryProcessor(new IncrementingEntryProcessor(1));
+		handler.setAsync(true);
+		handler.setMaxInFlight(2);
+		handler.afterPropertiesSet();
+
+		for (int i = 0; i < 10; i++) {
+			handler.handleMessage(new GenericMessage<>("foo"));
+		}
+
+		int n = 0;
+		while (!Integer.valueOf(10).equals(this.map.get("foo")) && n++ < 100) {
+			Thread.sleep(50);
+		}
+		assertThat(this.map.get("foo"), is((Object) 10));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEntryProcessorAndExpressionAreMutuallyExclusive() {
+		HazelcastCacheWritingMessageHandler handler = createHandler();
+		handler.setDistributedObject(this.map);
+		handler.setEntryProcessor(new IncrementingEntryProcessor(1));
+		handler.setEntryProcessorExpression(new SpelExpressionParser().parseExpression("null"));
+		handler.afterPropertiesSet();
+	}
+
+	private HazelcastCacheWritingMessageHandler createHandler() {
+		HazelcastCacheWritingMessageHandler handler = new HazelcastCacheWritingMessageHandler();
+		handler.setKeyExpression(new SpelExpressionParser().parseExpression("payload.toUpperCase()"));
+		handler.setBeanFactory(mock(BeanFactory.class));
+		return handler;
+	}
+
+	@SuppressWarnings("serial")
+	public static class IncrementingEntryProcessor extends AbstractEntryProcessor<Object, Object> {
+
+		private final int delta;
+
+		public IncrementingEntryProcessor(int delta) {
+			this.delta = delta;
+		}
+
+		@Override
+		public Object process(Map.Entry<Object, Object> entry) {
+			Integer value = (Integer) entry.getValue();
+			entry.setValue(value == null ? this.delta : value + this.delta);
+			return null;
+		}
+
+	}
+
+}
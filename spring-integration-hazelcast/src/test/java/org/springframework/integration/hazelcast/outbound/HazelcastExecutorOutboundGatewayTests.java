@@ -0,0 +1,160 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.outbound;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.core.IMap;
+
+/**
+ * @since 1.0.0
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+@DirtiesContext
+public class HazelcastExecutorOutboundGatewayTests {
+
+	@Autowired
+	private HazelcastInstance instance;
+
+	@Autowired
+	private MessageChannel syncChannel;
+
+	@Autowired
+	private MessageChannel asyncChannel;
+
+	@Autowired
+	private QueueChannel replyChannel;
+
+	@Test
+	public void testTaskIsExecutedOnKeyOwner() {
+		IMap<String, String> map = this.instance.getMap("gatewayMap");
+		map.put("foo", "some large value");
+
+		this.syncChannel.send(new GenericMessage<>("foo"));
+
+		Message<?> reply = this.replyChannel.receive(10000);
+		assertNotNull(reply);
+		assertThat(reply.getPayload(), is((Object) 16));
+	}
+
+	@Test
+	public void testAsyncReplies() {
+		IMap<String, String> map = this.instance.getMap("gatewayMap");
+		Set<Object> expected = new HashSet<>();
+		for (int i = 0; i < 10; i++) {
+			map.put("key" + i, "value" + i);
+			expected.add(("value" + i).length() + i);
+		}
+
+		for (int i = 0; i < 10; i++) {
+			this.asyncChannel.send(new GenericMessage<>(new KeyTask("key" + i, i)));
+		}
+
+		Set<Object> results = new HashSet<>();
+		for (int i = 0; i < 10; i++) {
+			Message<?> reply = this.replyChannel.receive(10000);
+			assertNotNull(reply);
+			results.add(reply.getPayload());
+		}
+		assertThat(results, is(expected));
+	}
+
+	@Test
+	public void testNonCallablePayloadIsRejected() {
+		try {
+			this.asyncChannel.send(new GenericMessage<>("foo"));
+			fail("MessageHandlingException expected");
+		}
+		catch (Exception e) {
+			assertThat(e, instanceOf(MessageHandlingException.class));
+		}
+	}
+
+	@SuppressWarnings("serial")
+	public static class ValueLengthTask implements Callable<Integer>, HazelcastInstanceAware, Serializable {
+
+		private final String key;
+
+		private transient HazelcastInstance hazelcastInstance;
+
+		public ValueLengthTask(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+			this.hazelcastInstance = hazelcastInstance;
+		}
+
+		@Override
+		public Integer call() throws Exception {
+			IMap<String, String> map = this.hazelcastInstance.getMap("gatewayMap");
+			return map.get(this.key).length();
+		}
+
+	}
+
+	@SuppressWarnings("serial")
+	public static class KeyTask extends ValueLengthTask {
+
+		private final String key;
+
+		private final int increment;
+
+		public KeyTask(String key, int increment) {
+			super(key);
+			this.key = key;
+			this.increment = increment;
+		}
+
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public Integer call() throws Exception {
+			return super.call() + this.increment;
+		}
+
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.serializer;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.hazelcast.HazelcastHeaders;
+import org.springframework.integration.hazelcast.config.HazelcastSerializationConfigurer;
+import org.springframework.integration.hazelcast.message.EntryEventMessagePayload;
+import org.springframework.integration.message.AdviceMessage;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.messaging.support.GenericMessage;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+
+/**
+ * @since 1.0.0
+ */
+public class IntegrationSerializersTests {
+
+	private SerializationService serializationService;
+
+	private SerializationService javaSerializationService;
+
+	@Before
+	public void setup() {
+		SerializationConfig serializationConfig = new SerializationConfig();
+		IntegrationSerializers.registerSerializers(serializationConfig);
+		this.serializationService = new DefaultSerializationServiceBuilder()
+				.setConfig(serializationConfig)
+				.build();
+		this.javaSerializationService = new DefaultSerializationServiceBuilder().build();
+	}
+
+	@After
+	public void tearDown() {
+		this.serializationService.destroy();
+		this.javaSerializationService.destroy();
+	}
+
+	@Test
+	public void testGenericMessageRoundTrip() {
+		Message<?> message = MessageBuilder.withPayload("foo")
+				.setCorrelationId("bar")
+				.setSequenceNumber(2)
+				.setSequenceSize(3)
+				.setHeader(HazelcastHeaders.CACHE_NAME, "cache")
+				.setHeader("custom", 42L)
+				.build();
+
+		Data data = this.serializationService.toData(message);
+		assertThat(data.getType(), is(IntegrationSerializers.GENERIC_MESSAGE_TYPE_ID));
+		Message<?> result = this.serializationService.toObject(data);
+
+		assertThat(result, instanceOf(GenericMessage.class));
+		assertThat(result.getPayload(), is((Object) "foo"));
+		assertThat(result.getHeaders(), is(message.getHeaders()));
+		assertThat(result.getHeaders().getId(), is(message.getHeaders().getId()));
+		assertThat(result.getHeaders().getTimestamp(), is(message.getHeaders().getTimestamp()));
+		assertThat(result.getHeaders().get(IntegrationMessageHeaderAccessor.SEQUENCE_NUMBER), is((Object) 2));
+
+		assertThat(data.totalSize(), lessThan(this.javaSerializationService.toData(message).totalSize() / 2));
+	}
+
+	@Test
+	public void testMessageSubclassesKeepTheirType() {
+		ErrorMessage errorMessage = new ErrorMessage(new IllegalStateException("intentional"));
+		Message<?> result = this.serializationService.toObject(this.serializationService.toData(errorMessage));
+		assertThat(result, instanceOf(ErrorMessage.class));
+		assertThat(result.getHeaders().getId(), is(errorMessage.getHeaders().getId()));
+		assertThat(((Throwable) result.getPayload()).getMessage(), is("intentional"));
+
+		AdviceMessage<String> adviceMessage = new AdviceMessage<>("foo", new GenericMessage<>("bar"));
+		result = this.serializationService.toObject(this.serializationService.toData(adviceMessage));
+		assertThat(result, instanceOf(AdviceMessage.class));
+		assertThat(((AdviceMessage<?>) result).getInputMessage().getPayload(), is((Object) "bar"));
+	}
+
+	@Test
+	public void testMessageHeadersRoundTrip() {
+		MessageHeaders headers = new MessageHeaders(Collections.<String, Object>singletonMap("foo", "bar"));
+		Data data = this.serializationService.toData(headers);
+		assertThat(data.getType(), is(IntegrationSerializers.MESSAGE_HEADERS_TYPE_ID));
+		MessageHeaders result = this.serializationService.toObject(data);
+		assertThat(result, is(headers));
+	}
+
+	@Test
+	public void testEntryEventMessagePayloadRoundTrip() {
+		EntryEventMessagePayload<Integer, String> payload = new EntryEventMessagePayload<>(1, "foo", "bar");
+		Data data = this.serializationService.toData(payload);
+		assertThat(data.getType(), is(IntegrationSerializers.ENTRY_EVENT_MESSAGE_PAYLOAD_TYPE_ID));
+		EntryEventMessagePayload<?, ?> result = this.serializationService.toObject(data);
+		assertThat(result.key, is((Object) 1));
+		assertThat(result.value, is((Object) "foo"));
+		assertThat(result.oldValue, is((Object) "bar"));
+	}
+
+	@Test
+	public void testSerializersAreRegisteredOnceInConfigBeans() {
+		Config config = new Config();
+		HazelcastSerializationConfigurer configurer = new HazelcastSerializationConfigurer();
+		configurer.postProcessBeforeInitialization(config, "config");
+		configurer.postProcessBeforeInitialization(config, "config");
+		assertThat(config.getSerializationConfig().getSerializerConfigs().size(), is(3));
+	}
+
+}
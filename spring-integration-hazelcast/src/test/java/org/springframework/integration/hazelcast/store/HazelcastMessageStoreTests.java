@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.hazelcast.store;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.integration.aggregator.AggregatingMessageHandler;
+import org.springframework.integration.aggregator.DefaultAggregatingMessageGroupProcessor;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageGroupStore;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+
+/**
+ * @since 1.0.0
+ */
+public class HazelcastMessageStoreTests {
+
+	private static HazelcastInstance hazelcastInstance;
+
+	@BeforeClass
+	public static void init() {
+		Config config = new Config();
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		config.getMapConfig("nearCachedMessages").setNearCacheConfig(new NearCacheConfig());
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+	}
+
+	@AfterClass
+	public static void destroy() {
+		hazelcastInstance.shutdown();
+	}
+
+	@Test
+	public void testMessageStore() {
+		HazelcastMessageStore store = new HazelcastMessageStore(hazelcastInstance, "msGroups", "msMessages");
+		Message<String> message = new GenericMessage<>("foo");
+		store.addMessage(message);
+		assertThat(store.getMessageCount(), is(1L));
+		assertThat(store.getMessage(message.getHeaders().getId()).getPayload(), is((Object) "foo"));
+		assertThat(store.removeMessage(message.getHeaders().getId()).getPayload(), is((Object) "foo"));
+		assertThat(store.getMessage(message.getHeaders().getId()), nullValue());
+		assertThat(store.getMessageCount(), is(0L));
+	}
+
+	@Test
+	public void testMessageGroup() {
+		verifyMessageGroup(new HazelcastMessageStore(hazelcastInstance, "groups", "messages"));
+	}
+
+	@Test
+	public void testMessageGroupWithNearCache() {
+		verifyMessageGroup(new HazelcastMessageStore(hazelcastInstance, "nearCachedGroups", "nearCachedMessages"));
+	}
+
+	@SuppressWarnings("deprecation")
+	private void verifyMessageGroup(HazelcastMessageStore store) {
+		assertThat(store.getMessageGroup("foo").size(), is(0));
+
+		Message<String> message1 = new GenericMessage<>("1");
+		Message<String> message2 = new GenericMessage<>("2");
+		Message<String> message3 = new GenericMessage<>("3");
+		MessageGroup group = store.addMessageToGroup("foo", message1);
+		assertThat(group.size(), is(1));
+		store.addMessagesToGroup("foo", message2, message3);
+
+		group = store.getMessageGroup("foo");
+		assertThat(group.size(), is(3));
+		assertThat(group.isComplete(), is(false));
+		assertThat(group.getOne().getPayload(), is((Object) "1"));
+		assertThat(payloads(group), contains("1", "2", "3"));
+		assertThat(store.getMessageGroupCount(), is(1));
+		assertThat(store.getMessageCountForAllMessageGroups(), is(3));
+
+		group = store.removeMessageFromGroup("foo", message2);
+		assertThat(group.size(), is(2));
+		assertThat(store.getMessage(message2.getHeaders().getId()), nullValue());
+
+		assertThat(store.pollMessageFromGroup("foo").getPayload(), is((Object) "1"));
+		assertThat(store.messageGroupSize("foo"), is(1));
+
+		store.completeGroup("foo");
+		store.setLastReleasedSequenceNumberForGroup("foo", 5);
+		group = store.getMessageGroup("foo");
+		assertThat(group.isComplete(), is(true));
+		assertThat(group.getLastReleasedMessageSequenceNumber(), is(5));
+		assertThat(group.getTimestamp() <= group.getLastModified(), is(true));
+
+		store.removeMessageGroup("foo");
+		assertThat(store.getMessageGroup("foo").size(), is(0));
+		assertThat(store.getMessage(message3.getHeaders().getId()), nullValue());
+		assertThat(store.getMessageGroupCount(), is(0));
+		assertThat(store.getMessageCount(), is(0L));
+	}
+
+	@Test
+	public void testExpireMessageGroups() throws InterruptedException {
+		HazelcastMessageStore store = new HazelcastMessageStore(hazelcastInstance, "expiryGroups", "expiryMessages");
+		final List<Object> expired = new ArrayList<>();
+		store.registerMessageGroupExpiryCallback(new MessageGroupStore.MessageGroupCallback() {
+
+			@Override
+			public void execute(MessageGroupStore messageGroupStore, MessageGroup group) {
+				expired.add(group.getGroupId());
+				messageGroupStore.removeMessageGroup(group.getGroupId());
+			}
+
+		});
+		store.addMessageToGroup("foo", new GenericMessage<>("foo"));
+		Thread.sleep(10);
+		assertThat(store.expireMessageGroups(0), is(1));
+		assertThat(expired, contains((Object) "foo"));
+		assertThat(store.getMessageGroupCount(), is(0));
+	}
+
+	@Test
+	public void testAggregator() {
+		verifyAggregator(new HazelcastMessageStore(hazelcastInstance, "aggregatorGroups", "aggregatorMessages"));
+		verifyAggregator(new HazelcastMessageStore(hazelcastInstance, "nearCachedAggregatorGroups",
+				"nearCachedMessages"));
+	}
+
+	private void verifyAggregator(HazelcastMessageStore store) {
+		AggregatingMessageHandler handler =
+				new AggregatingMessageHandler(new DefaultAggregatingMessageGroupProcessor(), store);
+		QueueChannel output = new QueueChannel();
+		handler.setOutputChannel(output);
+		handler.setBeanFactory(mock(BeanFactory.class));
+		handler.afterPropertiesSet();
+
+		for (int i = 1; i <= 3; i++) {
+			handler.handleMessage(MessageBuilder.withPayload(i)
+					.setCorrelationId("bar")
+					.setSequenceNumber(i)
+					.setSequenceSize(3)
+					.build());
+		}
+
+		Message<?> result = output.receive(0);
+		assertThat(result, notNullValue());
+		assertThat(new ArrayList<>((List<?>) result.getPayload()), is((List<?>) Arrays.asList(1, 2, 3)));
+		assertThat(store.messageGroupSize("bar"), is(0));
+		assertThat(store.getMessageCount(), is(0L));
+	}
+
+	private static List<Object> payloads(MessageGroup group) {
+		List<Object> payloads = new ArrayList<>();
+		for (Message<?> message : group.getMessages()) {
+			payloads.add(message.getPayload());
+		}
+		return payloads;
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.transformer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.zip.codec.CompressionCodec;
+import org.springframework.integration.zip.codec.DeflateCodec;
+import org.springframework.integration.zip.codec.GzipCodec;
+import org.springframework.integration.zip.codec.Lz4Codec;
+import org.springframework.integration.zip.codec.ZstdCodec;
+import org.springframework.integration.zip.support.CompressionResourcePool;
+import org.springframework.integration.zip.transformer.ZipBenchmarkFixtures.ByteCounters;
+import org.springframework.messaging.Message;
+
+/**
+ * Benchmarks the {@link CompressTransformer} and {@link DecompressTransformer} per codec,
+ * with and without a {@link CompressionResourcePool}. Only the {@link DeflateCodec} is
+ * pooled; the other codecs show the cost of the pool lookup. Run with {@code -prof gc}
+ * (as {@code gradle jmh} does) to compare the allocation rates.
+ *
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecTransformerBenchmark {
+
+	public enum Codec {
+		GZIP, DEFLATE, ZSTD, LZ4
+	}
+
+	@Param({ "GZIP", "DEFLATE", "ZSTD", "LZ4" })
+	public Codec codec;
+
+	@Param({ "1024", "65536" })
+	public int payloadSize;
+
+	@Param({ "false", "true" })
+	public boolean pooled;
+
+	private CompressionResourcePool resourcePool;
+
+	private CompressTransformer compressTransformer;
+
+	private DecompressTransformer decompressTransformer;
+
+	private Message<?> message;
+
+	private Message<?> compressed;
+
+	private long bytesIn;
+
+	private long bytesOut;
+
+	@Setup
+	public void setup() {
+		final CompressionCodec compressionCodec;
+		switch (this.codec) {
+			case DEFLATE:
+				compressionCodec = new DeflateCodec();
+				break;
+			case ZSTD:
+				compressionCodec = new ZstdCodec();
+				break;
+			case LZ4:
+				compressionCodec = new Lz4Codec();
+				break;
+			default:
+				compressionCodec = new GzipCodec();
+		}
+		if (this.pooled) {
+			this.resourcePool = new CompressionResourcePool();
+		}
+
+		this.compressTransformer = new CompressTransformer();
+		this.compressTransformer.setBeanFactory(new DefaultListableBeanFactory());
+		this.compressTransformer.setCodec(compressionCodec);
+		this.compressTransformer.setResourcePool(this.resourcePool);
+		this.compressTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		this.compressTransformer.afterPropertiesSet();
+
+		this.decompressTransformer = new DecompressTransformer();
+		this.decompressTransformer.setBeanFactory(new DefaultListableBeanFactory());
+		this.decompressTransformer.setCodec(compressionCodec);
+		this.decompressTransformer.setResourcePool(this.resourcePool);
+		this.decompressTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		this.decompressTransformer.afterPropertiesSet();
+
+		final byte[] data = ZipBenchmarkFixtures.text(this.payloadSize, 0);
+		this.message = MessageBuilder.withPayload(data)
+				.setHeader(FileHeaders.FILENAME, "entry.txt")
+				.build();
+		this.compressed = this.compressTransformer.transform(this.message);
+		this.bytesIn = data.length;
+		this.bytesOut = ((byte[]) this.compressed.getPayload()).length;
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (this.resourcePool != null) {
+			this.resourcePool.destroy();
+		}
+	}
+
+	@Benchmark
+	public Object compress(ByteCounters counters) {
+		final Message<?> result = this.compressTransformer.transform(this.message);
+		counters.bytesIn += this.bytesIn;
+		counters.bytesOut += this.bytesOut;
+		return result;
+	}
+
+	@Benchmark
+	public Object decompress(ByteCounters counters) {
+		final Message<?> result = this.decompressTransformer.transform(this.compressed);
+		counters.bytesIn += this.bytesOut;
+		counters.bytesOut += this.bytesIn;
+		return result;
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.transformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeroturnaround.zip.ByteSource;
+import org.zeroturnaround.zip.ZipEntrySource;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.zip.splitter.UnZipResultSplitter;
+import org.springframework.integration.zip.support.CompressionResourcePool;
+import org.springframework.integration.zip.transformer.ZipBenchmarkFixtures.ByteCounters;
+import org.springframework.messaging.Message;
+
+/**
+ * Benchmarks the {@link UnZipTransformer}, alone and followed by the
+ * {@link UnZipResultSplitter}. With {@link ZipResultType#FILE}, the unzipped files are
+ * deleted within the measured operation to keep the work directory bounded.
+ *
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnZipTransformerBenchmark {
+
+	public enum PayloadType {
+		BYTE_ARRAY, FILE
+	}
+
+	@Param({ "BYTE_ARRAY", "FILE" })
+	public PayloadType payloadType;
+
+	@Param({ "1", "64" })
+	public int entryCount;
+
+	@Param({ "1024", "1048576" })
+	public int entrySize;
+
+	@Param({ "6" })
+	public int compressionLevel;
+
+	@Param({ "BYTE_ARRAY", "FILE" })
+	public ZipResultType zipResultType;
+
+	@Param({ "false", "true" })
+	public boolean pooled;
+
+	private CompressionResourcePool resourcePool;
+
+	private File workDirectory;
+
+	private File outputDirectory;
+
+	private UnZipTransformer transformer;
+
+	private final UnZipResultSplitter splitter = new UnZipResultSplitter();
+
+	private Message<?> message;
+
+	private long bytesIn;
+
+	private long bytesOut;
+
+	@Setup
+	public void setup() throws IOException {
+		this.workDirectory = ZipBenchmarkFixtures.createWorkDirectory();
+		this.outputDirectory = new File(this.workDirectory, "out");
+
+		final List<ZipEntrySource> entrySources = new ArrayList<ZipEntrySource>(this.entryCount);
+		for (int i = 0; i < this.entryCount; i++) {
+			entrySources.add(new ByteSource("entries/entry_" + i + ".txt",
+					ZipBenchmarkFixtures.text(this.entrySize, i)));
+			this.bytesOut += this.entrySize;
+		}
+		final byte[] zipped = SpringZipUtils.pack(entrySources, this.compressionLevel);
+		this.bytesIn = zipped.length;
+
+		if (PayloadType.FILE.equals(this.payloadType)) {
+			final File file = new File(this.workDirectory, "entries.zip");
+			FileUtils.writeByteArrayToFile(file, zipped);
+			this.message = MessageBuilder.withPayload(file).build();
+		}
+		else {
+			this.message = MessageBuilder.withPayload(zipped).build();
+		}
+
+		this.transformer = new UnZipTransformer();
+		this.transformer.setBeanFactory(new DefaultListableBeanFactory());
+		this.transformer.setZipResultType(this.zipResultType);
+		this.transformer.setExpectSingleResult(false);
+		if (this.pooled) {
+			this.resourcePool = new CompressionResourcePool();
+			this.transformer.setResourcePool(this.resourcePool);
+		}
+		this.transformer.setWorkDirectory(this.outputDirectory);
+		this.transformer.afterPropertiesSet();
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (this.resourcePool != null) {
+			this.resourcePool.destroy();
+		}
+		ZipBenchmarkFixtures.delete(this.workDirectory);
+	}
+
+	@Benchmark
+	public Object unzip(ByteCounters counters) {
+		final Message<?> result = this.transformer.transform(this.message);
+		count(counters);
+		return result;
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public List<Message<Object>> unzipAndSplit(ByteCounters counters) {
+		final Message<?> result = this.transformer.transform(this.message);
+		final List<Message<Object>> messages =
+				this.splitter.splitUnzippedMap((Message<Map<String, Object>>) result);
+		count(counters);
+		return messages;
+	}
+
+	private void count(ByteCounters counters) {
+		counters.bytesIn += this.bytesIn;
+		counters.bytesOut += this.bytesOut;
+		if (ZipResultType.FILE.equals(this.zipResultType)) {
+			ZipBenchmarkFixtures.delete(new File(this.outputDirectory, this.message.getHeaders().getId().toString()));
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.transformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Generated fixtures shared by the Zip benchmarks.
+ *
+ * @since 1.0.0
+ */
+public final class ZipBenchmarkFixtures {
+
+	private static final String[] WORDS = { "spring", "integration", "zip", "message", "channel",
+			"transformer", "splitter", "payload", "header", "endpoint", "adapter", "gateway" };
+
+	private ZipBenchmarkFixtures() {
+		super();
+	}
+
+	/**
+	 * Generate reproducible, compressible text of the given size.
+	 *
+	 * @param size the number of bytes
+	 * @param seed the seed, so that entries differ from each other
+	 * @return the bytes
+	 */
+	public static byte[] text(int size, long seed) {
+		final Random random = new Random(seed);
+		final StringBuilder text = new StringBuilder(size + 16);
+		while (text.length() < size) {
+			text.append(WORDS[random.nextInt(WORDS.length)]);
+			text.append(random.nextInt(16) == 0 ? '\n' : ' ');
+			if (random.nextInt(8) == 0) {
+				text.append(random.nextInt(100000));
+			}
+		}
+		text.setLength(size);
+		return text.toString().getBytes();
+	}
+
+	public static File createWorkDirectory() throws IOException {
+		final File workDirectory = File.createTempFile("zip-benchmark", "");
+		if (!workDirectory.delete() || !workDirectory.mkdirs()) {
+			throw new IOException("Can't create the work directory " + workDirectory);
+		}
+		return workDirectory;
+	}
+
+	public static void delete(File file) {
+		FileUtils.deleteQuietly(file);
+	}
+
+	/**
+	 * Counts the processed bytes; JMH reports them as a rate next to the ops/s, i.e. as
+	 * bytes/s.
+	 */
+	@AuxCounters
+	@State(Scope.Thread)
+	public static class ByteCounters {
+
+		public long bytesIn;
+
+		public long bytesOut;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.bytesIn = 0;
+			this.bytesOut = 0;
+		}
+
+	}
+
+}
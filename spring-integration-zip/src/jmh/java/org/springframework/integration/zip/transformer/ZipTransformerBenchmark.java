@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.transformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeroturnaround.zip.ByteSource;
+import org.zeroturnaround.zip.ZipEntrySource;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.zip.ZipHeaders;
+import org.springframework.integration.zip.support.CompressionResourcePool;
+import org.springframework.integration.zip.transformer.ZipBenchmarkFixtures.ByteCounters;
+import org.springframework.messaging.Message;
+
+/**
+ * Benchmarks the {@link ZipTransformer} and {@link SpringZipUtils#pack(java.util.Collection, int)}.
+ *
+ * The {@code entryCount} only applies to {@link PayloadType#ITERABLE} payloads; the other
+ * payload types always produce a single entry. Run e.g. with
+ * {@code gradle jmh -PjmhIncludes=ZipTransformerBenchmark}, or override the parameters
+ * with the JMH {@code -p} option.
+ *
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ZipTransformerBenchmark {
+
+	public enum PayloadType {
+		BYTE_ARRAY, STRING, FILE, ITERABLE
+	}
+
+	@Param({ "BYTE_ARRAY", "STRING", "FILE", "ITERABLE" })
+	public PayloadType payloadType;
+
+	@Param({ "16" })
+	public int entryCount;
+
+	@Param({ "1024", "1048576" })
+	public int entrySize;
+
+	@Param({ "1", "6", "9" })
+	public int compressionLevel;
+
+	@Param({ "BYTE_ARRAY", "FILE" })
+	public ZipResultType zipResultType;
+
+	@Param({ "false", "true" })
+	public boolean pooled;
+
+	private CompressionResourcePool resourcePool;
+
+	private File workDirectory;
+
+	private ZipTransformer transformer;
+
+	private Message<?> message;
+
+	private List<ZipEntrySource> entrySources;
+
+	private long bytesIn;
+
+	@Setup
+	public void setup() throws IOException {
+		this.workDirectory = ZipBenchmarkFixtures.createWorkDirectory();
+
+		final int entries = PayloadType.ITERABLE.equals(this.payloadType) ? this.entryCount : 1;
+		final List<byte[]> data = new ArrayList<byte[]>(entries);
+		this.entrySources = new ArrayList<ZipEntrySource>(entries);
+		for (int i = 0; i < entries; i++) {
+			final byte[] bytes = ZipBenchmarkFixtures.text(this.entrySize, i);
+			data.add(bytes);
+			this.entrySources.add(new ByteSource("entry_" + i + ".txt", bytes));
+			this.bytesIn += bytes.length;
+		}
+
+		final Object payload;
+		switch (this.payloadType) {
+			case BYTE_ARRAY:
+				payload = data.get(0);
+				break;
+			case STRING:
+				payload = new String(data.get(0));
+				break;
+			case FILE:
+				final File file = new File(this.workDirectory, "entry.txt");
+				FileUtils.writeByteArrayToFile(file, data.get(0));
+				payload = file;
+				break;
+			default:
+				payload = data;
+		}
+		this.message = MessageBuilder.withPayload(payload)
+				.setHeader(ZipHeaders.ZIP_ENTRY_FILE_NAME, "entry.txt")
+				.build();
+
+		this.transformer = new ZipTransformer();
+		this.transformer.setBeanFactory(new DefaultListableBeanFactory());
+		this.transformer.setCompressionLevel(this.compressionLevel);
+		this.transformer.setZipResultType(this.zipResultType);
+		if (this.pooled) {
+			this.resourcePool = new CompressionResourcePool();
+			this.transformer.setResourcePool(this.resourcePool);
+		}
+		this.transformer.setWorkDirectory(new File(this.workDirectory, "out"));
+		this.transformer.afterPropertiesSet();
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (this.resourcePool != null) {
+			this.resourcePool.destroy();
+		}
+		ZipBenchmarkFixtures.delete(this.workDirectory);
+	}
+
+	@Benchmark
+	public Object zip(ByteCounters counters) {
+		final Message<?> result = this.transformer.transform(this.message);
+		counters.bytesIn += this.bytesIn;
+		counters.bytesOut += (Long) result.getHeaders().get(ZipHeaders.ZIP_BYTES_OUT);
+		if (result.getPayload() instanceof File) {
+			ZipBenchmarkFixtures.delete((File) result.getPayload());
+		}
+		return result;
+	}
+
+	@Benchmark
+	public byte[] pack(ByteCounters counters) {
+		final byte[] zipped = SpringZipUtils.pack(this.entrySources, this.compressionLevel);
+		counters.bytesIn += this.bytesIn;
+		counters.bytesOut += zipped.length;
+		return zipped;
+	}
+
+}
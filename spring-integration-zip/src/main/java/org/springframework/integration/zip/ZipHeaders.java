@@ -30,4 +30,29 @@ public abstract class ZipHeaders {
 
 	public static final String ZIP_ENTRY_LAST_MODIFIED_DATE = PREFIX + "entryLastModifiedDate";
 
+	/**
+	 * The number of bytes read by the transformation, i.e. the uncompressed bytes when compressing.
+	 */
+	public static final String ZIP_BYTES_IN = PREFIX + "bytesIn";
+
+	/**
+	 * The number of bytes produced by the transformation, i.e. the size of the archive when compressing.
+	 */
+	public static final String ZIP_BYTES_OUT = PREFIX + "bytesOut";
+
+	/**
+	 * The number of bytes read by the transformation per second.
+	 */
+	public static final String ZIP_THROUGHPUT = PREFIX + "throughput";
+
+	/**
+	 * The number of entries written into an archive.
+	 */
+	public static final String ZIP_ENTRY_COUNT = PREFIX + "entryCount";
+
+	/**
+	 * The correlation key of the messages written into an archive.
+	 */
+	public static final String ZIP_CORRELATION_KEY = PREFIX + "correlationKey";
+
 }
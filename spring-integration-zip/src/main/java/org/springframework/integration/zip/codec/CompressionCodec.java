@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Strategy for compressing and decompressing a single stream of data, as opposed to
+ * a Zip archive with several entries. Used by the
+ * {@link org.springframework.integration.zip.transformer.CompressTransformer} and the
+ * {@link org.springframework.integration.zip.transformer.DecompressTransformer}.
+ *
+ * Implementations must be thread-safe.
+ *
+ * @since 1.0.0
+ */
+public interface CompressionCodec {
+
+	/**
+	 * @return the file extension, including the leading dot, of files compressed
+	 * with this codec, e.g. {@code .gz}.
+	 */
+	String getFileExtension();
+
+	/**
+	 * Wrap the provided stream so that all data written to the returned stream is
+	 * compressed. Closing the returned stream must close the provided stream.
+	 *
+	 * @param outputStream the stream to write the compressed data to
+	 * @return the compressing stream
+	 * @throws IOException if the stream cannot be initialized
+	 */
+	OutputStream compress(OutputStream outputStream) throws IOException;
+
+	/**
+	 * Wrap the provided stream so that all data read from the returned stream is
+	 * decompressed. Closing the returned stream must close the provided stream.
+	 *
+	 * @param inputStream the stream to read the compressed data from
+	 * @return the decompressing stream
+	 * @throws IOException if the stream cannot be initialized, e.g. because of an invalid header
+	 */
+	InputStream decompress(InputStream inputStream) throws IOException;
+
+}
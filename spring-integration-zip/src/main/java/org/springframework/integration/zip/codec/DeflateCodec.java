@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.integration.zip.support.CompressionResourcePool;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CompressionCodec} for the zlib format (RFC 1950), which has the smallest framing
+ * overhead of the deflate based formats. The compression level can be lowered to favor
+ * speed over ratio. As a {@link PooledCompressionCodec}, it can reuse the {@link Deflater}s
+ * and {@link Inflater}s of a {@link CompressionResourcePool}.
+ *
+ * @since 1.0.0
+ */
+public class DeflateCodec implements PooledCompressionCodec {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private volatile int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	/**
+	 * Sets the compression level. Default is {@link Deflater#DEFAULT_COMPRESSION}.
+	 *
+	 * @param compressionLevel Must be an integer value from 0-9.
+	 */
+	public void setCompressionLevel(int compressionLevel) {
+		Assert.isTrue(compressionLevel >= 0 && compressionLevel <= 9, "Acceptable levels are 0-9");
+		this.compressionLevel = compressionLevel;
+	}
+
+	@Override
+	public String getFileExtension() {
+		return ".zz";
+	}
+
+	@Override
+	public OutputStream compress(OutputStream outputStream) throws IOException {
+		return compress(outputStream, null);
+	}
+
+	@Override
+	public OutputStream compress(OutputStream outputStream, final CompressionResourcePool resourcePool)
+			throws IOException {
+		final int level = this.compressionLevel;
+		final Deflater deflater = resourcePool != null
+				? resourcePool.borrowDeflater(level, false)
+				: new Deflater(level);
+		return new DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE) {
+
+			private boolean released;
+
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				}
+				finally {
+					if (!this.released) {
+						this.released = true;
+						if (resourcePool != null) {
+							resourcePool.returnDeflater(deflater, level, false);
+						}
+						else {
+							deflater.end();
+						}
+					}
+				}
+			}
+
+		};
+	}
+
+	@Override
+	public InputStream decompress(InputStream inputStream) throws IOException {
+		return decompress(inputStream, null);
+	}
+
+	@Override
+	public InputStream decompress(InputStream inputStream, final CompressionResourcePool resourcePool)
+			throws IOException {
+		final Inflater inflater = resourcePool != null ? resourcePool.borrowInflater(false) : new Inflater();
+		return new InflaterInputStream(inputStream, inflater, BUFFER_SIZE) {
+
+			private boolean released;
+
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				}
+				finally {
+					if (!this.released) {
+						this.released = true;
+						if (resourcePool != null) {
+							resourcePool.returnInflater(inflater, false);
+						}
+						else {
+							inflater.end();
+						}
+					}
+				}
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link CompressionCodec} for the gzip format (RFC 1952).
+ *
+ * @since 1.0.0
+ */
+public class GzipCodec implements CompressionCodec {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	@Override
+	public String getFileExtension() {
+		return ".gz";
+	}
+
+	@Override
+	public OutputStream compress(OutputStream outputStream) throws IOException {
+		return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+	}
+
+	@Override
+	public InputStream decompress(InputStream inputStream) throws IOException {
+		return new GZIPInputStream(inputStream, BUFFER_SIZE);
+	}
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+/**
+ * {@link CompressionCodec} for the LZ4 frame format, which trades compression ratio for
+ * the lowest CPU cost of the provided codecs. The output can be read by the {@code lz4}
+ * command line tool. Requires the optional {@code org.lz4:lz4-java} dependency on the
+ * classpath.
+ *
+ * @since 1.0.0
+ */
+public class Lz4Codec implements CompressionCodec {
+
+	@Override
+	public String getFileExtension() {
+		return ".lz4";
+	}
+
+	@Override
+	public OutputStream compress(OutputStream outputStream) throws IOException {
+		return new LZ4FrameOutputStream(outputStream);
+	}
+
+	@Override
+	public InputStream decompress(InputStream inputStream) throws IOException {
+		return new LZ4FrameInputStream(inputStream);
+	}
+
+}
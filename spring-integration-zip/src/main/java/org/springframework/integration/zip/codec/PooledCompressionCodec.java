@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.springframework.integration.zip.support.CompressionResourcePool;
+
+/**
+ * A {@link CompressionCodec} that can borrow its native compression resources from a
+ * {@link CompressionResourcePool} instead of allocating them for every stream. The
+ * borrowed resources are returned to the pool when the returned stream is closed.
+ *
+ * @since 1.0.0
+ */
+public interface PooledCompressionCodec extends CompressionCodec {
+
+	/**
+	 * Like {@link #compress(OutputStream)}, with resources borrowed from the pool.
+	 *
+	 * @param outputStream the stream to write the compressed data to
+	 * @param resourcePool the pool to borrow from
+	 * @return the compressing stream
+	 * @throws IOException if the stream cannot be initialized
+	 */
+	OutputStream compress(OutputStream outputStream, CompressionResourcePool resourcePool) throws IOException;
+
+	/**
+	 * Like {@link #decompress(InputStream)}, with resources borrowed from the pool.
+	 *
+	 * @param inputStream the stream to read the compressed data from
+	 * @param resourcePool the pool to borrow from
+	 * @return the decompressing stream
+	 * @throws IOException if the stream cannot be initialized
+	 */
+	InputStream decompress(InputStream inputStream, CompressionResourcePool resourcePool) throws IOException;
+
+}
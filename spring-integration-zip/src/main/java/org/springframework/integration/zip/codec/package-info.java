@@ -0,0 +1,4 @@
+/**
+ * Provides the compression codec abstraction used by the single-payload compression transformers.
+ */
+package org.springframework.integration.zip.codec;
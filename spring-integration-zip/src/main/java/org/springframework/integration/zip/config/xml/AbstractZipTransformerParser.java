@@ -19,9 +19,14 @@ package org.springframework.integration.zip.config.xml;
 import org.w3c.dom.Element;
 
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.xml.ParserContext;
 import org.springframework.integration.config.xml.AbstractTransformerParser;
 import org.springframework.integration.config.xml.IntegrationNamespaceUtils;
+import org.springframework.integration.zip.codec.DeflateCodec;
+import org.springframework.integration.zip.codec.GzipCodec;
+import org.springframework.integration.zip.codec.Lz4Codec;
+import org.springframework.integration.zip.codec.ZstdCodec;
 import org.springframework.util.StringUtils;
 
 /**
@@ -59,4 +64,38 @@ public abstract class AbstractZipTransformerParser extends AbstractTransformerPa
 	protected void postProcessTransformer(Element element, ParserContext parserContext, BeanDefinitionBuilder builder) {
 	}
 
+	/**
+	 * Populate the 'codec' property from either the 'codec' attribute, naming one of the
+	 * built-in codecs, or the 'codec-ref' attribute, referencing a custom codec bean.
+	 *
+	 * @param element The XML Element to process
+	 * @param parserContext The Spring ParserContext
+	 * @param builder BeanDefinitionBuilder for constructing Bean Definitions
+	 */
+	protected void parseCodec(Element element, ParserContext parserContext, BeanDefinitionBuilder builder) {
+		String codec = element.getAttribute("codec");
+		String codecRef = element.getAttribute("codec-ref");
+		if (StringUtils.hasText(codec) && StringUtils.hasText(codecRef)) {
+			parserContext.getReaderContext().error("Only one of 'codec' or 'codec-ref' is allowed.", element);
+		}
+		else if (StringUtils.hasText(codecRef)) {
+			builder.addPropertyReference("codec", codecRef);
+		}
+		else if ("GZIP".equals(codec)) {
+			builder.addPropertyValue("codec", new RootBeanDefinition(GzipCodec.class));
+		}
+		else if ("DEFLATE".equals(codec)) {
+			builder.addPropertyValue("codec", new RootBeanDefinition(DeflateCodec.class));
+		}
+		else if ("ZSTD".equals(codec)) {
+			builder.addPropertyValue("codec", new RootBeanDefinition(ZstdCodec.class));
+		}
+		else if ("LZ4".equals(codec)) {
+			builder.addPropertyValue("codec", new RootBeanDefinition(Lz4Codec.class));
+		}
+		else if (StringUtils.hasText(codec)) {
+			parserContext.getReaderContext().error("Unsupported codec '" + codec + "'.", element);
+		}
+	}
+
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.config.xml;
+
+import org.w3c.dom.Element;
+
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.xml.ParserContext;
+import org.springframework.integration.zip.transformer.DecompressTransformer;
+
+/**
+ * Parser for the 'decompress-transformer' element.
+ *
+ * @since 1.0.0
+ */
+public class DecompressTransformerParser extends AbstractZipTransformerParser {
+
+	@Override
+	protected String getTransformerClassName() {
+		return DecompressTransformer.class.getName();
+	}
+
+	@Override
+	protected void postProcessTransformer(Element element, ParserContext parserContext, BeanDefinitionBuilder builder) {
+		parseCodec(element, parserContext, builder);
+	}
+
+}
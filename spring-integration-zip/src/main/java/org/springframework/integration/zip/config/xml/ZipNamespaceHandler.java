@@ -31,6 +31,8 @@ public class ZipNamespaceHandler extends AbstractIntegrationNamespaceHandler {
 	public void init() {
 		this.registerBeanDefinitionParser("zip-transformer",  new ZipTransformerParser());
 		this.registerBeanDefinitionParser("unzip-transformer",  new UnZipTransformerParser());
+		this.registerBeanDefinitionParser("compress-transformer",  new CompressTransformerParser());
+		this.registerBeanDefinitionParser("decompress-transformer",  new DecompressTransformerParser());
 	}
 
 }
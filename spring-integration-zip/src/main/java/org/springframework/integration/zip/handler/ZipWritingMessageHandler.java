@@ -0,0 +1,548 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.handler;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import org.springframework.context.Lifecycle;
+import org.springframework.integration.aggregator.CorrelationStrategy;
+import org.springframework.integration.file.DefaultFileNameGenerator;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.file.FileNameGenerator;
+import org.springframework.integration.handler.AbstractMessageProducingHandler;
+import org.springframework.integration.zip.ZipHeaders;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.MessagingException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * A stateful message handler that appends each incoming message as a new entry to an
+ * open Zip archive in the work directory, instead of aggregating the messages into a
+ * collection for the {@code ZipTransformer} first. Memory use is therefore independent
+ * of the number of entries, and the compression is spread over the arrival of the
+ * messages.
+ *
+ * One archive is kept open per correlation key, as determined by the
+ * {@link #setCorrelationStrategy(CorrelationStrategy) correlationStrategy}; by default
+ * all messages are appended to the same archive. An archive is completed once it holds
+ * {@link #setMaxEntries(int) maxEntries} entries, has grown to
+ * {@link #setMaxBytes(long) maxBytes} or has been open for {@link #setMaxAge(long) maxAge}
+ * milliseconds, whichever comes first. The completed {@link File} is then sent to the
+ * output channel, along with the headers of the first message appended to it and the
+ * {@link ZipHeaders#ZIP_CORRELATION_KEY}, {@link ZipHeaders#ZIP_ENTRY_COUNT},
+ * {@link ZipHeaders#ZIP_BYTES_IN} and {@link ZipHeaders#ZIP_BYTES_OUT} headers. The
+ * archive file is named after the correlation key, reduced to the characters that are
+ * safe in file names. Stopping the handler completes all open archives.
+ *
+ * The following payload types are supported:
+ *
+ * <ul>
+ *   <li>{@link File}</li>
+ *   <li>{@link String}</li>
+ *   <li>byte[]</li>
+ * </ul>
+ *
+ * The entries are named after the {@link ZipHeaders#ZIP_ENTRY_FILE_NAME} header, or else
+ * by the same rules as the {@code ZipTransformer}. Duplicate names get a counter suffix.
+ *
+ * @since 1.0.0
+ */
+public class ZipWritingMessageHandler extends AbstractMessageProducingHandler implements Lifecycle {
+
+	private static final String ZIP_EXTENSION = ".zip";
+
+	private static final String TEMPORARY_FILE_SUFFIX = ".writing";
+
+	private static final Object DEFAULT_CORRELATION_KEY = "zip";
+
+	private static final Pattern UNSAFE_FILE_NAME_CHARACTERS = Pattern.compile("[^A-Za-z0-9_\\-]");
+
+	private static final int MAX_FILE_NAME_PREFIX_LENGTH = 64;
+
+	private final ConcurrentMap<Object, Archive> archives = new ConcurrentHashMap<Object, Archive>();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private volatile File workDirectory =
+			new File(System.getProperty("java.io.tmpdir") + File.separator + "ziptransformer");
+
+	private volatile CorrelationStrategy correlationStrategy;
+
+	private volatile FileNameGenerator fileNameGenerator;
+
+	private volatile Charset charset = Charset.defaultCharset();
+
+	private volatile int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	private volatile int maxEntries = 100;
+
+	private volatile long maxBytes;
+
+	private volatile long maxAge;
+
+	private volatile boolean deleteFiles;
+
+	private volatile boolean running;
+
+	/**
+	 * Set the directory the archives are written to. By default this property is set to
+	 * the System temporary directory containing a sub-directory "ziptransformer".
+	 *
+	 * @param workDirectory Must not be null and must not represent a file.
+	 */
+	public void setWorkDirectory(File workDirectory) {
+		Assert.notNull(workDirectory, "workDirectory must not be null.");
+		Assert.isTrue(!workDirectory.isFile(), "The workDirectory specified must not point to a file");
+		this.workDirectory = workDirectory;
+	}
+
+	/**
+	 * Determines the archive a message is appended to. By default all messages are
+	 * appended to the same archive.
+	 *
+	 * @param correlationStrategy The correlation strategy, may be null
+	 */
+	public void setCorrelationStrategy(CorrelationStrategy correlationStrategy) {
+		this.correlationStrategy = correlationStrategy;
+	}
+
+	/**
+	 * @param charset Must not be null. Used for String payloads.
+	 */
+	public void setCharset(Charset charset) {
+		Assert.notNull(charset, "charset must not be null.");
+		this.charset = charset;
+	}
+
+	/**
+	 * Sets the compression level. Default is {@link Deflater#DEFAULT_COMPRESSION}.
+	 *
+	 * @param compressionLevel Must be an integer value from 0-9.
+	 */
+	public void setCompressionLevel(int compressionLevel) {
+		Assert.isTrue(compressionLevel >= 0 && compressionLevel <= 9, "Acceptable levels are 0-9");
+		this.compressionLevel = compressionLevel;
+	}
+
+	/**
+	 * @param maxEntries The number of entries after which an archive is completed. Default is 100.
+	 */
+	public void setMaxEntries(int maxEntries) {
+		Assert.isTrue(maxEntries > 0, "maxEntries must be greater than 0");
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @param maxBytes The size in bytes from which on an archive is completed, checked
+	 * after each entry. Default is 0, i.e. unlimited.
+	 */
+	public void setMaxBytes(long maxBytes) {
+		Assert.isTrue(maxBytes >= 0, "maxBytes must not be negative");
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * @param maxAge The time in milliseconds after the first entry, after which an archive is
+	 * completed even if it is not full. Requires a {@link TaskScheduler}. Default is 0,
+	 * i.e. unlimited.
+	 */
+	public void setMaxAge(long maxAge) {
+		Assert.isTrue(maxAge >= 0, "maxAge must not be negative");
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * If the payload is an instance of {@link File}, this property specifies
+	 * whether to delete the {@link File} once the archive it has been appended to
+	 * has been completed. The files of a discarded archive are retained.
+	 * Default is <em>false</em>.
+	 *
+	 * @param deleteFiles Defaults to <em>false</em> if not set
+	 */
+	public void setDeleteFiles(boolean deleteFiles) {
+		this.deleteFiles = deleteFiles;
+	}
+
+	/**
+	 * @param taskScheduler The scheduler used to complete archives after the
+	 * {@link #setMaxAge(long) maxAge}. By default the {@code taskScheduler} bean is used.
+	 */
+	@Override
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		super.setTaskScheduler(taskScheduler);
+	}
+
+	@Override
+	public String getComponentType() {
+		return "zip:zip-writing-handler";
+	}
+
+	@Override
+	protected void onInit() throws Exception {
+		super.onInit();
+
+		if (!this.workDirectory.exists()) {
+			if (logger.isInfoEnabled()) {
+				logger.info(String.format("Creating work directory '%s'.", this.workDirectory));
+			}
+			Assert.isTrue(this.workDirectory.mkdirs(), "Can't create the 'workDirectory': " + this.workDirectory);
+		}
+		final DefaultFileNameGenerator defaultFileNameGenerator = new DefaultFileNameGenerator();
+		defaultFileNameGenerator.setBeanFactory(getBeanFactory());
+		defaultFileNameGenerator.setConversionService(getConversionService());
+		this.fileNameGenerator = defaultFileNameGenerator;
+
+		if (this.maxAge > 0) {
+			Assert.notNull(getTaskScheduler(), "A taskScheduler is required when a maxAge is set");
+		}
+		this.running = true;
+	}
+
+	@Override
+	protected void handleMessageInternal(Message<?> message) throws Exception {
+		final Object correlationKey = this.correlationStrategy != null
+				? this.correlationStrategy.getCorrelationKey(message)
+				: DEFAULT_CORRELATION_KEY;
+		Assert.state(correlationKey != null,
+				"Null correlation not allowed.  Maybe the CorrelationStrategy is failing?");
+
+		// open the payload before touching any archive, so that an unreadable payload only rejects this message
+		final InputStream inputStream = openPayload(message);
+		final Message<File> result;
+		try {
+			result = append(message, correlationKey, inputStream);
+		}
+		finally {
+			IOUtils.closeQuietly(inputStream);
+		}
+		if (result != null) {
+			sendOutputs(result, result);
+		}
+	}
+
+	private InputStream openPayload(Message<?> message) {
+		final Object payload = message.getPayload();
+		if (payload instanceof File) {
+			try {
+				return new FileInputStream((File) payload);
+			}
+			catch (FileNotFoundException e) {
+				throw new MessageHandlingException(message, "Failed to open File '" + payload + "'.", e);
+			}
+		}
+		else if (payload instanceof byte[]) {
+			return new ByteArrayInputStream((byte[]) payload);
+		}
+		else if (payload instanceof String) {
+			return new ByteArrayInputStream(((String) payload).getBytes(this.charset));
+		}
+		else {
+			throw new IllegalArgumentException(String.format("Unsupported payload type '%s'. " +
+					"The only supported payload types are java.io.File, java.lang.String, and byte[]",
+					payload.getClass().getSimpleName()));
+		}
+	}
+
+	private Message<File> append(Message<?> message, Object correlationKey, InputStream inputStream) {
+		while (true) {
+			Archive archive = this.archives.get(correlationKey);
+			if (archive == null) {
+				archive = new Archive(correlationKey, message.getHeaders());
+				final Archive existing = this.archives.putIfAbsent(correlationKey, archive);
+				if (existing != null) {
+					archive = existing;
+				}
+			}
+			synchronized (archive) {
+				if (archive.completed) {
+					// completed by another thread in the meantime
+					continue;
+				}
+				try {
+					archive.append(message, inputStream);
+				}
+				catch (IOException e) {
+					// the Zip stream now holds a partial entry and can't be completed
+					this.archives.remove(correlationKey, archive);
+					archive.discard();
+					throw new MessageHandlingException(message,
+							"Failed to append the payload to the Zip archive '" + archive.file
+									+ "'; the archive has been discarded.", e);
+				}
+				if (archive.entryCount >= this.maxEntries
+						|| (this.maxBytes > 0 && archive.countingStream.getByteCount() >= this.maxBytes)) {
+					return complete(archive);
+				}
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Complete all open archives and send them to the output channel.
+	 */
+	@ManagedOperation
+	public void flush() {
+		for (Archive archive : this.archives.values()) {
+			completeAndSend(archive);
+		}
+	}
+
+	@ManagedAttribute
+	public int getOpenArchiveCount() {
+		return this.archives.size();
+	}
+
+	@Override
+	public void start() {
+		this.running = true;
+	}
+
+	@Override
+	public void stop() {
+		this.running = false;
+		flush();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	private void completeAndSend(Archive archive) {
+		final Message<File> result;
+		synchronized (archive) {
+			if (archive.completed) {
+				return;
+			}
+			result = complete(archive);
+		}
+		if (result != null) {
+			sendOutputs(result, result);
+		}
+	}
+
+	/**
+	 * Close the archive and build the message to send. Must be called while holding the
+	 * archive's monitor.
+	 */
+	private Message<File> complete(Archive archive) {
+		this.archives.remove(archive.correlationKey, archive);
+		if (archive.timeout != null) {
+			archive.timeout.cancel(false);
+		}
+		try {
+			archive.finish();
+		}
+		catch (IOException e) {
+			archive.discard();
+			throw new MessagingException("Failed to complete the Zip archive '" + archive.file + "'.", e);
+		}
+		for (File sourceFile : archive.sourceFiles) {
+			deleteFile(sourceFile);
+		}
+		if (archive.entryCount == 0) {
+			return null;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug(String.format("Completed Zip archive '%s' with %s entries.",
+					archive.file, archive.entryCount));
+		}
+		return getMessageBuilderFactory().withPayload(archive.file)
+				.copyHeaders(archive.headers)
+				.setHeader(FileHeaders.FILENAME, archive.file.getName())
+				.setHeader(ZipHeaders.ZIP_CORRELATION_KEY, archive.correlationKey)
+				.setHeader(ZipHeaders.ZIP_ENTRY_COUNT, archive.entryCount)
+				.setHeader(ZipHeaders.ZIP_BYTES_IN, archive.bytesIn)
+				.setHeader(ZipHeaders.ZIP_BYTES_OUT, archive.countingStream.getByteCount())
+				.build();
+	}
+
+	private void deleteFile(File file) {
+		if (!file.delete() && logger.isWarnEnabled()) {
+			logger.warn("Failed to delete File '" + file + "'");
+		}
+	}
+
+	/**
+	 * An open archive; all fields except the immutable ones are guarded by its monitor.
+	 */
+	private final class Archive implements Runnable {
+
+		private final Object correlationKey;
+
+		private final MessageHeaders headers;
+
+		private final Set<String> entryNames = new HashSet<String>();
+
+		private final List<File> sourceFiles = new ArrayList<File>();
+
+		private File file;
+
+		private File temporaryFile;
+
+		private CountingOutputStream countingStream;
+
+		private ZipOutputStream zipOutputStream;
+
+		private ScheduledFuture<?> timeout;
+
+		private int entryCount;
+
+		private long bytesIn;
+
+		private boolean completed;
+
+		Archive(Object correlationKey, MessageHeaders headers) {
+			this.correlationKey = correlationKey;
+			this.headers = headers;
+		}
+
+		void append(Message<?> message, InputStream inputStream) throws IOException {
+			final Object payload = message.getPayload();
+			if (this.zipOutputStream == null) {
+				open();
+			}
+			final ZipEntry zipEntry = new ZipEntry(entryName(message));
+			final Date lastModifiedDate = message.getHeaders().get(ZipHeaders.ZIP_ENTRY_LAST_MODIFIED_DATE,
+					Date.class);
+			if (lastModifiedDate != null) {
+				zipEntry.setTime(lastModifiedDate.getTime());
+			}
+			else if (payload instanceof File) {
+				zipEntry.setTime(((File) payload).lastModified());
+			}
+			this.zipOutputStream.putNextEntry(zipEntry);
+			this.bytesIn += IOUtils.copyLarge(inputStream, this.zipOutputStream);
+			this.zipOutputStream.closeEntry();
+			this.entryCount++;
+			if (payload instanceof File && ZipWritingMessageHandler.this.deleteFiles) {
+				this.sourceFiles.add((File) payload);
+			}
+		}
+
+		private void open() throws IOException {
+			final ZipWritingMessageHandler handler = ZipWritingMessageHandler.this;
+			this.file = new File(handler.workDirectory, fileNamePrefix(this.correlationKey) + "_"
+					+ System.currentTimeMillis() + "_" + handler.sequence.incrementAndGet() + ZIP_EXTENSION);
+			this.temporaryFile = new File(this.file.getPath() + TEMPORARY_FILE_SUFFIX);
+			this.countingStream =
+					new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(this.temporaryFile)));
+			this.zipOutputStream = new ZipOutputStream(this.countingStream);
+			this.zipOutputStream.setLevel(handler.compressionLevel);
+			if (handler.maxAge > 0) {
+				this.timeout = handler.getTaskScheduler()
+						.schedule(this, new Date(System.currentTimeMillis() + handler.maxAge));
+			}
+		}
+
+		/**
+		 * The correlation key is arbitrary, often a header value, so only the characters
+		 * that are safe in file names on all platforms are retained.
+		 */
+		private String fileNamePrefix(Object correlationKey) {
+			final String prefix = UNSAFE_FILE_NAME_CHARACTERS.matcher(correlationKey.toString()).replaceAll("_");
+			return prefix.length() > MAX_FILE_NAME_PREFIX_LENGTH
+					? prefix.substring(0, MAX_FILE_NAME_PREFIX_LENGTH)
+					: prefix;
+		}
+
+		private String entryName(Message<?> message) {
+			String entryName = message.getHeaders().get(ZipHeaders.ZIP_ENTRY_FILE_NAME, String.class);
+			if (entryName == null) {
+				entryName = ZipWritingMessageHandler.this.fileNameGenerator.generateFileName(message);
+			}
+			if (!this.entryNames.add(entryName)) {
+				final String baseName = FilenameUtils.removeExtension(entryName);
+				String fileExtension = FilenameUtils.getExtension(entryName);
+				if (StringUtils.hasText(fileExtension)) {
+					fileExtension = FilenameUtils.EXTENSION_SEPARATOR_STR + fileExtension;
+				}
+				int counter = 1;
+				String candidate;
+				do {
+					candidate = baseName + "_" + counter++ + fileExtension;
+				}
+				while (!this.entryNames.add(candidate));
+				entryName = candidate;
+			}
+			return entryName;
+		}
+
+		void finish() throws IOException {
+			this.completed = true;
+			if (this.zipOutputStream != null) {
+				this.zipOutputStream.close();
+				if (!this.temporaryFile.renameTo(this.file)) {
+					throw new IOException("Failed to rename '" + this.temporaryFile + "' to '" + this.file + "'.");
+				}
+			}
+		}
+
+		void discard() {
+			this.completed = true;
+			IOUtils.closeQuietly(this.zipOutputStream);
+			if (this.temporaryFile != null && !this.temporaryFile.delete() && logger.isWarnEnabled()) {
+				logger.warn("Failed to delete File '" + this.temporaryFile + "'");
+			}
+			if (!this.sourceFiles.isEmpty() && logger.isWarnEnabled()) {
+				logger.warn("Discarded Zip archive '" + this.file + "'; retained its source files " + this.sourceFiles);
+			}
+		}
+
+		/**
+		 * Invoked by the {@link TaskScheduler} once the archive reached the maxAge.
+		 */
+		@Override
+		public void run() {
+			completeAndSend(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Provides the message handlers that write Zip archives.
+ */
+package org.springframework.integration.zip.handler;
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.splitter;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.splitter.AbstractMessageSplitter;
+import org.springframework.integration.zip.ZipHeaders;
+import org.springframework.integration.zip.transformer.SpringZipUtils;
+import org.springframework.integration.zip.transformer.ZipResultType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.util.Assert;
+
+/**
+ * Splitter implementation that unzips the message payload lazily, emitting one
+ * message per zip entry. In contrast to the {@code UnZipTransformer} and
+ * {@link UnZipResultSplitter} pair, the archive is never materialized as a whole:
+ * the next entry is only inflated once the previous message has been sent, so peak
+ * memory is bounded by the largest entry rather than by the whole archive.
+ *
+ * The following payload types are supported:
+ *
+ * <ul>
+ *   <li>{@link File}</li>
+ *   <li>{@link InputStream}</li>
+ *   <li>byte[]</li>
+ * </ul>
+ *
+ * Each emitted message carries the {@link FileHeaders#FILENAME} and
+ * {@link ZipHeaders#ZIP_ENTRY_PATH} headers, just like the messages produced by the
+ * {@link UnZipResultSplitter}. Directory entries are skipped.
+ *
+ * The underlying stream is closed (and, if {@link #setDeleteFiles(boolean) deleteFiles}
+ * is set, the {@link File} payload deleted) once the last entry has been emitted, or
+ * as soon as the emission is abandoned because reading an entry or sending one of the
+ * resulting messages failed.
+ *
+ * @since 1.0.0
+ */
+public class UnZipSplitter extends AbstractMessageSplitter {
+
+	private volatile ZipResultType zipResultType = ZipResultType.FILE;
+
+	private volatile File workDirectory =
+			new File(System.getProperty("java.io.tmpdir") + File.separator + "ziptransformer");
+
+	private volatile boolean deleteFiles;
+
+	private final ThreadLocal<ZipEntryIterator> currentIterator = new ThreadLocal<ZipEntryIterator>();
+
+	/**
+	 * Defines the format of the entry payloads. When set to {@link ZipResultType#FILE}
+	 * (the default), each entry is inflated into the work directory; when set to
+	 * {@link ZipResultType#BYTE_ARRAY}, each entry is inflated into memory.
+	 *
+	 * @param zipResultType Must not be null
+	 */
+	public void setZipResultType(ZipResultType zipResultType) {
+		Assert.notNull(zipResultType, "The zipResultType must not be empty.");
+		this.zipResultType = zipResultType;
+	}
+
+	/**
+	 * Set the work-directory. The work directory is used when the {@link ZipResultType}
+	 * is set to {@link ZipResultType#FILE}. By default this property is set to
+	 * the System temporary directory containing a sub-directory "ziptransformer".
+	 *
+	 * @param workDirectory Must not be null and must not represent a file.
+	 */
+	public void setWorkDirectory(File workDirectory) {
+		Assert.notNull(workDirectory, "workDirectory must not be null.");
+		Assert.isTrue(!workDirectory.isFile(), "The workDirectory specified must not point to a file");
+		this.workDirectory = workDirectory;
+	}
+
+	/**
+	 * If the payload is an instance of {@link File}, this property specifies
+	 * whether to delete the {@link File} once all of its entries have been emitted.
+	 * Default is <em>false</em>.
+	 *
+	 * @param deleteFiles Defaults to <em>false</em> if not set
+	 */
+	public void setDeleteFiles(boolean deleteFiles) {
+		this.deleteFiles = deleteFiles;
+	}
+
+	@Override
+	protected void doInit() {
+		super.doInit();
+		if (!this.workDirectory.exists()) {
+			if (logger.isInfoEnabled()) {
+				logger.info(String.format("Creating work directory '%s'.", this.workDirectory));
+			}
+			Assert.isTrue(this.workDirectory.mkdirs(), "Can't create the 'workDirectory': " + this.workDirectory);
+		}
+	}
+
+	@Override
+	protected Object splitMessage(Message<?> message) {
+		final Object payload = message.getPayload();
+		final InputStream inputStream;
+
+		if (payload instanceof File) {
+			final File filePayload = (File) payload;
+
+			if (filePayload.isDirectory()) {
+				throw new UnsupportedOperationException(String.format("Cannot unzip a directory: '%s'",
+						filePayload.getAbsolutePath()));
+			}
+
+			try {
+				inputStream = new FileInputStream(filePayload);
+			}
+			catch (FileNotFoundException e) {
+				throw new MessageHandlingException(message, "Failed to open Zip file.", e);
+			}
+		}
+		else if (payload instanceof InputStream) {
+			inputStream = (InputStream) payload;
+		}
+		else if (payload instanceof byte[]) {
+			inputStream = new ByteArrayInputStream((byte[]) payload);
+		}
+		else {
+			throw new IllegalArgumentException(String.format("Unsupported payload type '%s'. " +
+					"The only supported payload types are java.io.File, byte[] and java.io.InputStream",
+					payload.getClass().getSimpleName()));
+		}
+
+		final ZipEntryIterator iterator =
+				new ZipEntryIterator(message, new ZipInputStream(new BufferedInputStream(inputStream)));
+		this.currentIterator.set(iterator);
+		return iterator;
+	}
+
+	@Override
+	protected void produceOutput(Object result, Message<?> requestMessage) {
+		final ZipEntryIterator iterator = this.currentIterator.get();
+		try {
+			super.produceOutput(result, requestMessage);
+		}
+		finally {
+			if (iterator != null) {
+				iterator.close();
+			}
+		}
+	}
+
+	private void cleanUp(Message<?> message, ZipInputStream zipInputStream, boolean empty) {
+		IOUtils.closeQuietly(zipInputStream);
+		if (empty && logger.isWarnEnabled()) {
+			logger.warn("No data unzipped from payload with message Id " + message.getHeaders().getId());
+		}
+		final Object payload = message.getPayload();
+		if (payload instanceof File && this.deleteFiles) {
+			final File filePayload = (File) payload;
+			if (!filePayload.delete() && logger.isWarnEnabled()) {
+				logger.warn("failed to delete File '" + filePayload + "'");
+			}
+		}
+	}
+
+	/**
+	 * Walks the {@link ZipInputStream} one entry at a time. The stream is closed
+	 * as soon as the last entry has been read or an error occurs; {@link #close()}
+	 * releases it when the iteration is abandoned half-way.
+	 */
+	private final class ZipEntryIterator implements Iterator<Message<Object>>, Closeable {
+
+		private final Message<?> message;
+
+		private final ZipInputStream zipInputStream;
+
+		private ZipEntry nextEntry;
+
+		private boolean done;
+
+		private int count;
+
+		ZipEntryIterator(Message<?> message, ZipInputStream zipInputStream) {
+			this.message = message;
+			this.zipInputStream = zipInputStream;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (this.nextEntry == null && !this.done) {
+				try {
+					ZipEntry entry = this.zipInputStream.getNextEntry();
+					while (entry != null && entry.isDirectory()) {
+						entry = this.zipInputStream.getNextEntry();
+					}
+					this.nextEntry = entry;
+				}
+				catch (IOException e) {
+					close();
+					throw new MessageHandlingException(this.message, "Failed to read Zip entry.", e);
+				}
+				if (this.nextEntry == null) {
+					close();
+				}
+			}
+			return this.nextEntry != null;
+		}
+
+		@Override
+		public Message<Object> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final ZipEntry zipEntry = this.nextEntry;
+			this.nextEntry = null;
+
+			final String zipEntryName = zipEntry.getName();
+
+			if (logger.isDebugEnabled()) {
+				logger.debug(String.format("Unpacking Zip Entry - Name: '%s',Time: '%s', Compressed Size: '%s'",
+						zipEntryName, zipEntry.getTime(), zipEntry.getCompressedSize()));
+			}
+
+			final Object entryPayload;
+			try {
+				if (ZipResultType.FILE.equals(UnZipSplitter.this.zipResultType)) {
+					final File tempDir = new File(UnZipSplitter.this.workDirectory,
+							this.message.getHeaders().getId().toString());
+					final File destinationFile = SpringZipUtils.resolveEntryFile(tempDir, zipEntryName);
+					destinationFile.getParentFile().mkdirs(); //NOSONAR false positive
+					SpringZipUtils.copy(this.zipInputStream, destinationFile);
+					entryPayload = destinationFile;
+				}
+				else if (ZipResultType.BYTE_ARRAY.equals(UnZipSplitter.this.zipResultType)) {
+					final ByteArrayOutputStream outputStream =
+							new ByteArrayOutputStream(SpringZipUtils.initialBufferSize(zipEntry.getSize()));
+					IOUtils.copy(this.zipInputStream, outputStream);
+					entryPayload = outputStream.toByteArray();
+				}
+				else {
+					throw new IllegalStateException("Unsupported zipResultType "
+							+ UnZipSplitter.this.zipResultType);
+				}
+			}
+			catch (IOException e) {
+				close();
+				throw new MessageHandlingException(this.message,
+						"Failed to unzip entry '" + zipEntryName + "'.", e);
+			}
+			this.count++;
+
+			return getMessageBuilderFactory().withPayload(entryPayload)
+					.setHeader(FileHeaders.FILENAME, FilenameUtils.getName(zipEntryName))
+					.setHeader(ZipHeaders.ZIP_ENTRY_PATH, FilenameUtils.getPath(zipEntryName))
+					.copyHeadersIfAbsent(this.message.getHeaders())
+					.build();
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("remove");
+		}
+
+		@Override
+		public void close() {
+			if (UnZipSplitter.this.currentIterator.get() == this) {
+				UnZipSplitter.this.currentIterator.remove();
+			}
+			if (!this.done) {
+				this.done = true;
+				cleanUp(this.message, this.zipInputStream, this.count == 0);
+			}
+		}
+
+	}
+
+}
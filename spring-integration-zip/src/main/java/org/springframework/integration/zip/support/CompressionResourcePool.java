@@ -0,0 +1,241 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.support;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+
+/**
+ * A pool of {@link Deflater}s, {@link Inflater}s and byte buffers to be shared by the
+ * Zip components. {@link Deflater}s and {@link Inflater}s hold native memory, which is
+ * otherwise only released once they are finalized, so reusing them avoids most of the
+ * allocation churn of transforming many small payloads.
+ *
+ * {@link Deflater}s are pooled per compression level. Idle instances beyond
+ * {@code maxIdle} per key are released immediately. Borrowed instances must always be
+ * returned, preferably in a {@code finally} block.
+ *
+ * @since 1.0.0
+ */
+@ManagedResource
+public class CompressionResourcePool implements DisposableBean {
+
+	public static final int DEFAULT_MAX_IDLE = 16;
+
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private static final int LEVELS = 11;
+
+	private final BlockingQueue<Deflater>[] deflaters;
+
+	private final BlockingQueue<Inflater>[] inflaters;
+
+	private final BlockingQueue<byte[]> buffers;
+
+	private final int bufferSize;
+
+	private final AtomicLong deflaterHits = new AtomicLong();
+
+	private final AtomicLong deflaterMisses = new AtomicLong();
+
+	private final AtomicLong inflaterHits = new AtomicLong();
+
+	private final AtomicLong inflaterMisses = new AtomicLong();
+
+	private final AtomicLong bufferHits = new AtomicLong();
+
+	private final AtomicLong bufferMisses = new AtomicLong();
+
+	public CompressionResourcePool() {
+		this(DEFAULT_MAX_IDLE, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param maxIdle the maximum number of idle instances kept per kind and compression level.
+	 * @param bufferSize the size of the pooled byte buffers.
+	 */
+	@SuppressWarnings("unchecked")
+	public CompressionResourcePool(int maxIdle, int bufferSize) {
+		Assert.isTrue(maxIdle > 0, "maxIdle must be greater than 0");
+		Assert.isTrue(bufferSize > 0, "bufferSize must be greater than 0");
+		this.bufferSize = bufferSize;
+		this.deflaters = new BlockingQueue[2 * LEVELS];
+		for (int i = 0; i < this.deflaters.length; i++) {
+			this.deflaters[i] = new ArrayBlockingQueue<Deflater>(maxIdle);
+		}
+		this.inflaters = new BlockingQueue[2];
+		for (int i = 0; i < this.inflaters.length; i++) {
+			this.inflaters[i] = new ArrayBlockingQueue<Inflater>(maxIdle);
+		}
+		this.buffers = new ArrayBlockingQueue<byte[]>(maxIdle);
+	}
+
+	/**
+	 * Borrow a {@link Deflater}, creating a new one if none is idle.
+	 *
+	 * @param level the compression level ({@link Deflater#DEFAULT_COMPRESSION} or 0-9)
+	 * @param nowrap whether to produce raw deflate data (as for Zip and gzip), see {@link Deflater}
+	 * @return the deflater, ready for use
+	 */
+	public Deflater borrowDeflater(int level, boolean nowrap) {
+		final Deflater deflater = this.deflaters[deflaterIndex(level, nowrap)].poll();
+		if (deflater != null) {
+			this.deflaterHits.incrementAndGet();
+			return deflater;
+		}
+		this.deflaterMisses.incrementAndGet();
+		return new Deflater(level, nowrap);
+	}
+
+	/**
+	 * Return a {@link Deflater} borrowed with the same arguments.
+	 *
+	 * @param deflater the deflater
+	 * @param level the compression level it was borrowed with
+	 * @param nowrap the nowrap flag it was borrowed with
+	 */
+	public void returnDeflater(Deflater deflater, int level, boolean nowrap) {
+		deflater.reset();
+		if (!this.deflaters[deflaterIndex(level, nowrap)].offer(deflater)) {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Borrow an {@link Inflater}, creating a new one if none is idle.
+	 *
+	 * @param nowrap whether to consume raw deflate data, see {@link Inflater}
+	 * @return the inflater, ready for use
+	 */
+	public Inflater borrowInflater(boolean nowrap) {
+		final Inflater inflater = this.inflaters[nowrap ? 1 : 0].poll();
+		if (inflater != null) {
+			this.inflaterHits.incrementAndGet();
+			return inflater;
+		}
+		this.inflaterMisses.incrementAndGet();
+		return new Inflater(nowrap);
+	}
+
+	/**
+	 * Return an {@link Inflater} borrowed with the same argument.
+	 *
+	 * @param inflater the inflater
+	 * @param nowrap the nowrap flag it was borrowed with
+	 */
+	public void returnInflater(Inflater inflater, boolean nowrap) {
+		inflater.reset();
+		if (!this.inflaters[nowrap ? 1 : 0].offer(inflater)) {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Borrow a buffer of {@link #getBufferSize()} bytes. Its content is undefined.
+	 *
+	 * @return the buffer
+	 */
+	public byte[] borrowBuffer() {
+		final byte[] buffer = this.buffers.poll();
+		if (buffer != null) {
+			this.bufferHits.incrementAndGet();
+			return buffer;
+		}
+		this.bufferMisses.incrementAndGet();
+		return new byte[this.bufferSize];
+	}
+
+	/**
+	 * Return a buffer obtained from {@link #borrowBuffer()}.
+	 *
+	 * @param buffer the buffer
+	 */
+	public void returnBuffer(byte[] buffer) {
+		Assert.isTrue(buffer.length == this.bufferSize, "The buffer was not borrowed from this pool");
+		this.buffers.offer(buffer);
+	}
+
+	@ManagedAttribute
+	public int getBufferSize() {
+		return this.bufferSize;
+	}
+
+	@ManagedAttribute
+	public long getDeflaterHits() {
+		return this.deflaterHits.get();
+	}
+
+	@ManagedAttribute
+	public long getDeflaterMisses() {
+		return this.deflaterMisses.get();
+	}
+
+	@ManagedAttribute
+	public long getInflaterHits() {
+		return this.inflaterHits.get();
+	}
+
+	@ManagedAttribute
+	public long getInflaterMisses() {
+		return this.inflaterMisses.get();
+	}
+
+	@ManagedAttribute
+	public long getBufferHits() {
+		return this.bufferHits.get();
+	}
+
+	@ManagedAttribute
+	public long getBufferMisses() {
+		return this.bufferMisses.get();
+	}
+
+	/**
+	 * Release the native memory of all idle instances.
+	 */
+	@Override
+	public void destroy() {
+		for (BlockingQueue<Deflater> queue : this.deflaters) {
+			Deflater deflater;
+			while ((deflater = queue.poll()) != null) {
+				deflater.end();
+			}
+		}
+		for (BlockingQueue<Inflater> queue : this.inflaters) {
+			Inflater inflater;
+			while ((inflater = queue.poll()) != null) {
+				inflater.end();
+			}
+		}
+		this.buffers.clear();
+	}
+
+	private static int deflaterIndex(int level, boolean nowrap) {
+		Assert.isTrue(level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION,
+				"Acceptable levels are -1-9");
+		return (nowrap ? LEVELS : 0) + level + 1;
+	}
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Provides support classes shared by the Zip components.
+ */
+package org.springframework.integration.zip.support;
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.transformer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.zip.ZipHeaders;
+import org.springframework.integration.zip.codec.CompressionCodec;
+import org.springframework.integration.zip.codec.GzipCodec;
+import org.springframework.integration.zip.codec.PooledCompressionCodec;
+import org.springframework.integration.zip.support.CompressionResourcePool;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+/**
+ * Base class for transformers that stream a single payload through a
+ * {@link CompressionCodec}. The result is written into the work directory or into
+ * a byte array, depending on the {@link ZipResultType}.
+ *
+ * @since 1.0.0
+ */
+public abstract class AbstractCodecTransformer extends AbstractZipTransformer {
+
+	private static final Log logger = LogFactory.getLog(AbstractCodecTransformer.class);
+
+	protected volatile CompressionCodec codec = new GzipCodec();
+
+	/**
+	 * Set the {@link CompressionCodec} to apply. Default is the {@link GzipCodec}.
+	 *
+	 * @param codec Must not be null
+	 */
+	public void setCodec(CompressionCodec codec) {
+		Assert.notNull(codec, "The codec must not be null.");
+		this.codec = codec;
+	}
+
+	@Override
+	protected Object doZipTransform(Message<?> message) throws Exception {
+		final Object payload = message.getPayload();
+		final String fileName = generateFileName(message);
+		final CountingInputStream inputStream = new CountingInputStream(openPayload(payload));
+		final long start = System.currentTimeMillis();
+		final Object result;
+		final long bytesOut;
+
+		try {
+			if (ZipResultType.FILE.equals(this.zipResultType)) {
+				final File file = new File(this.workDirectory, fileName);
+				final File temporaryFile = new File(this.workDirectory, fileName + TEMPORARY_FILE_SUFFIX);
+				try {
+					final CountingOutputStream outputStream =
+							new CountingOutputStream(new FileOutputStream(temporaryFile));
+					try {
+						transfer(inputStream, outputStream);
+					}
+					finally {
+						IOUtils.closeQuietly(outputStream);
+					}
+					commitFile(temporaryFile, file);
+					bytesOut = outputStream.getByteCount();
+				}
+				finally {
+					if (temporaryFile.exists() && !temporaryFile.delete() && logger.isWarnEnabled()) {
+						logger.warn("Failed to delete File '" + temporaryFile + "'");
+					}
+				}
+				result = file;
+			}
+			else if (ZipResultType.BYTE_ARRAY.equals(this.zipResultType)) {
+				final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+				transfer(inputStream, outputStream);
+				final byte[] bytes = outputStream.toByteArray();
+				bytesOut = bytes.length;
+				result = bytes;
+			}
+			else {
+				throw new IllegalStateException("Unsupported zipResultType " + this.zipResultType);
+			}
+		}
+		finally {
+			IOUtils.closeQuietly(inputStream);
+		}
+
+		if (payload instanceof File && this.deleteFiles) {
+			if (!((File) payload).delete() && logger.isWarnEnabled()) {
+				logger.warn("Failed to delete File '" + payload + "'");
+			}
+		}
+
+		final long bytesIn = inputStream.getByteCount();
+		final long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+
+		return getMessageBuilderFactory()
+				.withPayload(result)
+				.copyHeaders(message.getHeaders())
+				.setHeader(FileHeaders.FILENAME, fileName)
+				.setHeader(ZipHeaders.ZIP_BYTES_IN, bytesIn)
+				.setHeader(ZipHeaders.ZIP_BYTES_OUT, bytesOut)
+				.setHeader(ZipHeaders.ZIP_THROUGHPUT, bytesIn * 1000 / elapsed)
+				.build();
+	}
+
+	/**
+	 * Open the payload for reading. Supports {@link File}, {@link InputStream} and
+	 * byte[] payloads; subclasses may support further types.
+	 *
+	 * @param payload The payload, never null.
+	 * @return The stream to read from.
+	 * @throws IOException if the payload cannot be opened.
+	 */
+	protected InputStream openPayload(Object payload) throws IOException {
+		if (payload instanceof File) {
+			final File filePayload = (File) payload;
+			if (filePayload.isDirectory()) {
+				throw new UnsupportedOperationException(String.format("Cannot process a directory: '%s'",
+						filePayload.getAbsolutePath()));
+			}
+			return new FileInputStream(filePayload);
+		}
+		else if (payload instanceof InputStream) {
+			return (InputStream) payload;
+		}
+		else if (payload instanceof byte[]) {
+			return new ByteArrayInputStream((byte[]) payload);
+		}
+		else {
+			throw new IllegalArgumentException(String.format("Unsupported payload type '%s'. " +
+					"The only supported payload types are java.io.File, byte[] and java.io.InputStream",
+					payload.getClass().getSimpleName()));
+		}
+	}
+
+	/**
+	 * @param message The message to transform.
+	 * @return The name of the resulting file.
+	 */
+	protected abstract String generateFileName(Message<?> message);
+
+	/**
+	 * Wrap the stream with the compressing stream of the codec, borrowing from the
+	 * {@link CompressionResourcePool} if one is set and the codec supports it.
+	 *
+	 * @param outputStream The stream to write the compressed data to.
+	 * @return The compressing stream.
+	 * @throws IOException if the stream cannot be initialized.
+	 */
+	protected OutputStream compress(OutputStream outputStream) throws IOException {
+		final CompressionResourcePool pool = this.resourcePool;
+		final CompressionCodec codec = this.codec;
+		if (pool != null && codec instanceof PooledCompressionCodec) {
+			return ((PooledCompressionCodec) codec).compress(outputStream, pool);
+		}
+		return codec.compress(outputStream);
+	}
+
+	/**
+	 * Wrap the stream with the decompressing stream of the codec, borrowing from the
+	 * {@link CompressionResourcePool} if one is set and the codec supports it.
+	 *
+	 * @param inputStream The stream to read the compressed data from.
+	 * @return The decompressing stream.
+	 * @throws IOException if the stream cannot be initialized.
+	 */
+	protected InputStream decompress(InputStream inputStream) throws IOException {
+		final CompressionResourcePool pool = this.resourcePool;
+		final CompressionCodec codec = this.codec;
+		if (pool != null && codec instanceof PooledCompressionCodec) {
+			return ((PooledCompressionCodec) codec).decompress(inputStream, pool);
+		}
+		return codec.decompress(inputStream);
+	}
+
+	/**
+	 * Transfer all data from the input stream to the output stream, applying the codec.
+	 * The output stream must be closed to flush all data; the input stream is closed by
+	 * the caller in any case.
+	 *
+	 * @param inputStream The stream to read from.
+	 * @param outputStream The stream to write to.
+	 * @throws IOException if the transfer fails.
+	 */
+	protected abstract void transfer(InputStream inputStream, OutputStream outputStream) throws IOException;
+
+}
@@ -17,13 +17,18 @@
 package org.springframework.integration.zip.transformer;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.integration.file.DefaultFileNameGenerator;
 import org.springframework.integration.file.FileNameGenerator;
 import org.springframework.integration.transformer.AbstractTransformer;
+import org.springframework.integration.zip.support.CompressionResourcePool;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
 
@@ -38,6 +43,11 @@ public abstract class AbstractZipTransformer extends AbstractTransformer {
 
 	private static final Log logger = LogFactory.getLog(ZipTransformer.class);
 
+	/**
+	 * The suffix of the files being written into the work directory.
+	 */
+	protected static final String TEMPORARY_FILE_SUFFIX = ".writing";
+
 	protected volatile Charset charset = Charset.defaultCharset();
 
 	protected volatile FileNameGenerator fileNameGenerator;
@@ -49,6 +59,8 @@ public abstract class AbstractZipTransformer extends AbstractTransformer {
 
 	protected volatile boolean deleteFiles;
 
+	protected volatile CompressionResourcePool resourcePool;
+
 	/**
 	 * If the payload is an instance of {@link File}, this property specifies
 	 * whether to delete the {@link File} after transformation.
@@ -60,6 +72,17 @@ public abstract class AbstractZipTransformer extends AbstractTransformer {
 		this.deleteFiles = deleteFiles;
 	}
 
+	/**
+	 * Specify a {@link CompressionResourcePool} to borrow deflaters, inflaters and
+	 * buffers from. A single pool is typically shared by all Zip components of an
+	 * application. By default nothing is pooled.
+	 *
+	 * @param resourcePool The pool, may be null
+	 */
+	public void setResourcePool(CompressionResourcePool resourcePool) {
+		this.resourcePool = resourcePool;
+	}
+
 	/**
 	 * Set the work-directory. The work directory is used when the {@link ZipResultType}
 	 * is set to {@link ZipResultType#FILE}. By default this property is set to
@@ -120,6 +143,24 @@ public abstract class AbstractZipTransformer extends AbstractTransformer {
 		return doZipTransform(message);
 	}
 
+	/**
+	 * Replace the target file with the completely written temporary file, so that
+	 * other processes never observe a partially written file in the work directory.
+	 *
+	 * @param temporaryFile The completely written file.
+	 * @param targetFile The file to create or replace.
+	 */
+	protected void commitFile(File temporaryFile, File targetFile) {
+		if (targetFile.exists() && !targetFile.delete()) {
+			throw new IllegalStateException(String.format("Failed to replace existing File '%s'.",
+					targetFile.getAbsolutePath()));
+		}
+		if (!temporaryFile.renameTo(targetFile)) {
+			throw new IllegalStateException(String.format("Failed to rename '%s' to '%s'.",
+					temporaryFile.getAbsolutePath(), targetFile.getAbsolutePath()));
+		}
+	}
+
 	/**
 	 * Subclasses must implement this method to provide the Zip transformation
 	 * logic.
@@ -130,4 +171,27 @@ public abstract class AbstractZipTransformer extends AbstractTransformer {
 	 */
 	protected abstract Object doZipTransform(Message<?> message) throws Exception;
 
+	/**
+	 * Copy the bytes of the input to the output stream, through a pooled buffer if a
+	 * {@link CompressionResourcePool} is set. Neither stream is closed.
+	 *
+	 * @param inputStream the stream to read from.
+	 * @param outputStream the stream to write to.
+	 * @return the number of bytes copied.
+	 * @throws IOException if the copy fails.
+	 */
+	protected long copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+		final CompressionResourcePool pool = this.resourcePool;
+		if (pool == null) {
+			return IOUtils.copyLarge(inputStream, outputStream);
+		}
+		final byte[] buffer = pool.borrowBuffer();
+		try {
+			return IOUtils.copyLarge(inputStream, outputStream, buffer);
+		}
+		finally {
+			pool.returnBuffer(buffer);
+		}
+	}
+
 }
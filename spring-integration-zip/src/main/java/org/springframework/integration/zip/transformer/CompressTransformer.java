@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.transformer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+
+import org.springframework.integration.zip.codec.CompressionCodec;
+import org.springframework.messaging.Message;
+
+/**
+ * Transformer implementation that compresses the message payload as a single stream with
+ * the configured {@link CompressionCodec}. In contrast to the {@link ZipTransformer}, no
+ * per-entry headers and no central directory are written, which makes it the better fit
+ * for compressing a single payload.
+ *
+ * The payload may encompass the following types:
+ *
+ * <ul>
+ *   <li>{@link java.io.File}</li>
+ *   <li>{@link String}</li>
+ *   <li>byte[]</li>
+ *   <li>{@link InputStream}</li>
+ * </ul>
+ *
+ * The name of the resulting file is the generated file name plus the
+ * {@link CompressionCodec#getFileExtension() file extension} of the codec.
+ *
+ * @since 1.0.0
+ */
+public class CompressTransformer extends AbstractCodecTransformer {
+
+	@Override
+	protected InputStream openPayload(Object payload) throws IOException {
+		if (payload instanceof String) {
+			return new ByteArrayInputStream(((String) payload).getBytes(this.charset));
+		}
+		return super.openPayload(payload);
+	}
+
+	@Override
+	protected String generateFileName(Message<?> message) {
+		return this.fileNameGenerator.generateFileName(message) + this.codec.getFileExtension();
+	}
+
+	@Override
+	protected void transfer(InputStream inputStream, OutputStream outputStream) throws IOException {
+		final OutputStream compressingStream = compress(outputStream);
+		try {
+			copy(inputStream, compressingStream);
+		}
+		finally {
+			compressingStream.close();
+		}
+	}
+
+}
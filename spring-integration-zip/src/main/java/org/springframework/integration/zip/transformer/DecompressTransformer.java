@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.transformer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+
+import org.springframework.integration.zip.codec.CompressionCodec;
+import org.springframework.messaging.Message;
+
+/**
+ * Transformer implementation that decompresses the message payload with the configured
+ * {@link CompressionCodec}.
+ *
+ * The payload may encompass the following types:
+ *
+ * <ul>
+ *   <li>{@link java.io.File}</li>
+ *   <li>byte[]</li>
+ *   <li>{@link InputStream}</li>
+ * </ul>
+ *
+ * The name of the resulting file is the generated file name without the
+ * {@link CompressionCodec#getFileExtension() file extension} of the codec.
+ *
+ * @since 1.0.0
+ */
+public class DecompressTransformer extends AbstractCodecTransformer {
+
+	@Override
+	protected String generateFileName(Message<?> message) {
+		final String fileName = this.fileNameGenerator.generateFileName(message);
+		final String fileExtension = this.codec.getFileExtension();
+		if (fileName.endsWith(fileExtension) && fileName.length() > fileExtension.length()) {
+			return fileName.substring(0, fileName.length() - fileExtension.length());
+		}
+		return fileName;
+	}
+
+	@Override
+	protected void transfer(InputStream inputStream, OutputStream outputStream) throws IOException {
+		final InputStream decompressingStream = decompress(inputStream);
+		try {
+			copy(decompressingStream, outputStream);
+		}
+		finally {
+			IOUtils.closeQuietly(decompressingStream);
+			outputStream.close();
+		}
+	}
+
+}
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collection;
+import java.util.zip.Deflater;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
@@ -34,6 +35,8 @@ import org.apache.commons.logging.LogFactory;
 import org.zeroturnaround.zip.ZipEntrySource;
 import org.zeroturnaround.zip.ZipException;
 
+import org.springframework.integration.zip.support.CompressionResourcePool;
+
 /**
  * Once the Spring Integration Zip support matures, we need to contribute the
  * methods in this utility class back to the ZT Zip project.
@@ -44,6 +47,8 @@ public class SpringZipUtils {
 
 	private static final Log logger = LogFactory.getLog(SpringZipUtils.class);
 
+	private static final int MAX_INITIAL_BUFFER_SIZE = 64 * 1024;
+
 	public static byte[] pack(Collection<ZipEntrySource> entries, int compressionLevel) {
 
 		if (logger.isDebugEnabled()) {
@@ -76,7 +81,14 @@ public class SpringZipUtils {
 
 	}
 
-	private static void pack(Collection<ZipEntrySource> entries, OutputStream outputStream, int compressionLevel) {
+	/**
+	 * Write the entries as zip archive to the provided {@link OutputStream}, which is
+	 * closed afterwards.
+	 * @param entries the entries to add
+	 * @param outputStream the target stream
+	 * @param compressionLevel the compression level
+	 */
+	public static void pack(Collection<ZipEntrySource> entries, OutputStream outputStream, int compressionLevel) {
 
 		ZipOutputStream out = null;
 		final BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
@@ -97,13 +109,62 @@ public class SpringZipUtils {
 
 	}
 
+	/**
+	 * Write the entries as zip archive to the provided {@link OutputStream}, which is
+	 * closed afterwards. The {@link Deflater} and the copy buffer are borrowed from the
+	 * provided pool, the archive is the same as written by
+	 * {@link #pack(Collection, OutputStream, int)}.
+	 * @param entries the entries to add
+	 * @param outputStream the target stream
+	 * @param compressionLevel the compression level
+	 * @param resourcePool the pool to borrow the deflater and the buffer from
+	 */
+	public static void pack(Collection<ZipEntrySource> entries, OutputStream outputStream, int compressionLevel,
+			CompressionResourcePool resourcePool) {
+
+		final BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+		final Deflater deflater = resourcePool.borrowDeflater(compressionLevel, true);
+		final byte[] buffer = resourcePool.borrowBuffer();
+
+		try {
+			final PooledDeflaterZipOutputStream out = new PooledDeflaterZipOutputStream(bufferedOutputStream, deflater);
+			for (ZipEntrySource entry : entries) {
+				addEntry(entry, out, buffer);
+			}
+			out.finish();
+		}
+		catch (IOException e) {
+			throw rethrow(e);
+		}
+		finally {
+			/*
+			 * The ZipOutputStream itself is not closed, since it would end the pooled deflater.
+			 * Once finished, it holds no further data.
+			 */
+			IOUtils.closeQuietly(bufferedOutputStream);
+			resourcePool.returnBuffer(buffer);
+			resourcePool.returnDeflater(deflater, compressionLevel, true);
+		}
+
+	}
+
 	private static void addEntry(ZipEntrySource entry, ZipOutputStream out)
 			throws IOException {
+		addEntry(entry, out, null);
+	}
+
+	private static void addEntry(ZipEntrySource entry, ZipOutputStream out, byte[] buffer)
+			throws IOException {
 		out.putNextEntry(entry.getEntry());
 		InputStream in = entry.getInputStream();
 		if (in != null) {
 			try {
-				IOUtils.copy(in, out);
+				if (buffer != null) {
+					IOUtils.copyLarge(in, out, buffer);
+				}
+				else {
+					IOUtils.copy(in, out);
+				}
 			}
 			finally {
 				IOUtils.closeQuietly(in);
@@ -126,6 +187,36 @@ public class SpringZipUtils {
 		}
 	}
 
+	/**
+	 * Resolve the file a Zip entry is extracted to. Entry names are not trusted: an
+	 * entry that would resolve outside of the directory (e.g. {@code ../../file}) is
+	 * rejected.
+	 * @param directory the directory the entries are extracted to
+	 * @param zipEntryName the name of the entry
+	 * @return the file to extract the entry to
+	 * @throws IOException if the entry resolves outside of the directory
+	 */
+	public static File resolveEntryFile(File directory, String zipEntryName) throws IOException {
+		final String canonicalDirectory = directory.getCanonicalPath();
+		final File file = new File(directory, zipEntryName);
+		final String canonicalFile = file.getCanonicalPath();
+		if (!canonicalFile.startsWith(canonicalDirectory + File.separator)) {
+			throw new IOException(String.format("The Zip entry '%s' is outside of the target directory '%s'.",
+					zipEntryName, canonicalDirectory));
+		}
+		return file;
+	}
+
+	/**
+	 * The initial size of a buffer receiving the data of a Zip entry. The size declared
+	 * by the archive can't be trusted, so it is only a hint, capped at {@code 64K}.
+	 * @param declaredSize the size declared by the entry, {@code -1} if unknown
+	 * @return the initial buffer size
+	 */
+	public static int initialBufferSize(long declaredSize) {
+		return declaredSize < 0 ? MAX_INITIAL_BUFFER_SIZE / 16 : (int) Math.min(declaredSize, MAX_INITIAL_BUFFER_SIZE);
+	}
+
 	public byte[] copy(InputStream in) throws IOException {
 		return IOUtils.toByteArray(in);
 	}
@@ -144,4 +235,18 @@ public class SpringZipUtils {
 		}
 	}
 
+	/**
+	 * A {@link ZipOutputStream} deflating with the provided {@link Deflater} instead of
+	 * its own one, which is released right away.
+	 */
+	private static final class PooledDeflaterZipOutputStream extends ZipOutputStream {
+
+		PooledDeflaterZipOutputStream(OutputStream out, Deflater deflater) {
+			super(out);
+			this.def.end();
+			this.def = deflater;
+		}
+
+	}
+
 }
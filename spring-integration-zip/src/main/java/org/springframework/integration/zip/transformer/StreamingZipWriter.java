@@ -0,0 +1,592 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.transformer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.apache.commons.io.IOUtils;
+import org.zeroturnaround.zip.ZipEntrySource;
+
+import org.springframework.integration.zip.support.CompressionResourcePool;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Writes a zip archive straight to an {@link OutputStream}. Sizes and CRCs are written
+ * into a trailing data descriptor, so no entry has to be buffered as a whole.
+ *
+ * Without an {@link Executor}, each entry is deflated on the calling thread. With an
+ * {@link Executor}, the entries are read sequentially on the calling thread and cut into blocks of
+ * {@code blockSize} bytes. Each block is deflated independently as a raw deflate
+ * segment, primed with the last 32K of the preceding block as preset dictionary, and
+ * terminated with a sync flush, so the segments can simply be concatenated into a single
+ * valid deflate stream (the same approach as {@code pigz}). Hence even a single large
+ * entry is compressed on several cores. No more than a bounded number of blocks is
+ * buffered at any time.
+ *
+ * If a {@link CompressionResourcePool} is provided, the {@link Deflater}s and buffers
+ * are borrowed from it.
+ *
+ * Splitting entries into blocks requires the {@code Deflater} flush modes of Java 7;
+ * on older runtimes each entry is deflated as a single block.
+ *
+ * ZIP64 is not supported: archives and entries must be smaller than 4GB and contain less
+ * than 65535 entries.
+ *
+ * @since 1.0.0
+ */
+final class StreamingZipWriter {
+
+	static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+
+	private static final boolean SYNC_FLUSH_PRESENT =
+			ClassUtils.hasMethod(Deflater.class, "deflate", byte[].class, int.class, int.class, int.class);
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final long MAX_ZIP32_VALUE = 0xFFFFFFFFL;
+
+	private static final int MAX_ZIP32_ENTRIES = 0xFFFF;
+
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+	private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+	private static final int VERSION = 20;
+
+	/**
+	 * Bit 3: sizes and CRC in the data descriptor, bit 11: UTF-8 entry names.
+	 */
+	private static final int FLAGS = 0x0808;
+
+	private static final int METHOD_DEFLATED = 8;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Executor executor;
+
+	private final int compressionLevel;
+
+	private final int blockSize;
+
+	private final int maxBlocksInFlight;
+
+	private final CompressionResourcePool resourcePool;
+
+	/**
+	 * @param executor the executor to deflate the blocks with; may be null to deflate
+	 * each entry on the calling thread
+	 * @param compressionLevel the compression level
+	 * @param blockSize the block size, if an executor is provided
+	 * @param resourcePool the pool to borrow deflaters and buffers from; may be null
+	 */
+	StreamingZipWriter(Executor executor, int compressionLevel, int blockSize,
+			CompressionResourcePool resourcePool) {
+		Assert.isTrue(blockSize >= DICTIONARY_SIZE, "blockSize must not be less than " + DICTIONARY_SIZE);
+		this.executor = executor;
+		this.compressionLevel = compressionLevel;
+		this.blockSize = blockSize;
+		this.maxBlocksInFlight = 2 * Runtime.getRuntime().availableProcessors();
+		this.resourcePool = resourcePool;
+	}
+
+	void write(Collection<ZipEntrySource> entries, OutputStream outputStream) throws IOException {
+		final Writer writer = new Writer(outputStream);
+		try {
+			for (ZipEntrySource entry : entries) {
+				writer.addEntry(entry);
+			}
+			writer.finish();
+		}
+		finally {
+			writer.cancel();
+		}
+	}
+
+	private byte[] deflate(byte[] data, int length, byte[] dictionary, int dictionaryLength, boolean last) {
+		final Deflater deflater = obtainDeflater();
+		final byte[] buffer = obtainBuffer();
+		try {
+			if (dictionary != null) {
+				deflater.setDictionary(dictionary, dictionaryLength - DICTIONARY_SIZE, DICTIONARY_SIZE);
+			}
+			deflater.setInput(data, 0, length);
+			final ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 64);
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					out.write(buffer, 0, deflater.deflate(buffer));
+				}
+			}
+			else {
+				int count;
+				do {
+					count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					out.write(buffer, 0, count);
+				}
+				while (count == buffer.length);
+			}
+			return out.toByteArray();
+		}
+		finally {
+			releaseBuffer(buffer);
+			releaseDeflater(deflater);
+		}
+	}
+
+	private Deflater obtainDeflater() {
+		if (this.resourcePool != null) {
+			return this.resourcePool.borrowDeflater(this.compressionLevel, true);
+		}
+		return new Deflater(this.compressionLevel, true);
+	}
+
+	private void releaseDeflater(Deflater deflater) {
+		if (this.resourcePool != null) {
+			this.resourcePool.returnDeflater(deflater, this.compressionLevel, true);
+		}
+		else {
+			deflater.end();
+		}
+	}
+
+	private byte[] obtainBuffer() {
+		return this.resourcePool != null ? this.resourcePool.borrowBuffer() : new byte[BUFFER_SIZE];
+	}
+
+	private void releaseBuffer(byte[] buffer) {
+		if (this.resourcePool != null) {
+			this.resourcePool.returnBuffer(buffer);
+		}
+	}
+
+	private static int read(InputStream in, byte[] buffer) throws IOException {
+		int total = 0;
+		int count;
+		while (total < buffer.length && (count = in.read(buffer, total, buffer.length - total)) != -1) {
+			total += count;
+		}
+		return total;
+	}
+
+	private static long toDosTime(long time) {
+		final Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(time < 0 ? System.currentTimeMillis() : time);
+		final int year = calendar.get(Calendar.YEAR);
+		if (year < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (year - 1980) << 25
+				| (calendar.get(Calendar.MONTH) + 1) << 21
+				| calendar.get(Calendar.DAY_OF_MONTH) << 16
+				| calendar.get(Calendar.HOUR_OF_DAY) << 11
+				| calendar.get(Calendar.MINUTE) << 5
+				| calendar.get(Calendar.SECOND) >> 1;
+	}
+
+	/**
+	 * The state of a single archive being written.
+	 */
+	private final class Writer {
+
+		private final OutputStream out;
+
+		private final LinkedList<Object> pending = new LinkedList<Object>();
+
+		private final List<EntryRecord> records = new ArrayList<EntryRecord>();
+
+		private final Set<String> names = new HashSet<String>();
+
+		private final byte[] header = new byte[64];
+
+		private EntryRecord current;
+
+		private long written;
+
+		private int blocksInFlight;
+
+		Writer(OutputStream out) {
+			this.out = out;
+		}
+
+		void addEntry(ZipEntrySource entrySource) throws IOException {
+			final ZipEntry zipEntry = entrySource.getEntry();
+			if (!this.names.add(zipEntry.getName())) {
+				throw new ZipException("duplicate entry: " + zipEntry.getName());
+			}
+			final EntryRecord record = new EntryRecord(zipEntry);
+			this.records.add(record);
+
+			if (executor == null) {
+				final InputStream in = entrySource.getInputStream();
+				try {
+					deflateEntry(record, in);
+				}
+				finally {
+					IOUtils.closeQuietly(in);
+				}
+				return;
+			}
+
+			this.pending.add(record);
+
+			final CRC32 crc = new CRC32();
+			final InputStream in = entrySource.getInputStream();
+			try {
+				byte[] previous = null;
+				int previousLength = 0;
+				byte[] data = readBlock(in, crc);
+				int dataLength = data.length;
+				while (true) {
+					final byte[] next = dataLength > 0 && SYNC_FLUSH_PRESENT ? new byte[blockSize] : null;
+					final int nextLength = next != null ? read(in, next) : 0;
+					if (next != null) {
+						crc.update(next, 0, nextLength);
+					}
+					final boolean last = nextLength == 0;
+					submit(data, dataLength, previousLength >= DICTIONARY_SIZE ? previous : null,
+							previousLength, last);
+					if (last) {
+						break;
+					}
+					previous = data;
+					previousLength = dataLength;
+					data = next;
+					dataLength = nextLength;
+				}
+			}
+			finally {
+				IOUtils.closeQuietly(in);
+			}
+			record.crc = crc.getValue();
+			this.pending.add(new EntryEnd(record));
+		}
+
+		/**
+		 * Deflate the whole entry on the calling thread.
+		 */
+		private void deflateEntry(EntryRecord record, InputStream in) throws IOException {
+			writeLocalHeader(record);
+			final CRC32 crc = new CRC32();
+			final Deflater deflater = obtainDeflater();
+			final byte[] input = obtainBuffer();
+			final byte[] output = obtainBuffer();
+			try {
+				if (in != null) {
+					int count;
+					while ((count = in.read(input)) != -1) {
+						crc.update(input, 0, count);
+						record.size += count;
+						deflater.setInput(input, 0, count);
+						while (!deflater.needsInput()) {
+							writeDeflated(deflater, output, record);
+						}
+					}
+				}
+				deflater.finish();
+				while (!deflater.finished()) {
+					writeDeflated(deflater, output, record);
+				}
+			}
+			finally {
+				releaseBuffer(output);
+				releaseBuffer(input);
+				releaseDeflater(deflater);
+			}
+			record.crc = crc.getValue();
+			writeDataDescriptor(record);
+		}
+
+		private void writeDeflated(Deflater deflater, byte[] output, EntryRecord record) throws IOException {
+			final int count = deflater.deflate(output);
+			this.out.write(output, 0, count);
+			this.written += count;
+			record.compressedSize += count;
+		}
+
+		private byte[] readBlock(InputStream in, CRC32 crc) throws IOException {
+			final byte[] data;
+			if (in == null) {
+				data = new byte[0];
+			}
+			else if (SYNC_FLUSH_PRESENT) {
+				final byte[] buffer = new byte[blockSize];
+				final int length = read(in, buffer);
+				data = length == buffer.length ? buffer : copyOf(buffer, length);
+			}
+			else {
+				data = IOUtils.toByteArray(in);
+			}
+			crc.update(data, 0, data.length);
+			return data;
+		}
+
+		private byte[] copyOf(byte[] buffer, int length) {
+			final byte[] copy = new byte[length];
+			System.arraycopy(buffer, 0, copy, 0, length);
+			return copy;
+		}
+
+		private void submit(final byte[] data, final int length, final byte[] dictionary,
+				final int dictionaryLength, final boolean last) throws IOException {
+
+			final FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+
+				@Override
+				public byte[] call() throws Exception {
+					return deflate(data, length, dictionary, dictionaryLength, last);
+				}
+
+			});
+			this.pending.add(new Block(task, length));
+			this.blocksInFlight++;
+			executor.execute(task);
+			drain(maxBlocksInFlight);
+		}
+
+		void finish() throws IOException {
+			drain(0);
+			final long centralDirectoryOffset = this.written;
+			for (EntryRecord record : this.records) {
+				writeCentralHeader(record);
+			}
+			writeEnd(centralDirectoryOffset, this.written - centralDirectoryOffset);
+			this.out.flush();
+		}
+
+		void cancel() {
+			for (Object segment : this.pending) {
+				if (segment instanceof Block) {
+					((Block) segment).task.cancel(false);
+				}
+			}
+		}
+
+		/**
+		 * Write the head of the pipeline as far as it is complete, and block until no
+		 * more than {@code maxBlocks} deflate tasks are pending.
+		 */
+		private void drain(int maxBlocks) throws IOException {
+			while (!this.pending.isEmpty() && (this.blocksInFlight > maxBlocks || isWritable(this.pending.peek()))) {
+				final Object segment = this.pending.poll();
+				if (segment instanceof EntryRecord) {
+					writeLocalHeader((EntryRecord) segment);
+				}
+				else if (segment instanceof Block) {
+					this.blocksInFlight--;
+					writeBlock((Block) segment);
+				}
+				else {
+					writeDataDescriptor(((EntryEnd) segment).record);
+				}
+			}
+		}
+
+		private boolean isWritable(Object segment) {
+			return !(segment instanceof Block) || ((Block) segment).task.isDone();
+		}
+
+		private void writeBlock(Block block) throws IOException {
+			final byte[] deflated;
+			try {
+				deflated = block.task.get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for a deflated block", e);
+			}
+			catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new IOException(cause);
+			}
+			this.out.write(deflated);
+			this.written += deflated.length;
+			this.current.compressedSize += deflated.length;
+			this.current.size += block.length;
+		}
+
+		private void writeLocalHeader(EntryRecord record) throws IOException {
+			this.current = record;
+			record.offset = this.written;
+			int pos = 0;
+			pos = putInt(pos, LOCAL_HEADER_SIGNATURE);
+			pos = putShort(pos, VERSION);
+			pos = putShort(pos, FLAGS);
+			pos = putShort(pos, METHOD_DEFLATED);
+			pos = putInt(pos, record.dosTime);
+			pos = putInt(pos, 0);
+			pos = putInt(pos, 0);
+			pos = putInt(pos, 0);
+			pos = putShort(pos, record.name.length);
+			pos = putShort(pos, 0);
+			writeHeader(pos, record.name);
+		}
+
+		private void writeDataDescriptor(EntryRecord record) throws IOException {
+			if (record.size > MAX_ZIP32_VALUE || record.compressedSize > MAX_ZIP32_VALUE) {
+				throw new ZipException("Entry '" + record.entry.getName() + "' exceeds 4GB, which requires ZIP64.");
+			}
+			int pos = 0;
+			pos = putInt(pos, DATA_DESCRIPTOR_SIGNATURE);
+			pos = putInt(pos, record.crc);
+			pos = putInt(pos, record.compressedSize);
+			pos = putInt(pos, record.size);
+			writeHeader(pos, null);
+		}
+
+		private void writeCentralHeader(EntryRecord record) throws IOException {
+			if (record.offset > MAX_ZIP32_VALUE) {
+				throw new ZipException("The archive exceeds 4GB, which requires ZIP64.");
+			}
+			int pos = 0;
+			pos = putInt(pos, CENTRAL_HEADER_SIGNATURE);
+			pos = putShort(pos, VERSION);
+			pos = putShort(pos, VERSION);
+			pos = putShort(pos, FLAGS);
+			pos = putShort(pos, METHOD_DEFLATED);
+			pos = putInt(pos, record.dosTime);
+			pos = putInt(pos, record.crc);
+			pos = putInt(pos, record.compressedSize);
+			pos = putInt(pos, record.size);
+			pos = putShort(pos, record.name.length);
+			pos = putShort(pos, 0);
+			pos = putShort(pos, 0);
+			pos = putShort(pos, 0);
+			pos = putShort(pos, 0);
+			pos = putInt(pos, 0);
+			pos = putInt(pos, record.offset);
+			writeHeader(pos, record.name);
+		}
+
+		private void writeEnd(long offset, long length) throws IOException {
+			if (this.records.size() > MAX_ZIP32_ENTRIES || offset > MAX_ZIP32_VALUE) {
+				throw new ZipException("The archive exceeds 4GB or 65535 entries, which requires ZIP64.");
+			}
+			int pos = 0;
+			pos = putInt(pos, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+			pos = putShort(pos, 0);
+			pos = putShort(pos, 0);
+			pos = putShort(pos, this.records.size());
+			pos = putShort(pos, this.records.size());
+			pos = putInt(pos, length);
+			pos = putInt(pos, offset);
+			pos = putShort(pos, 0);
+			writeHeader(pos, null);
+		}
+
+		private void writeHeader(int length, byte[] name) throws IOException {
+			this.out.write(this.header, 0, length);
+			this.written += length;
+			if (name != null) {
+				this.out.write(name);
+				this.written += name.length;
+			}
+		}
+
+		private int putShort(int pos, int value) {
+			this.header[pos] = (byte) value;
+			this.header[pos + 1] = (byte) (value >>> 8);
+			return pos + 2;
+		}
+
+		private int putInt(int pos, long value) {
+			putShort(pos, (int) (value & 0xFFFF));
+			putShort(pos + 2, (int) ((value >>> 16) & 0xFFFF));
+			return pos + 4;
+		}
+
+	}
+
+	private static final class EntryRecord {
+
+		private final ZipEntry entry;
+
+		private final byte[] name;
+
+		private final long dosTime;
+
+		private long offset;
+
+		private long crc;
+
+		private long size;
+
+		private long compressedSize;
+
+		EntryRecord(ZipEntry entry) {
+			this.entry = entry;
+			this.name = entry.getName().getBytes(UTF_8);
+			this.dosTime = toDosTime(entry.getTime());
+		}
+
+	}
+
+	private static final class EntryEnd {
+
+		private final EntryRecord record;
+
+		EntryEnd(EntryRecord record) {
+			this.record = record;
+		}
+
+	}
+
+	private static final class Block {
+
+		private final FutureTask<byte[]> task;
+
+		private final int length;
+
+		Block(FutureTask<byte[]> task, int length) {
+			this.task = task;
+			this.length = length;
+		}
+
+	}
+
+}
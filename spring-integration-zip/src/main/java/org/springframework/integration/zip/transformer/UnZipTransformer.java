@@ -17,13 +17,25 @@
 package org.springframework.integration.zip.transformer;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
@@ -34,6 +46,7 @@ import org.zeroturnaround.zip.ZipUtil;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHandlingException;
 import org.springframework.messaging.MessagingException;
+import org.springframework.util.AntPathMatcher;
 
 /**
  * Transformer implementation that applies an UnZip transformation to the message
@@ -48,8 +61,16 @@ public class UnZipTransformer extends AbstractZipTransformer {
 
 	private static final Log logger = LogFactory.getLog(UnZipTransformer.class);
 
+	private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
 	private volatile boolean expectSingleResult = false;
 
+	private volatile Executor taskExecutor;
+
+	private volatile String[] includePatterns;
+
+	private volatile String[] excludePatterns;
+
 	/**
 	 *
 	 * This parameter indicates that only one result object shall be returned as
@@ -71,6 +92,39 @@ public class UnZipTransformer extends AbstractZipTransformer {
 		this.expectSingleResult = expectSingleResult;
 	}
 
+	/**
+	 * Specify an {@link Executor} to inflate the entries of a {@link File} payload
+	 * concurrently. {@link File} payloads are read through the central directory of
+	 * the archive, so each entry can be inflated independently. {@code InputStream}
+	 * and {@code byte[]} payloads are always unzipped sequentially.
+	 * By default the entries are inflated on the calling thread.
+	 *
+	 * @param taskExecutor The executor, may be null
+	 */
+	public void setTaskExecutor(Executor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Ant-style patterns (see {@link AntPathMatcher}) the zip entry names must
+	 * match to be unzipped. All entries are unzipped if not set.
+	 *
+	 * @param includePatterns The patterns, may be null
+	 */
+	public void setIncludePatterns(String... includePatterns) {
+		this.includePatterns = includePatterns;
+	}
+
+	/**
+	 * Ant-style patterns (see {@link AntPathMatcher}) for zip entry names that shall
+	 * be skipped. Excluded entries of a {@link File} payload are never inflated.
+	 *
+	 * @param excludePatterns The patterns, may be null
+	 */
+	public void setExcludePatterns(String... excludePatterns) {
+		this.excludePatterns = excludePatterns;
+	}
+
 	@Override
 	protected Object doZipTransform(final Message<?> message) throws Exception {
 
@@ -81,6 +135,8 @@ public class UnZipTransformer extends AbstractZipTransformer {
 			InputStream inputStream = null;
 
 			try {
+				final SortedMap<String, Object> uncompressedData;
+
 				if (payload instanceof File) {
 					final File filePayload = (File) payload;
 
@@ -89,67 +145,23 @@ public class UnZipTransformer extends AbstractZipTransformer {
 								filePayload.getAbsolutePath()));
 					}
 
-					if (!SpringZipUtils.isValid(filePayload)) {
-						throw new IllegalStateException(String.format("Not a zip file: '%s'.",
-								filePayload.getAbsolutePath()));
-					}
-
-					inputStream = new FileInputStream(filePayload);
-				}
-				else if (payload instanceof InputStream) {
-					inputStream = (InputStream) payload;
-				}
-				else if (payload instanceof byte[]) {
-					inputStream = new ByteArrayInputStream((byte[]) payload);
+					uncompressedData = unzipFile(filePayload, message);
 				}
 				else {
-					throw new IllegalArgumentException(String.format("Unsupported payload type '%s'. " +
-							"The only supported payload types are java.io.File, byte[] and java.io.InputStream",
-							payload.getClass().getSimpleName()));
-				}
-
-				final SortedMap<String, Object> uncompressedData = new TreeMap<String, Object>();
-
-				ZipUtil.iterate(inputStream, new ZipEntryCallback() {
-
-					@Override
-					public void process(InputStream zipEntryInputStream, ZipEntry zipEntry) throws IOException {
-
-						final String zipEntryName = zipEntry.getName();
-						final long zipEntryTime = zipEntry.getTime();
-						final long zipEntryCompressedSize = zipEntry.getCompressedSize();
-						final String type = zipEntry.isDirectory() ? "directory" : "file";
-
-						if (logger.isInfoEnabled()) {
-							logger.info(String.format("Unpacking Zip Entry - Name: '%s',Time: '%s', " +
-									"Compressed Size: '%s', Type: '%s'",
-									zipEntryName, zipEntryTime, zipEntryCompressedSize, type));
-						}
-
-						if (ZipResultType.FILE.equals(zipResultType)) {
-							final File tempDir = new File(workDirectory, message.getHeaders().getId().toString());
-							tempDir.mkdirs(); //NOSONAR false positive
-							final File destinationFile = new File(tempDir, zipEntryName);
-
-							if (zipEntry.isDirectory()) {
-								destinationFile.mkdirs(); //NOSONAR false positive
-							}
-							else {
-								SpringZipUtils.copy(zipEntryInputStream, destinationFile);
-								uncompressedData.put(zipEntryName, destinationFile);
-							}
-						}
-						else if (ZipResultType.BYTE_ARRAY.equals(zipResultType)) {
-							if (!zipEntry.isDirectory()) {
-								byte[] data = IOUtils.toByteArray(zipEntryInputStream);
-								uncompressedData.put(zipEntryName, data);
-							}
-						}
-						else {
-							throw new IllegalStateException("Unsupported zipResultType " + zipResultType);
-						}
+					if (payload instanceof InputStream) {
+						inputStream = (InputStream) payload;
+					}
+					else if (payload instanceof byte[]) {
+						inputStream = new ByteArrayInputStream((byte[]) payload);
+					}
+					else {
+						throw new IllegalArgumentException(String.format("Unsupported payload type '%s'. " +
+								"The only supported payload types are java.io.File, byte[] and java.io.InputStream",
+								payload.getClass().getSimpleName()));
 					}
-				});
+
+					uncompressedData = unzipStream(inputStream, message);
+				}
 
 				if (uncompressedData.isEmpty()) {
 					if (logger.isWarnEnabled()) {
@@ -193,4 +205,230 @@ public class UnZipTransformer extends AbstractZipTransformer {
 		}
 	}
 
+	/**
+	 * Sequentially unzip an archive that can only be read as a stream.
+	 */
+	private SortedMap<String, Object> unzipStream(InputStream inputStream, final Message<?> message) {
+		final SortedMap<String, Object> uncompressedData = new TreeMap<String, Object>();
+
+		ZipUtil.iterate(inputStream, new ZipEntryCallback() {
+
+			@Override
+			public void process(InputStream zipEntryInputStream, ZipEntry zipEntry) throws IOException {
+				if (isIncluded(zipEntry)) {
+					final Object data = unzipEntry(zipEntryInputStream, zipEntry, message);
+					if (data != null) {
+						uncompressedData.put(zipEntry.getName(), data);
+					}
+				}
+			}
+
+		});
+
+		return uncompressedData;
+	}
+
+	/**
+	 * Unzip an archive by means of its central directory. Only the included entries
+	 * are inflated; with a {@link #setTaskExecutor(Executor) taskExecutor} they are
+	 * inflated concurrently.
+	 */
+	private SortedMap<String, Object> unzipFile(File file, final Message<?> message) throws Exception {
+		final ZipFile zipFile;
+		try {
+			zipFile = new ZipFile(file);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(String.format("Not a zip file: '%s'.", file.getAbsolutePath()), e);
+		}
+
+		final List<UnzipEntryTask> tasks = new ArrayList<UnzipEntryTask>();
+		final List<String> zipEntryNames = new ArrayList<String>();
+
+		try {
+			final Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+			while (zipEntries.hasMoreElements()) {
+				final ZipEntry zipEntry = zipEntries.nextElement();
+				if (!isIncluded(zipEntry)) {
+					continue;
+				}
+				final UnzipEntryTask task = new UnzipEntryTask(new Callable<Object>() {
+
+					@Override
+					public Object call() throws Exception {
+						InputStream zipEntryInputStream = null;
+						try {
+							zipEntryInputStream = zipFile.getInputStream(zipEntry);
+							return unzipEntry(zipEntryInputStream, zipEntry, message);
+						}
+						finally {
+							IOUtils.closeQuietly(zipEntryInputStream);
+						}
+					}
+
+				});
+				tasks.add(task);
+				zipEntryNames.add(zipEntry.getName());
+				if (this.taskExecutor != null) {
+					this.taskExecutor.execute(task);
+				}
+				else {
+					task.run();
+				}
+			}
+
+			final SortedMap<String, Object> uncompressedData = new TreeMap<String, Object>();
+
+			for (int i = 0; i < tasks.size(); i++) {
+				final Object data;
+				try {
+					data = tasks.get(i).get();
+				}
+				catch (ExecutionException e) {
+					final Throwable cause = e.getCause();
+					throw cause instanceof Exception ? (Exception) cause : e;
+				}
+				if (data != null) {
+					uncompressedData.put(zipEntryNames.get(i), data);
+				}
+			}
+
+			return uncompressedData;
+		}
+		finally {
+			// tasks that are already reading must finish before the ZipFile is closed underneath them
+			for (UnzipEntryTask task : tasks) {
+				if (!task.cancelIfNotStarted()) {
+					task.awaitQuietly();
+				}
+			}
+			IOUtils.closeQuietly(zipFile);
+		}
+	}
+
+	/**
+	 * @return the unzipped entry data or {@code null} for directory entries.
+	 */
+	private Object unzipEntry(InputStream zipEntryInputStream, ZipEntry zipEntry, Message<?> message)
+			throws IOException {
+
+		final String zipEntryName = zipEntry.getName();
+		final long zipEntryTime = zipEntry.getTime();
+		final long zipEntryCompressedSize = zipEntry.getCompressedSize();
+		final String type = zipEntry.isDirectory() ? "directory" : "file";
+
+		if (logger.isInfoEnabled()) {
+			logger.info(String.format("Unpacking Zip Entry - Name: '%s',Time: '%s', " +
+					"Compressed Size: '%s', Type: '%s'",
+					zipEntryName, zipEntryTime, zipEntryCompressedSize, type));
+		}
+
+		if (ZipResultType.FILE.equals(this.zipResultType)) {
+			final File tempDir = new File(this.workDirectory, message.getHeaders().getId().toString());
+			final File destinationFile = SpringZipUtils.resolveEntryFile(tempDir, zipEntryName);
+
+			if (zipEntry.isDirectory()) {
+				destinationFile.mkdirs(); //NOSONAR false positive
+				return null;
+			}
+			else {
+				destinationFile.getParentFile().mkdirs(); //NOSONAR false positive
+				final OutputStream outputStream = new FileOutputStream(destinationFile);
+				try {
+					copy(zipEntryInputStream, outputStream);
+				}
+				finally {
+					IOUtils.closeQuietly(outputStream);
+				}
+				return destinationFile;
+			}
+		}
+		else if (ZipResultType.BYTE_ARRAY.equals(this.zipResultType)) {
+			if (!zipEntry.isDirectory()) {
+				final ByteArrayOutputStream outputStream =
+						new ByteArrayOutputStream(SpringZipUtils.initialBufferSize(zipEntry.getSize()));
+				copy(zipEntryInputStream, outputStream);
+				return outputStream.toByteArray();
+			}
+			return null;
+		}
+		else {
+			throw new IllegalStateException("Unsupported zipResultType " + this.zipResultType);
+		}
+	}
+
+	private boolean isIncluded(ZipEntry zipEntry) {
+		final String zipEntryName = zipEntry.getName();
+		if (this.includePatterns != null && !matchesAny(this.includePatterns, zipEntryName)) {
+			return false;
+		}
+		return this.excludePatterns == null || !matchesAny(this.excludePatterns, zipEntryName);
+	}
+
+	private boolean matchesAny(String[] patterns, String zipEntryName) {
+		for (String pattern : patterns) {
+			if (this.pathMatcher.match(pattern, zipEntryName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A {@link FutureTask} that can be withdrawn only as long as no thread has picked
+	 * it up, so the caller knows which entries may still be reading from the archive.
+	 */
+	private static final class UnzipEntryTask extends FutureTask<Object> {
+
+		private final AtomicBoolean claimed = new AtomicBoolean();
+
+		UnzipEntryTask(Callable<Object> callable) {
+			super(callable);
+		}
+
+		@Override
+		public void run() {
+			if (this.claimed.compareAndSet(false, true)) {
+				super.run();
+			}
+		}
+
+		/**
+		 * @return true if the task had not started and will never run.
+		 */
+		boolean cancelIfNotStarted() {
+			if (this.claimed.compareAndSet(false, true)) {
+				cancel(false);
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Wait for a started task to complete, ignoring its outcome.
+		 */
+		void awaitQuietly() {
+			boolean interrupted = false;
+			while (true) {
+				try {
+					get();
+					break;
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+				catch (ExecutionException e) {
+					break;
+				}
+				catch (CancellationException e) {
+					break;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+	}
+
 }
@@ -16,12 +16,20 @@
 
 package org.springframework.integration.zip.transformer;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.zip.Deflater;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.zeroturnaround.zip.ByteSource;
@@ -33,7 +41,6 @@ import org.springframework.integration.transformer.Transformer;
 import org.springframework.integration.zip.ZipHeaders;
 import org.springframework.messaging.Message;
 import org.springframework.util.Assert;
-import org.springframework.util.FileCopyUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -62,6 +69,10 @@ public class ZipTransformer extends AbstractZipTransformer {
 
 	private volatile boolean useFileAttributes = true;
 
+	private volatile Executor taskExecutor;
+
+	private volatile int blockSize = StreamingZipWriter.DEFAULT_BLOCK_SIZE;
+
 	/**
 	 * Sets the compression level. Default is {@link Deflater#DEFAULT_COMPRESSION}.
 	 *
@@ -82,6 +93,39 @@ public class ZipTransformer extends AbstractZipTransformer {
 		this.useFileAttributes = useFileAttributes;
 	}
 
+	/**
+	 * Specify an {@link Executor} to deflate the zip entries concurrently. The entries
+	 * are cut into blocks of {@link #setBlockSize(int) blockSize} bytes, which are
+	 * deflated independently, so that even a single large entry is compressed on several
+	 * cores. With {@link ZipResultType#FILE} the archive is streamed straight into the
+	 * work directory.
+	 *
+	 * The entry sizes are recorded in data descriptors following the entries, and the
+	 * resulting archive does not support ZIP64, i.e. it must be smaller than {@code 4GB}
+	 * and contain less than 65535 entries. Without an executor, the archive is written
+	 * with the JDK's {@link java.util.zip.ZipOutputStream}, which has no such limit.
+	 *
+	 * By default the entries are deflated sequentially on the calling thread.
+	 *
+	 * @param taskExecutor The executor, may be null
+	 */
+	public void setTaskExecutor(Executor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * The size of the blocks deflated concurrently when a
+	 * {@link #setTaskExecutor(Executor) taskExecutor} is provided. Larger blocks give a
+	 * slightly better compression ratio, smaller blocks a better load distribution.
+	 * Default is {@code 128K}.
+	 *
+	 * @param blockSize Must not be less than {@code 32K}.
+	 */
+	public void setBlockSize(int blockSize) {
+		Assert.isTrue(blockSize >= 32 * 1024, "The blockSize must not be less than 32K");
+		this.blockSize = blockSize;
+	}
+
 	/**
 	 * The payload may encompass the following types:
 	 *
@@ -128,7 +172,7 @@ public class ZipTransformer extends AbstractZipTransformer {
 			lastModifiedDate = new Date();
 		}
 
-		java.util.List<ZipEntrySource> entries = new ArrayList<ZipEntrySource>();
+		List<ZipEntrySource> entries = new ArrayList<ZipEntrySource>();
 
 		if (payload instanceof Iterable<?>) {
 			int counter = 1;
@@ -157,20 +201,42 @@ public class ZipTransformer extends AbstractZipTransformer {
 			entries.add(zipEntrySource);
 		}
 
-		final byte[] zippedBytes = SpringZipUtils.pack(entries, this.compressionLevel);
+		long bytesIn = 0;
+		for (ZipEntrySource entry : entries) {
+			bytesIn += Math.max(entry.getEntry().getSize(), 0);
+		}
+
+		final long start = System.currentTimeMillis();
+		final long bytesOut;
 
 		if (ZipResultType.FILE.equals(this.zipResultType)) {
 			final File zippedFile = new File(this.workDirectory, zipFileName);
-			FileCopyUtils.copy(zippedBytes, zippedFile);
+			final File temporaryFile = new File(this.workDirectory, zipFileName + TEMPORARY_FILE_SUFFIX);
+			try {
+				pack(entries, new FileOutputStream(temporaryFile));
+				commitFile(temporaryFile, zippedFile);
+			}
+			finally {
+				if (temporaryFile.exists() && !temporaryFile.delete() && logger.isWarnEnabled()) {
+					logger.warn("Failed to delete File '" + temporaryFile + "'");
+				}
+			}
+			bytesOut = zippedFile.length();
 			zippedData = zippedFile;
 		}
 		else if (ZipResultType.BYTE_ARRAY.equals(this.zipResultType)) {
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			pack(entries, outputStream);
+			final byte[] zippedBytes = outputStream.toByteArray();
+			bytesOut = zippedBytes.length;
 			zippedData = zippedBytes;
 		}
 		else {
 			throw new IllegalStateException("Unsupported zipResultType " + this.zipResultType);
 		}
 
+		final long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+
 		if (this.deleteFiles) {
 			if (payload instanceof Iterable<?>) {
 				for (Object item : (Iterable<?>) payload) {
@@ -185,9 +251,35 @@ public class ZipTransformer extends AbstractZipTransformer {
 				.withPayload(zippedData)
 				.copyHeaders(message.getHeaders())
 				.setHeader(FileHeaders.FILENAME, zipFileName)
+				.setHeader(ZipHeaders.ZIP_BYTES_IN, bytesIn)
+				.setHeader(ZipHeaders.ZIP_BYTES_OUT, bytesOut)
+				.setHeader(ZipHeaders.ZIP_THROUGHPUT, bytesIn * 1000 / elapsed)
 				.build();
 	}
 
+	/**
+	 * Write the archive to the provided stream, which is closed afterwards.
+	 */
+	private void pack(List<ZipEntrySource> entries, OutputStream outputStream) throws IOException {
+		if (this.taskExecutor != null) {
+			final StreamingZipWriter writer = new StreamingZipWriter(this.taskExecutor, this.compressionLevel,
+					this.blockSize, this.resourcePool);
+			final OutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+			try {
+				writer.write(entries, bufferedOutputStream);
+			}
+			finally {
+				IOUtils.closeQuietly(bufferedOutputStream);
+			}
+		}
+		else if (this.resourcePool != null) {
+			SpringZipUtils.pack(entries, outputStream, this.compressionLevel, this.resourcePool);
+		}
+		else {
+			SpringZipUtils.pack(entries, outputStream, this.compressionLevel);
+		}
+	}
+
 	private void deleteFile(Object fileToDelete) {
 		if (fileToDelete instanceof File && !((File) fileToDelete).delete() && logger.isWarnEnabled()) {
 			logger.warn("Failed to delete File '" + fileToDelete + "'");
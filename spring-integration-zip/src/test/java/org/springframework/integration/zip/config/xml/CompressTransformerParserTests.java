@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.config.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.integration.endpoint.EventDrivenConsumer;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.integration.transformer.MessageTransformingHandler;
+import org.springframework.integration.zip.codec.CompressionCodec;
+import org.springframework.integration.zip.codec.DeflateCodec;
+import org.springframework.integration.zip.codec.GzipCodec;
+import org.springframework.integration.zip.transformer.AbstractCodecTransformer;
+import org.springframework.integration.zip.transformer.CompressTransformer;
+import org.springframework.integration.zip.transformer.DecompressTransformer;
+
+/**
+ * @since 1.0.0
+ */
+public class CompressTransformerParserTests {
+
+	private ConfigurableApplicationContext context;
+
+	@Before
+	public void setUp() {
+		this.context = new ClassPathXmlApplicationContext("CompressTransformerParserTests.xml", getClass());
+	}
+
+	@After
+	public void tearDown() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+	@Test
+	public void testCompressTransformerWithDefaults() {
+		final AbstractCodecTransformer transformer = getTransformer("compressTransformerWithDefaults");
+		assertTrue(transformer instanceof CompressTransformer);
+		assertTrue(getCodec(transformer) instanceof GzipCodec);
+	}
+
+	@Test
+	public void testCompressTransformerWithBuiltInCodec() {
+		final AbstractCodecTransformer transformer = getTransformer("compressTransformer");
+		assertTrue(transformer instanceof CompressTransformer);
+		assertTrue(getCodec(transformer) instanceof DeflateCodec);
+	}
+
+	@Test
+	public void testDecompressTransformerWithCodecRef() {
+		final AbstractCodecTransformer transformer = getTransformer("decompressTransformer");
+		assertTrue(transformer instanceof DecompressTransformer);
+		assertSame(this.context.getBean("customCodec"), getCodec(transformer));
+	}
+
+	private AbstractCodecTransformer getTransformer(String id) {
+		final EventDrivenConsumer consumer = this.context.getBean(id, EventDrivenConsumer.class);
+		final MessageTransformingHandler handler =
+				TestUtils.getPropertyValue(consumer, "handler", MessageTransformingHandler.class);
+		assertEquals("output", TestUtils.getPropertyValue(handler, "outputChannel.beanName"));
+		return TestUtils.getPropertyValue(handler, "transformer", AbstractCodecTransformer.class);
+	}
+
+	private CompressionCodec getCodec(AbstractCodecTransformer transformer) {
+		return TestUtils.getPropertyValue(transformer, "codec", CompressionCodec.class);
+	}
+
+}
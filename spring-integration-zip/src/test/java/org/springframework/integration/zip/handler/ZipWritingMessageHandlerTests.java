@@ -0,0 +1,261 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.integration.aggregator.HeaderAttributeCorrelationStrategy;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.zip.ZipHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * @since 1.0.0
+ */
+public class ZipWritingMessageHandlerTests {
+
+	@Rule
+	public TemporaryFolder testFolder = new TemporaryFolder();
+
+	private File workDir;
+
+	private QueueChannel output;
+
+	@Before
+	public void setup() throws IOException {
+		this.workDir = this.testFolder.newFolder();
+		this.output = new QueueChannel();
+	}
+
+	@Test
+	public void rollOverOnEntryCount() throws Exception {
+		final File inputFile = this.testFolder.newFile("input.txt");
+		FileUtils.writeStringToFile(inputFile, "File content");
+
+		final ZipWritingMessageHandler handler = createHandler();
+		handler.setMaxEntries(2);
+		handler.setDeleteFiles(true);
+		handler.afterPropertiesSet();
+
+		handler.handleMessage(MessageBuilder.withPayload("String content")
+				.setHeader(ZipHeaders.ZIP_ENTRY_FILE_NAME, "entry.txt")
+				.setHeader("foo", "bar")
+				.build());
+		assertNull(this.output.receive(0));
+		assertEquals(1, handler.getOpenArchiveCount());
+
+		handler.handleMessage(MessageBuilder.withPayload("byte[] content".getBytes())
+				.setHeader(ZipHeaders.ZIP_ENTRY_FILE_NAME, "entry.txt")
+				.build());
+
+		final Message<?> message = this.output.receive(0);
+		assertNotNull(message);
+		assertEquals(0, handler.getOpenArchiveCount());
+		assertEquals("bar", message.getHeaders().get("foo"));
+		assertEquals(2, message.getHeaders().get(ZipHeaders.ZIP_ENTRY_COUNT));
+		assertEquals(28L, message.getHeaders().get(ZipHeaders.ZIP_BYTES_IN));
+
+		final File zip = (File) message.getPayload();
+		assertEquals(zip.getName(), message.getHeaders().get(FileHeaders.FILENAME));
+		assertEquals(zip.length(), message.getHeaders().get(ZipHeaders.ZIP_BYTES_OUT));
+		assertEquals(1, this.workDir.list().length);
+		final List<String> contents = readEntries(zip, "entry.txt", "entry_1.txt");
+		assertEquals("String content", contents.get(0));
+		assertEquals("byte[] content", contents.get(1));
+
+		handler.handleMessage(MessageBuilder.withPayload(inputFile).build());
+		assertTrue(inputFile.exists());
+		assertNull(this.output.receive(0));
+
+		handler.stop();
+		final Message<?> flushed = this.output.receive(0);
+		assertNotNull(flushed);
+		assertEquals("File content", readEntries((File) flushed.getPayload(), "input.txt").get(0));
+		assertFalse(inputFile.exists());
+	}
+
+	@Test
+	public void missingFileOnlyRejectsItsMessage() throws Exception {
+		final File first = this.testFolder.newFile("first.txt");
+		FileUtils.writeStringToFile(first, "first");
+		final File missing = new File(this.testFolder.getRoot(), "missing.txt");
+
+		final ZipWritingMessageHandler handler = createHandler();
+		handler.setMaxEntries(3);
+		handler.setDeleteFiles(true);
+		handler.afterPropertiesSet();
+
+		handler.handleMessage(MessageBuilder.withPayload(first).build());
+		try {
+			handler.handleMessage(MessageBuilder.withPayload(missing).build());
+			fail("MessageHandlingException expected");
+		}
+		catch (MessageHandlingException e) {
+			assertTrue(e.getMessage().contains("missing.txt"));
+		}
+		assertEquals(1, handler.getOpenArchiveCount());
+		assertTrue(first.exists());
+
+		handler.handleMessage(MessageBuilder.withPayload("second")
+				.setHeader(ZipHeaders.ZIP_ENTRY_FILE_NAME, "second.txt")
+				.build());
+		handler.flush();
+
+		final Message<?> message = this.output.receive(0);
+		assertNotNull(message);
+		assertEquals(2, message.getHeaders().get(ZipHeaders.ZIP_ENTRY_COUNT));
+		final List<String> contents = readEntries((File) message.getPayload(), "first.txt", "second.txt");
+		assertEquals("first", contents.get(0));
+		assertEquals("second", contents.get(1));
+		assertFalse(first.exists());
+	}
+
+	@Test
+	public void archivePerCorrelationKey() throws Exception {
+		final ZipWritingMessageHandler handler = createHandler();
+		handler.setCorrelationStrategy(new HeaderAttributeCorrelationStrategy("group"));
+		handler.setMaxEntries(2);
+		handler.afterPropertiesSet();
+
+		for (int i = 0; i < 3; i++) {
+			handler.handleMessage(MessageBuilder.withPayload("a" + i).setHeader("group", "a").build());
+			handler.handleMessage(MessageBuilder.withPayload("b" + i).setHeader("group", "b").build());
+		}
+
+		final Message<?> first = this.output.receive(0);
+		assertEquals(2, first.getHeaders().get(ZipHeaders.ZIP_ENTRY_COUNT));
+		assertEquals("a", first.getHeaders().get("group"));
+		final Message<?> second = this.output.receive(0);
+		assertEquals("b", second.getHeaders().get("group"));
+		assertNull(this.output.receive(0));
+		assertEquals(2, handler.getOpenArchiveCount());
+
+		handler.flush();
+		assertEquals(1, this.output.receive(0).getHeaders().get(ZipHeaders.ZIP_ENTRY_COUNT));
+		assertEquals(1, this.output.receive(0).getHeaders().get(ZipHeaders.ZIP_ENTRY_COUNT));
+		assertEquals(0, handler.getOpenArchiveCount());
+	}
+
+	@Test
+	public void archiveFileNameIsSanitized() throws Exception {
+		final ZipWritingMessageHandler handler = createHandler();
+		handler.setCorrelationStrategy(new HeaderAttributeCorrelationStrategy("group"));
+		handler.afterPropertiesSet();
+
+		handler.handleMessage(MessageBuilder.withPayload("Hello World")
+				.setHeader(ZipHeaders.ZIP_ENTRY_FILE_NAME, "entry.txt")
+				.setHeader("group", "../a/b:c")
+				.build());
+		handler.flush();
+
+		final Message<?> message = this.output.receive(0);
+		final File archive = (File) message.getPayload();
+		assertEquals(this.workDir.getCanonicalFile(), archive.getCanonicalFile().getParentFile());
+		assertTrue(archive.getName().startsWith("___a_b_c_"));
+		assertEquals("../a/b:c", message.getHeaders().get(ZipHeaders.ZIP_CORRELATION_KEY));
+		assertEquals("Hello World", readEntries(archive, "entry.txt").get(0));
+	}
+
+	@Test
+	public void rollOverOnMaxAge() throws Exception {
+		final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.afterPropertiesSet();
+
+		final ZipWritingMessageHandler handler = createHandler();
+		handler.setMaxAge(100);
+		handler.setTaskScheduler(taskScheduler);
+		handler.afterPropertiesSet();
+
+		try {
+			handler.handleMessage(MessageBuilder.withPayload("Hello World")
+					.setHeader(ZipHeaders.ZIP_ENTRY_FILE_NAME, "entry.txt")
+					.build());
+
+			final Message<?> message = this.output.receive(10000);
+			assertNotNull(message);
+			assertEquals("Hello World", readEntries((File) message.getPayload(), "entry.txt").get(0));
+			assertEquals(0, handler.getOpenArchiveCount());
+		}
+		finally {
+			taskScheduler.destroy();
+		}
+	}
+
+	@Test
+	public void rollOverOnMaxBytes() throws Exception {
+		final ZipWritingMessageHandler handler = createHandler();
+		handler.setMaxBytes(1);
+		handler.afterPropertiesSet();
+
+		handler.handleMessage(MessageBuilder.withPayload("Hello World").build());
+
+		final Message<?> message = this.output.receive(0);
+		assertNotNull(message);
+		assertTrue((Long) message.getHeaders().get(ZipHeaders.ZIP_BYTES_OUT) > 0);
+	}
+
+	private ZipWritingMessageHandler createHandler() {
+		final ZipWritingMessageHandler handler = new ZipWritingMessageHandler();
+		handler.setWorkDirectory(this.workDir);
+		handler.setOutputChannel(this.output);
+		handler.setBeanFactory(mock(BeanFactory.class));
+		return handler;
+	}
+
+	private static List<String> readEntries(File file, String... entryNames) throws IOException {
+		final ZipFile zipFile = new ZipFile(file);
+		try {
+			assertEquals(entryNames.length, zipFile.size());
+			final List<String> contents = new ArrayList<String>();
+			for (String entryName : entryNames) {
+				final ZipEntry zipEntry = zipFile.getEntry(entryName);
+				assertNotNull(zipEntry);
+				contents.add(IOUtils.toString(zipFile.getInputStream(zipEntry)));
+			}
+			return contents;
+		}
+		finally {
+			zipFile.close();
+		}
+	}
+
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.splitter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.zip.ZipHeaders;
+import org.springframework.integration.zip.transformer.ZipResultType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandlingException;
+
+/**
+ * @since 1.0.0
+ */
+public class UnZipSplitterTests {
+
+	@Rule
+	public TemporaryFolder testFolder = new TemporaryFolder();
+
+	private File workDir;
+
+	private QueueChannel output;
+
+	@Before
+	public void setup() throws IOException {
+		this.workDir = this.testFolder.newFolder();
+		this.output = new QueueChannel();
+	}
+
+	@Test
+	public void splitInputStreamToByteArrays() throws IOException {
+		final InputStream is = new ClassPathResource("testzipdata/countries.zip").getInputStream();
+
+		final UnZipSplitter splitter = createSplitter(ZipResultType.BYTE_ARRAY);
+
+		splitter.handleMessage(MessageBuilder.withPayload(is).setHeader("foo", "bar").build());
+
+		Message<?> message = this.output.receive(0);
+		assertNotNull(message);
+		assertEquals("pl.txt", message.getHeaders().get(FileHeaders.FILENAME));
+		assertEquals("", message.getHeaders().get(ZipHeaders.ZIP_ENTRY_PATH));
+		assertEquals("bar", message.getHeaders().get("foo"));
+		assertTrue(message.getPayload() instanceof byte[]);
+
+		assertNotNull(this.output.receive(0));
+		assertNotNull(this.output.receive(0));
+
+		message = this.output.receive(0);
+		assertNotNull(message);
+		assertEquals("europe.txt", message.getHeaders().get(FileHeaders.FILENAME));
+		assertEquals("continents/", message.getHeaders().get(ZipHeaders.ZIP_ENTRY_PATH));
+
+		assertNotNull(this.output.receive(0));
+		assertNull(this.output.receive(0));
+	}
+
+	@Test
+	public void splitFileToFilesAndDelete() throws IOException {
+		final File inputFile = new File(this.workDir, "single.zip");
+		final FileOutputStream output = new FileOutputStream(inputFile);
+		IOUtils.copy(new ClassPathResource("testzipdata/single.zip").getInputStream(), output);
+		output.close();
+
+		final UnZipSplitter splitter = createSplitter(ZipResultType.FILE);
+		splitter.setDeleteFiles(true);
+
+		splitter.handleMessage(MessageBuilder.withPayload(inputFile).build());
+
+		Message<?> message = this.output.receive(0);
+		assertNotNull(message);
+		assertTrue(message.getPayload() instanceof File);
+		assertEquals("Spring Integration Rocks!", FileUtils.readFileToString((File) message.getPayload()));
+		assertNull(this.output.receive(0));
+		assertFalse(inputFile.exists());
+	}
+
+	@Test
+	public void splitInvalidZipProducesNothing() throws IOException {
+		final UnZipSplitter splitter = createSplitter(ZipResultType.BYTE_ARRAY);
+
+		splitter.handleMessage(MessageBuilder.withPayload("hello world".getBytes()).build());
+
+		assertNull(this.output.receive(0));
+	}
+
+	@Test
+	public void failingSendClosesStreamAndDeletesFile() throws IOException {
+		final File inputFile = new File(this.workDir, "countries.zip");
+		final FileOutputStream output = new FileOutputStream(inputFile);
+		IOUtils.copy(new ClassPathResource("testzipdata/countries.zip").getInputStream(), output);
+		output.close();
+
+		final AtomicInteger sent = new AtomicInteger();
+		final UnZipSplitter splitter = createSplitter(ZipResultType.BYTE_ARRAY, new MessageChannel() {
+
+			@Override
+			public boolean send(Message<?> message) {
+				return send(message, -1);
+			}
+
+			@Override
+			public boolean send(Message<?> message, long timeout) {
+				if (sent.incrementAndGet() > 1) {
+					throw new MessageDeliveryException(message, "intentional");
+				}
+				return true;
+			}
+
+		});
+		splitter.setDeleteFiles(true);
+
+		try {
+			splitter.handleMessage(MessageBuilder.withPayload(inputFile).build());
+			fail("MessageDeliveryException expected");
+		}
+		catch (MessageDeliveryException e) {
+			assertEquals("intentional", e.getMessage());
+		}
+		assertEquals(2, sent.get());
+		assertFalse(inputFile.exists());
+
+		final AtomicBoolean closed = new AtomicBoolean();
+		final InputStream is = new FilterInputStream(new ClassPathResource("testzipdata/countries.zip").getInputStream()) {
+
+			@Override
+			public void close() throws IOException {
+				closed.set(true);
+				super.close();
+			}
+
+		};
+		sent.set(0);
+		try {
+			splitter.handleMessage(MessageBuilder.withPayload(is).build());
+			fail("MessageDeliveryException expected");
+		}
+		catch (MessageDeliveryException e) {
+			assertEquals("intentional", e.getMessage());
+		}
+		assertTrue(closed.get());
+	}
+
+	@Test
+	public void splitDoesNotTrustDeclaredEntrySize() throws IOException {
+		final byte[] data = "Spring Integration Rocks!".getBytes();
+		final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(data);
+		deflater.finish();
+		final byte[] deflated = new byte[1024];
+		final int deflatedSize = deflater.deflate(deflated);
+		deflater.end();
+		final CRC32 crc = new CRC32();
+		crc.update(data);
+
+		final ZipEntry entry = new ZipEntry("big.txt");
+		entry.setSize(data.length);
+		entry.setCompressedSize(deflatedSize);
+		entry.setCrc(crc.getValue());
+		final ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+		final ZipOutputStream zipOutputStream = new ZipOutputStream(zipped);
+		zipOutputStream.putNextEntry(entry);
+		zipOutputStream.write(data);
+		zipOutputStream.close();
+
+		// declare an uncompressed size of almost 2GB in the local file header
+		final byte[] archive = zipped.toByteArray();
+		archive[22] = (byte) 0xf0;
+		archive[23] = (byte) 0xff;
+		archive[24] = (byte) 0xff;
+		archive[25] = (byte) 0x7f;
+
+		final UnZipSplitter splitter = createSplitter(ZipResultType.BYTE_ARRAY);
+		try {
+			splitter.handleMessage(MessageBuilder.withPayload(archive).build());
+			fail("MessageHandlingException expected");
+		}
+		catch (MessageHandlingException e) {
+			assertTrue(e.getCause() instanceof ZipException);
+		}
+		assertNull(this.output.receive(0));
+	}
+
+	@Test
+	public void splitRejectsEntryOutsideOfWorkDirectory() throws IOException {
+		final ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+		final ZipOutputStream zipOutputStream = new ZipOutputStream(zipped);
+		zipOutputStream.putNextEntry(new ZipEntry("../../evil.txt"));
+		zipOutputStream.write("Spring Integration Rocks!".getBytes());
+		zipOutputStream.close();
+
+		final UnZipSplitter splitter = createSplitter(ZipResultType.FILE);
+		try {
+			splitter.handleMessage(MessageBuilder.withPayload(zipped.toByteArray()).build());
+			fail("MessageHandlingException expected");
+		}
+		catch (MessageHandlingException e) {
+			assertTrue(e.getCause().getMessage().contains("outside of the target directory"));
+		}
+		assertNull(this.output.receive(0));
+		assertFalse(new File(this.workDir.getParentFile(), "evil.txt").exists());
+	}
+
+	private UnZipSplitter createSplitter(ZipResultType zipResultType) {
+		return createSplitter(zipResultType, this.output);
+	}
+
+	private UnZipSplitter createSplitter(ZipResultType zipResultType, MessageChannel outputChannel) {
+		final UnZipSplitter splitter = new UnZipSplitter();
+		splitter.setZipResultType(zipResultType);
+		splitter.setWorkDirectory(this.workDir);
+		splitter.setOutputChannel(outputChannel);
+		splitter.setBeanFactory(mock(BeanFactory.class));
+		splitter.afterPropertiesSet();
+		return splitter;
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+
+/**
+ * @since 1.0.0
+ */
+public class CompressionResourcePoolTests {
+
+	@Test
+	public void deflatersArePooledPerLevel() {
+		final CompressionResourcePool pool = new CompressionResourcePool();
+
+		final Deflater deflater = pool.borrowDeflater(9, true);
+		pool.returnDeflater(deflater, 9, true);
+
+		assertNotSame(deflater, pool.borrowDeflater(1, true));
+		assertNotSame(deflater, pool.borrowDeflater(9, false));
+		assertSame(deflater, pool.borrowDeflater(9, true));
+
+		assertEquals(1, pool.getDeflaterHits());
+		assertEquals(3, pool.getDeflaterMisses());
+		pool.destroy();
+	}
+
+	@Test
+	public void idleInstancesAreBounded() {
+		final CompressionResourcePool pool = new CompressionResourcePool(1, 1024);
+
+		final Inflater first = pool.borrowInflater(false);
+		final Inflater second = pool.borrowInflater(false);
+		pool.returnInflater(first, false);
+		pool.returnInflater(second, false);
+
+		assertSame(first, pool.borrowInflater(false));
+		assertNotSame(second, pool.borrowInflater(false));
+		assertEquals(1, pool.getInflaterHits());
+		assertEquals(3, pool.getInflaterMisses());
+
+		final byte[] buffer = pool.borrowBuffer();
+		assertEquals(1024, buffer.length);
+		pool.returnBuffer(buffer);
+		assertSame(buffer, pool.borrowBuffer());
+		assertEquals(1, pool.getBufferHits());
+		pool.destroy();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void foreignBuffersAreRejected() {
+		new CompressionResourcePool(1, 1024).returnBuffer(new byte[16]);
+	}
+
+}
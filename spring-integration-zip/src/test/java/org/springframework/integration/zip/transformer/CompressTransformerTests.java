@@ -0,0 +1,188 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.zip.transformer;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.zip.ZipHeaders;
+import org.springframework.integration.zip.codec.CompressionCodec;
+import org.springframework.integration.zip.codec.DeflateCodec;
+import org.springframework.integration.zip.codec.Lz4Codec;
+import org.springframework.integration.zip.codec.ZstdCodec;
+import org.springframework.integration.zip.support.CompressionResourcePool;
+import org.springframework.messaging.Message;
+
+/**
+ * @since 1.0.0
+ */
+public class CompressTransformerTests {
+
+	@Rule
+	public TemporaryFolder testFolder = new TemporaryFolder();
+
+	@Test
+	public void gzipStringToByteArrayAndBack() throws IOException {
+		final CompressTransformer compressTransformer = new CompressTransformer();
+		compressTransformer.setBeanFactory(mock(BeanFactory.class));
+		compressTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		compressTransformer.afterPropertiesSet();
+
+		final Message<?> compressed = compressTransformer.transform(MessageBuilder.withPayload("Hello World")
+				.setHeader(FileHeaders.FILENAME, "hello.txt")
+				.build());
+
+		Assert.assertEquals("hello.txt.gz", compressed.getHeaders().get(FileHeaders.FILENAME));
+		Assert.assertEquals(11L, compressed.getHeaders().get(ZipHeaders.ZIP_BYTES_IN));
+		final byte[] payload = (byte[]) compressed.getPayload();
+		Assert.assertEquals(Long.valueOf(payload.length), compressed.getHeaders().get(ZipHeaders.ZIP_BYTES_OUT));
+		Assert.assertEquals("Hello World", IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(payload))));
+
+		final DecompressTransformer decompressTransformer = new DecompressTransformer();
+		decompressTransformer.setBeanFactory(mock(BeanFactory.class));
+		decompressTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		decompressTransformer.afterPropertiesSet();
+
+		final Message<?> decompressed = decompressTransformer.transform(compressed);
+
+		Assert.assertEquals("hello.txt", decompressed.getHeaders().get(FileHeaders.FILENAME));
+		Assert.assertEquals("Hello World", new String((byte[]) decompressed.getPayload()));
+	}
+
+	@Test
+	public void deflateFileToFileAndBack() throws IOException {
+		final File workDirectory = this.testFolder.newFolder();
+		final File inputFile = this.testFolder.newFile("data.txt");
+		FileUtils.writeStringToFile(inputFile, "Spring Integration Rocks!");
+
+		final CompressTransformer compressTransformer = new CompressTransformer();
+		compressTransformer.setBeanFactory(mock(BeanFactory.class));
+		compressTransformer.setCodec(new DeflateCodec());
+		compressTransformer.setWorkDirectory(workDirectory);
+		compressTransformer.setDeleteFiles(true);
+		compressTransformer.afterPropertiesSet();
+
+		final Message<?> compressed = compressTransformer.transform(MessageBuilder.withPayload(inputFile).build());
+
+		final File compressedFile = (File) compressed.getPayload();
+		Assert.assertEquals("data.txt.zz", compressedFile.getName());
+		Assert.assertFalse(inputFile.exists());
+		Assert.assertArrayEquals(new String[] { "data.txt.zz" }, workDirectory.list());
+
+		final DecompressTransformer decompressTransformer = new DecompressTransformer();
+		decompressTransformer.setBeanFactory(mock(BeanFactory.class));
+		decompressTransformer.setCodec(new DeflateCodec());
+		decompressTransformer.setWorkDirectory(workDirectory);
+		decompressTransformer.afterPropertiesSet();
+
+		final Message<?> decompressed =
+				decompressTransformer.transform(MessageBuilder.withPayload(compressedFile).build());
+
+		final File decompressedFile = (File) decompressed.getPayload();
+		Assert.assertEquals("data.txt", decompressedFile.getName());
+		Assert.assertEquals("Spring Integration Rocks!", FileUtils.readFileToString(decompressedFile));
+	}
+
+	@Test
+	public void zstdBytesToBytesAndBack() {
+		roundTrip(new ZstdCodec(), "hello.txt.zst");
+	}
+
+	@Test
+	public void lz4BytesToBytesAndBack() {
+		roundTrip(new Lz4Codec(), "hello.txt.lz4");
+	}
+
+	@Test
+	public void deflateWithPooledResources() {
+		final CompressionResourcePool pool = new CompressionResourcePool();
+
+		final CompressTransformer compressTransformer = new CompressTransformer();
+		compressTransformer.setBeanFactory(mock(BeanFactory.class));
+		compressTransformer.setCodec(new DeflateCodec());
+		compressTransformer.setResourcePool(pool);
+		compressTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		compressTransformer.afterPropertiesSet();
+
+		final DecompressTransformer decompressTransformer = new DecompressTransformer();
+		decompressTransformer.setBeanFactory(mock(BeanFactory.class));
+		decompressTransformer.setCodec(new DeflateCodec());
+		decompressTransformer.setResourcePool(pool);
+		decompressTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		decompressTransformer.afterPropertiesSet();
+
+		for (int i = 0; i < 3; i++) {
+			final Message<?> compressed = compressTransformer.transform(MessageBuilder.withPayload("Hello World " + i)
+					.setHeader(FileHeaders.FILENAME, "hello.txt")
+					.build());
+			final Message<?> decompressed = decompressTransformer.transform(compressed);
+			Assert.assertEquals("Hello World " + i, new String((byte[]) decompressed.getPayload()));
+		}
+
+		Assert.assertEquals(1, pool.getDeflaterMisses());
+		Assert.assertEquals(2, pool.getDeflaterHits());
+		Assert.assertEquals(1, pool.getInflaterMisses());
+		Assert.assertEquals(2, pool.getInflaterHits());
+		pool.destroy();
+	}
+
+	private void roundTrip(CompressionCodec codec, String compressedFileName) {
+		final StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			text.append("Spring Integration Rocks! ");
+		}
+
+		final CompressTransformer compressTransformer = new CompressTransformer();
+		compressTransformer.setBeanFactory(mock(BeanFactory.class));
+		compressTransformer.setCodec(codec);
+		compressTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		compressTransformer.afterPropertiesSet();
+
+		final Message<?> compressed = compressTransformer.transform(MessageBuilder.withPayload(text.toString())
+				.setHeader(FileHeaders.FILENAME, "hello.txt")
+				.build());
+
+		Assert.assertEquals(compressedFileName, compressed.getHeaders().get(FileHeaders.FILENAME));
+		Assert.assertTrue(((byte[]) compressed.getPayload()).length < text.length() / 10);
+
+		final DecompressTransformer decompressTransformer = new DecompressTransformer();
+		decompressTransformer.setBeanFactory(mock(BeanFactory.class));
+		decompressTransformer.setCodec(codec);
+		decompressTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		decompressTransformer.afterPropertiesSet();
+
+		final Message<?> decompressed = decompressTransformer.transform(compressed);
+
+		Assert.assertEquals("hello.txt", decompressed.getHeaders().get(FileHeaders.FILENAME));
+		Assert.assertEquals(text.toString(), new String((byte[]) decompressed.getPayload()));
+	}
+
+}
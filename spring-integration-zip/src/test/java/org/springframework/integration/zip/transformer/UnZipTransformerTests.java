@@ -21,6 +21,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -230,6 +234,69 @@ public class UnZipTransformerTests {
 
 	}
 
+	@Test
+	public void unzipFileWithTaskExecutorAndPatterns() throws IOException {
+
+		final Resource resource = this.resourceLoader.getResource("classpath:testzipdata/countries.zip");
+		final File inputFile = new File(this.workDir, "countries.zip");
+
+		FileOutputStream output = new FileOutputStream(inputFile);
+		IOUtils.copy(resource.getInputStream(), output);
+		output.close();
+
+		final Message<File> message = MessageBuilder.withPayload(inputFile).build();
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		final UnZipTransformer unZipTransformer = new UnZipTransformer();
+		unZipTransformer.setZipResultType(ZipResultType.FILE);
+		unZipTransformer.setWorkDirectory(this.workDir);
+		unZipTransformer.setTaskExecutor(executor);
+		unZipTransformer.setIncludePatterns("**/*.txt");
+		unZipTransformer.setExcludePatterns("continents/asia.txt", "fr.*");
+		unZipTransformer.afterPropertiesSet();
+
+		try {
+			final Message<?> resultMessage = unZipTransformer.transform(message);
+
+			Assert.assertNotNull(resultMessage);
+
+			@SuppressWarnings("unchecked")
+			Map<String, File> unzippedData = (Map<String, File>) resultMessage.getPayload();
+
+			Assert.assertEquals(3, unzippedData.size());
+			Assert.assertEquals("[continents/europe.txt, de.txt, pl.txt]", unzippedData.keySet().toString());
+			Assert.assertEquals("Europe", FileUtils.readFileToString(unzippedData.get("continents/europe.txt")));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void unzipRejectsEntryOutsideOfWorkDirectory() throws IOException {
+
+		final File inputFile = new File(this.workDir, "evil.zip");
+		final ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(inputFile));
+		zipOutputStream.putNextEntry(new ZipEntry("../../evil.txt"));
+		zipOutputStream.write("Spring Integration Rocks!".getBytes());
+		zipOutputStream.close();
+
+		final UnZipTransformer unZipTransformer = new UnZipTransformer();
+		unZipTransformer.setZipResultType(ZipResultType.FILE);
+		unZipTransformer.setWorkDirectory(this.workDir);
+		unZipTransformer.afterPropertiesSet();
+
+		try {
+			unZipTransformer.transform(MessageBuilder.withPayload(inputFile).build());
+			Assert.fail("Expected a MessagingException to be thrown.");
+		}
+		catch (MessagingException e) {
+			Assert.assertTrue(e.getCause().getMessage().contains("outside of the target directory"));
+		}
+		Assert.assertFalse(new File(this.workDir.getParentFile(), "evil.txt").exists());
+	}
+
 	@Test
 	public void unzipInvalidZipFile() throws IOException, InterruptedException {
 
@@ -20,6 +20,7 @@ import static org.mockito.Mockito.mock;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.ArrayList;
@@ -29,7 +30,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -39,6 +46,7 @@ import org.zeroturnaround.zip.ZipUtil;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.zip.ZipHeaders;
+import org.springframework.integration.zip.support.CompressionResourcePool;
 import org.springframework.messaging.Message;
 
 /**
@@ -251,6 +259,171 @@ public class ZipTransformerTests {
 
 	}
 
+	@Test
+	public void zipFileReportsSizesAndLeavesNoTemporaryFile() throws IOException {
+
+		final File workDirectory = this.testFolder.newFolder();
+
+		final ZipTransformer zipTransformer = new ZipTransformer();
+		zipTransformer.setBeanFactory(mock(BeanFactory.class));
+		zipTransformer.setWorkDirectory(workDirectory);
+		zipTransformer.afterPropertiesSet();
+
+		final File testFile = createTestFile(100);
+
+		final Message<?> result = zipTransformer.transform(MessageBuilder.withPayload(testFile).build());
+
+		final File payload = (File) result.getPayload();
+
+		Assert.assertTrue(SpringZipUtils.isValid(payload));
+		Assert.assertEquals(Long.valueOf(testFile.length()), result.getHeaders().get(ZipHeaders.ZIP_BYTES_IN));
+		Assert.assertEquals(Long.valueOf(payload.length()), result.getHeaders().get(ZipHeaders.ZIP_BYTES_OUT));
+		Assert.assertNotNull(result.getHeaders().get(ZipHeaders.ZIP_THROUGHPUT));
+		Assert.assertArrayEquals(new String[] { payload.getName() }, workDirectory.list());
+	}
+
+	@Test
+	public void zipCollectionInParallel() throws IOException {
+
+		final StringBuilder largeText = new StringBuilder();
+		for (int i = 0; largeText.length() < 1024 * 1024; i++) {
+			largeText.append("Spring Integration Zip line ").append(i).append(i % 7 == 0 ? '\n' : ' ');
+		}
+
+		final List<Object> items = new ArrayList<Object>();
+		items.add(largeText.toString());
+		items.add("");
+		items.add("Hello World".getBytes());
+		items.add(largeText.substring(0, 100000));
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		final ZipTransformer zipTransformer = new ZipTransformer();
+		zipTransformer.setBeanFactory(mock(BeanFactory.class));
+		zipTransformer.setWorkDirectory(this.testFolder.newFolder());
+		zipTransformer.setTaskExecutor(executor);
+		zipTransformer.setBlockSize(64 * 1024);
+		zipTransformer.afterPropertiesSet();
+
+		try {
+			final Message<?> result = zipTransformer.transform(MessageBuilder.withPayload(items)
+					.setHeader(ZipHeaders.ZIP_ENTRY_FILE_NAME, "test.txt")
+					.build());
+
+			final File outputZipFile = (File) result.getPayload();
+			Assert.assertTrue(SpringZipUtils.isValid(outputZipFile));
+
+			final ZipFile zipFile = new ZipFile(outputZipFile);
+			try {
+				Assert.assertEquals(4, zipFile.size());
+				Assert.assertEquals(largeText.toString(),
+						IOUtils.toString(zipFile.getInputStream(zipFile.getEntry("test_1.txt"))));
+				Assert.assertEquals(0, zipFile.getEntry("test_2.txt").getSize());
+				Assert.assertEquals("Hello World",
+						IOUtils.toString(zipFile.getInputStream(zipFile.getEntry("test_3.txt"))));
+			}
+			finally {
+				zipFile.close();
+			}
+
+			final Set<String> names = new HashSet<String>();
+			final ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(outputZipFile));
+			try {
+				ZipEntry zipEntry;
+				while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+					names.add(zipEntry.getName());
+					if ("test_4.txt".equals(zipEntry.getName())) {
+						Assert.assertEquals(largeText.substring(0, 100000), IOUtils.toString(zipInputStream));
+					}
+				}
+			}
+			finally {
+				zipInputStream.close();
+			}
+			Assert.assertEquals(4, names.size());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void zipCollectionWithResourcePool() throws IOException {
+
+		final CompressionResourcePool resourcePool = new CompressionResourcePool();
+
+		final ZipTransformer zipTransformer = new ZipTransformer();
+		zipTransformer.setBeanFactory(mock(BeanFactory.class));
+		zipTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		zipTransformer.setResourcePool(resourcePool);
+		zipTransformer.afterPropertiesSet();
+
+		final List<String> items = new ArrayList<String>();
+		items.add("Hello World");
+		items.add("");
+
+		for (int i = 0; i < 3; i++) {
+			final Message<?> result = zipTransformer.transform(MessageBuilder.withPayload(items)
+					.setHeader(ZipHeaders.ZIP_ENTRY_FILE_NAME, "test.txt")
+					.build());
+
+			final byte[] zipped = (byte[]) result.getPayload();
+			final ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zipped));
+			try {
+				ZipEntry zipEntry = zipInputStream.getNextEntry();
+				Assert.assertEquals("test_1.txt", zipEntry.getName());
+				Assert.assertEquals("Hello World", IOUtils.toString(zipInputStream));
+				zipEntry = zipInputStream.getNextEntry();
+				Assert.assertEquals("test_2.txt", zipEntry.getName());
+				Assert.assertEquals("", IOUtils.toString(zipInputStream));
+				Assert.assertNull(zipInputStream.getNextEntry());
+			}
+			finally {
+				zipInputStream.close();
+			}
+		}
+
+		Assert.assertEquals(1, resourcePool.getDeflaterMisses());
+		Assert.assertEquals(2, resourcePool.getDeflaterHits());
+		Assert.assertEquals(1, resourcePool.getBufferMisses());
+		Assert.assertEquals(2, resourcePool.getBufferHits());
+		resourcePool.destroy();
+	}
+
+	@Test
+	public void zipWithResourcePoolKeepsArchiveLayout() throws IOException {
+
+		final CompressionResourcePool resourcePool = new CompressionResourcePool();
+
+		final ZipTransformer pooledZipTransformer = new ZipTransformer();
+		pooledZipTransformer.setBeanFactory(mock(BeanFactory.class));
+		pooledZipTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		pooledZipTransformer.setResourcePool(resourcePool);
+		pooledZipTransformer.afterPropertiesSet();
+
+		final ZipTransformer zipTransformer = new ZipTransformer();
+		zipTransformer.setBeanFactory(mock(BeanFactory.class));
+		zipTransformer.setZipResultType(ZipResultType.BYTE_ARRAY);
+		zipTransformer.afterPropertiesSet();
+
+		final StringBuilder payload = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			payload.append("Hello World ").append(i);
+		}
+
+		final Message<?> message = MessageBuilder.withPayload(payload.toString())
+				.setHeader(ZipHeaders.ZIP_ENTRY_FILE_NAME, "test.txt")
+				.setHeader(ZipHeaders.ZIP_ENTRY_LAST_MODIFIED_DATE, new Date(1000000000000L))
+				.build();
+
+		for (int i = 0; i < 2; i++) {
+			Assert.assertArrayEquals((byte[]) zipTransformer.transform(message).getPayload(),
+					(byte[]) pooledZipTransformer.transform(message).getPayload());
+		}
+		Assert.assertEquals(1, resourcePool.getDeflaterHits());
+		resourcePool.destroy();
+	}
+
 	private File createTestFile(int size) throws IOException {
 
 		final File temporaryTestDirectory = this.testFolder.newFolder();